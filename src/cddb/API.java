@@ -4,14 +4,23 @@
  */
 package cddb;
 
+import java.io.Closeable;
+import java.io.InputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 
-import java.net.HttpURLConnection;
-import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
 
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
@@ -27,9 +36,29 @@ import org.w3c.dom.ls.LSSerializer;
 import org.xml.sax.SAXException;
 
 /**
- * Single threaded Musicbrainz HTTP (client) interface.  A
- * multi-threaded user must ensure single threaded access to instances
- * of this class.
+ * Musicbrainz HTTP (client) interface, safe for multi-threaded use.
+ * 
+ * Requests are performed by a shared {@link Transport}, and parsed
+ * by a pool of XML parsers.  Asynchronous requests are performed
+ * concurrently, within the rate limit of the {@link Scheduler}.
+ * 
+ * Concurrent requests for the same URL (the same search, or the
+ * same MBID and 'inc') share one request in flight.  The users of
+ * a document request share its response body, and each parses its
+ * own document; the users of a record list share the unmodifiable
+ * list.
+ * 
+ * Requests are instrumented by {@link Stats}.
+ * 
+ * Streaming requests (reading {@link Record records}) are made in
+ * the default format, XML or JSON ("fmt=json"), and read by {@link
+ * RecordReader} or {@link JsonRecordReader}.  Document requests are
+ * made in XML.
+ * 
+ * <pre>
+ * cddb.host      Host (and port) of request URLs (musicbrainz.org)
+ * cddb.format    Format of streaming requests, "xml" or "json" (xml)
+ * </pre>
  */
 public class API extends Object {
 
@@ -39,35 +68,142 @@ public class API extends Object {
     public final static String HOST = "musicbrainz.org";
     public final static String PATH = "ws/2";
 
-    private final static String USERAGENT = "syntelos-cddb/0.0 (http://www.syntelos.org/)";
+    private static volatile String DefaultHost = System.getProperty("cddb.host",HOST);
+    /**
+     * @return Host (and optional port) of request URLs, by default
+     * {@link #HOST} or the value of system property "cddb.host"
+     * 
+     * @see StandIn
+     */
+    public static String GetDefaultHost(){
+	return DefaultHost;
+    }
+    /**
+     * @param host Host (and optional port) of subsequent request URLs,
+     * e.g. "localhost:7302"
+     */
+    public static void SetDefaultHost(String host){
+	if (null != host && 0 < host.length()){
+	    DefaultHost = host;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+    public final static String FORMAT_XML = "xml", FORMAT_JSON = "json";
+
+    private static volatile String DefaultFormat = Format(System.getProperty("cddb.format",FORMAT_XML));
+    /**
+     * @return Format of streaming requests, {@link #FORMAT_XML} or
+     * {@link #FORMAT_JSON}
+     */
+    public static String GetDefaultFormat(){
+	return DefaultFormat;
+    }
+    /**
+     * @param format Format of subsequent streaming requests, "xml" or
+     * "json"
+     */
+    public static void SetDefaultFormat(String format){
+	DefaultFormat = Format(format);
+    }
+    private final static String Format(String format){
+	if (FORMAT_XML.equals(format))
+	    return FORMAT_XML;
+	else if (FORMAT_JSON.equals(format))
+	    return FORMAT_JSON;
+	else
+	    throw new IllegalArgumentException(format);
+    }
+
 
     private final static DocumentBuilderFactory DBF = DocumentBuilderFactory.newInstance();
     static {
 	DBF.setNamespaceAware(true);
     }
+    /**
+     * Number of idle XML parsers retained
+     */
+    public final static int PARSERS = Integer.getInteger("cddb.parsers",Runtime.getRuntime().availableProcessors());
+
+    private final static ArrayBlockingQueue<DocumentBuilder> Parsers = new ArrayBlockingQueue<>(PARSERS);
+
+    /**
+     * The response bodies of document requests are coalesced, and
+     * each user parses its own document: a DOM is not safe for
+     * concurrent readers.
+     */
+    private final static SingleFlight<Body> BodyFlight = new SingleFlight<>();
+
+    private final static SingleFlight<List<Record>> RecordFlight = new SingleFlight<>();
     private final static org.w3c.dom.UserDataHandler UserDataHandler = null;
 
+    private static Transport DefaultTransport;
+    /**
+     * @return Shared transport, by default an instance of {@link
+     * HttpTransport} behind a {@link Scheduler}
+     */
+    public static synchronized Transport GetDefaultTransport(){
+	if (null == DefaultTransport){
+	    DefaultTransport = new Scheduler(new HttpTransport());
+	}
+	return DefaultTransport;
+    }
+    /**
+     * @param transport Shared transport for subsequently constructed
+     * instances of API
+     */
+    public static synchronized void SetDefaultTransport(Transport transport){
+	if (null != transport){
+	    DefaultTransport = transport;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
 
-    public final Entity entity;
-    /*
-     * Single threaded access
+
+    public final static int ASYNC = Integer.getInteger("cddb.async.threads",8);
+
+    private static ExecutorService DefaultExecutor;
+    /**
+     * @return Shared executor for asynchronous requests
      * 
-     * [see] "Single threaded block"
+     * @see #searchAsync
+     * @see #lookupAsync
+     * @see #lookupListAsync
      */
-    private final DocumentBuilder builder;
+    public static synchronized ExecutorService GetDefaultExecutor(){
+	if (null == DefaultExecutor){
+	    DefaultExecutor = Executors.newFixedThreadPool(ASYNC,new Threads("cddb-api"));
+	}
+	return DefaultExecutor;
+    }
+
+
+    public final Entity entity;
+
+    public final Transport transport;
 
 
     /**
      * 
      */
     public API(Entity entity){
+	this(entity,GetDefaultTransport());
+    }
+    /**
+     * 
+     */
+    public API(Entity entity, Transport transport){
 	super();
-	this.entity = entity;
-	try {
-	    this.builder = DBF.newDocumentBuilder();
+	if (null != entity && null != transport){
+	    this.entity = entity;
+	    this.transport = transport;
 	}
-	catch (ParserConfigurationException exc){
-	    throw new IllegalStateException("Error constructing XML parser",exc);
+	else {
+	    throw new IllegalArgumentException();
 	}
     }
 
@@ -80,10 +216,160 @@ public class API extends Object {
     public Document search(String query)
 	throws IOException
     {
+	return request(searchURL(query));
+    }
+    /**
+     * @param mbid The MBID required for MB lookups
+     * 
+     * @return XML document response (or exception)
+     */
+    public Document lookup(String mbid)
+	throws IOException
+    {
+	return lookup(mbid,null);
+    }
+    /**
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optionally non null string containing a comma
+     * separated list of one or more 'inc' parameter values.  For
+     * example, "recordings" will cause a track list to be found in a
+     * "release" lookup.
+     * 
+     * @return XML document response (or exception)
+     */
+    public Document lookup(String mbid, String inc)
+	throws IOException
+    {
+	return request(lookupURL(mbid,inc));
+    }
+    /**
+     * Streaming search.
+     * 
+     * @param Plain text query string
+     * 
+     * @return Reader of response records, which the caller must close
+     */
+    public RecordReader searchRecords(String query)
+	throws IOException
+    {
+	return records(searchURL(query));
+    }
+    /**
+     * Paginated search.  Pages of the argument size are requested as
+     * the records of the previous page are consumed.
+     * 
+     * @param Plain text query string
+     * @param limit Page size, at most {@link SearchReader#LIMIT}
+     * 
+     * @return Reader of search records, which the caller must close
+     * when it stops before the end
+     */
+    public SearchReader searchPages(String query, int limit){
+
+	return new SearchReader(this,query,limit);
+    }
+    /**
+     * Streaming lookup.
+     * 
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optional 'inc' parameter value
+     * 
+     * @return Reader of response records, which the caller must close
+     */
+    public RecordReader lookupRecords(String mbid, String inc)
+	throws IOException
+    {
+	return records(lookupURL(mbid,inc));
+    }
+    /**
+     * Coalesced streaming lookup.  Concurrent lookups of the same
+     * MBID and 'inc' share one request and its list of records.
+     * 
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optional 'inc' parameter value
+     * 
+     * @return Unmodifiable list of response records
+     */
+    public List<Record> lookupList(String mbid, String inc)
+	throws IOException
+    {
+	return list(lookupURL(mbid,inc));
+    }
+    /**
+     * Streaming browse.
+     * 
+     * @param linked Entity of the MBID, e.g. {@link Entity#ARTIST}
+     * @param mbid The MBID of the linked entity
+     * @param inc Optional 'inc' parameter value
+     * @param offset Browse result offset
+     * @param limit Browse result page size
+     * 
+     * @return Reader of response records, which the caller must close
+     */
+    public RecordReader browseRecords(Entity linked, String mbid, String inc, int offset, int limit)
+	throws IOException
+    {
+	return records(browseURL(linked,mbid,inc,offset,limit));
+    }
+    /**
+     * Asynchronous search.  Concurrent requests are admitted at the
+     * rate permitted by the {@link Scheduler}.
+     * 
+     * @param Plain text query string
+     * 
+     * @return Future XML document response (or exception)
+     */
+    public CompletableFuture<Document> searchAsync(String query){
+
+	return requestAsync(searchURL(query));
+    }
+    /**
+     * Asynchronous lookup.  Concurrent requests are admitted at the
+     * rate permitted by the {@link Scheduler}.
+     * 
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optional 'inc' parameter value
+     * 
+     * @return Future XML document response (or exception)
+     */
+    public CompletableFuture<Document> lookupAsync(String mbid, String inc){
+
+	return requestAsync(lookupURL(mbid,inc));
+    }
+    /**
+     * Asynchronous lookup, as for {@link #lookupList}.
+     * 
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optional 'inc' parameter value
+     * 
+     * @return Future unmodifiable list of response records (or
+     * exception)
+     */
+    public CompletableFuture<List<Record>> lookupListAsync(String mbid, String inc){
+
+	return listAsync(lookupURL(mbid,inc));
+    }
+    /**
+     * @param Plain text query string
+     * 
+     * @return Search request URL for the first (100) results
+     */
+    public String searchURL(String query){
+
+	return searchURL(query,0,100);
+    }
+    /**
+     * @param Plain text query string
+     * @param offset Search result offset
+     * @param limit Search result page size
+     * 
+     * @return Search request URL
+     */
+    public String searchURL(String query, int offset, int limit){
 	final StringBuilder url_builder = new StringBuilder();
 	{
 	    url_builder.append("http://");
-	    url_builder.append(HOST);
+	    url_builder.append(GetDefaultHost());
 	    url_builder.append('/');
 	    url_builder.append(PATH);
 	    url_builder.append('/');
@@ -95,122 +381,313 @@ public class API extends Object {
 	    url_builder.append('&');
 	    url_builder.append("offset");
 	    url_builder.append('=');
-	    url_builder.append(0);
+	    url_builder.append(offset);
 	    url_builder.append('&');
 	    url_builder.append("limit");
 	    url_builder.append('=');
-	    url_builder.append(100);
+	    url_builder.append(limit);
 	}
+	return url_builder.toString();
+    }
+    /**
+     * @param mbid The MBID required for MB lookups
+     * @param inc Optional 'inc' parameter value
+     * 
+     * @return Lookup request URL
+     */
+    public String lookupURL(String mbid, String inc){
+	final StringBuilder url_builder = new StringBuilder();
+	{
+	    url_builder.append("http://");
+	    url_builder.append(GetDefaultHost());
+	    url_builder.append('/');
+	    url_builder.append(PATH);
+	    url_builder.append('/');
+	    url_builder.append(entity.path);
+	    url_builder.append('/');
+	    url_builder.append(mbid);
+	    if (null != inc){
+		url_builder.append('?');
+		url_builder.append("inc");
+		url_builder.append('=');
+		url_builder.append(URLEncoder.encode(inc));
+	    }
+	}
+	return url_builder.toString();
+    }
+    /**
+     * @param url Request URL
+     * 
+     * @return Reader of response records (or exception)
+     */
+    protected RecordReader records(String url)
+	throws IOException
+    {
+	final boolean json = (FORMAT_JSON == GetDefaultFormat());
+	final String url_string = (json)?(Json(url)):(url);
 
-	final String url_string = url_builder.toString();
-
-	final URL url = new URL(url_string);
-
-	final HttpURLConnection connection = (HttpURLConnection)url.openConnection();
-
-	connection.setRequestProperty("User-Agent",USERAGENT);
-	connection.setRequestProperty("Accept","application/xml");
+	final Stats.Request stats = Stats.Begin(url_string);
+	final Transport.Response response;
 	try {
-	    if (200 == connection.getResponseCode()){
-		try {
-		    /*
-		     * Single threaded block
-		     */
-		    builder.reset();
-
-		    Document doc = builder.parse(connection.getInputStream(),url_string);
-
-		    doc.setUserData(DOM_HTTP_REQUEST,url_string,UserDataHandler);
-		    doc.setUserData(DOM_HTTP_STATUS,connection.getHeaderField(0),UserDataHandler);
+	    response = transport.get(url_string,(json)?("application/json"):("application/xml"));
+	}
+	catch (IOException | RuntimeException exc){
+	    stats.end();
+	    throw exc;
+	}
+	final InputStream body = stats.response(response);
+	if (200 == response.status){
 
-		    return doc;
+	    final Closeable source = () -> {
+		try {
+		    response.close();
 		}
-		catch (SAXException exc){
-		    throw new IOException(String.format("Error parsing \"%s\" from \"%s\"%n",url_string,connection.getHeaderField(0)),exc);
+		finally {
+		    stats.end();
 		}
+	    };
+	    try {
+		if (json)
+		    return new JsonRecordReader(url_string,body,source);
+		else
+		    return new RecordReader(url_string,body,source);
 	    }
-	    else {
-		throw new java.net.ConnectException(String.format("Error response from \"%s\" was \"%s\"%n",url_string,connection.getHeaderField(0)));
+	    catch (IOException | RuntimeException exc){
+		source.close();
+		throw exc;
 	    }
 	}
-	finally {
-	    connection.disconnect();
+	else {
+	    response.close();
+	    stats.end();
+
+	    throw ResponseError(url_string,response);
 	}
     }
     /**
-     * @param mbid The MBID required for MB lookups
-     * 
-     * @return XML document response (or exception)
-     */
-    public Document lookup(String mbid)
-	throws IOException
-    {
-	return lookup(mbid,null);
-    }
-    /**
-     * @param mbid The MBID required for MB lookups
-     * @param inc Optionally non null string containing a comma
-     * separated list of one or more 'inc' parameter values.  For
-     * example, "recordings" will cause a track list to be found in a
-     * "release" lookup.
+     * @param linked Entity of the MBID, e.g. {@link Entity#ARTIST}
+     * @param mbid The MBID of the linked entity
+     * @param inc Optional 'inc' parameter value
+     * @param offset Browse result offset
+     * @param limit Browse result page size
      * 
-     * @return XML document response (or exception)
+     * @return Browse request URL
      */
-    public Document lookup(String mbid, String inc)
-	throws IOException
-    {
+    public String browseURL(Entity linked, String mbid, String inc, int offset, int limit){
 	final StringBuilder url_builder = new StringBuilder();
 	{
 	    url_builder.append("http://");
-	    url_builder.append(HOST);
+	    url_builder.append(GetDefaultHost());
 	    url_builder.append('/');
 	    url_builder.append(PATH);
 	    url_builder.append('/');
 	    url_builder.append(entity.path);
-	    url_builder.append('/');
+	    url_builder.append('?');
+	    url_builder.append(linked.path);
+	    url_builder.append('=');
 	    url_builder.append(mbid);
 	    if (null != inc){
-		url_builder.append('?');
+		url_builder.append('&');
 		url_builder.append("inc");
 		url_builder.append('=');
-		url_builder.append(URLEncoder.encode(inc));
+		url_builder.append(URLEncoder.encode(inc,StandardCharsets.UTF_8));
 	    }
+	    url_builder.append('&');
+	    url_builder.append("offset");
+	    url_builder.append('=');
+	    url_builder.append(offset);
+	    url_builder.append('&');
+	    url_builder.append("limit");
+	    url_builder.append('=');
+	    url_builder.append(limit);
 	}
+	return url_builder.toString();
+    }
+    /**
+     * @param url Request URL
+     * 
+     * @return Request URL for the JSON format
+     */
+    public final static String Json(String url){
+	if (0 < url.indexOf('?'))
+	    return url+"&fmt=json";
+	else
+	    return url+"?fmt=json";
+    }
+    /**
+     * @param url Request URL for the JSON format
+     * 
+     * @return Request URL for the XML format
+     */
+    public final static String Xml(String url){
 
-	final String url_string = url_builder.toString();
-
-	final URL url = new URL(url_string);
+	return url.replace("&fmt=json","").replace("?fmt=json&","?").replace("?fmt=json","");
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return Unmodifiable list of response records (or exception)
+     */
+    protected List<Record> list(final String url_string)
+	throws IOException
+    {
+	return RecordFlight.call(url_string,() -> read(url_string));
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return Future unmodifiable list of response records (or
+     * exception)
+     */
+    protected CompletableFuture<List<Record>> listAsync(final String url_string){
 
-	final HttpURLConnection connection = (HttpURLConnection)url.openConnection();
+	return RecordFlight.async(url_string,() -> read(url_string),GetDefaultExecutor());
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return Unmodifiable list of response records (or exception)
+     */
+    private List<Record> read(String url_string)
+	throws IOException
+    {
+	List<Record> list = new ArrayList<>();
 
-	connection.setRequestProperty("User-Agent",USERAGENT);
-	connection.setRequestProperty("Accept","application/xml");
-	try {
-	    if (200 == connection.getResponseCode()){
-		try {
-		    /*
-		     * Single threaded block
-		     */
-		    builder.reset();
+	try (RecordReader reader = records(url_string)){
 
-		    Document doc = builder.parse(connection.getInputStream(),url_string);
+	    while (reader.hasNext()){
 
-		    doc.setUserData(DOM_HTTP_REQUEST,url_string,UserDataHandler);
-		    doc.setUserData(DOM_HTTP_STATUS,connection.getHeaderField(0),UserDataHandler);
+		list.add(reader.next());
+	    }
+	}
+	catch (java.io.UncheckedIOException exc){
+	    throw exc.getCause();
+	}
+	return Collections.unmodifiableList(list);
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return Future XML document response (or exception)
+     */
+    protected CompletableFuture<Document> requestAsync(final String url_string){
+
+	return BodyFlight.async(url_string,() -> fetch(url_string),GetDefaultExecutor())
+	    .thenApply(body -> {
+		    try {
+			return Parse(body);
+		    }
+		    catch (IOException exc){
+			throw new java.util.concurrent.CompletionException(exc);
+		    }
+		});
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return XML document response (or exception)
+     */
+    protected Document request(final String url_string)
+	throws IOException
+    {
+	return Parse(BodyFlight.call(url_string,() -> fetch(url_string)));
+    }
+    /**
+     * @param url_string Request URL
+     * 
+     * @return XML document response body (or exception)
+     */
+    private Body fetch(String url_string)
+	throws IOException
+    {
+	final Stats.Request stats = Stats.Begin(url_string);
+	try {
+	    return fetch(url_string,stats);
+	}
+	catch (IOException | RuntimeException exc){
+	    stats.end();
+	    throw exc;
+	}
+    }
+    private Body fetch(String url_string, Stats.Request stats)
+	throws IOException
+    {
+	final Transport.Response response = transport.get(url_string,"application/xml");
+	final InputStream body = stats.response(response);
+	try {
+	    if (200 == response.status){
 
-		    return doc;
-		}
-		catch (SAXException exc){
-		    throw new IOException(String.format("Error parsing \"%s\" from \"%s\"%n",url_string,connection.getHeaderField(0)),exc);
-		}
+		return new Body(url_string,response.statusLine,body.readAllBytes(),stats);
 	    }
 	    else {
-		throw new java.net.ConnectException(String.format("Error response from \"%s\" was \"%s\"%n",url_string,connection.getHeaderField(0)));
+		throw ResponseError(url_string,response);
 	    }
 	}
 	finally {
-	    connection.disconnect();
+	    response.close();
+	}
+    }
+    /**
+     * @return Exception of an error response, a {@link
+     * java.io.FileNotFoundException} when not found (as by {@link
+     * java.net.HttpURLConnection})
+     */
+    private final static IOException ResponseError(String url_string, Transport.Response response){
+	final String message = String.format("Error response from \"%s\" was \"%s\"%n",url_string,response.statusLine);
+	if (404 == response.status)
+	    return new java.io.FileNotFoundException(message);
+	else
+	    return new java.net.ConnectException(message);
+    }
+    /**
+     * The request of the body is ended once parsed, so that its
+     * "parse" and "total" times include parsing.
+     * 
+     * @return New XML document of the response body
+     */
+    private final static Document Parse(Body body)
+	throws IOException
+    {
+	final DocumentBuilder builder = Parser();
+	try {
+	    Document doc = builder.parse(new java.io.ByteArrayInputStream(body.data),body.url);
+
+	    doc.setUserData(DOM_HTTP_REQUEST,body.url,UserDataHandler);
+	    doc.setUserData(DOM_HTTP_STATUS,body.statusLine,UserDataHandler);
+
+	    return doc;
+	}
+	catch (SAXException exc){
+	    throw new IOException(String.format("Error parsing \"%s\" from \"%s\"%n",body.url,body.statusLine),exc);
+	}
+	finally {
+	    Parser(builder);
+
+	    body.stats.end();
+	}
+    }
+    /**
+     * @return Idle XML parser from the pool, or a new one
+     */
+    private final static DocumentBuilder Parser(){
+	DocumentBuilder builder = Parsers.poll();
+	if (null == builder){
+	    try {
+		builder = DBF.newDocumentBuilder();
+	    }
+	    catch (ParserConfigurationException exc){
+		throw new IllegalStateException("Error constructing XML parser",exc);
+	    }
 	}
+	return builder;
+    }
+    /**
+     * Return an XML parser to the pool, or drop it when the pool is
+     * full.
+     */
+    private final static void Parser(DocumentBuilder builder){
+	builder.reset();
+	Parsers.offer(builder);
     }
     public void prettyPrint(Node node){
 	Document doc = (node instanceof Document)?((Document)node):(node.getOwnerDocument());
@@ -249,4 +726,24 @@ public class API extends Object {
 	}
 	ls_ser.write(node,ls_out);
     }
+
+    /**
+     * Response body of a document request, shared by the users of a
+     * coalesced request and not modified.
+     */
+    static class Body {
+
+	final String url, statusLine;
+
+	final byte[] data;
+
+	final Stats.Request stats;
+
+	Body(String url, String statusLine, byte[] data, Stats.Request stats){
+	    this.url = url;
+	    this.statusLine = statusLine;
+	    this.data = data;
+	    this.stats = stats;
+	}
+    }
 }
@@ -0,0 +1,277 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Artist/Album directory of track files.
+ *
+ * The directory is listed once, by a {@link DirectoryStream}, and
+ * the attributes of the files having the track file name extension
+ * are read once, into a model of the track files: name, track
+ * number (in any of the track file name formats), size and time.
+ * The track files of the album are resolved against the model, which
+ * is kept current by {@link #moved} as track files are renamed.  On
+ * a network file system each list and stat is a round trip.
+ */
+public class Album
+    extends Object
+{
+    /**
+     * Track file, as found in the directory
+     */
+    public static class Entry {
+
+	public final File file;
+	/**
+	 * Track number in file name, or negative one
+	 */
+	public final int number;
+
+	public final long size, mtime;
+
+
+	public Entry(File file, long size, long mtime){
+	    super();
+	    if (null != file){
+		this.file = file;
+		this.number = Number(file.getName());
+		this.size = size;
+		this.mtime = mtime;
+	    }
+	    else {
+		throw new IllegalArgumentException();
+	    }
+	}
+    }
+
+    public final File dir;
+
+    public final String artist, album;
+    /**
+     * Track file name extension
+     */
+    public final String fext;
+    /**
+     * Number of track files
+     */
+    public final int count;
+    /**
+     * Track files by name
+     */
+    private final Map<String,Entry> files = new ConcurrentHashMap<>();
+
+
+    /**
+     * @param dir Artist/Album directory
+     * @param fext Preferred track file name extension, e.g. "mp3"
+     */
+    public Album(File dir, String fext){
+	super();
+	if (null != dir && null != fext){
+	    final String[] aa = ArtistAlbum(dir);
+
+	    this.dir = dir;
+	    this.artist = aa[0];
+	    this.album = aa[1];
+
+	    final List<Path> list = new ArrayList<>();
+	    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir.toPath())){
+		for (Path path : stream){
+		    list.add(path);
+		}
+	    }
+	    catch (java.nio.file.NotDirectoryException | java.nio.file.NoSuchFileException exc){
+		throw new IllegalArgumentException(String.valueOf(dir));
+	    }
+	    catch (IOException exc){
+		throw new UncheckedIOException(exc);
+	    }
+	    this.fext = Fext(list,fext);
+
+	    if (null != this.fext){
+		for (Path path : list){
+		    if (this.fext.equals(Fext(path.getFileName().toString(),null))){
+			try {
+			    BasicFileAttributes attributes = Files.readAttributes(path,BasicFileAttributes.class);
+			    if (attributes.isRegularFile()){
+
+				Entry entry = new Entry(path.toFile(),attributes.size(),attributes.lastModifiedTime().toMillis());
+				files.put(entry.file.getName(),entry);
+			    }
+			}
+			catch (IOException exc){
+			    /*
+			     * Removed since listed
+			     */
+			}
+		    }
+		}
+	    }
+	    this.count = files.size();
+	}
+	else {
+	    throw new IllegalArgumentException(String.valueOf(dir));
+	}
+    }
+
+
+    /**
+     * @return Musicbrainz release search query
+     */
+    public String query(){
+	return String.format("\"%s\" AND artist:\"%s\" AND format:CD",album,artist);
+    }
+    /**
+     * @return Track files ordered by the track number in their file
+     * names, or null where not found
+     */
+    public File[] tracks(){
+	final Entry[] list = files.values().toArray(new Entry[0]);
+	int max = 0;
+	for (Entry entry : list){
+	    max = Math.max(max,entry.number);
+	}
+	File[] tracks = new File[max];
+	for (Entry entry : list){
+	    if (0 < entry.number){
+		tracks[entry.number-1] = entry.file;
+	    }
+	}
+	return tracks;
+    }
+    /**
+     * @return Track files ordered by name
+     */
+    public File[] files(){
+	final Entry[] list = files.values().toArray(new Entry[0]);
+	File[] files = new File[list.length];
+	for (int cc = 0; cc < list.length; cc++){
+	    files[cc] = list[cc].file;
+	}
+	Arrays.sort(files);
+	return files;
+    }
+    /**
+     * @param name Track file name
+     *
+     * @return Track file, or null when not found
+     */
+    public Entry get(String name){
+	return files.get(name);
+    }
+    /**
+     * @return Track file, or null when not found
+     */
+    public Entry get(File file){
+	if (dir.equals(file.getParentFile()))
+	    return files.get(file.getName());
+	else
+	    return null;
+    }
+    /**
+     * Record the rename of a track file.
+     */
+    public void moved(File source, File target){
+	Entry entry = files.remove(source.getName());
+	if (null != entry){
+	    files.put(target.getName(),new Entry(target,entry.size,entry.mtime));
+	}
+    }
+    public String toString(){
+	return artist+'/'+album;
+    }
+
+    protected final static String[] ArtistAlbum(File dir){
+
+	Path path = dir.toPath();
+	int len = path.getNameCount();
+	int x_album = (len-1);
+	int x_artist = (x_album-1);
+	if (0 <= x_artist && x_artist < x_album){
+	    File f_artist = path.getName(x_artist).toFile();
+	    File f_album = path.getName(x_album).toFile();
+	    return new String[]{
+		f_artist.getName(),
+		f_album.getName()
+	    };
+	}
+	else {
+	    throw new IllegalStateException(dir.getPath());
+	}
+    }
+    /**
+     * @param name Track file name in one of the formats "Track 7.mp3",
+     * "07._Title.mp3", or "7 Title.mp3"
+     * 
+     * @return Track number, or negative one
+     */
+    protected final static int Number(String name){
+	int start = (name.startsWith("Track "))?(6):(0);
+	int end = start;
+	final int len = name.length();
+	while (end < len && Character.isDigit(name.charAt(end))){
+	    end += 1;
+	}
+	if (start < end && (end-start) < 4 && end < len){
+	    switch(name.charAt(end)){
+	    case '.':
+	    case ' ':
+		return Integer.parseInt(name.substring(start,end));
+	    default:
+		break;
+	    }
+	}
+	return -1;
+    }
+    /**
+     * @return The argument extension when found in the list,
+     * otherwise the extension of the first file having one, or null
+     */
+    protected final static String Fext(List<Path> list, String fext){
+	String fext_replace = null;
+	/*
+	 * Validate or replace the argument
+	 */
+	for (Path path : list){
+
+	    String file_ext = Fext(path.getFileName().toString(),null);
+
+	    if (fext.equals(file_ext)){
+
+		return fext;
+	    }
+	    else if (null == fext_replace){
+
+		fext_replace = file_ext;
+	    }
+	}
+	return fext_replace;
+    }
+    /**
+     * @return File name extension, or the second argument
+     */
+    protected final static String Fext(String name, String ifnone){
+	int lidx = name.lastIndexOf('.');
+	if (0 < lidx)
+	    return name.substring(lidx+1);
+	else
+	    return ifnone;
+    }
+}
@@ -0,0 +1,467 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On disk response cache, keyed by request URL.  Successful response
+ * bodies are stored (compressed) in a file named for the SHA-1 of the
+ * request URL.  Entries expire by a time to live that is specific to
+ * the entity and request kind, and the store is held under a size
+ * bound by evicting least recently used entries.
+ *
+ * In offline mode requests are served only from the cache, and
+ * expired entries are served rather than refreshed.
+ *
+ * The default configuration is read from system properties.
+ *
+ * <pre>
+ * cddb.cache.size                   Store size bound bytes (256 MB)
+ * cddb.cache.ttl.search             Search and browse TTL seconds (7 days)
+ * cddb.cache.ttl.lookup             Lookup TTL seconds (90 days)
+ * cddb.cache.ttl.(entity).(kind)    Entity specific TTL seconds,
+ *                                   e.g. "cddb.cache.ttl.release.lookup"
+ * </pre>
+ */
+public class Cache
+    extends Object
+    implements Transport
+{
+    public final static long SIZE = Long.getLong("cddb.cache.size",(256L << 20));
+    public final static long TTL_SEARCH = Long.getLong("cddb.cache.ttl.search",(7L * 24 * 3600));
+    public final static long TTL_LOOKUP = Long.getLong("cddb.cache.ttl.lookup",(90L * 24 * 3600));
+
+    private final static String FEXT = ".gz";
+
+    /**
+     * Request kind, identified from the request URL
+     */
+    public enum Kind {
+	SEARCH, LOOKUP, BROWSE;
+
+	public final String property;
+
+	Kind(){
+	    this.property = name().toLowerCase();
+	}
+
+	public static Kind For(String url){
+	    if (url.contains("?query=") || url.contains("&query="))
+		return SEARCH;
+	    else if (url.contains("&offset="))
+		return BROWSE;
+	    else
+		return LOOKUP;
+	}
+    }
+    /**
+     * @return Default cache directory "~/.cddb/cache"
+     */
+    public final static File Default(){
+	return new File(new File(System.getProperty("user.home"),".cddb"),"cache");
+    }
+
+
+    public final File dir;
+
+    public final Transport delegate;
+
+    public final boolean offline;
+
+    public final long size;
+    /*
+     * Access ordered index of entry file lengths, in bytes
+     */
+    private final LinkedHashMap<String,Long> index = new LinkedHashMap<>(0x100,0.75f,true);
+
+    private long total;
+
+    private final Map<String,Long> ttl = new java.util.concurrent.ConcurrentHashMap<>();
+
+
+    /**
+     * Default configuration
+     */
+    public Cache(File dir, boolean offline, Transport delegate)
+	throws IOException
+    {
+	this(dir,offline,SIZE,delegate);
+    }
+    /**
+     * @param dir Store directory
+     * @param offline Don't employ the delegate
+     * @param size Store size bound in bytes
+     * @param delegate Network transport
+     */
+    public Cache(File dir, boolean offline, long size, Transport delegate)
+	throws IOException
+    {
+	super();
+	if (null != dir && 0 < size && null != delegate){
+	    this.dir = dir;
+	    this.offline = offline;
+	    this.size = size;
+	    this.delegate = delegate;
+
+	    if (dir.isDirectory() || dir.mkdirs()){
+
+		this.open();
+	    }
+	    else {
+		throw new IOException(String.format("Unable to create cache directory '%s'",dir.getPath()));
+	    }
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @param entity Musicbrainz entity
+     * @param kind Search or lookup
+     * @param seconds Time to live
+     */
+    public void setTTL(Entity entity, Kind kind, long seconds){
+
+	ttl.put(entity.path+'.'+kind.property,seconds);
+    }
+    /**
+     * @return Time to live in milliseconds for the entity and kind
+     * of the argument request URL
+     */
+    public long getTTL(String url){
+	final Kind kind = Kind.For(url);
+	final String entity = EntityPath(url);
+	final String key = entity+'.'+kind.property;
+
+	Long seconds = ttl.get(key);
+	if (null == seconds){
+	    seconds = Long.getLong("cddb.cache.ttl."+key);
+	    if (null == seconds){
+		switch(kind){
+		case SEARCH:
+		case BROWSE:
+		    seconds = TTL_SEARCH;
+		    break;
+		default:
+		    seconds = TTL_LOOKUP;
+		    break;
+		}
+	    }
+	    ttl.put(key,seconds);
+	}
+	return (seconds * 1000L);
+    }
+    public Response get(String url, String accept)
+	throws IOException
+    {
+	final String key = Key(url);
+	final File file = File(key);
+
+	Response hit = read(key,file,url);
+
+	Stats.Cache(null != hit);
+
+	if (null != hit){
+	    return hit;
+	}
+	else if (offline){
+	    throw new FileNotFoundException(String.format("Offline cache miss for \"%s\"",url));
+	}
+	else {
+	    Response response = delegate.get(url,accept);
+	    if (200 == response.status){
+		final byte[] body;
+		try {
+		    body = Read(response.body);
+		}
+		finally {
+		    response.close();
+		}
+		write(key,file,url,response.statusLine,body);
+
+		return new Response(url,response.status,response.statusLine,response.headers,new ByteArrayInputStream(body));
+	    }
+	    else {
+		return response;
+	    }
+	}
+    }
+    /**
+     * @return Number of entries in store
+     */
+    public int count(){
+	synchronized(index){
+	    return index.size();
+	}
+    }
+    /**
+     * @return Bytes in store
+     */
+    public long total(){
+	synchronized(index){
+	    return total;
+	}
+    }
+    /**
+     * Drop entries that are expired, regardless of the size bound.
+     */
+    public void expire()
+	throws IOException
+    {
+	List<String> keys;
+	synchronized(index){
+	    keys = new ArrayList<>(index.keySet());
+	}
+	final long now = System.currentTimeMillis();
+
+	for (String key : keys){
+	    File file = File(key);
+	    boolean expired;
+	    try (DataInputStream in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)))){
+		String url = in.readUTF();
+		long stored = in.readLong();
+		expired = (getTTL(url) < (now-stored));
+	    }
+	    catch (IOException exc){
+		expired = true;
+	    }
+	    if (expired){
+		remove(key,file);
+	    }
+	}
+    }
+    /**
+     * Construct the index from the store, ordered by last access.
+     */
+    private void open(){
+	List<File> list = new ArrayList<>();
+	File[] sub = dir.listFiles();
+	if (null != sub){
+	    for (File d : sub){
+		if (d.isDirectory()){
+		    File[] entries = d.listFiles();
+		    if (null != entries){
+			for (File f : entries){
+			    if (f.getName().endsWith(FEXT)){
+				list.add(f);
+			    }
+			}
+		    }
+		}
+	    }
+	}
+	final int count = list.size();
+	final File[] files = list.toArray(new File[count]);
+	final long[] times = new long[count];
+	for (int cc = 0; cc < count; cc++){
+	    times[cc] = files[cc].lastModified();
+	}
+	Integer[] order = new Integer[count];
+	for (int cc = 0; cc < count; cc++){
+	    order[cc] = cc;
+	}
+	java.util.Arrays.sort(order,(a,b) -> Long.compare(times[a],times[b]));
+
+	synchronized(index){
+	    for (Integer ox : order){
+		File f = files[ox];
+		String name = f.getName();
+		String key = f.getParentFile().getName()+name.substring(0,name.length()-FEXT.length());
+		long length = f.length();
+		index.put(key,length);
+		total += length;
+	    }
+	}
+	evict();
+    }
+    /**
+     * @return Cached response, or null for miss or expired
+     */
+    private Response read(String key, File file, String url)
+	throws IOException
+    {
+	synchronized(index){
+	    if (null == index.get(key)){
+		return null;
+	    }
+	}
+	final DataInputStream in;
+	try {
+	    in = new DataInputStream(new GZIPInputStream(new FileInputStream(file)));
+	}
+	catch (FileNotFoundException exc){
+	    remove(key,file);
+	    return null;
+	}
+	try {
+	    final String stored_url = in.readUTF();
+	    final long stored = in.readLong();
+	    final String status = in.readUTF();
+
+	    if (stored_url.equals(url) && (offline || (System.currentTimeMillis()-stored) < getTTL(url))){
+
+		file.setLastModified(System.currentTimeMillis());
+
+		Map<String,List<String>> headers = new java.util.HashMap<>();
+		headers.put("X-Cache",java.util.Collections.singletonList("HIT"));
+
+		return new Response(url,200,status,headers,in);
+	    }
+	    else {
+		in.close();
+		return null;
+	    }
+	}
+	catch (IOException exc){
+	    in.close();
+	    remove(key,file);
+	    return null;
+	}
+    }
+    private void write(String key, File file, String url, String status, byte[] body)
+	throws IOException
+    {
+	final File parent = file.getParentFile();
+	if (parent.isDirectory() || parent.mkdirs()){
+
+	    final File tmp = File.createTempFile(key,".tmp",parent);
+	    try {
+		try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(new FileOutputStream(tmp)))){
+		    out.writeUTF(url);
+		    out.writeLong(System.currentTimeMillis());
+		    out.writeUTF(status);
+		    out.write(body);
+		}
+		Files.move(tmp.toPath(),file.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+	    }
+	    finally {
+		tmp.delete();
+	    }
+	    final long length = file.length();
+	    synchronized(index){
+		Long previous = index.put(key,length);
+		if (null != previous){
+		    total -= previous;
+		}
+		total += length;
+	    }
+	    evict();
+	}
+	else {
+	    throw new IOException(String.format("Unable to create cache directory '%s'",parent.getPath()));
+	}
+    }
+    private void remove(String key, File file){
+	synchronized(index){
+	    Long length = index.remove(key);
+	    if (null != length){
+		total -= length;
+	    }
+	}
+	file.delete();
+    }
+    /**
+     * Drop least recently used entries until the store is within
+     * its size bound.
+     */
+    private void evict(){
+	List<String> drop = new ArrayList<>();
+	synchronized(index){
+	    Iterator<Map.Entry<String,Long>> it = index.entrySet().iterator();
+	    while (size < total && it.hasNext()){
+		Map.Entry<String,Long> eldest = it.next();
+		total -= eldest.getValue();
+		drop.add(eldest.getKey());
+		it.remove();
+	    }
+	}
+	for (String key : drop){
+	    File(key).delete();
+	}
+    }
+    private File File(String key){
+	return new File(new File(dir,key.substring(0,2)),key.substring(2)+FEXT);
+    }
+
+    /**
+     * @return Hex SHA-1 of URL
+     */
+    public final static String Key(String url){
+	try {
+	    MessageDigest md = MessageDigest.getInstance("SHA-1");
+	    byte[] digest = md.digest(url.getBytes(StandardCharsets.UTF_8));
+	    StringBuilder string = new StringBuilder();
+	    for (byte b : digest){
+		string.append(Character.forDigit((b>>4)&0xf,16));
+		string.append(Character.forDigit(b&0xf,16));
+	    }
+	    return string.toString();
+	}
+	catch (NoSuchAlgorithmException exc){
+	    throw new IllegalStateException(exc);
+	}
+    }
+    /**
+     * @return Entity path segment following "ws/2/"
+     */
+    public final static String EntityPath(String url){
+	final String prefix = API.PATH+'/';
+	int start = url.indexOf(prefix);
+	if (0 < start){
+	    start += prefix.length();
+	    int end = start;
+	    final int len = url.length();
+	    while (end < len){
+		char ch = url.charAt(end);
+		if ('/' == ch || '?' == ch)
+		    break;
+		else
+		    end += 1;
+	    }
+	    return url.substring(start,end);
+	}
+	else {
+	    return "";
+	}
+    }
+    private final static byte[] Read(InputStream in)
+	throws IOException
+    {
+	ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+	byte[] iob = new byte[0x1000];
+	int read;
+	while (0 < (read = in.read(iob))){
+	    buffer.write(iob,0,read);
+	}
+	return buffer.toByteArray();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.net.UnixDomainSocketAddress;
+
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Command line client of the {@link Daemon}, accepting the arguments
+ * of {@link Main}.  The job output is written to standard output
+ * and error, and its status is the exit status of the client.
+ *
+ * <pre>
+ * cddb.daemon.socket    Socket file ("~/.cddb/daemon/socket")
+ * </pre>
+ */
+public class Client
+    extends Object
+{
+
+    public static void main(String[] argv){
+	try {
+	    System.exit(Run(Daemon.SOCKET,new File(System.getProperty("user.dir")),argv,System.out,System.err));
+	}
+	catch (IOException exc){
+	    System.err.printf("Error, daemon socket '%s': %s%n",Daemon.SOCKET,exc);
+	    System.exit(1);
+	}
+    }
+    /**
+     * @param socket Daemon socket file
+     * @param cwd Directory of relative paths in arguments
+     * @param argv Job arguments
+     * @param out Job standard output
+     * @param err Job standard error
+     *
+     * @return Job exit status
+     */
+    public final static int Run(File socket, File cwd, String[] argv, OutputStream out, OutputStream err)
+	throws IOException
+    {
+	try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socket.toPath()))){
+
+	    DataOutputStream req = new DataOutputStream(new java.io.BufferedOutputStream(Channels.newOutputStream(channel)));
+	    req.writeUTF(cwd.getAbsolutePath());
+	    req.writeInt(argv.length);
+	    for (String arg : argv){
+		req.writeUTF(arg);
+	    }
+	    req.flush();
+
+	    DataInputStream rsp = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+	    byte[] iob = new byte[0x1000];
+	    while (true){
+		int type = rsp.readUnsignedByte();
+		int len = rsp.readInt();
+		if (Daemon.FRAME_END == type){
+		    out.flush();
+		    err.flush();
+		    return len;
+		}
+		else {
+		    OutputStream target = (Daemon.FRAME_OUT == type)?(out):(err);
+		    if (len > iob.length){
+			iob = new byte[len];
+		    }
+		    rsp.readFully(iob,0,len);
+		    target.write(iob,0,len);
+		}
+	    }
+	}
+    }
+}
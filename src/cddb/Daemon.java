@@ -0,0 +1,255 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Long lived process performing {@link Main} jobs for {@link Client}
+ * connections on a Unix domain socket, so that a job doesn't pay for
+ * process startup.
+ *
+ * The socket is created in a directory accessible only to its owner,
+ * so that only the user of the daemon may submit jobs to it.  A job
+ * reads and writes files as the daemon.
+ *
+ * A job request is the working directory of the client, its number
+ * of arguments, and the arguments.  The response is a sequence of
+ * frames of job output, each having its stream (standard output or
+ * error), length, and bytes, followed by an end frame having the exit
+ * status of the job.  Strings are written by {@link
+ * DataOutputStream#writeUTF}.
+ *
+ * Jobs are performed on a pool of threads, and share the transport
+ * of the daemon.  A job has no input, so that a job prompting for a
+ * choice receives none.
+ *
+ * <pre>
+ * cddb.daemon.socket     Socket file ("~/.cddb/daemon/socket")
+ * cddb.daemon.threads    Number of concurrent jobs (4)
+ * </pre>
+ */
+public class Daemon
+    extends Object
+    implements Closeable
+{
+    public final static File SOCKET = Default();
+
+    public final static int THREADS = Integer.getInteger("cddb.daemon.threads",4);
+    /*
+     * Response frame types
+     */
+    final static int FRAME_END = 0, FRAME_OUT = 1, FRAME_ERR = 2;
+    /*
+     * Permissions of the socket directory
+     */
+    private final static Set<PosixFilePermission> OWNER_ONLY = PosixFilePermissions.fromString("rwx------");
+
+    /**
+     * @return Socket file of the "cddb.daemon.socket" property, or
+     * "~/.cddb/daemon/socket"
+     */
+    public final static File Default(){
+	String socket = System.getProperty("cddb.daemon.socket");
+	if (null != socket)
+	    return new File(socket);
+	else
+	    return new File(new File(new File(System.getProperty("user.home"),".cddb"),"daemon"),"socket");
+    }
+
+
+    public final File socket;
+
+    private final ServerSocketChannel server;
+
+    private final ExecutorService pool;
+
+
+    /**
+     * @param socket Socket file, in a directory made accessible only
+     * to its owner
+     * @param threads Number of concurrent jobs
+     */
+    public Daemon(File socket, int threads)
+	throws IOException
+    {
+	super();
+	if (null != socket && 0 < threads){
+	    this.socket = socket.getAbsoluteFile();
+	    final Path path = this.socket.toPath();
+
+	    Private(path.getParent());
+
+	    if (Files.exists(path)){
+		/*
+		 * Replace the socket of a daemon no longer running
+		 */
+		try {
+		    SocketChannel.open(UnixDomainSocketAddress.of(path)).close();
+		}
+		catch (java.net.ConnectException stale){
+
+		    Files.delete(path);
+		}
+		if (Files.exists(path)){
+
+		    throw new IOException(String.format("Daemon running on '%s'",path));
+		}
+	    }
+	    this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+	    try {
+		server.bind(UnixDomainSocketAddress.of(path),0x40);
+	    }
+	    catch (IOException | RuntimeException exc){
+		server.close();
+		throw exc;
+	    }
+	    this.pool = Executors.newFixedThreadPool(threads,new Threads("cddb-daemon"));
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * Accept connections until closed.
+     */
+    public void run()
+	throws IOException
+    {
+	while (server.isOpen()){
+	    final SocketChannel channel;
+	    try {
+		channel = server.accept();
+	    }
+	    catch (ClosedChannelException closed){
+		break;
+	    }
+	    pool.execute(() -> job(channel));
+	}
+    }
+    public void close()
+	throws IOException
+    {
+	try {
+	    server.close();
+	    Files.deleteIfExists(socket.toPath());
+	}
+	finally {
+	    pool.shutdown();
+	}
+    }
+    /**
+     * Create the directory accessible only to its owner, or restrict
+     * an existing directory to its owner (as the owner).
+     */
+    private final static void Private(Path dir)
+	throws IOException
+    {
+	if (dir.getFileSystem().supportedFileAttributeViews().contains("posix")){
+	    if (Files.isDirectory(dir))
+		Files.setPosixFilePermissions(dir,OWNER_ONLY);
+	    else {
+		Files.createDirectories(dir.getParent());
+		Files.createDirectory(dir,PosixFilePermissions.asFileAttribute(OWNER_ONLY));
+	    }
+	}
+	else {
+	    Files.createDirectories(dir);
+	}
+    }
+    /**
+     * Read the request, and perform the job with its output framed
+     * to the connection.
+     */
+    private void job(SocketChannel channel){
+	try (channel){
+	    final DataInputStream req = new DataInputStream(Channels.newInputStream(channel));
+	    final File cwd = new File(req.readUTF());
+	    final String[] argv = new String[req.readInt()];
+	    for (int cc = 0; cc < argv.length; cc++){
+		argv[cc] = req.readUTF();
+	    }
+
+	    final DataOutputStream rsp = new DataOutputStream(new java.io.BufferedOutputStream(Channels.newOutputStream(channel)));
+
+	    final int status = Main.Run(argv,cwd,new Frames(rsp,FRAME_OUT),new Frames(rsp,FRAME_ERR),new ByteArrayInputStream(new byte[0]));
+
+	    synchronized(rsp){
+		rsp.writeByte(FRAME_END);
+		rsp.writeInt(status);
+		rsp.flush();
+	    }
+	}
+	catch (IOException exc){
+	    /*
+	     * Client disconnected
+	     */
+	}
+    }
+    /**
+     * Job output stream writing frames of one type
+     */
+    static class Frames
+	extends OutputStream
+    {
+	final DataOutputStream out;
+
+	final int type;
+
+	Frames(DataOutputStream out, int type){
+	    super();
+	    this.out = out;
+	    this.type = type;
+	}
+
+	public void write(int b)
+	    throws IOException
+	{
+	    write(new byte[]{(byte)b},0,1);
+	}
+	public void write(byte[] b, int ofs, int len)
+	    throws IOException
+	{
+	    if (0 < len){
+		synchronized(out){
+		    out.writeByte(type);
+		    out.writeInt(len);
+		    out.write(b,ofs,len);
+		}
+	    }
+	}
+	public void flush()
+	    throws IOException
+	{
+	    synchronized(out){
+		out.flush();
+	    }
+	}
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ReadMode;
+import org.jaudiotagger.audio.AudioHeader;
+import org.jaudiotagger.audio.generic.GenericAudioHeader;
+import org.jaudiotagger.audio.mp3.MP3AudioHeader;
+
+/**
+ * Musicbrainz disc ID and table of contents computed from the audio
+ * headers of local track files.
+ *
+ * A CD track occupies an integral number of sectors, at 75 sectors
+ * per second, and the first track begins at sector 150.  The disc ID
+ * is the (URL safe) Base64 SHA-1 of the first and last track numbers
+ * and the sector offsets of the lead out and tracks.
+ *
+ * Lossless files ripped from a CD reproduce its disc ID exactly.
+ * Lossy files (with encoder padding) usually don't, so the lookup
+ * includes the table of contents for a fuzzy match.
+ *
+ * @see <a href="https://musicbrainz.org/doc/Disc_ID_Calculation">Disc ID Calculation</a>
+ */
+public class DiscId
+    extends Object
+{
+    public final static int LEAD_IN = 150;
+
+    public final static int SECTORS_PER_SECOND = 75;
+
+
+    public final int first, last;
+    /**
+     * Sector offsets of tracks
+     */
+    public final int[] offsets;
+    /**
+     * Sector offset of lead out
+     */
+    public final int leadout;
+    /**
+     * Musicbrainz disc ID
+     */
+    public final String id;
+
+
+    /**
+     * @param sectors Length of each track in sectors
+     */
+    public DiscId(int[] sectors){
+	super();
+	final int count = sectors.length;
+	if (0 < count && count < 100){
+	    this.first = 1;
+	    this.last = count;
+	    this.offsets = new int[count];
+	    int offset = LEAD_IN;
+	    for (int cc = 0; cc < count; cc++){
+		this.offsets[cc] = offset;
+		offset += sectors[cc];
+	    }
+	    this.leadout = offset;
+	    this.id = Id(first,last,leadout,offsets);
+	}
+	else {
+	    throw new IllegalArgumentException(String.valueOf(count));
+	}
+    }
+
+
+    /**
+     * @return Table of contents as the value of the Musicbrainz 'toc'
+     * parameter
+     */
+    public String toc(){
+	StringBuilder string = new StringBuilder();
+	string.append(first);
+	string.append('+');
+	string.append(last);
+	string.append('+');
+	string.append(leadout);
+	for (int offset : offsets){
+	    string.append('+');
+	    string.append(offset);
+	}
+	return string.toString();
+    }
+    /**
+     * @return Track lengths in seconds
+     */
+    public int[] lengths(){
+	final int count = offsets.length;
+	int[] lengths = new int[count];
+	for (int cc = 0; cc < count; cc++){
+	    int end = ((cc+1) < count)?(offsets[cc+1]):(leadout);
+	    lengths[cc] = ((end - offsets[cc]) / SECTORS_PER_SECOND);
+	}
+	return lengths;
+    }
+    /**
+     * @return Disc ID lookup request URL, with TOC for fuzzy match
+     */
+    public String url(){
+	final StringBuilder url_builder = new StringBuilder();
+	{
+	    url_builder.append("http://");
+	    url_builder.append(API.GetDefaultHost());
+	    url_builder.append('/');
+	    url_builder.append(API.PATH);
+	    url_builder.append('/');
+	    url_builder.append(Entity.DISCID.path);
+	    url_builder.append('/');
+	    url_builder.append(id);
+	    url_builder.append('?');
+	    url_builder.append("toc");
+	    url_builder.append('=');
+	    url_builder.append(toc());
+	    url_builder.append('&');
+	    url_builder.append("inc");
+	    url_builder.append('=');
+	    url_builder.append("recordings");
+	}
+	return url_builder.toString();
+    }
+    /**
+     * Lookup the disc ID, and score each medium of each release
+     * found against the local track lengths.
+     *
+     * @return Scores in descending order
+     */
+    public List<Score> rank(API api)
+	throws IOException
+    {
+	final int[] local = lengths();
+
+	List<Score> scores = new ArrayList<>();
+
+	String release = null;
+	int medium = -1, rank = 0;
+	List<Record> tracks = null;
+
+	try (RecordReader reader = api.records(url())){
+	    while (reader.hasNext()){
+		Record record = reader.next();
+		switch(record.type){
+		case RELEASE:
+		    release = record.id;
+		    break;
+		case TRACK:
+		    if (null == tracks || medium != record.medium || !record.release.equals(release)){
+			if (null != tracks){
+			    scores.add(new Score(release,tracks,rank++,local));
+			}
+			tracks = new ArrayList<>();
+			medium = record.medium;
+			release = record.release;
+		    }
+		    tracks.add(record);
+		    break;
+		default:
+		    break;
+		}
+	    }
+	}
+	if (null != tracks){
+	    scores.add(new Score(release,tracks,rank++,local));
+	}
+	Collections.sort(scores);
+	return scores;
+    }
+
+    /**
+     * @param album Local album having every track file
+     *
+     * @return Disc ID, or null when a track file is missing or its
+     * length is unknown
+     */
+    public final static DiscId For(Album album){
+	final File[] tracks = album.tracks();
+	final int count = tracks.length;
+	if (0 < count && count < 100){
+	    int[] sectors = new int[count];
+	    for (int cc = 0; cc < count; cc++){
+		File file = tracks[cc];
+		if (null != file){
+		    try {
+			sectors[cc] = Sectors(AudioFileIO.read(file,ReadMode.HEADER_ONLY).getAudioHeader());
+		    }
+		    catch (Exception exc){
+			return null;
+		    }
+		    if (0 >= sectors[cc]){
+			return null;
+		    }
+		}
+		else {
+		    return null;
+		}
+	    }
+	    return new DiscId(sectors);
+	}
+	return null;
+    }
+    /**
+     * @return Length of track in sectors, or negative one
+     */
+    public final static int Sectors(AudioHeader header){
+	final double seconds;
+	if (header instanceof MP3AudioHeader){
+
+	    seconds = ((MP3AudioHeader)header).getPreciseTrackLength();
+	}
+	else if (header instanceof GenericAudioHeader){
+
+	    seconds = ((GenericAudioHeader)header).getPreciseLength();
+	}
+	else if (null != header){
+
+	    seconds = header.getTrackLength();
+	}
+	else {
+	    return -1;
+	}
+	return (int)Math.round(seconds * SECTORS_PER_SECOND);
+    }
+    /**
+     * @return Musicbrainz disc ID
+     */
+    public final static String Id(int first, int last, int leadout, int[] offsets){
+	StringBuilder string = new StringBuilder();
+	string.append(String.format("%02X",first));
+	string.append(String.format("%02X",last));
+	string.append(String.format("%08X",leadout));
+	for (int cc = 0; cc < 99; cc++){
+	    int offset = (cc < offsets.length)?(offsets[cc]):(0);
+	    string.append(String.format("%08X",offset));
+	}
+	try {
+	    MessageDigest md = MessageDigest.getInstance("SHA-1");
+	    byte[] digest = md.digest(string.toString().getBytes(StandardCharsets.US_ASCII));
+
+	    return Base64.getEncoder().encodeToString(digest).replace('+','.').replace('/','_').replace('=','-');
+	}
+	catch (NoSuchAlgorithmException exc){
+	    throw new IllegalStateException(exc);
+	}
+    }
+}
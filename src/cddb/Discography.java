@@ -0,0 +1,193 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Releases of one artist, with their tracks, fetched once by paging
+ * through the release browse endpoint ("release?artist=MBID").  The
+ * albums of an artist are matched against this set, rather than by
+ * one release search and one release lookup per album.
+ *
+ * The default configuration is read from system properties.
+ *
+ * <pre>
+ * cddb.browse.limit    Browse page size (100)
+ * </pre>
+ */
+public class Discography
+    extends Object
+{
+    public final static int LIMIT = Integer.getInteger("cddb.browse.limit",100);
+
+
+    public final String artist;
+
+    public final String mbid;
+    /*
+     * Release MBIDs in browse order
+     */
+    private final List<String> releases = new ArrayList<>();
+
+    private final Map<String,String> titles = new HashMap<>();
+
+    private final Map<String,List<Record>> tracks = new HashMap<>();
+
+
+    /**
+     * @param artist Artist name
+     * @param mbid Artist MBID
+     */
+    public Discography(String artist, String mbid){
+	super();
+	if (null != artist && null != mbid){
+	    this.artist = artist;
+	    this.mbid = mbid;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Number of releases
+     */
+    public int size(){
+	return releases.size();
+    }
+    /**
+     * Read every page of the release browse for the artist.
+     *
+     * @param api Release API
+     */
+    public void browse(API api)
+	throws IOException
+    {
+	int offset = 0, count;
+	do {
+	    int page = 0;
+	    try (RecordReader reader = api.browseRecords(Entity.ARTIST,mbid,"recordings",offset,LIMIT)){
+
+		while (reader.hasNext()){
+		    Record record = reader.next();
+		    switch(record.type){
+		    case RELEASE:
+			if (!titles.containsKey(record.id)){
+			    releases.add(record.id);
+			    titles.put(record.id,record.title);
+			    tracks.put(record.id,new ArrayList<>());
+			}
+			page += 1;
+			break;
+		    case TRACK:
+			List<Record> list = tracks.get(record.release);
+			if (null != list){
+			    list.add(record);
+			}
+			break;
+		    default:
+			break;
+		    }
+		}
+		count = reader.getCount();
+	    }
+	    catch (java.io.UncheckedIOException exc){
+		throw exc.getCause();
+	    }
+	    offset += page;
+
+	    if (0 == page){
+		break;
+	    }
+	}
+	while (offset < count);
+    }
+    /**
+     * Score the releases having the album title.
+     *
+     * @param album Local album
+     * @param local Local track lengths
+     *
+     * @return Scores in descending order
+     */
+    public List<Score> rank(Album album, int[] local){
+	final String title = Index.Normal(album.album);
+
+	List<Score> scores = new ArrayList<>();
+	final int count = releases.size();
+	for (int cc = 0; cc < count; cc++){
+	    String release_id = releases.get(cc);
+
+	    if (title.equals(Index.Normal(titles.get(release_id)))){
+
+		scores.add(new Score(release_id,tracks.get(release_id),cc,local));
+	    }
+	}
+	Collections.sort(scores);
+	return scores;
+    }
+    public String toString(){
+	return String.format("%s %s (%d)",mbid,artist,releases.size());
+    }
+
+    /**
+     * Resolve the artist by name, and browse its releases.
+     *
+     * @param artist Artist name
+     *
+     * @return Discography of the artist, or null when the artist
+     * name is not found
+     */
+    public final static Discography For(String artist)
+	throws IOException
+    {
+	final String mbid = Artist(artist);
+	if (null != mbid){
+
+	    Discography discography = new Discography(artist,mbid);
+
+	    discography.browse(new API(Entity.RELEASE));
+
+	    return discography;
+	}
+	return null;
+    }
+    /**
+     * @return MBID of the first artist search result having the
+     * (normalized) name, or null
+     */
+    public final static String Artist(String artist)
+	throws IOException
+    {
+	final String name = Index.Normal(artist);
+
+	Document response = new API(Entity.ARTIST).search("artist:\""+artist+'"');
+
+	NodeList artist_list = response.getElementsByTagName("artist");
+	final int count = artist_list.getLength();
+	for (int cc = 0; cc < count; cc++){
+	    Element el = (Element)artist_list.item(cc);
+
+	    NodeList names = el.getElementsByTagName("name");
+	    if (0 < names.getLength() && name.equals(Index.Normal(names.item(0).getTextContent()))){
+
+		return el.getAttribute("id");
+	    }
+	}
+	return null;
+    }
+}
@@ -9,6 +9,7 @@ package cddb;
  */
 public enum Entity {
     AREA( "area", QueryArea.class),
+    DISCID( "discid", null),
     ARTIST( "artist", QueryArtist.class),
     LABEL( "label", QueryLabel.class),
     RECORDING( "recording", QueryRecording.class),
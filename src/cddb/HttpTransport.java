@@ -0,0 +1,257 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import java.time.Duration;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Persistent connection transport on a shared {@link
+ * java.net.http.HttpClient}.  Connections are kept alive between
+ * requests (HTTP/1.1), and multiplexed when the server offers
+ * HTTP/2.
+ *
+ * Responses are requested with "Accept-Encoding: gzip", and a
+ * compressed body is decompressed as it is read.  The response
+ * headers and body of this transport are those of the decoded body,
+ * and the bytes transferred are counted by {@link Stats}.
+ *
+ * The number of requests in flight on a transport, from sending the
+ * request to closing its response, is bounded by its pool size.  The
+ * JDK pool of idle connections is sized once per process, by the
+ * first transport constructed, and is shared by every transport.
+ *
+ * The default configuration is read from system properties.
+ *
+ * <pre>
+ * cddb.http.pool             Concurrent requests and client thread count (4)
+ * cddb.http.connect.timeout  Connect timeout milliseconds (10000)
+ * cddb.http.request.timeout  Response timeout milliseconds (30000)
+ * </pre>
+ */
+public class HttpTransport
+    extends Object
+    implements Transport
+{
+    public final static String USERAGENT = "syntelos-cddb/0.0 (http://www.syntelos.org/)";
+
+    public final static int POOL = Integer.getInteger("cddb.http.pool",4);
+    public final static long CONNECT_TIMEOUT = Long.getLong("cddb.http.connect.timeout",10000L);
+    public final static long REQUEST_TIMEOUT = Long.getLong("cddb.http.request.timeout",30000L);
+
+
+    public final int pool;
+
+    public final Duration connectTimeout, requestTimeout;
+
+    private final ExecutorService executor;
+
+    private final Semaphore requests;
+
+    private final HttpClient client;
+
+
+    /**
+     * Default configuration
+     */
+    public HttpTransport(){
+	this(POOL,Duration.ofMillis(CONNECT_TIMEOUT),Duration.ofMillis(REQUEST_TIMEOUT));
+    }
+    /**
+     * @param pool Maximum number of requests in flight, and the
+     * number of client threads.  The idle connections retained are
+     * bounded by the pool size of the first transport of the process
+     * @param connectTimeout Connect timeout
+     * @param requestTimeout Time to wait for a response
+     */
+    public HttpTransport(int pool, Duration connectTimeout, Duration requestTimeout){
+	super();
+	if (0 < pool && null != connectTimeout && null != requestTimeout){
+	    this.pool = pool;
+	    this.connectTimeout = connectTimeout;
+	    this.requestTimeout = requestTimeout;
+	    /*
+	     * The JDK connection pool is sized by a (net) property
+	     * read once, when the first client is constructed.  The
+	     * pool of a later transport bounds only its requests.
+	     */
+	    if (null == System.getProperty("jdk.httpclient.connectionPoolSize")){
+
+		System.setProperty("jdk.httpclient.connectionPoolSize",String.valueOf(pool));
+	    }
+	    this.executor = Executors.newFixedThreadPool(pool,new Threads("cddb-http"));
+
+	    this.requests = new Semaphore(pool,true);
+
+	    this.client = HttpClient.newBuilder()
+		.version(HttpClient.Version.HTTP_2)
+		.followRedirects(HttpClient.Redirect.NORMAL)
+		.connectTimeout(connectTimeout)
+		.executor(executor)
+		.build();
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    public Response get(String url, String accept)
+	throws IOException
+    {
+	final HttpRequest request;
+	try {
+	    request = HttpRequest.newBuilder(URI.create(url))
+		.timeout(requestTimeout)
+		.header("User-Agent",USERAGENT)
+		.header("Accept",accept)
+		.header("Accept-Encoding","gzip")
+		.GET()
+		.build();
+	}
+	catch (IllegalArgumentException exc){
+	    throw new IOException(url,exc);
+	}
+
+	try {
+	    requests.acquire();
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+
+	    throw new InterruptedIOException(url);
+	}
+	boolean sent = false;
+	try {
+	    final long start = System.nanoTime();
+
+	    HttpResponse<InputStream> response = client.send(request,HttpResponse.BodyHandlers.ofInputStream());
+
+	    Stats.Headers(url,(System.nanoTime()-start));
+
+	    Transferred body = new Transferred(response.body(),requests);
+	    sent = true;
+
+	    return Decode(new Response(url,response.statusCode(),StatusLine(response),
+				       response.headers().map(),body));
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+
+	    throw new InterruptedIOException(url);
+	}
+	finally {
+	    if (!sent){
+		requests.release();
+	    }
+	}
+    }
+    /**
+     * Release the client threads.  The shared default instance is
+     * not normally closed.
+     */
+    public void close(){
+	executor.shutdown();
+    }
+
+    /**
+     * @return Response with its body decompressed as it is read, or
+     * the argument response
+     */
+    private final static Response Decode(Response response)
+	throws IOException
+    {
+	if ("gzip".equalsIgnoreCase(response.getHeader("Content-Encoding"))){
+
+	    Map<String,List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+	    headers.putAll(response.headers);
+	    headers.remove("Content-Encoding");
+	    headers.remove("Content-Length");
+	    try {
+		return new Response(response.url,response.status,response.statusLine,headers,
+				    new GZIPInputStream(response.body,0x2000));
+	    }
+	    catch (IOException exc){
+		response.close();
+		throw exc;
+	    }
+	}
+	else {
+	    return response;
+	}
+    }
+    private final static String StatusLine(HttpResponse<?> response){
+	switch(response.version()){
+	case HTTP_2:
+	    return "HTTP/2 "+response.statusCode();
+	default:
+	    return "HTTP/1.1 "+response.statusCode();
+	}
+    }
+    /**
+     * Response body counting the bytes transferred, and releasing its
+     * request when closed
+     */
+    static class Transferred
+	extends FilterInputStream
+    {
+	private Semaphore requests;
+
+	Transferred(InputStream in, Semaphore requests){
+	    super(in);
+	    this.requests = requests;
+	}
+
+	public int read()
+	    throws IOException
+	{
+	    int b = super.read();
+	    if (-1 != b){
+		Stats.Transferred(1);
+	    }
+	    return b;
+	}
+	public int read(byte[] b, int ofs, int len)
+	    throws IOException
+	{
+	    int read = super.read(b,ofs,len);
+	    if (0 < read){
+		Stats.Transferred(read);
+	    }
+	    return read;
+	}
+	public void close()
+	    throws IOException
+	{
+	    try {
+		super.close();
+	    }
+	    finally {
+		Semaphore requests = this.requests;
+		if (null != requests){
+		    this.requests = null;
+		    requests.release();
+		}
+	    }
+	}
+    }
+}
@@ -0,0 +1,579 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import java.text.Normalizer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Local release index, imported from a Musicbrainz JSON release dump
+ * (one release per line, as in "release.tar.xz", decompressed or
+ * gzipped).
+ *
+ * The index file holds each release as the XML 'release' element
+ * of a lookup with "inc=recordings", followed by a table of releases
+ * sorted by MBID, and a table of normalized "artist/album" keys
+ * sorted by hash.  The tables are memory mapped, and a lookup or
+ * search is a binary search and one read.
+ *
+ * <pre>
+ * java -cp cddb.jar cddb.Index release.json.gz release.idx
+ * </pre>
+ *
+ * @see IndexTransport
+ */
+public class Index
+    extends Object
+    implements Closeable
+{
+    private final static byte[] MAGIC = "CDDBIDX1".getBytes(StandardCharsets.US_ASCII);
+
+    private final static int HEADER = 32;
+    /*
+     * MBID, offset, length
+     */
+    private final static int MBID = 36, ID_ENTRY = (MBID+8+4);
+    /*
+     * Hash, ID table index
+     */
+    private final static int KEY_ENTRY = (8+4);
+
+
+    public final File file;
+
+    public final int releases, keys;
+
+    private final FileChannel channel;
+
+    private final MappedByteBuffer ids, hashes;
+
+
+    /**
+     * Open an index for reading.
+     */
+    public Index(File file)
+	throws IOException
+    {
+	super();
+	this.file = file;
+	this.channel = FileChannel.open(file.toPath());
+	try {
+	    ByteBuffer header = ByteBuffer.allocate(HEADER);
+	    channel.read(header,0L);
+	    header.flip();
+
+	    byte[] magic = new byte[MAGIC.length];
+	    header.get(magic);
+	    if (Arrays.equals(MAGIC,magic)){
+		this.releases = header.getInt();
+		this.keys = header.getInt();
+		long ids_offset = header.getLong();
+		long keys_offset = header.getLong();
+
+		this.ids = channel.map(FileChannel.MapMode.READ_ONLY,ids_offset,((long)releases * ID_ENTRY));
+		this.hashes = channel.map(FileChannel.MapMode.READ_ONLY,keys_offset,((long)keys * KEY_ENTRY));
+	    }
+	    else {
+		throw new IOException(String.format("Not an index file '%s'",file.getPath()));
+	    }
+	}
+	catch (IOException | RuntimeException exc){
+	    channel.close();
+	    throw exc;
+	}
+    }
+
+
+    /**
+     * @param mbid Release MBID
+     *
+     * @return Release element XML, or null
+     */
+    public byte[] lookup(String mbid)
+	throws IOException
+    {
+	final byte[] key = mbid.getBytes(StandardCharsets.US_ASCII);
+	if (MBID == key.length){
+	    int lo = 0, hi = (releases-1);
+	    while (lo <= hi){
+		final int mid = ((lo+hi)>>>1);
+		final int cmp = compare(mid,key);
+		if (0 > cmp)
+		    lo = (mid+1);
+		else if (0 < cmp)
+		    hi = (mid-1);
+		else
+		    return read(mid);
+	    }
+	}
+	return null;
+    }
+    /**
+     * @param artist Artist name
+     * @param album Release title
+     *
+     * @return Release element XML for each release found
+     */
+    public List<byte[]> search(String artist, String album)
+	throws IOException
+    {
+	final long hash = Hash(Key(artist,album));
+
+	List<byte[]> list = new ArrayList<>();
+
+	int lo = 0, hi = (keys-1), found = -1;
+	while (lo <= hi){
+	    final int mid = ((lo+hi)>>>1);
+	    final long cmp = hashes.getLong(mid*KEY_ENTRY);
+	    if (cmp < hash)
+		lo = (mid+1);
+	    else if (cmp > hash)
+		hi = (mid-1);
+	    else {
+		found = mid;
+		hi = (mid-1);
+	    }
+	}
+	if (0 <= found){
+	    for (int cc = found; cc < keys && hash == hashes.getLong(cc*KEY_ENTRY); cc++){
+
+		list.add(read(hashes.getInt((cc*KEY_ENTRY)+8)));
+	    }
+	}
+	return list;
+    }
+    public void close()
+	throws IOException
+    {
+	channel.close();
+    }
+    private int compare(int index, byte[] key){
+	final int base = (index*ID_ENTRY);
+	for (int cc = 0; cc < MBID; cc++){
+	    int cmp = (ids.get(base+cc) - key[cc]);
+	    if (0 != cmp){
+		return cmp;
+	    }
+	}
+	return 0;
+    }
+    private byte[] read(int index)
+	throws IOException
+    {
+	final int base = (index*ID_ENTRY);
+	final long offset = ids.getLong(base+MBID);
+	final int length = ids.getInt(base+MBID+8);
+
+	ByteBuffer buffer = ByteBuffer.allocate(length);
+	while (buffer.hasRemaining()){
+	    if (0 > channel.read(buffer,offset+buffer.position())){
+		throw new java.io.EOFException(file.getPath());
+	    }
+	}
+	return buffer.array();
+    }
+
+    /**
+     * @return Normalized key: lower case letters and digits, with
+     * diacritics and punctuation dropped
+     */
+    public final static String Key(String artist, String album){
+	return Normal(artist)+'/'+Normal(album);
+    }
+    public final static String Normal(String string){
+	String decomposed = Normalizer.normalize(string,Normalizer.Form.NFKD);
+	StringBuilder normal = new StringBuilder();
+	boolean space = false;
+	for (int cc = 0, len = decomposed.length(); cc < len; cc++){
+	    char ch = decomposed.charAt(cc);
+	    if (Character.isLetterOrDigit(ch)){
+		if (space && 0 < normal.length()){
+		    normal.append(' ');
+		}
+		space = false;
+		normal.append(Character.toLowerCase(ch));
+	    }
+	    else if (Character.getType(ch) != Character.NON_SPACING_MARK){
+		space = true;
+	    }
+	}
+	return normal.toString();
+    }
+    /**
+     * @return FNV-1a 64 bit hash of UTF-8 string
+     */
+    public final static long Hash(String string){
+	long hash = 0xcbf29ce484222325L;
+	for (byte b : string.getBytes(StandardCharsets.UTF_8)){
+	    hash ^= (b & 0xff);
+	    hash *= 0x100000001b3L;
+	}
+	return hash;
+    }
+
+    /**
+     * Import a JSON release dump.
+     *
+     * @param dump Release dump, one JSON release per line
+     * @param index Index file to write
+     *
+     * @return Number of releases imported
+     */
+    public final static int Import(File dump, File index)
+	throws IOException
+    {
+	List<String> mbids = new ArrayList<>();
+	long[] offsets = new long[0x10000];
+	int[] lengths = new int[0x10000];
+	long[] keyhashes = new long[0x10000];
+	int count = 0;
+
+	try (RandomAccessFile out = new RandomAccessFile(index,"rw")){
+	    out.setLength(0L);
+	    out.write(new byte[HEADER]);
+
+	    InputStream in = new FileInputStream(dump);
+	    if (dump.getName().endsWith(".gz")){
+		in = new GZIPInputStream(in,0x10000);
+	    }
+	    try (JsonReader reader = new JsonReader(new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8),0x10000))){
+
+		while (JsonReader.Token.BEGIN_OBJECT == reader.peek()){
+
+		    Release release = Release.Read(reader);
+
+		    if (null != release.id && MBID == release.id.length()){
+
+			byte[] xml = release.toXML().getBytes(StandardCharsets.UTF_8);
+
+			if (count == offsets.length){
+			    offsets = Arrays.copyOf(offsets,count*2);
+			    lengths = Arrays.copyOf(lengths,count*2);
+			    keyhashes = Arrays.copyOf(keyhashes,count*2);
+			}
+			mbids.add(release.id);
+			offsets[count] = out.getFilePointer();
+			lengths[count] = xml.length;
+			keyhashes[count] = Hash(Key(release.artist,release.title));
+			count += 1;
+
+			out.write(xml);
+		    }
+		}
+	    }
+	    /*
+	     * ID table sorted by MBID
+	     */
+	    final int releases = count;
+	    Integer[] by_id = new Integer[releases];
+	    for (int cc = 0; cc < releases; cc++){
+		by_id[cc] = cc;
+	    }
+	    Arrays.sort(by_id,(a,b) -> mbids.get(a).compareTo(mbids.get(b)));
+
+	    int[] position = new int[releases];
+
+	    final long ids_offset = out.getFilePointer();
+	    {
+		ByteBuffer entry = ByteBuffer.allocate(ID_ENTRY);
+		for (int cc = 0; cc < releases; cc++){
+		    final int rx = by_id[cc];
+		    position[rx] = cc;
+		    entry.clear();
+		    entry.put(mbids.get(rx).getBytes(StandardCharsets.US_ASCII));
+		    entry.putLong(offsets[rx]);
+		    entry.putInt(lengths[rx]);
+		    out.write(entry.array());
+		}
+	    }
+	    /*
+	     * Key table sorted by hash
+	     */
+	    Integer[] by_hash = by_id;
+	    for (int cc = 0; cc < releases; cc++){
+		by_hash[cc] = cc;
+	    }
+	    final long[] kh = keyhashes;
+	    Arrays.sort(by_hash,(a,b) -> Long.compare(kh[a],kh[b]));
+
+	    final long keys_offset = out.getFilePointer();
+	    {
+		ByteBuffer entry = ByteBuffer.allocate(KEY_ENTRY);
+		for (int cc = 0; cc < releases; cc++){
+		    final int rx = by_hash[cc];
+		    entry.clear();
+		    entry.putLong(keyhashes[rx]);
+		    entry.putInt(position[rx]);
+		    out.write(entry.array());
+		}
+	    }
+	    /*
+	     * Header
+	     */
+	    ByteBuffer header = ByteBuffer.allocate(HEADER);
+	    header.put(MAGIC);
+	    header.putInt(releases);
+	    header.putInt(releases);
+	    header.putLong(ids_offset);
+	    header.putLong(keys_offset);
+	    out.seek(0L);
+	    out.write(header.array());
+	}
+	return count;
+    }
+
+    /**
+     * Release read from a JSON dump
+     */
+    static class Release {
+
+	String id, title, country, artist = "";
+
+	final StringBuilder media = new StringBuilder();
+
+	int media_count;
+
+	Release(){
+	    super();
+	}
+
+	String toXML(){
+	    StringBuilder xml = new StringBuilder();
+	    xml.append("<release id=\"").append(id).append("\">");
+	    Element(xml,"title",title);
+	    xml.append("<artist-credit><name-credit><artist>");
+	    Element(xml,"name",artist);
+	    xml.append("</artist></name-credit></artist-credit>");
+	    Element(xml,"country",country);
+	    xml.append("<medium-list count=\"").append(media_count).append("\">");
+	    xml.append(media);
+	    xml.append("</medium-list>");
+	    xml.append("</release>");
+	    return xml.toString();
+	}
+
+	static Release Read(JsonReader reader)
+	    throws IOException
+	{
+	    Release release = new Release();
+	    reader.beginObject();
+	    while (reader.hasNext()){
+		String name = reader.nextName();
+		if (name.equals("id")){
+		    release.id = reader.nextString();
+		}
+		else if (name.equals("title")){
+		    release.title = reader.nextString();
+		}
+		else if (name.equals("country")){
+		    release.country = reader.nextString();
+		}
+		else if (name.equals("artist-credit") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+		    StringBuilder artist = new StringBuilder();
+		    reader.beginArray();
+		    while (reader.hasNext()){
+			reader.beginObject();
+			while (reader.hasNext()){
+			    String credit = reader.nextName();
+			    if (credit.equals("name") || credit.equals("joinphrase")){
+				String value = reader.nextString();
+				if (null != value){
+				    artist.append(value);
+				}
+			    }
+			    else {
+				reader.skipValue();
+			    }
+			}
+			reader.endObject();
+		    }
+		    reader.endArray();
+		    release.artist = artist.toString();
+		}
+		else if (name.equals("media") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+		    reader.beginArray();
+		    while (reader.hasNext()){
+			release.media_count += 1;
+			Medium(reader,release.media);
+		    }
+		    reader.endArray();
+		}
+		else {
+		    reader.skipValue();
+		}
+	    }
+	    reader.endObject();
+	    return release;
+	}
+	private static void Medium(JsonReader reader, StringBuilder xml)
+	    throws IOException
+	{
+	    String position = null, format = null;
+	    StringBuilder tracks = new StringBuilder();
+	    int track_count = 0;
+
+	    reader.beginObject();
+	    while (reader.hasNext()){
+		String name = reader.nextName();
+		if (name.equals("position")){
+		    position = reader.nextString();
+		}
+		else if (name.equals("format")){
+		    format = reader.nextString();
+		}
+		else if (name.equals("tracks") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+		    reader.beginArray();
+		    while (reader.hasNext()){
+			track_count += 1;
+			Track(reader,tracks);
+		    }
+		    reader.endArray();
+		}
+		else {
+		    reader.skipValue();
+		}
+	    }
+	    reader.endObject();
+
+	    xml.append("<medium>");
+	    Element(xml,"position",position);
+	    Element(xml,"format",format);
+	    xml.append("<track-list count=\"").append(track_count).append("\">");
+	    xml.append(tracks);
+	    xml.append("</track-list>");
+	    xml.append("</medium>");
+	}
+	private static void Track(JsonReader reader, StringBuilder xml)
+	    throws IOException
+	{
+	    String id = null, position = null, number = null, title = null, length = null;
+	    String rec_id = null, rec_title = null, rec_length = null;
+
+	    reader.beginObject();
+	    while (reader.hasNext()){
+		String name = reader.nextName();
+		if (name.equals("id")){
+		    id = reader.nextString();
+		}
+		else if (name.equals("position")){
+		    position = reader.nextString();
+		}
+		else if (name.equals("number")){
+		    number = reader.nextString();
+		}
+		else if (name.equals("title")){
+		    title = reader.nextString();
+		}
+		else if (name.equals("length")){
+		    length = reader.nextString();
+		}
+		else if (name.equals("recording") && JsonReader.Token.BEGIN_OBJECT == reader.peek()){
+		    reader.beginObject();
+		    while (reader.hasNext()){
+			String rec = reader.nextName();
+			if (rec.equals("id")){
+			    rec_id = reader.nextString();
+			}
+			else if (rec.equals("title")){
+			    rec_title = reader.nextString();
+			}
+			else if (rec.equals("length")){
+			    rec_length = reader.nextString();
+			}
+			else {
+			    reader.skipValue();
+			}
+		    }
+		    reader.endObject();
+		}
+		else {
+		    reader.skipValue();
+		}
+	    }
+	    reader.endObject();
+
+	    xml.append("<track id=\"").append(id).append("\">");
+	    Element(xml,"position",position);
+	    Element(xml,"number",number);
+	    Element(xml,"title",title);
+	    Element(xml,"length",length);
+	    xml.append("<recording id=\"").append(rec_id).append("\">");
+	    Element(xml,"title",rec_title);
+	    Element(xml,"length",rec_length);
+	    xml.append("</recording>");
+	    xml.append("</track>");
+	}
+	private static void Element(StringBuilder xml, String name, String text){
+	    if (null != text){
+		xml.append('<').append(name).append('>');
+		for (int cc = 0, len = text.length(); cc < len; cc++){
+		    char ch = text.charAt(cc);
+		    switch(ch){
+		    case '<':
+			xml.append("&lt;");
+			break;
+		    case '>':
+			xml.append("&gt;");
+			break;
+		    case '&':
+			xml.append("&amp;");
+			break;
+		    default:
+			xml.append(ch);
+			break;
+		    }
+		}
+		xml.append("</").append(name).append('>');
+	    }
+	}
+    }
+
+    public static void main(String[] argv){
+	if (2 == argv.length){
+	    try {
+		long start = System.currentTimeMillis();
+
+		int count = Import(new File(argv[0]),new File(argv[1]));
+
+		System.err.printf("Imported %d releases in %d ms%n",count,(System.currentTimeMillis()-start));
+		System.exit(0);
+	    }
+	    catch (IOException exc){
+		exc.printStackTrace();
+		System.exit(1);
+	    }
+	}
+	else {
+	    System.err.println("Synopsis");
+	    System.err.println();
+	    System.err.println("    cddb.Index <release.json[.gz]> <index>");
+	    System.err.println();
+	    System.err.println("Description");
+	    System.err.println();
+	    System.err.println("    Import a Musicbrainz JSON release dump into a local index");
+	    System.err.println("    for the '--index' option of cddb.Main.");
+	    System.err.println();
+	    System.exit(1);
+	}
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import java.net.URLDecoder;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Transport answering release searches and lookups from a local
+ * {@link Index}, without network access.
+ *
+ * A search is answered for the query built by {@link Album#query()},
+ * by the normalized artist and album of the query, and its 'offset'
+ * and 'limit' parameters.  Further clauses of the query (e.g.
+ * "format:CD") are not applied.  A lookup returns
+ * the release with its track list (as for "inc=recordings"),
+ * regardless of the 'inc' parameter.  Other requests are not found
+ * (status 404).
+ *
+ * A request for the JSON format ("fmt=json", or accepting
+ * "application/json") is answered with the records of the XML
+ * response in the JSON format of Musicbrainz, as by {@link StandIn}.
+ */
+public class IndexTransport
+    extends Object
+    implements Transport
+{
+    private final static String NS = "http://musicbrainz.org/ns/mmd-2.0#";
+
+    private final static Pattern QUERY = Pattern.compile("^\"(.*)\" AND artist:\"(.*?)\"(.*)$");
+
+    private final static String STATUS_200 = "HTTP/1.1 200", STATUS_404 = "HTTP/1.1 404";
+
+
+    public final Index index;
+
+
+    public IndexTransport(Index index){
+	super();
+	if (null != index){
+	    this.index = index;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    public Response get(String url, String accept)
+	throws IOException
+    {
+	if (0 < url.indexOf("fmt=json") || (null != accept && accept.startsWith("application/json"))){
+
+	    final String xml_url = API.Xml(url);
+	    try (Response response = xml(xml_url)){
+		if (200 == response.status){
+
+		    byte[] body = JsonRecordReader.Json(xml_url,response.body.readAllBytes());
+
+		    return new Response(url,200,STATUS_200,null,new ByteArrayInputStream(body));
+		}
+		else {
+		    return new Response(url,response.status,response.statusLine,null,new ByteArrayInputStream(new byte[0]));
+		}
+	    }
+	}
+	else {
+	    return xml(url);
+	}
+    }
+    /**
+     * @return Response in the XML format
+     */
+    private Response xml(String url)
+	throws IOException
+    {
+	final String entity = Cache.EntityPath(url);
+	if (Entity.RELEASE.path.equals(entity)){
+
+	    if (Cache.Kind.SEARCH == Cache.Kind.For(url)){
+
+		final String query = Parameter(url,"query");
+		if (null != query){
+
+		    Matcher m = QUERY.matcher(query);
+		    if (m.matches()){
+
+			return Search(url,index.search(m.group(2),m.group(1)),
+				      Int(Parameter(url,"offset"),0),Int(Parameter(url,"limit"),100));
+		    }
+		}
+	    }
+	    else {
+		final String mbid = MBID(url);
+		if (null != mbid){
+		    byte[] release = index.lookup(mbid);
+		    if (null != release){
+
+			return Lookup(url,release);
+		    }
+		}
+	    }
+	}
+	return new Response(url,404,STATUS_404,null,new ByteArrayInputStream(new byte[0]));
+    }
+
+    final static Response Search(String url, List<byte[]> releases, int offset, int limit)
+	throws IOException
+    {
+	final int count = releases.size();
+	ByteArrayOutputStream body = new ByteArrayOutputStream();
+	body.write(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?><metadata xmlns=\"%s\"><release-list count=\"%d\" offset=\"%d\">",NS,count,offset).getBytes(StandardCharsets.UTF_8));
+	for (int cc = Math.max(0,offset), end = Math.min(count,cc+limit); cc < end; cc++){
+	    body.write(releases.get(cc));
+	}
+	body.write("</release-list></metadata>".getBytes(StandardCharsets.UTF_8));
+
+	return new Response(url,200,STATUS_200,null,new ByteArrayInputStream(body.toByteArray()));
+    }
+    final static Response Lookup(String url, byte[] release)
+	throws IOException
+    {
+	ByteArrayOutputStream body = new ByteArrayOutputStream();
+	body.write(String.format("<?xml version=\"1.0\" encoding=\"UTF-8\"?><metadata xmlns=\"%s\">",NS).getBytes(StandardCharsets.UTF_8));
+	body.write(release);
+	body.write("</metadata>".getBytes(StandardCharsets.UTF_8));
+
+	return new Response(url,200,STATUS_200,null,new ByteArrayInputStream(body.toByteArray()));
+    }
+    /**
+     * @return Decoded value of named query parameter, or null
+     */
+    protected final static String Parameter(String url, String name){
+	final int query = url.indexOf('?');
+	if (0 < query){
+	    for (String parameter : url.substring(query+1).split("&")){
+		int eq = parameter.indexOf('=');
+		if (0 < eq && parameter.substring(0,eq).equals(name)){
+
+		    return URLDecoder.decode(parameter.substring(eq+1),StandardCharsets.UTF_8);
+		}
+	    }
+	}
+	return null;
+    }
+    final static int Int(String value, int ifnull){
+	if (null != value){
+	    try {
+		return Integer.parseInt(value);
+	    }
+	    catch (NumberFormatException exc){
+	    }
+	}
+	return ifnull;
+    }
+    /**
+     * @return Lookup MBID following the entity path, or null
+     */
+    protected final static String MBID(String url){
+	final String prefix = API.PATH+'/'+Entity.RELEASE.path+'/';
+	int start = url.indexOf(prefix);
+	if (0 < start){
+	    start += prefix.length();
+	    int end = url.indexOf('?',start);
+	    if (0 > end){
+		end = url.length();
+	    }
+	    return url.substring(start,end);
+	}
+	return null;
+    }
+}
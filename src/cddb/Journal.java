@@ -0,0 +1,282 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append only record of the work completed for each album of a batch
+ * run, so that a run which fails may be restarted without repeating
+ * its completed lookups, renames and tag updates.
+ *
+ * Each line of the journal is one completed stage.
+ *
+ * <pre>
+ * R (dir) (release)                              Release resolved
+ * M (dir) (medium) (position) (source) (target)   Track file renamed
+ * T (dir) (medium) (position)                     Track tag updated
+ * C (dir)                                         Album completed
+ * </pre>
+ *
+ * A track is identified by its medium and its position within the
+ * medium, so that the tracks of each disc of a release are distinct.
+ * A rename is recorded for the reader of the journal: a track renamed
+ * and not tagged is found by its new name when the run is resumed.
+ *
+ * Fields are separated by tab, and a line is written (and flushed)
+ * when its stage is complete.  A partial line, as left by a crash,
+ * is ignored.
+ */
+public class Journal
+    extends Object
+    implements Closeable
+{
+    private final static int MBID = 36;
+    /**
+     * @return Default journal file for a library directory, in
+     * "~/.cddb/journal"
+     */
+    public final static File Default(File root){
+	File dir = new File(new File(System.getProperty("user.home"),".cddb"),"journal");
+
+	return new File(dir,Cache.Key(root.getAbsolutePath()));
+    }
+
+
+    public final File file;
+
+    private final Map<String,String> resolved = new ConcurrentHashMap<>();
+
+    private final Set<String> tagged = ConcurrentHashMap.newKeySet();
+
+    private final Set<String> completed = ConcurrentHashMap.newKeySet();
+
+    private final Writer out;
+
+
+    /**
+     * Read the existing journal file, and open it for append.
+     */
+    public Journal(File file)
+	throws IOException
+    {
+	super();
+	if (null != file){
+	    this.file = file;
+
+	    File parent = file.getAbsoluteFile().getParentFile();
+	    if (parent.isDirectory() || parent.mkdirs()){
+
+		final boolean partial = (file.isFile() && !read());
+
+		this.out = new OutputStreamWriter(new FileOutputStream(file,true),StandardCharsets.UTF_8);
+		if (partial){
+		    /*
+		     * Terminate the partial line
+		     */
+		    out.write('\n');
+		    out.flush();
+		}
+	    }
+	    else {
+		throw new IOException(String.format("Unable to create journal directory '%s'",parent.getPath()));
+	    }
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Number of albums completed
+     */
+    public int count(){
+	return completed.size();
+    }
+    /**
+     * @return Resolved release MBID, or null
+     */
+    public String getRelease(Album album){
+	return resolved.get(Key(album));
+    }
+    public boolean isTagged(Album album, Record track){
+	return tagged.contains(Key(album,track));
+    }
+    public boolean isCompleted(Album album){
+	return completed.contains(Key(album));
+    }
+    public void resolved(Album album, String release)
+	throws IOException
+    {
+	if (null != release && !release.equals(resolved.put(Key(album),release))){
+
+	    write("R",Key(album),release);
+	}
+    }
+    public void renamed(Album album, Record track, File source, File target)
+	throws IOException
+    {
+	write("M",Key(album),String.valueOf(track.medium),String.valueOf(track.position),source.getName(),target.getName());
+    }
+    public void tagged(Album album, Record track)
+	throws IOException
+    {
+	tagged.add(Key(album,track));
+
+	write("T",Key(album),String.valueOf(track.medium),String.valueOf(track.position));
+    }
+    public void completed(Album album)
+	throws IOException
+    {
+	completed.add(Key(album));
+
+	write("C",Key(album));
+    }
+    public void close()
+	throws IOException
+    {
+	synchronized(out){
+	    out.close();
+	}
+    }
+    /**
+     * Close and remove the journal, as when its run is complete.
+     */
+    public void delete()
+	throws IOException
+    {
+	close();
+
+	file.delete();
+    }
+    private void write(String... fields)
+	throws IOException
+    {
+	StringBuilder line = new StringBuilder();
+	for (String field : fields){
+	    if (0 < line.length()){
+		line.append('\t');
+	    }
+	    Escape(field,line);
+	}
+	line.append('\n');
+
+	synchronized(out){
+	    out.write(line.toString());
+	    out.flush();
+	}
+    }
+    /**
+     * @return Journal is empty or ends with a complete line
+     */
+    private boolean read()
+	throws IOException
+    {
+	final String text = new String(Files.readAllBytes(file.toPath()),StandardCharsets.UTF_8);
+	final int end = text.lastIndexOf('\n');
+	if (0 < end){
+	    for (String line : text.substring(0,end).split("\n")){
+		String[] fields = line.split("\t",-1);
+		for (int cc = 0; cc < fields.length; cc++){
+		    fields[cc] = Unescape(fields[cc]);
+		}
+		switch(fields[0]){
+		case "R":
+		    if (3 == fields.length && MBID == fields[2].length()){
+			resolved.put(fields[1],fields[2]);
+		    }
+		    break;
+		case "T":
+		    if (4 == fields.length){
+			tagged.add(fields[1]+'\t'+fields[2]+'\t'+fields[3]);
+		    }
+		    break;
+		case "C":
+		    if (2 == fields.length){
+			completed.add(fields[1]);
+		    }
+		    break;
+		default:
+		    break;
+		}
+	    }
+	}
+	return (text.length() == (end+1));
+    }
+
+    private final static String Key(Album album){
+	return album.dir.getAbsolutePath();
+    }
+    private final static String Key(Album album, Record track){
+	return Key(album)+'\t'+track.medium+'\t'+track.position;
+    }
+    private final static void Escape(String field, StringBuilder line){
+	for (int cc = 0, len = field.length(); cc < len; cc++){
+	    char ch = field.charAt(cc);
+	    switch(ch){
+	    case '\\':
+		line.append("\\\\");
+		break;
+	    case '\t':
+		line.append("\\t");
+		break;
+	    case '\n':
+		line.append("\\n");
+		break;
+	    case '\r':
+		line.append("\\r");
+		break;
+	    default:
+		line.append(ch);
+		break;
+	    }
+	}
+    }
+    private final static String Unescape(String field){
+	if (0 > field.indexOf('\\')){
+	    return field;
+	}
+	else {
+	    StringBuilder string = new StringBuilder();
+	    for (int cc = 0, len = field.length(); cc < len; cc++){
+		char ch = field.charAt(cc);
+		if ('\\' == ch && (cc+1) < len){
+		    ch = field.charAt(++cc);
+		    switch(ch){
+		    case 't':
+			string.append('\t');
+			break;
+		    case 'n':
+			string.append('\n');
+			break;
+		    case 'r':
+			string.append('\r');
+			break;
+		    default:
+			string.append(ch);
+			break;
+		    }
+		}
+		else {
+		    string.append(ch);
+		}
+	    }
+	    return string.toString();
+	}
+    }
+}
@@ -0,0 +1,375 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streaming (pull) JSON reader.  Values are read as they are found,
+ * without materializing a document.
+ *
+ * <pre>
+ * reader.beginObject();
+ * while (reader.hasNext()){
+ *     String name = reader.nextName();
+ *     if (name.equals("title"))
+ *         title = reader.nextString();
+ *     else
+ *         reader.skipValue();
+ * }
+ * reader.endObject();
+ * </pre>
+ */
+public class JsonReader
+    extends Object
+    implements Closeable
+{
+    public enum Token {
+	BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END;
+    }
+    /*
+     * Context stack values
+     */
+    private final static byte OBJECT_NAME = 1, OBJECT_VALUE = 2, ARRAY = 3;
+
+
+    private final Reader in;
+
+    private final char[] buffer = new char[0x2000];
+
+    private int pos, lim;
+
+    private byte[] stack = new byte[0x20];
+
+    private int depth;
+
+    private Token peeked;
+
+    private final StringBuilder value = new StringBuilder();
+
+
+    public JsonReader(Reader in){
+	super();
+	if (null != in){
+	    this.in = in;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Next token, without consuming it
+     */
+    public Token peek()
+	throws IOException
+    {
+	if (null == peeked){
+	    peeked = lex();
+	}
+	return peeked;
+    }
+    /**
+     * @return More values in the current object or array
+     */
+    public boolean hasNext()
+	throws IOException
+    {
+	switch(peek()){
+	case END_OBJECT:
+	case END_ARRAY:
+	case END:
+	    return false;
+	default:
+	    return true;
+	}
+    }
+    public void beginObject()
+	throws IOException
+    {
+	expect(Token.BEGIN_OBJECT);
+    }
+    public void endObject()
+	throws IOException
+    {
+	expect(Token.END_OBJECT);
+    }
+    public void beginArray()
+	throws IOException
+    {
+	expect(Token.BEGIN_ARRAY);
+    }
+    public void endArray()
+	throws IOException
+    {
+	expect(Token.END_ARRAY);
+    }
+    public String nextName()
+	throws IOException
+    {
+	expect(Token.NAME);
+	return value.toString();
+    }
+    /**
+     * @return String or number text, or null for JSON null
+     */
+    public String nextString()
+	throws IOException
+    {
+	switch(peek()){
+	case STRING:
+	case NUMBER:
+	case BOOLEAN:
+	    consume();
+	    return value.toString();
+	case NULL:
+	    consume();
+	    return null;
+	default:
+	    throw new IOException("Expected string, found "+peeked);
+	}
+    }
+    /**
+     * @return Number, or the argument for JSON null
+     */
+    public long nextLong(long ifnull)
+	throws IOException
+    {
+	switch(peek()){
+	case NUMBER:
+	case STRING:
+	    consume();
+	    try {
+		String string = value.toString();
+		if (0 > string.indexOf('.') && 0 > string.indexOf('e') && 0 > string.indexOf('E'))
+		    return Long.parseLong(string);
+		else
+		    return (long)Double.parseDouble(string);
+	    }
+	    catch (NumberFormatException exc){
+		throw new IOException("Expected number, found "+value);
+	    }
+	case NULL:
+	    consume();
+	    return ifnull;
+	default:
+	    throw new IOException("Expected number, found "+peeked);
+	}
+    }
+    /**
+     * Consume the next value, including any object or array
+     * content.
+     */
+    public void skipValue()
+	throws IOException
+    {
+	int level = 0;
+	do {
+	    switch(consume()){
+	    case BEGIN_OBJECT:
+	    case BEGIN_ARRAY:
+		level += 1;
+		break;
+	    case END_OBJECT:
+	    case END_ARRAY:
+		level -= 1;
+		break;
+	    case END:
+		return;
+	    default:
+		break;
+	    }
+	}
+	while (0 < level);
+    }
+    public void close()
+	throws IOException
+    {
+	in.close();
+    }
+    private void expect(Token token)
+	throws IOException
+    {
+	if (token != peek()){
+	    throw new IOException("Expected "+token+", found "+peeked);
+	}
+	else {
+	    consume();
+	}
+    }
+    private Token consume()
+	throws IOException
+    {
+	final Token token = peek();
+	peeked = null;
+	switch(token){
+	case BEGIN_OBJECT:
+	    push(OBJECT_NAME);
+	    break;
+	case BEGIN_ARRAY:
+	    push(ARRAY);
+	    break;
+	case END_OBJECT:
+	case END_ARRAY:
+	    if (0 < depth){
+		depth -= 1;
+	    }
+	    completed();
+	    break;
+	case NAME:
+	    stack[depth-1] = OBJECT_VALUE;
+	    break;
+	case END:
+	    break;
+	default:
+	    completed();
+	    break;
+	}
+	return token;
+    }
+    private void push(byte context){
+	if (depth == stack.length){
+	    stack = java.util.Arrays.copyOf(stack,depth*2);
+	}
+	stack[depth++] = context;
+    }
+    private void completed(){
+	if (0 < depth && OBJECT_VALUE == stack[depth-1]){
+	    stack[depth-1] = OBJECT_NAME;
+	}
+    }
+    private int read()
+	throws IOException
+    {
+	if (pos == lim){
+	    lim = in.read(buffer,0,buffer.length);
+	    pos = 0;
+	    if (0 >= lim){
+		lim = 0;
+		return -1;
+	    }
+	}
+	return buffer[pos++];
+    }
+    private void unread(){
+	pos -= 1;
+    }
+    private Token lex()
+	throws IOException
+    {
+	int ch;
+	do {
+	    ch = read();
+	}
+	while (' ' == ch || '\t' == ch || '\n' == ch || '\r' == ch || ',' == ch || ':' == ch);
+
+	value.setLength(0);
+	switch(ch){
+	case -1:
+	    return Token.END;
+	case '{':
+	    return Token.BEGIN_OBJECT;
+	case '}':
+	    return Token.END_OBJECT;
+	case '[':
+	    return Token.BEGIN_ARRAY;
+	case ']':
+	    return Token.END_ARRAY;
+	case '"':
+	    string();
+	    if (0 < depth && OBJECT_NAME == stack[depth-1])
+		return Token.NAME;
+	    else
+		return Token.STRING;
+	case 't':
+	case 'f':
+	    literal(ch);
+	    return Token.BOOLEAN;
+	case 'n':
+	    literal(ch);
+	    return Token.NULL;
+	default:
+	    if ('-' == ch || ('0' <= ch && ch <= '9')){
+		literal(ch);
+		return Token.NUMBER;
+	    }
+	    else {
+		throw new IOException("Unexpected character '"+((char)ch)+"'");
+	    }
+	}
+    }
+    private void literal(int ch)
+	throws IOException
+    {
+	value.append((char)ch);
+	while (true){
+	    ch = read();
+	    if (('a' <= ch && ch <= 'z') || ('0' <= ch && ch <= '9') || '.' == ch || '-' == ch || '+' == ch || 'E' == ch){
+		value.append((char)ch);
+	    }
+	    else {
+		if (-1 != ch){
+		    unread();
+		}
+		return;
+	    }
+	}
+    }
+    private void string()
+	throws IOException
+    {
+	while (true){
+	    int ch = read();
+	    switch(ch){
+	    case -1:
+		throw new IOException("Unterminated string");
+	    case '"':
+		return;
+	    case '\\':
+		ch = read();
+		switch(ch){
+		case 'b':
+		    value.append('\b');
+		    break;
+		case 'f':
+		    value.append('\f');
+		    break;
+		case 'n':
+		    value.append('\n');
+		    break;
+		case 'r':
+		    value.append('\r');
+		    break;
+		case 't':
+		    value.append('\t');
+		    break;
+		case 'u':
+		    int code = 0;
+		    for (int cc = 0; cc < 4; cc++){
+			int digit = Character.digit(read(),16);
+			if (0 > digit){
+			    throw new IOException("Invalid unicode escape");
+			}
+			code = (code<<4)|digit;
+		    }
+		    value.append((char)code);
+		    break;
+		case -1:
+		    throw new IOException("Unterminated string");
+		default:
+		    value.append((char)ch);
+		    break;
+		}
+		break;
+	    default:
+		value.append((char)ch);
+		break;
+	    }
+	}
+    }
+}
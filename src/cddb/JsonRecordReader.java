@@ -0,0 +1,476 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming reader of search and lookup responses in the JSON format
+ * ("fmt=json"), producing the records of {@link RecordReader}.
+ *
+ * A search or browse response is an object with a list of
+ * "releases" or "recordings", and its "count" and "offset".  A
+ * lookup response is the object of the release or recording.  A
+ * disc ID lookup has a list of "releases".
+ *
+ * A release is produced when its "media" are found, or at its end,
+ * and its tracks are produced as they are read.  The tracks of a
+ * release whose title follows its media are held until the end of
+ * the release, so that a release always precedes its tracks.
+ * Likewise the tracks of a medium whose position follows its tracks
+ * are held until the end of the medium.
+ */
+public class JsonRecordReader
+    extends RecordReader
+{
+    /*
+     * Reader state stack values
+     */
+    private final static byte TOP = 0, RELEASES = 1, RELEASE = 2, MEDIA = 3, MEDIUM = 4, TRACKS = 5, RECORDINGS = 6, RECORDING = 7, END = 8;
+
+
+    private final JsonReader reader;
+
+    private final String entity;
+
+    private byte[] stack = new byte[8];
+
+    private int depth;
+
+    private final ArrayDeque<Record> queue = new ArrayDeque<>();
+    /*
+     * Release state
+     */
+    private String rel_id, rel_title, rel_country;
+    private boolean rel_emitted;
+    private final List<Record> rel_tracks = new ArrayList<>();
+    /*
+     * Medium state
+     */
+    private int med_position;
+    private final List<Record> med_tracks = new ArrayList<>();
+
+
+    /**
+     * @param url Request URL
+     * @param in Response body
+     * @param source Closed by {@link #close()}, may be null
+     */
+    public JsonRecordReader(String url, InputStream in, Closeable source)
+	throws IOException
+    {
+	super(url,source);
+	this.reader = new JsonReader(new BufferedReader(new InputStreamReader(in,StandardCharsets.UTF_8),0x2000));
+	this.entity = Cache.EntityPath(url);
+	/*
+	 * A lookup response is the object of its entity
+	 */
+	if (Cache.Kind.LOOKUP == Cache.Kind.For(url) && Entity.RELEASE.path.equals(entity)){
+	    reader.beginObject();
+	    release();
+	    push(RELEASE);
+	}
+	else if (Cache.Kind.LOOKUP == Cache.Kind.For(url) && Entity.RECORDING.path.equals(entity)){
+	    push(RECORDING);
+	}
+	else {
+	    reader.beginObject();
+	    push(TOP);
+	}
+    }
+
+
+    protected Record read()
+	throws IOException
+    {
+	while (queue.isEmpty() && END != level()){
+
+	    switch(level()){
+
+	    case TOP:
+		if (reader.hasNext()){
+		    String name = reader.nextName();
+		    if (name.equals("count") || name.equals(entity+"-count")){
+			count = (int)reader.nextLong(-1L);
+		    }
+		    else if (name.equals("offset") || name.equals(entity+"-offset")){
+			offset = (int)reader.nextLong(-1L);
+		    }
+		    else if (name.equals("releases") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+			reader.beginArray();
+			push(RELEASES);
+		    }
+		    else if (name.equals("recordings") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+			reader.beginArray();
+			push(RECORDINGS);
+		    }
+		    else {
+			reader.skipValue();
+		    }
+		}
+		else {
+		    reader.endObject();
+		    stack[0] = END;
+		}
+		break;
+
+	    case RELEASES:
+		if (reader.hasNext()){
+		    reader.beginObject();
+		    release();
+		    push(RELEASE);
+		}
+		else {
+		    reader.endArray();
+		    pop();
+		}
+		break;
+
+	    case RELEASE:
+		if (reader.hasNext()){
+		    String name = reader.nextName();
+		    if (name.equals("id")){
+			rel_id = reader.nextString();
+		    }
+		    else if (name.equals("title")){
+			rel_title = reader.nextString();
+		    }
+		    else if (name.equals("country")){
+			rel_country = reader.nextString();
+		    }
+		    else if (name.equals("media") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+			if (null != rel_title){
+			    emit();
+			}
+			reader.beginArray();
+			push(MEDIA);
+		    }
+		    else {
+			reader.skipValue();
+		    }
+		}
+		else {
+		    reader.endObject();
+		    emit();
+		    queue.addAll(rel_tracks);
+		    rel_tracks.clear();
+		    if (1 == depth)
+			stack[0] = END;
+		    else
+			pop();
+		}
+		break;
+
+	    case MEDIA:
+		if (reader.hasNext()){
+		    reader.beginObject();
+		    med_position = 0;
+		    med_tracks.clear();
+		    push(MEDIUM);
+		}
+		else {
+		    reader.endArray();
+		    pop();
+		}
+		break;
+
+	    case MEDIUM:
+		if (reader.hasNext()){
+		    String name = reader.nextName();
+		    if (name.equals("position")){
+			med_position = (int)reader.nextLong(0L);
+		    }
+		    else if (name.equals("tracks") && JsonReader.Token.BEGIN_ARRAY == reader.peek()){
+			reader.beginArray();
+			push(TRACKS);
+		    }
+		    else {
+			reader.skipValue();
+		    }
+		}
+		else {
+		    reader.endObject();
+		    for (Record track : med_tracks){
+			track(new Record(Record.Type.TRACK,track.id,track.title,null,track.release,med_position,track.position,track.number,track.length));
+		    }
+		    med_tracks.clear();
+		    pop();
+		}
+		break;
+
+	    case TRACKS:
+		if (reader.hasNext()){
+		    Record track = track();
+		    if (0 < med_position)
+			track(track);
+		    else
+			med_tracks.add(track);
+		}
+		else {
+		    reader.endArray();
+		    pop();
+		}
+		break;
+
+	    case RECORDING:
+		queue.add(recording());
+		stack[0] = END;
+		break;
+
+	    case RECORDINGS:
+		if (reader.hasNext()){
+		    queue.add(recording());
+		}
+		else {
+		    reader.endArray();
+		    pop();
+		}
+		break;
+
+	    default:
+		throw new IllegalStateException();
+	    }
+	}
+	return queue.poll();
+    }
+    private byte level(){
+	return stack[depth-1];
+    }
+    private void push(byte level){
+	if (depth == stack.length){
+	    stack = java.util.Arrays.copyOf(stack,depth*2);
+	}
+	stack[depth++] = level;
+    }
+    private void pop(){
+	depth -= 1;
+    }
+    private void release(){
+	rel_id = null;
+	rel_title = null;
+	rel_country = null;
+	rel_emitted = false;
+	rel_tracks.clear();
+    }
+    private void track(Record track){
+	if (rel_emitted)
+	    queue.add(track);
+	else
+	    rel_tracks.add(track);
+    }
+    private void emit(){
+	if (!rel_emitted){
+	    rel_emitted = true;
+
+	    queue.add(new Record(Record.Type.RELEASE,rel_id,rel_title,rel_country,null,0,0,null,-1L));
+	}
+    }
+    /**
+     * @return Track read from its object.  A track title or length
+     * absent from the track is taken from its recording.
+     */
+    private Record track()
+	throws IOException
+    {
+	String id = null, title = null, number = null, rec_title = null;
+	int position = 0;
+	long length = -1L, rec_length = -1L;
+
+	reader.beginObject();
+	while (reader.hasNext()){
+	    String name = reader.nextName();
+	    if (name.equals("id")){
+		id = reader.nextString();
+	    }
+	    else if (name.equals("title")){
+		title = reader.nextString();
+	    }
+	    else if (name.equals("number")){
+		number = reader.nextString();
+	    }
+	    else if (name.equals("position")){
+		position = (int)reader.nextLong(0L);
+	    }
+	    else if (name.equals("length")){
+		length = reader.nextLong(-1L);
+	    }
+	    else if (name.equals("recording") && JsonReader.Token.BEGIN_OBJECT == reader.peek()){
+		reader.beginObject();
+		while (reader.hasNext()){
+		    String rec = reader.nextName();
+		    if (rec.equals("title")){
+			rec_title = reader.nextString();
+		    }
+		    else if (rec.equals("length")){
+			rec_length = reader.nextLong(-1L);
+		    }
+		    else {
+			reader.skipValue();
+		    }
+		}
+		reader.endObject();
+	    }
+	    else {
+		reader.skipValue();
+	    }
+	}
+	reader.endObject();
+
+	if (null == title){
+	    title = rec_title;
+	}
+	if (0L > length){
+	    length = rec_length;
+	}
+	return new Record(Record.Type.TRACK,id,title,null,rel_id,med_position,position,number,length);
+    }
+    /**
+     * @return Recording read from its object
+     */
+    private Record recording()
+	throws IOException
+    {
+	String id = null, title = null;
+	long length = -1L;
+
+	reader.beginObject();
+	while (reader.hasNext()){
+	    String name = reader.nextName();
+	    if (name.equals("id")){
+		id = reader.nextString();
+	    }
+	    else if (name.equals("title")){
+		title = reader.nextString();
+	    }
+	    else if (name.equals("length")){
+		length = reader.nextLong(-1L);
+	    }
+	    else {
+		reader.skipValue();
+	    }
+	}
+	reader.endObject();
+
+	return new Record(Record.Type.RECORDING,id,title,null,null,0,0,null,length);
+    }
+    /**
+     * @param url Request URL, in XML format
+     * @param xml Response body
+     *
+     * @return Records of the response in the JSON format
+     */
+    final static byte[] Json(String url, byte[] xml)
+	throws IOException
+    {
+	final StringBuilder json = new StringBuilder();
+	final boolean list = (Cache.Kind.LOOKUP != Cache.Kind.For(url));
+
+	try (RecordReader reader = new RecordReader(url,new ByteArrayInputStream(xml),null)){
+	    boolean release = false, first = true;
+	    int medium = -1;
+	    while (reader.hasNext()){
+		Record record = reader.next();
+		if (list && first){
+		    json.append("{\"count\":").append(reader.getCount());
+		    json.append(",\"offset\":").append(reader.getOffset());
+		    json.append(",\"").append(Cache.EntityPath(url)).append("s\":[");
+		}
+		switch(record.type){
+		case RELEASE:
+		    if (release){
+			json.append((0 <= medium)?("]}]},"):("]},"));
+		    }
+		    else if (!first){
+			json.append(',');
+		    }
+		    release = true;
+		    medium = -1;
+		    json.append("{\"id\":").append(Json(record.id));
+		    json.append(",\"title\":").append(Json(record.title));
+		    json.append(",\"country\":").append(Json(record.country));
+		    json.append(",\"media\":[");
+		    break;
+		case TRACK:
+		    if (record.medium != medium){
+			json.append((0 <= medium)?("]},{"):("{"));
+			medium = record.medium;
+			json.append("\"position\":").append(medium).append(",\"tracks\":[");
+		    }
+		    else {
+			json.append(',');
+		    }
+		    json.append("{\"id\":").append(Json(record.id));
+		    json.append(",\"number\":").append(Json(record.number));
+		    json.append(",\"position\":").append(record.position);
+		    json.append(",\"title\":").append(Json(record.title));
+		    json.append(",\"length\":").append((0L <= record.length)?(String.valueOf(record.length)):("null")).append('}');
+		    break;
+		default:
+		    if (!first){
+			json.append(',');
+		    }
+		    json.append("{\"id\":").append(Json(record.id));
+		    json.append(",\"title\":").append(Json(record.title));
+		    json.append(",\"length\":").append((0L <= record.length)?(String.valueOf(record.length)):("null")).append('}');
+		    break;
+		}
+		first = false;
+	    }
+	    if (release){
+		json.append((0 <= medium)?("]}]}"):("]}"));
+	    }
+	    if (list){
+		if (first){
+		    json.append("{\"count\":0,\"offset\":0,\"").append(Cache.EntityPath(url)).append("s\":[");
+		}
+		json.append("]}");
+	    }
+	}
+	catch (java.io.UncheckedIOException exc){
+	    throw exc.getCause();
+	}
+	return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    /**
+     * @return JSON string or null
+     */
+    private final static String Json(String string){
+	if (null != string){
+	    StringBuilder json = new StringBuilder();
+	    json.append('"');
+	    for (int cc = 0, len = string.length(); cc < len; cc++){
+		char ch = string.charAt(cc);
+		switch(ch){
+		case '"':
+		case '\\':
+		    json.append('\\').append(ch);
+		    break;
+		default:
+		    if (' ' > ch)
+			json.append(String.format("\\u%04x",(int)ch));
+		    else
+			json.append(ch);
+		    break;
+		}
+	    }
+	    json.append('"');
+	    return json.toString();
+	}
+	else {
+	    return "null";
+	}
+    }
+}
@@ -0,0 +1,514 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+/**
+ * Library batch mode processes every Artist/Album directory under a
+ * library directory in one process.
+ *
+ * Work flows through three stages connected by bounded queues.  The
+ * discovery stage walks the library directory.  The lookup stage is
+ * a pool of web service users, which together are held to the
+ * Musicbrainz rate limit by the {@link Scheduler}.  It identifies an
+ * album by its {@link DiscId} when possible, then from the
+ * {@link Discography} of its artist, and otherwise by search.  The
+ * update stage renames and tags files.
+ *
+ * The discography of an artist having a number of albums is fetched
+ * once, by the first lookup user to need it, and shared by the
+ * lookups of the other albums of the artist.
+ *
+ * An album having more than one candidate release is resolved by
+ * {@link Score} when its local track lengths identify a release.
+ * Otherwise it would block the whole run on its 'Accept' prompt, so
+ * it is collected into a review queue which is presented
+ * interactively when the stages are complete.
+ *
+ * Completed work is recorded in a {@link Journal}, so that a run
+ * which fails may be restarted.  Albums completed by a previous run
+ * are skipped, and albums whose release was resolved by a previous
+ * run are not searched again.  The journal is removed when a run
+ * completes without error.
+ *
+ * The {@link State} of updated track files persists across runs, so
+ * that an album which is unchanged since its last update is skipped
+ * without web service or file updates (unless the run is 'full').
+ *
+ * <pre>
+ * cddb.library.threads    Number of web service users (4)
+ * cddb.library.queue      Stage queue capacity (32)
+ * cddb.library.browse     Minimum albums of an artist to employ
+ *                         its discography (2)
+ * </pre>
+ */
+public class Library
+    extends Object
+{
+    public final static int THREADS = Integer.getInteger("cddb.library.threads",4);
+
+    public final static int QUEUE = Integer.getInteger("cddb.library.queue",32);
+
+    public final static int BROWSE = Integer.getInteger("cddb.library.browse",2);
+
+    private final static PrintStream err = Main.err;
+
+    /**
+     * Album resolved to its release tracks
+     */
+    static class Resolved {
+
+	final Album album;
+
+	final List<Record> tracks;
+
+	Resolved(Album album, List<Record> tracks){
+	    super();
+	    this.album = album;
+	    this.tracks = tracks;
+	}
+    }
+    /**
+     * Album having more than one candidate release, and an ambiguous
+     * score
+     */
+    static class Review {
+
+	final Album album;
+
+	final Document response;
+
+	final List<Score> scores;
+
+	Review(Album album, Document response, List<Score> scores){
+	    super();
+	    this.album = album;
+	    this.response = response;
+	    this.scores = scores;
+	}
+    }
+    /*
+     * End of update stage input.  The end of lookup stage input is
+     * this instance.
+     */
+    private final static Resolved RESOLVED_END = new Resolved(null,null);
+
+
+    public final File root;
+
+    public final String fext;
+
+    public final int threads;
+
+    public final Journal journal;
+
+    public final State state;
+
+    public final boolean full;
+
+    private final BlockingQueue<Object> found;
+
+    private final BlockingQueue<Resolved> resolved;
+
+    private final ConcurrentLinkedQueue<Review> review = new ConcurrentLinkedQueue<>();
+
+    /*
+     * Number of albums found in each artist directory
+     */
+    private final ConcurrentHashMap<String,Integer> artists = new ConcurrentHashMap<>();
+    /*
+     * Discography of an artist, or null for an artist not found
+     */
+    private final ConcurrentHashMap<String,CompletableFuture<Discography>> discography = new ConcurrentHashMap<>();
+
+    private final AtomicInteger errors = new AtomicInteger();
+
+    private final AtomicInteger completed = new AtomicInteger();
+
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+
+    /**
+     * @param root Library directory of Artist/Album directories
+     * @param fext Preferred track file name extension
+     * @param threads Number of web service users
+     * @param journal Run journal
+     * @param state Track file state
+     * @param full Process albums found unchanged in the state
+     */
+    public Library(File root, String fext, int threads, Journal journal, State state, boolean full){
+	super();
+	if (null != root && root.isDirectory() && null != fext && 0 < threads && null != journal && null != state){
+	    this.root = root;
+	    this.fext = fext;
+	    this.threads = threads;
+	    this.journal = journal;
+	    this.state = state;
+	    this.full = full;
+	    this.found = new ArrayBlockingQueue<>(QUEUE);
+	    this.resolved = new ArrayBlockingQueue<>(QUEUE);
+	}
+	else {
+	    throw new IllegalArgumentException(String.valueOf(root));
+	}
+    }
+
+
+    /**
+     * Process the library.
+     *
+     * @return Number of albums in error
+     */
+    public int run(){
+
+	Thread discovery = new Thread(this::discover,"cddb-library-discovery");
+	discovery.start();
+
+	final AtomicInteger lookup_running = new AtomicInteger(threads);
+	Thread[] lookup = new Thread[threads];
+	for (int cc = 0; cc < threads; cc++){
+	    lookup[cc] = new Thread(() -> {
+		    try {
+			lookup();
+		    }
+		    finally {
+			if (0 == lookup_running.decrementAndGet()){
+			    Put(resolved,RESOLVED_END);
+			}
+		    }
+		},"cddb-library-lookup-"+cc);
+	    lookup[cc].start();
+	}
+
+	Thread update = new Thread(this::update,"cddb-library-update");
+	update.start();
+
+	Join(discovery);
+	for (Thread t : lookup){
+	    Join(t);
+	}
+	Join(update);
+	/*
+	 * Interactive review
+	 */
+	if (!review.isEmpty()){
+	    err.printf("# Review %d albums%n",review.size());
+
+	    final API api_release = new API(Entity.RELEASE);
+
+	    Review item;
+	    while (null != (item = review.poll())){
+
+		err.printf("# %s%n",item.album);
+		try {
+		    NodeList release_list = Main.Releases(item.response);
+
+		    List<Record> tracks = Main.Update(item.album,api_release,release_list.getLength(),release_list,item.scores,journal);
+		    if (null != tracks){
+			state.update(item.album,tracks);
+		    }
+
+		    completed.incrementAndGet();
+		}
+		catch (Exception exc){
+		    error(item.album,exc);
+		}
+	    }
+	}
+	err.printf("# Library '%s' completed %d, unchanged %d, errors %d%n",root.getPath(),completed.get(),unchanged.get(),errors.get());
+	try {
+	    state.close();
+	}
+	catch (IOException exc){
+	    err.printf("Error, state '%s': %s%n",state.file.getPath(),exc);
+	}
+	try {
+	    if (0 == errors.get()){
+
+		journal.delete();
+	    }
+	    else {
+		journal.close();
+
+		err.printf("# Journal '%s'%n",journal.file.getPath());
+	    }
+	}
+	catch (IOException exc){
+	    err.printf("Error, journal '%s': %s%n",journal.file.getPath(),exc);
+	}
+	return errors.get();
+    }
+    /**
+     * Discovery stage
+     */
+    private void discover(){
+	try {
+	    for (File artist : List(root)){
+
+		List<File> albums = List(artist);
+
+		artists.put(artist.getName(),albums.size());
+
+		for (File dir : albums){
+		    try {
+			Album album = new Album(dir,fext);
+			if (journal.isCompleted(album)){
+
+			    completed.incrementAndGet();
+			}
+			else if (!full && state.isCurrent(album)){
+
+			    unchanged.incrementAndGet();
+			}
+			else if (0 < album.count){
+
+			    Put(found,album);
+			}
+		    }
+		    catch (RuntimeException exc){
+			err.printf("Error, album '%s': %s%n",dir.getPath(),exc);
+			errors.incrementAndGet();
+		    }
+		}
+	    }
+	}
+	finally {
+	    for (int cc = 0; cc < threads; cc++){
+		Put(found,this);
+	    }
+	}
+    }
+    /**
+     * Lookup stage
+     */
+    private void lookup(){
+	final API api_release = new API(Entity.RELEASE);
+	Object next;
+	while (this != (next = Take(found))){
+	    final Album album = (Album)next;
+	    try {
+		String journaled = journal.getRelease(album);
+		if (null != journaled){
+
+		    err.printf("J %s %s%n",album,journaled);
+
+		    resolve(album,Main.Tracks(api_release,journaled));
+		    continue;
+		}
+
+		DiscId disc = DiscId.For(album);
+		if (null != disc){
+		    try {
+			Score selected = Score.Select(disc.rank(api_release));
+			if (null != selected){
+
+			    err.printf("D %s %s %s%n",album,disc.id,selected);
+
+			    resolve(album,selected.tracks);
+			    continue;
+			}
+		    }
+		    catch (IOException notfound){
+		    }
+		}
+
+		Score browsed = browse(album);
+		if (null != browsed){
+
+		    err.printf("B %s %s%n",album,browsed);
+
+		    resolve(album,browsed.tracks);
+		    continue;
+		}
+
+		Document response = api_release.search(album.query());
+
+		NodeList release_list = Main.Releases(response);
+		switch(release_list.getLength()){
+		case 0:
+		    Main.Error(album,api_release,response);
+		    errors.incrementAndGet();
+		    break;
+		case 1:
+		    String release_id = ((org.w3c.dom.Element)release_list.item(0)).getAttribute("id");
+
+		    resolve(album,Main.Tracks(api_release,release_id));
+		    break;
+		default:
+		    List<Score> scores = Score.Rank(album,Score.Lengths(album),api_release,release_list);
+
+		    Score selected = Score.Select(scores);
+		    if (null != selected){
+
+			err.printf("S %s %s%n",album,selected);
+
+			resolve(album,selected.tracks);
+		    }
+		    else {
+			review.add(new Review(album,response,scores));
+		    }
+		    break;
+		}
+	    }
+	    catch (Exception exc){
+		error(album,exc);
+	    }
+	}
+    }
+    /**
+     * Record the resolved release in the journal, and queue the
+     * album for update.
+     */
+    private void resolve(Album album, List<Record> tracks)
+	throws IOException
+    {
+	if (!tracks.isEmpty()){
+
+	    journal.resolved(album,tracks.get(0).release);
+	}
+	Put(resolved,new Resolved(album,tracks));
+    }
+    /**
+     * Match the album from the discography of its artist.
+     *
+     * @return Selected score, or null for search
+     */
+    private Score browse(Album album){
+	final Integer count = artists.get(album.dir.getParentFile().getName());
+	if (0 < BROWSE && null != count && BROWSE <= count){
+
+	    Discography releases = discography(album.artist);
+	    if (null != releases){
+
+		return Score.Select(releases.rank(album,Score.Lengths(album)));
+	    }
+	}
+	return null;
+    }
+    /**
+     * Fetch the discography of the artist in this thread, or wait
+     * for its fetch by another lookup user.  An artist not found (or
+     * not available offline) has none, and a failed fetch is
+     * reported once for the artist and has none.
+     *
+     * @return Discography, or null for search
+     */
+    private Discography discography(String artist){
+
+	final CompletableFuture<Discography> created = new CompletableFuture<>();
+
+	final CompletableFuture<Discography> existing = discography.putIfAbsent(artist,created);
+	if (null != existing){
+
+	    return existing.join();
+	}
+	else {
+	    Discography releases = null;
+	    try {
+		releases = Discography.For(artist);
+
+		if (null != releases){
+		    err.printf("A %s%n",releases);
+		}
+	    }
+	    catch (java.io.FileNotFoundException notfound){
+		/*
+		 * Artist search or browse not found, e.g. by the index
+		 */
+	    }
+	    catch (IOException | RuntimeException exc){
+
+		err.printf("Error, browse '%s': %s%n",artist,exc);
+	    }
+	    finally {
+		created.complete(releases);
+	    }
+	    return releases;
+	}
+    }
+    /**
+     * Update stage
+     */
+    private void update(){
+	Resolved next;
+	while (RESOLVED_END != (next = Take(resolved))){
+	    try {
+		err.printf("# %s%n",next.album);
+
+		Main.Update(next.album,next.tracks,journal);
+
+		state.update(next.album,next.tracks);
+
+		completed.incrementAndGet();
+	    }
+	    catch (Exception exc){
+		error(next.album,exc);
+	    }
+	}
+    }
+    private void error(Album album, Exception exc){
+	err.printf("Error, album '%s': %s%n",album.dir.getPath(),exc);
+	errors.incrementAndGet();
+    }
+
+    private final static List<File> List(File dir){
+	File[] list = dir.listFiles();
+	if (null != list){
+	    Arrays.sort(list);
+	    List<File> re = new ArrayList<>(list.length);
+	    for (File f : list){
+		if (f.isDirectory() && '.' != f.getName().charAt(0)){
+		    re.add(f);
+		}
+	    }
+	    return re;
+	}
+	else {
+	    return new ArrayList<>();
+	}
+    }
+    private final static <T> void Put(BlockingQueue<T> q, T o){
+	try {
+	    q.put(o);
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException(exc);
+	}
+    }
+    private final static <T> T Take(BlockingQueue<T> q){
+	try {
+	    return q.take();
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+	    throw new IllegalStateException(exc);
+	}
+    }
+    private final static void Join(Thread t){
+	try {
+	    t.join();
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+	}
+    }
+}
@@ -0,0 +1,290 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.time.Duration;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load driver exercising {@link API} with concurrent release
+ * searches and lookups, normally against a {@link StandIn}.  The
+ * throughput and latency percentiles of the requests are reported,
+ * followed by the {@link Stats} of their phases.
+ *
+ * Requests alternate between the search of the query, and lookups
+ * (with "inc=recordings") of the releases found by an initial
+ * search.  Each request is streamed by a {@link RecordReader} to
+ * its end.
+ *
+ * <pre>
+ * java -cp cddb.jar cddb.Load --standin music.log --threads 16 --requests 2000
+ * java -Dcddb.host=localhost:7302 -cp cddb.jar cddb.Load
+ * </pre>
+ *
+ * The transport is an {@link HttpTransport} with a connection per
+ * thread, behind a {@link Scheduler} at the argument rate (with a
+ * burst of one request per thread), and optionally behind a {@link
+ * Cache}.
+ */
+public class Load
+    extends Object
+{
+    public final static String QUERY = "\"Greatest Hits\" AND artist:\"ZZ Top\"";
+
+
+    public static void main(String[] argv){
+	int threads = 8, requests = 1000;
+	double rate = 1000.0;
+	File cache = null, recording = null;
+	String query = QUERY;
+	try {
+	    for (int argx = 0, argc = argv.length; argx < argc; argx++){
+		String arg = argv[argx];
+		if ("--threads".equals(arg) && argx+1 < argc){
+		    threads = Integer.parseInt(argv[++argx]);
+		}
+		else if ("--requests".equals(arg) && argx+1 < argc){
+		    requests = Integer.parseInt(argv[++argx]);
+		}
+		else if ("--rate".equals(arg) && argx+1 < argc){
+		    rate = Double.parseDouble(argv[++argx]);
+		}
+		else if ("--cache".equals(arg) && argx+1 < argc){
+		    cache = new File(argv[++argx]);
+		}
+		else if ("--standin".equals(arg) && argx+1 < argc){
+		    recording = new File(argv[++argx]);
+		}
+		else if ("--json".equals(arg)){
+		    API.SetDefaultFormat(API.FORMAT_JSON);
+		}
+		else if (arg.startsWith("--")){
+		    usage();
+		}
+		else {
+		    query = arg;
+		}
+	    }
+	}
+	catch (NumberFormatException exc){
+	    usage();
+	}
+	if (0 >= threads || 0 >= requests || 0.0 >= rate){
+	    usage();
+	}
+
+	StandIn standin = null;
+	try {
+	    if (null != recording){
+		standin = new StandIn(0,StandIn.THREADS,StandIn.LATENCY,StandIn.JITTER,StandIn.BUSY,StandIn.PAD,StandIn.GZIP,StandIn.Source(recording));
+
+		API.SetDefaultHost(standin.host());
+	    }
+
+	    HttpTransport network = new HttpTransport(threads,Duration.ofMillis(HttpTransport.CONNECT_TIMEOUT),Duration.ofMillis(HttpTransport.REQUEST_TIMEOUT));
+	    Transport transport = new Scheduler(rate,threads,Scheduler.RETRY,network);
+	    if (null != cache){
+		transport = new Cache(cache,false,transport);
+	    }
+
+	    Load load = new Load(new API(Entity.RELEASE,transport),query);
+
+	    load.run(threads,requests);
+
+	    load.print(System.out);
+
+	    Stats.Print(System.out);
+
+	    network.close();
+
+	    System.exit((0L == load.errors())?(0):(1));
+	}
+	catch (IOException exc){
+	    System.err.printf("Error, %s%n",exc);
+	    System.exit(1);
+	}
+	finally {
+	    if (null != standin){
+		standin.close();
+	    }
+	}
+    }
+    private static void usage(){
+	System.err.println("Synopsis");
+	System.err.println();
+	System.err.println("    cddb.Load [--threads n] [--requests n] [--rate r] [--cache dir] [--standin recording] [--json] [query]");
+	System.err.println();
+	System.err.println("Description");
+	System.err.println();
+	System.err.println("    Perform concurrent release searches and lookups, and report");
+	System.err.println("    their throughput and latency.  The requests are served by a");
+	System.err.println("    stand-in of the recording, or by the host of -Dcddb.host.");
+	System.err.println("    With 'json' option, request the JSON format.");
+	System.err.println();
+	System.exit(1);
+    }
+
+
+    public final API api;
+
+    public final String query;
+
+    private final List<String> releases = new ArrayList<>();
+
+    private final LongAdder errors = new LongAdder();
+
+    private long[] latency;
+
+    private long elapsed;
+
+    private int threads;
+
+
+    public Load(API api, String query){
+	super();
+	if (null != api && null != query){
+	    this.api = api;
+	    this.query = query;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * Perform an initial search for the release MBIDs to look up,
+     * and then the argument number of requests.
+     *
+     * @param threads Number of concurrent requests
+     * @param requests Number of requests
+     */
+    public void run(int threads, int requests)
+	throws IOException
+    {
+	if (0 < threads && 0 < requests){
+	    this.threads = threads;
+
+	    try (RecordReader reader = api.searchRecords(query)){
+		while (reader.hasNext()){
+		    Record release = reader.next();
+		    if (Record.Type.RELEASE == release.type && null != release.id){
+			releases.add(release.id);
+		    }
+		}
+	    }
+	    catch (UncheckedIOException exc){
+		throw exc.getCause();
+	    }
+
+	    final long[] latency = new long[requests];
+	    final AtomicInteger next = new AtomicInteger();
+	    final ExecutorService pool = Executors.newFixedThreadPool(threads,new Threads("cddb-load"));
+	    try {
+		final long start = System.nanoTime();
+
+		List<Future<?>> workers = new ArrayList<>();
+		for (int cc = 0; cc < threads; cc++){
+		    workers.add(pool.submit(() -> {
+				for (int request; (request = next.getAndIncrement()) < requests; ){
+
+				    latency[request] = request(request);
+				}
+			    }));
+		}
+		for (Future<?> worker : workers){
+		    try {
+			worker.get();
+		    }
+		    catch (Exception exc){
+			throw new IOException(exc);
+		    }
+		}
+		this.elapsed = (System.nanoTime()-start);
+	    }
+	    finally {
+		pool.shutdown();
+	    }
+	    Arrays.sort(latency);
+	    this.latency = latency;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+    /**
+     * @return Number of failed requests
+     */
+    public long errors(){
+	return errors.sum();
+    }
+    /**
+     * @return Requests per second
+     */
+    public double throughput(){
+	if (0L < elapsed)
+	    return ((double)latency.length * 1e9 / (double)elapsed);
+	else
+	    return 0.0;
+    }
+    /**
+     * @param p Fraction, e.g. 0.99
+     *
+     * @return Latency percentile in milliseconds
+     */
+    public double percentile(double p){
+	if (null != latency && 0 < latency.length){
+	    int index = (int)Math.ceil(p * latency.length)-1;
+	    return ((double)latency[Math.max(0,Math.min(latency.length-1,index))] / 1e6);
+	}
+	else
+	    return 0.0;
+    }
+    public void print(java.io.PrintStream out){
+	if (null != latency){
+	    out.printf("# Requests %d, errors %d, threads %d, elapsed %.3f s, throughput %.1f/s%n",
+		       latency.length,errors(),threads,(elapsed / 1e9),throughput());
+	    out.printf("# Latency p50 %.2f ms p90 %.2f ms p99 %.2f ms p99.9 %.2f ms max %.2f ms%n",
+		       percentile(0.5),percentile(0.9),percentile(0.99),percentile(0.999),percentile(1.0));
+	}
+    }
+    /**
+     * @param request Request number
+     *
+     * @return Latency of the request in nanoseconds
+     */
+    private long request(int request){
+	final long start = System.nanoTime();
+	try {
+	    final RecordReader reader;
+	    if (0 != (request & 1) && !releases.isEmpty())
+		reader = api.lookupRecords(releases.get((request >> 1) % releases.size()),"recordings");
+	    else
+		reader = api.searchRecords(query);
+
+	    try (reader){
+		while (reader.hasNext()){
+		    reader.next();
+		}
+	    }
+	}
+	catch (IOException | UncheckedIOException exc){
+	    errors.increment();
+	}
+	return (System.nanoTime()-start);
+    }
+}
@@ -7,6 +7,7 @@ package cddb;
 import java.io.File;
 import java.io.InputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
 
 import java.net.HttpURLConnection;
@@ -16,7 +17,16 @@ import java.net.URLConnection;
 import java.nio.file.Path;
 import java.nio.file.Files;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -24,6 +34,7 @@ import org.w3c.dom.NodeList;
 
 import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
@@ -41,58 +52,142 @@ public class Main {
     private final static String FilenameFormat = "%02d._%s.%s";
     private final static String FilenameFormat_Old = "%d %s.%s";
 
-    private final static PrintStream out = System.out;
-    private final static PrintStream err = System.err;
-    private final static InputStream in = System.in;
-
-    private static void usage(){
-	System.err.println("Synopsis");
-	System.err.println();
-	System.err.println("    cddb.Main <dir> [--print | --tag]");
-	System.err.println();
-	System.err.println("Description");
-	System.err.println();
-	System.err.println("    Check and repair track file names for Artist/Album directory.");
-	System.err.println();
-	System.err.println("    With 'print' option, don't modify files.");
-	System.err.println();
-	System.err.println("    With 'tag' option, don't use [CDDB/Musicbrainz] web services.");
-	System.err.println("    (Employs artist, album and track directory and file name data).");
-	System.err.println();
-	System.err.println("    With 'print' and 'tag' options, list ID3 tags for files found");
-	System.err.println("    in directory.");
-	System.err.println();
-	System.exit(1);
+    /**
+     * Output and input of the current job
+     */
+    private final static Redirect Out = new Redirect(System.out), Err = new Redirect(System.err);
+    private final static Input In = new Input(System.in);
+
+    final static PrintStream out = new PrintStream(Out,true);
+    final static PrintStream err = new PrintStream(Err,true);
+    private final static InputStream in = In;
+    /**
+     * Number of candidate releases prefetched while prompting
+     */
+    public final static int PREFETCH = Integer.getInteger("cddb.prefetch",2);
+    /**
+     * Number of concurrent track file updates (read, rename, tag and
+     * commit), shared by all albums.  One suits a disk, and more suit
+     * solid state storage.
+     */
+    public final static int UPDATES = Integer.getInteger("cddb.update.threads",4);
+
+    private static ExecutorService Updates;
+
+    private static int usage(){
+	err.println("Synopsis");
+	err.println();
+	err.println("    cddb.Main <dir> [--print | --tag] [--stats] [--cache <dir> | --offline | --index <file>]");
+	err.println("    cddb.Main --library <dir> [--threads <n>] [--journal <file>] [--full] [--stats] [--cache <dir> | --offline | --index <file>]");
+	err.println("    cddb.Main --daemon [--socket <file>] [--threads <n>] [--cache <dir> | --offline | --index <file>]");
+	err.println();
+	err.println("Description");
+	err.println();
+	err.println("    Check and repair track file names for Artist/Album directory.");
+	err.println("    The album is identified by the disc ID of its track files, or");
+	err.println("    by search.");
+	err.println();
+	err.println("    With 'print' option, don't modify files.");
+	err.println();
+	err.println("    With 'tag' option, don't use [CDDB/Musicbrainz] web services.");
+	err.println("    (Employs artist, album and track directory and file name data).");
+	err.println();
+	err.println("    With 'print' and 'tag' options, list ID3 tags for files found");
+	err.println("    in directory.");
+	err.println();
+	err.println("    Web service responses are cached in '~/.cddb/cache', or the");
+	err.println("    'cache' option directory.  With 'offline' option, employ only");
+	err.println("    the cache.  With 'index' option, employ only the local release");
+	err.println("    index imported by cddb.Index from a Musicbrainz dump.");
+	err.println();
+	err.println("    With 'library' option, check and repair every Artist/Album");
+	err.println("    directory under the library directory.  Albums having more");
+	err.println("    than one candidate release are reviewed after the others are");
+	err.println("    complete.  The 'threads' option sets the number of concurrent");
+	err.println("    web service users.");
+	err.println();
+	err.println("    Library work is recorded in a journal in '~/.cddb/journal', or");
+	err.println("    the 'journal' option file, so that a failed run may be");
+	err.println("    restarted without repeating completed albums and lookups.");
+	err.println("    The state of updated track files is recorded in '~/.cddb/state',");
+	err.println("    and albums unchanged since their last update are skipped.");
+	err.println("    With 'full' option, process every album.");
+	err.println();
+	err.println("    With 'stats' option, print a summary of web service request");
+	err.println("    latency, bytes, status, rate limit waits and cache hits.");
+	err.println("    These are also available by JMX (\"cddb:type=Stats\") and JFR.");
+	err.println();
+	err.println("    With 'daemon' option, accept jobs from cddb.Client on the");
+	err.println("    Unix domain 'socket' ('~/.cddb/daemon/socket'), in a");
+	err.println("    directory accessible only to its owner, and perform them on");
+	err.println("    a pool of 'threads'.  The transport options of the daemon are");
+	err.println("    shared by its jobs, which are not interactive and may not");
+	err.println("    have transport options.");
+	err.println();
+	return 1;
+    }
+    /**
+     * 
+     */
+    public static void main(String[] argv){
+
+	System.exit(Run(argv,new File(System.getProperty("user.dir"))));
     }
-    private static String[] ArtistAlbum(File dir){
-
-	Path path = dir.toPath();
-	int len = path.getNameCount();
-	int x_album = (len-1);
-	int x_artist = (x_album-1);
-	if (0 <= x_artist && x_artist < x_album){
-	    File f_artist = path.getName(x_artist).toFile();
-	    File f_album = path.getName(x_album).toFile();
-	    return new String[]{
-		f_artist.getName(),
-		f_album.getName()
-	    };
+    /**
+     * Perform a job in this thread, with its output and input
+     * directed to the argument streams.  Threads started by the job
+     * inherit its streams.
+     * 
+     * @param argv Command line arguments
+     * @param cwd Directory of relative paths in arguments
+     * 
+     * @return Exit status
+     */
+    public static int Run(String[] argv, File cwd, OutputStream job_out, OutputStream job_err, InputStream job_in){
+	final OutputStream prev_out = Out.job.get(), prev_err = Err.job.get();
+	final InputStream prev_in = In.job.get();
+	Out.job.set(job_out);
+	Err.job.set(job_err);
+	In.job.set(job_in);
+	try {
+	    return Run(argv,cwd);
 	}
-	else {
-	    throw new IllegalStateException(dir.getPath());
+	finally {
+	    out.flush();
+	    err.flush();
+	    Out.job.set(prev_out);
+	    Err.job.set(prev_err);
+	    In.job.set(prev_in);
 	}
     }
     /**
+     * @param argv Command line arguments
+     * @param cwd Directory of relative paths in arguments
      * 
+     * @return Exit status
      */
-    public static void main(String[] argv){
+    public static int Run(String[] argv, File cwd){
+
+	final int status = Job(argv,cwd);
+
+	if (Arrays.asList(argv).contains("--stats")){
+
+	    Stats.Print(err);
+	}
+	return status;
+    }
+    private static int Job(String[] argv, File cwd){
 	if (0 < argv.length){
 
 	    File dir = null;
 
 	    String fext = "mp3";
 
-	    boolean print = false, tag = false;
+	    File cache = Cache.Default(), index = null, journal = null, socket = Daemon.SOCKET;
+
+	    int threads = -1;
+
+	    boolean print = false, tag = false, offline = false, library = false, full = false, daemon = false, transport = false;
 
 	    /*
 	     */
@@ -105,6 +200,80 @@ public class Main {
 		    else if (arg.equals("--tag")){
 			tag = (!tag);
 		    }
+		    else if (arg.equals("--library")){
+			library = (!library);
+		    }
+		    else if (arg.equals("--full")){
+			full = (!full);
+		    }
+		    else if (arg.equals("--stats")){
+			/*
+			 * (Run)
+			 */
+		    }
+		    else if (arg.equals("--daemon")){
+			daemon = (!daemon);
+		    }
+		    else if (arg.equals("--socket")){
+			argx += 1;
+			if (argx < argc){
+			    arg = argv[argx];
+			    socket = File(cwd,arg);
+			}
+			else {
+			    return usage();
+			}
+		    }
+		    else if (arg.equals("--threads")){
+			argx += 1;
+			if (argx < argc){
+			    try {
+				threads = Integer.parseInt(argv[argx]);
+			    }
+			    catch (NumberFormatException exc){
+				return usage();
+			    }
+			}
+			else {
+			    return usage();
+			}
+		    }
+		    else if (arg.equals("--index")){
+			argx += 1;
+			if (argx < argc){
+			    arg = argv[argx];
+			    index = File(cwd,arg);
+			    transport = true;
+			}
+			else {
+			    return usage();
+			}
+		    }
+		    else if (arg.equals("--journal")){
+			argx += 1;
+			if (argx < argc){
+			    arg = argv[argx];
+			    journal = File(cwd,arg);
+			}
+			else {
+			    return usage();
+			}
+		    }
+		    else if (arg.equals("--offline")){
+			offline = (!offline);
+			transport = true;
+		    }
+		    else if (arg.equals("--cache")){
+			argx += 1;
+			if (argx < argc){
+			    arg = argv[argx];
+			    cache = File(cwd,arg);
+			    transport = true;
+			}
+			else {
+			    return usage();
+			}
+		    }
 		    else if (arg.equals("--fext")){
 			argx += 1;
 			if (argx < argc){
@@ -112,22 +281,52 @@ public class Main {
 			    fext = arg;
 			}
 			else {
-			    usage();
+			    return usage();
 			}
 		    }
 		    else {
-			usage();
+			return usage();
 		    }
 		}
 		else {
-		    dir = new File(arg).getAbsoluteFile();		    
+		    dir = File(cwd,arg);
 		}
 	    }
 
 	    /*
 	     */
-	    if (null == dir){
-		usage();
+	    if (transport && null != Out.job.get()){
+		/*
+		 * Within a job, the transport is that of the daemon
+		 */
+		err.println("Error, transport options are those of the daemon");
+		return 1;
+	    }
+	    else if (daemon){
+		if (null != Out.job.get()){
+		    /*
+		     * Not within a job
+		     */
+		    return usage();
+		}
+		try {
+		    Transport(cache,offline,index);
+
+		    try (Daemon server = new Daemon(socket,(0 < threads)?(threads):(Daemon.THREADS))){
+
+			err.printf("# Daemon socket %s%n",server.socket);
+
+			server.run();
+		    }
+		    return 0;
+		}
+		catch (IOException exc){
+		    exc.printStackTrace(err);
+		    return 1;
+		}
+	    }
+	    else if (null == dir){
+		return usage();
 	    }
 	    else if (print && tag){
 		try {
@@ -137,142 +336,230 @@ public class Main {
 			    continue;
 			}
 			else {
-			    System.exit(1);
+			    return 1;
 			}
 		    }
-		    System.exit(0);
+		    return 0;
 		}
 		catch (Exception exc){
-		    exc.printStackTrace();
-		    System.exit(1);
+		    exc.printStackTrace(err);
+		    return 1;
 		}
 	    }
-	    else if (tag && dir.isDirectory()){
-
-		fext = Fext(dir,fext);
+	    else if (library && dir.isDirectory()){
 
-		final int dir_count = Count(dir,fext);
-
-		final String[] aa = ArtistAlbum(dir);
+		try {
+		    Transport(cache,offline,index);
 
-		if (null != aa){
+		    if (null == journal){
+			journal = Journal.Default(dir);
+		    }
+		    Library lib = new Library(dir,fext,(0 < threads)?(threads):(Library.THREADS),new Journal(journal),new State(State.Default()),full);
 
-		    final String artist = aa[0];
-		    final String album = aa[1];
+		    return (0 == lib.run())?(0):(1);
+		}
+		catch (IOException exc){
+		    exc.printStackTrace(err);
+		    return 1;
+		}
+	    }
+	    else if (tag && dir.isDirectory()){
 
-		    try {
-			for (File file : dir.listFiles(new FextFilter(fext))){
+		final Album album = new Album(dir,fext);
 
-			    UpdateTag(file,artist,album);
-			}
+		try {
+		    for (File file : album.files()){
 
-			System.exit(0);
-		    }
-		    catch (Exception exc){
-			exc.printStackTrace();
-			System.exit(1);
+			UpdateTag(file,album.artist,album.album);
 		    }
+
+		    return 0;
 		}
-		else {
-		    err.printf("Unable to determine artist/album from '%s'.%n",dir.getPath());
-		    System.exit(1);
+		catch (Exception exc){
+		    exc.printStackTrace(err);
+		    return 1;
 		}
 	    }
 	    else if (dir.isDirectory()){
 
-		fext = Fext(dir,fext);
-
-		final int dir_count = Count(dir,fext);
-
-		final String[] aa = ArtistAlbum(dir);
+		final Album album = new Album(dir,fext);
 
-		if (null != aa){
-
-		    final String artist = aa[0];
-		    final String album = aa[1];
-
-		    final API api_release = new API(Entity.RELEASE);
-
-		    Document response = null;
-		    try {
-			/*
-			 * Search for 'reid'
-			 */
-			String query = String.format("\"%s\" AND artist:\"%s\" AND format:CD",album,artist);
+		final API api_release;
+		try {
+		    Transport(cache,offline,index);
 
-			response = api_release.search(query);
+		    api_release = new API(Entity.RELEASE);
+		}
+		catch (IOException exc){
+		    exc.printStackTrace(err);
+		    return 1;
+		}
 
-			Element metadata = response.getDocumentElement();
+		Document response = null;
+		try {
+		    /*
+		     * Identify by disc ID
+		     */
+		    if ((!print) && Disc(album,api_release)){
 
-			if (print){
-			    out.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
-			    out.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
-			    out.println();
-			    api_release.prettyPrint(response,out);
-			    out.println();
-			    System.exit(0);
-			}
-			else if (null != metadata){
+			return 0;
+		    }
+		    /*
+		     * Search for 'reid'
+		     */
+		    response = api_release.search(album.query());
+
+		    Element metadata = response.getDocumentElement();
+
+		    if (print){
+			out.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
+			out.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
+			out.println();
+			api_release.prettyPrint(response,out);
+			out.println();
+			return 0;
+		    }
+		    else if (null != metadata){
 
-			    err.printf("# %s/%s%n",artist,album);
+			err.printf("# %s%n",album);
 
-			    NodeList release_list = metadata.getFirstChild().getChildNodes();
+			NodeList release_list = Releases(response);
 
-			    int release_list_count = release_list.getLength();
+			int release_list_count = release_list.getLength();
 
-			    if (0 < release_list_count){
+			if (0 < release_list_count){
 
-				Update(dir,fext,artist,album,api_release,response,release_list_count,release_list);
-			    }
-			    else {
-				err.printf("Error, 'release-list' count %d.%n",release_list.getLength());
-				err.println();
-				err.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
-				err.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
-				err.println();
-				api_release.prettyPrint(response,err);
-				err.println();
-				System.exit(1);
-			    }
-			}
-			System.exit(0);
-		    }
-		    catch (Exception any){
-
-			if (null != response){
-
-			    err.println();
-			    api_release.prettyPrint(response,err);
-			    err.println();
-			    err.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
-			    err.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
-			    err.println();
-			    any.printStackTrace();
-			    System.exit(1);
+			    Update(album,api_release,release_list_count,release_list);
 			}
 			else {
-			    any.printStackTrace();
-			    System.exit(1);
+			    Error(album,api_release,response);
+			    return 1;
 			}
 		    }
+		    return 0;
 		}
-		else {
-		    err.printf("Unable to determine artist/album from '%s'.%n",dir.getPath());
-		    System.exit(1);
+		catch (Exception any){
+
+		    if (null != response){
+
+			err.println();
+			api_release.prettyPrint(response,err);
+			err.println();
+			err.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
+			err.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
+			err.println();
+			any.printStackTrace(err);
+			return 1;
+		    }
+		    else {
+			any.printStackTrace(err);
+			return 1;
+		    }
 		}
 	    }
 	    else {
-		usage();
+		return usage();
 	    }
 	}
 	else {
-	    usage();
+	    return usage();
+	}
+    }
+    /**
+     * @return Shared executor of track file updates
+     */
+    private synchronized final static ExecutorService Updates(){
+	if (null == Updates){
+	    Updates = Executors.newFixedThreadPool(Math.max(1,UPDATES),new Threads("cddb-update"));
+	}
+	return Updates;
+    }
+    /**
+     * @return Absolute file for path relative to directory
+     */
+    private final static File File(File cwd, String path){
+	File file = new File(path);
+	if (file.isAbsolute())
+	    return file;
+	else
+	    return new File(cwd,path).getAbsoluteFile();
+    }
+    /**
+     * Install the local index as the default transport, or the
+     * response cache in front of the network transport.  A job of
+     * the daemon employs the transport installed when the daemon
+     * started, which is not replaced while its jobs are running.
+     */
+    private final static void Transport(File cache, boolean offline, File index)
+	throws IOException
+    {
+	if (null == Out.job.get()){
+
+	    if (null != index)
+		API.SetDefaultTransport(new IndexTransport(new Index(index)));
+	    else
+		API.SetDefaultTransport(new Cache(cache,offline,API.GetDefaultTransport()));
 	}
     }
+    /**
+     * Identify the album by the disc ID of its track files, and
+     * apply the tracks of an unambiguous match.
+     * 
+     * @return Album updated, otherwise employ search
+     */
+    protected final static boolean Disc(Album album, API api)
+	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
+    {
+	final DiscId disc = DiscId.For(album);
+	if (null != disc){
+	    final Score selected;
+	    try {
+		selected = Score.Select(disc.rank(api));
+	    }
+	    catch (IOException exc){
+		/*
+		 * Disc ID and TOC not found
+		 */
+		return false;
+	    }
+	    if (null != selected){
+
+		err.printf("D %s %s%n",disc.id,selected);
+
+		Update(album,selected.tracks);
+
+		return true;
+	    }
+	}
+	return false;
+    }
+    /**
+     * @param response Release search response
+     * 
+     * @return Release list
+     */
+    protected final static NodeList Releases(Document response){
+
+	return response.getDocumentElement().getFirstChild().getChildNodes();
+    }
+    /**
+     * Report an empty release search.
+     */
+    protected final static void Error(Album album, API api_release, Document response){
+	NodeList release_list = Releases(response);
+
+	err.printf("Error, 'release-list' count %d (%s).%n",release_list.getLength(),album);
+	err.println();
+	err.printf("Request: %s%n",response.getUserData(API.DOM_HTTP_REQUEST));
+	err.printf("Response: %s%n",response.getUserData(API.DOM_HTTP_STATUS));
+	err.println();
+	api_release.prettyPrint(response,err);
+	err.println();
+    }
     private final static boolean PrintTag(File file)
 	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
     {
-	AudioFile f = AudioFileIO.read(file);
+	AudioFile f = AudioFileIO.read(file,ReadMode.TAG_ONLY);
 	Tag tag = f.getTag();
 
 	String artist = null, album = null, track = null, title = null;
@@ -318,7 +605,16 @@ public class Main {
 	    return false;
 	}
     }
-    private final static void UpdateTag(File file, String artist, String album, int pos, int num, String title)
+    protected final static void UpdateTag(File file, String artist, String album, int pos, int num, String title)
+	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
+    {
+	UpdateTag(file,artist,album,pos,num,title,null,null);
+    }
+    /**
+     * @param release Release MBID, or null
+     * @param track Track MBID, or null
+     */
+    protected final static void UpdateTag(File file, String artist, String album, int pos, int num, String title, String release, String track)
 	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
     {
 	AudioFile f = AudioFileIO.read(file);
@@ -328,6 +624,12 @@ public class Main {
 	tag.setField(FieldKey.ALBUM,album);
 	tag.setField(FieldKey.TRACK,Integer.toString(num));
 	tag.setField(FieldKey.TITLE,title);
+	if (null != release){
+	    tag.setField(FieldKey.MUSICBRAINZ_RELEASEID,release);
+	}
+	if (null != track){
+	    tag.setField(FieldKey.MUSICBRAINZ_RELEASE_TRACK_ID,track);
+	}
 	f.commit();
     }
     private final static String[] SplitTag(String name){
@@ -374,20 +676,21 @@ public class Main {
 
 	err.printf("U %s : %s : %s : %s : %s%n",file.toPath(),artist,album,track,title);
     }
-    private final static boolean Accept(String artist, String album, API api, Element release)
+    protected final static boolean Accept(String artist, String album, API api, Element release, Score score)
 	throws IOException
     {
+	final String match = (null != score)?(String.format(" {%.2f}",score.value)):("");
 	try {
 	    String country = release.getElementsByTagName("country").item(0).getTextContent();
 
 	    out.println();
 	    api.prettyPrint(release,out);
-	    out.printf("\n\tAccept (%s: %s [%s])? [Yn]%n",artist,album,country);
+	    out.printf("\n\tAccept (%s: %s [%s])%s? [Yn]%n",artist,album,country,match);
 	}
 	catch (Exception exc){
 	    out.println();
 	    api.prettyPrint(release,out);
-	    out.printf("\n\tAccept (%s: %s)? [Yn]%n",artist,album);
+	    out.printf("\n\tAccept (%s: %s)%s? [Yn]%n",artist,album,match);
 	}
 	out.flush();
 	switch(in.read()){
@@ -408,154 +711,388 @@ public class Main {
 	    return false;
 	}
     }
-    private final static void Update(File dir, String fext, 
-				     String artist, String album,
-				     API api_release, Document response, 
-				     int release_list_count, NodeList release_list)
+    /**
+     * Select a release, and apply its track list to the album.  When
+     * there's more than one candidate, select the release whose
+     * track lengths match the local files, or interactively when
+     * that's ambiguous.
+     */
+    protected final static void Update(Album album, API api_release, 
+				       int release_list_count, NodeList release_list)
 	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
     {
-	int release_list_last = (release_list_count-1);
-	_release_loop:
-	for (int release_list_ix = 0; release_list_ix < release_list_count; release_list_ix++){
+	if (1 == release_list_count){
 
-	    Element el_release = (Element)release_list.item(release_list_ix);
-	    /*
-	     * don't auto-select when there's multiple possibilities
-	     */
-	    if (1 == release_list_count || Accept(artist,album,api_release,el_release)){
+	    String release_id = ((Element)release_list.item(0)).getAttribute("id");
 
-		String release_id = el_release.getAttribute("id");
-		/*
-		 * lookup release for list of track data (via
-		 * 'inc recordings')
-		 */
-		response = api_release.lookup(release_id,"recordings");
+	    Update(album,Tracks(api_release,release_id));
+	}
+	else {
+	    List<Score> scores = Score.Rank(album,Score.Lengths(album),api_release,release_list);
 
-		NodeList tracks_list = response.getElementsByTagName("track");
-		{
-		    int cc = 0;
-		    int count = tracks_list.getLength();
-		    _tracks_loop:
-		    for (cc = 0; cc < count; cc++){
-			Element track = (Element)tracks_list.item(cc);
+	    Score selected = Score.Select(scores);
+	    if (null != selected){
 
-			int position = Integer.parseInt(track.getElementsByTagName("position").item(0).getTextContent());
-			int number = Integer.parseInt(track.getElementsByTagName("number").item(0).getTextContent());
-			String title = track.getElementsByTagName("title").item(0).getTextContent();
+		err.printf("S %s%n",selected);
 
-			/*
-			 */
-			File source_file = new File(dir,String.format(FilenameFormat_In,position,fext));
-			if (source_file.isFile()){
+		Update(album,selected.tracks);
+	    }
+	    else {
+		Update(album,api_release,release_list_count,release_list,scores,null);
+	    }
+	}
+    }
+    /**
+     * Select a release interactively, and apply its track list to
+     * the album.
+     * 
+     * While a candidate is prompted, the tracks of the next {@link
+     * #PREFETCH} candidates (not having scores) are fetched in the
+     * background, so that an accepted release is usually in memory.
+     * Prefetches remaining when a release is accepted are cancelled,
+     * and their responses are retained only by the {@link Cache}.
+     * 
+     * @param scores Candidates found ambiguous by {@link Score}
+     * @param journal Batch run journal, or null
+     * 
+     * @return Tracks of the accepted release, or null
+     */
+    protected final static List<Record> Update(Album album, API api_release, 
+					       int release_list_count, NodeList release_list,
+					       List<Score> scores, Journal journal)
+	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
+    {
+	final Map<String,CompletableFuture<List<Record>>> prefetch = new HashMap<>();
+	try {
+	    for (int release_list_ix = 0; release_list_ix < release_list_count; release_list_ix++){
 
-			    Path source = source_file.toPath();
+		Element el_release = (Element)release_list.item(release_list_ix);
 
-			    File target_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
+		String release_id = el_release.getAttribute("id");
 
-			    Path target = target_file.toPath();
+		Score score = Score(scores,release_id);
 
-			    Files.move(source,target);
+		for (int px = release_list_ix, pz = Math.min(release_list_count,release_list_ix+PREFETCH); px < pz; px++){
 
-			    err.printf("M '%s' '%s'%n",source,target);
+		    String prefetch_id = ((Element)release_list.item(px)).getAttribute("id");
 
-			    UpdateTag(target_file,artist,album,position,number,title);
-			}
-			else {
-			    source_file = new File(dir,String.format(FilenameFormat_Old,number,title.replace('/','-'),fext));
-			    if (source_file.isFile()){
+		    if (null == Score(scores,prefetch_id) && !prefetch.containsKey(prefetch_id)){
 
-				Path source = source_file.toPath();
+			prefetch.put(prefetch_id,api_release.lookupListAsync(prefetch_id,"recordings"));
+		    }
+		}
+		/*
+		 * don't auto-select when there's multiple possibilities
+		 */
+		if (Accept(album.artist,album.album,api_release,el_release,score)){
 
-				File target_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
+		    final List<Record> tracks;
+		    if (null != score){
+			tracks = score.tracks;
+		    }
+		    else {
+			CompletableFuture<List<Record>> prefetched = prefetch.remove(release_id);
+			if (null != prefetched)
+			    tracks = Tracks(SingleFlight.Join(prefetched));
+			else
+			    tracks = Tracks(api_release,release_id);
+		    }
+		    Update(album,tracks,journal);
 
-				Path target = target_file.toPath();
+		    return tracks;
+		}
+		else {
+		    CompletableFuture<List<Record>> rejected = prefetch.remove(release_id);
+		    if (null != rejected){
+			rejected.cancel(false);
+		    }
+		}
+	    }
+	}
+	finally {
+	    for (CompletableFuture<List<Record>> remaining : prefetch.values()){
+		remaining.cancel(false);
+	    }
+	}
+	return null;
+    }
+    /**
+     * @return Score of release, or null
+     */
+    private final static Score Score(List<Score> scores, String release_id){
+	for (Score s : scores){
+	    if (s.release.equals(release_id)){
+		return s;
+	    }
+	}
+	return null;
+    }
+    /**
+     * Lookup release for list of track data (via 'inc recordings').
+     * 
+     * @return Release tracks
+     */
+    protected final static List<Record> Tracks(API api_release, String release_id)
+	throws IOException
+    {
+	return Tracks(api_release.lookupList(release_id,"recordings"));
+    }
+    /**
+     * @param release Release lookup response records
+     * 
+     * @return Release tracks
+     */
+    protected final static List<Record> Tracks(List<Record> release){
+	List<Record> list = new ArrayList<>();
 
-				Files.move(source,target);
+	for (Record track : release){
 
-				err.printf("M '%s' '%s'%n",source,target);
+	    if (Record.Type.TRACK == track.type){
 
-				UpdateTag(target_file,artist,album,position,number,title);
-			    }
-			    else {
-				source_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
+		list.add(track);
+	    }
+	}
+	return list;
+    }
+    /**
+     * Rename and tag album track files.
+     */
+    protected final static void Update(Album album, List<Record> tracks_list)
+	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
+    {
+	Update(album,tracks_list,null);
+    }
+    /**
+     * Rename and tag album track files.  Tracks recorded in the
+     * journal as tagged are skipped, and each rename and tag update
+     * is recorded in the journal as it's completed.
+     * 
+     * The tracks are updated concurrently by the {@link #UPDATES}
+     * threads shared by all albums.  A track that fails is reported,
+     * and the others are completed, before the failure of the album
+     * is thrown.
+     * 
+     * @param journal Batch run journal, or null
+     */
+    protected final static void Update(Album album, List<Record> tracks_list, Journal journal)
+	throws IOException
+    {
+	if (null != journal && !tracks_list.isEmpty()){
 
-				if (source_file.isFile()){
+	    journal.resolved(album,tracks_list.get(0).release);
+	}
+	/*
+	 * Update threads write to the streams of the job
+	 */
+	final OutputStream job_out = Out.job.get(), job_err = Err.job.get();
 
-				    UpdateTag(source_file,artist,album,position,number,title);
+	final ExecutorService updates = Updates();
 
-				    err.printf("U '%s'%n",source_file.toPath());
-				}
-				else {
+	final List<Future<?>> futures = new ArrayList<>();
+	final List<Record> updating = new ArrayList<>();
 
-				    err.printf("Error, file not found '%s'%n",source_file.toPath());
+	for (Record track : tracks_list){
 
-				    System.exit(1);
-				}
-			    }
+	    if (null != journal && journal.isTagged(album,track)){
+
+		continue;
+	    }
+	    futures.add(updates.submit(() -> {
+			Out.job.set(job_out);
+			Err.job.set(job_err);
+			try {
+			    Update(album,track,journal);
+			    return null;
 			}
-		    }
+			finally {
+			    Out.job.set(null);
+			    Err.job.set(null);
+			}
+		    }));
+	    updating.add(track);
+	}
+
+	int failed = 0;
+	for (int cc = 0, count = futures.size(); cc < count; cc++){
+	    try {
+		futures.get(cc).get();
+	    }
+	    catch (ExecutionException exc){
+		failed += 1;
+		err.printf("Error, album '%s' track %d/%d: %s%n",album.dir.getPath(),updating.get(cc).medium,updating.get(cc).position,exc.getCause());
+	    }
+	    catch (InterruptedException exc){
+		for (Future<?> future : futures){
+		    future.cancel(false);
 		}
-		break _release_loop;
+		Thread.currentThread().interrupt();
+
+		throw new java.io.InterruptedIOException(album.dir.getPath());
 	    }
 	}
+	if (0 < failed){
+
+	    throw new IOException(String.format("Failed %d of %d tracks of '%s'",failed,futures.size(),album.dir.getPath()));
+	}
+	else if (null != journal){
+	    journal.completed(album);
+	}
     }
-    private final static String Fext(File dir, String fext){
-	boolean fext_valid = false;
-	String fext_replace = null;
+    /**
+     * Rename and tag a track file.
+     * 
+     * @param journal Batch run journal, or null
+     */
+    private final static void Update(Album album, Record track, Journal journal)
+	throws CannotReadException, TagException, ReadOnlyFileException, InvalidAudioFrameException, IOException, FieldDataInvalidException, CannotWriteException
+    {
+	final File dir = album.dir;
+	final String fext = album.fext, artist = album.artist;
+
+	int position = track.position;
+	int number = track.getNumber();
+	String title = track.title;
+
 	/*
-	 * Validate or replace the argument
 	 */
-	for (File file : dir.listFiles()){
+	File source_file = new File(dir,String.format(FilenameFormat_In,position,fext));
+	if (null != album.get(source_file.getName())){
 
-	    String file_ext = Fext(file.getName());
+	    Path source = source_file.toPath();
 
-	    if (fext.equals(file_ext)){
+	    File target_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
 
-		fext_valid = true;
-	    }
-	    else if (null == fext_replace){
+	    Path target = target_file.toPath();
 
-		fext_replace = file_ext;
+	    Files.move(source,target);
+
+	    album.moved(source_file,target_file);
+
+	    err.printf("M '%s' '%s'%n",source,target);
+
+	    if (null != journal){
+		journal.renamed(album,track,source_file,target_file);
 	    }
+
+	    UpdateTag(target_file,artist,album.album,position,number,title,track.release,track.id);
 	}
+	else {
+	    source_file = new File(dir,String.format(FilenameFormat_Old,number,title.replace('/','-'),fext));
+	    if (null != album.get(source_file.getName())){
 
-	if (fext_valid)
-	    return fext;
-	else
-	    return fext_replace;
-    }
-    private final static String Fext(String name){
-	int lidx = name.lastIndexOf('.');
-	if (0 < lidx)
-	    return name.substring(lidx+1);
-	else
-	    throw new IllegalArgumentException(name);
-    }
-    private final static int Count(File dir, String fext){
-	int count = 0;
-	for (File file : dir.listFiles()){
-	    String check = Fext(file.getName());
-	    if (check.equals(fext)){
-		count += 1;
+		Path source = source_file.toPath();
+
+		File target_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
+
+		Path target = target_file.toPath();
+
+		Files.move(source,target);
+
+		album.moved(source_file,target_file);
+
+		err.printf("M '%s' '%s'%n",source,target);
+
+		if (null != journal){
+		    journal.renamed(album,track,source_file,target_file);
+		}
+
+		UpdateTag(target_file,artist,album.album,position,number,title,track.release,track.id);
+	    }
+	    else {
+		source_file = new File(dir,String.format(FilenameFormat,number,title.replace('/','-'),fext));
+
+		if (null != album.get(source_file.getName())){
+
+		    UpdateTag(source_file,artist,album.album,position,number,title,track.release,track.id);
+
+		    err.printf("U '%s'%n",source_file.toPath());
+		}
+		else {
+
+		    err.printf("Error, file not found '%s'%n",source_file.toPath());
+
+		    throw new java.io.FileNotFoundException(source_file.getPath());
+		}
 	    }
 	}
-	return count;
+	if (null != journal){
+	    journal.tagged(album,track);
+	}
     }
-
-    static class FextFilter
-	implements java.io.FilenameFilter 
+    /**
+     * Output stream of the current job, or of the process
+     */
+    static class Redirect
+	extends OutputStream
     {
-	final String fext, filter;
+	final InheritableThreadLocal<OutputStream> job = new InheritableThreadLocal<>();
+
+	final OutputStream process;
 
-	FextFilter(String fext){
+	Redirect(OutputStream process){
 	    super();
-	    this.fext = fext;
-	    this.filter = ("."+fext);
+	    this.process = process;
 	}
 
-	public boolean accept(File dir, String name){
+	OutputStream target(){
+	    OutputStream target = job.get();
+	    if (null != target)
+		return target;
+	    else
+		return process;
+	}
+	public void write(int b)
+	    throws IOException
+	{
+	    target().write(b);
+	}
+	public void write(byte[] b, int ofs, int len)
+	    throws IOException
+	{
+	    target().write(b,ofs,len);
+	}
+	public void flush()
+	    throws IOException
+	{
+	    target().flush();
+	}
+    }
+    /**
+     * Input stream of the current job, or of the process
+     */
+    static class Input
+	extends InputStream
+    {
+	final InheritableThreadLocal<InputStream> job = new InheritableThreadLocal<>();
+
+	final InputStream process;
 
-	    return name.endsWith(this.filter);
+	Input(InputStream process){
+	    super();
+	    this.process = process;
+	}
+
+	InputStream source(){
+	    InputStream source = job.get();
+	    if (null != source)
+		return source;
+	    else
+		return process;
+	}
+	public int read()
+	    throws IOException
+	{
+	    return source().read();
+	}
+	public int read(byte[] b, int ofs, int len)
+	    throws IOException
+	{
+	    return source().read(b,ofs,len);
+	}
+	public int available()
+	    throws IOException
+	{
+	    return source().available();
 	}
     }
 }
@@ -0,0 +1,99 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+/**
+ * Release, recording or track found in a search or lookup response,
+ * with only the fields employed by {@link Main}.
+ *
+ * @see RecordReader
+ */
+public class Record
+    extends Object
+{
+    public enum Type {
+	RELEASE, RECORDING, TRACK;
+    }
+
+
+    public final Type type;
+    /**
+     * MBID of the release, recording, or track
+     */
+    public final String id;
+
+    public final String title;
+    /**
+     * Release country, or null
+     */
+    public final String country;
+    /**
+     * Enclosing release MBID of a track, or null
+     */
+    public final String release;
+    /**
+     * Medium (disc) position of a track, or zero
+     */
+    public final int medium;
+    /**
+     * Track position within its medium, or zero
+     */
+    public final int position;
+    /**
+     * Track number as printed, e.g. "7" or "A1", or null
+     */
+    public final String number;
+    /**
+     * Track or recording length in milliseconds, or negative one
+     */
+    public final long length;
+
+
+    public Record(Type type, String id, String title, String country, String release,
+		  int medium, int position, String number, long length)
+    {
+	super();
+	if (null != type){
+	    this.type = type;
+	    this.id = id;
+	    this.title = title;
+	    this.country = country;
+	    this.release = release;
+	    this.medium = medium;
+	    this.position = position;
+	    this.number = number;
+	    this.length = length;
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Numeric track number, or the track position when the
+     * number is not numeric
+     */
+    public int getNumber(){
+	if (null != number){
+	    try {
+		return Integer.parseInt(number);
+	    }
+	    catch (NumberFormatException exc){
+	    }
+	}
+	return position;
+    }
+    public String toString(){
+	switch(type){
+	case TRACK:
+	    return String.format("%s %d/%d %s (%d)",type,medium,position,title,length);
+	case RELEASE:
+	    return String.format("%s %s %s [%s]",type,id,title,country);
+	default:
+	    return String.format("%s %s %s (%d)",type,id,title,length);
+	}
+    }
+}
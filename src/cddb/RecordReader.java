@@ -0,0 +1,362 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Streaming (StAX) reader of search and lookup responses.  Records
+ * are produced as they are parsed, without materializing a DOM, so
+ * that a user may close the reader as soon as it has found what it
+ * needs.
+ *
+ * A release is produced before its tracks, and a track following
+ * its recording title and length.  A track title or length absent
+ * from the track is taken from its recording.
+ *
+ * This class reads XML responses, and its subclass {@link
+ * JsonRecordReader} reads JSON responses ("fmt=json").
+ *
+ * @see API#searchRecords
+ * @see API#lookupRecords
+ */
+public class RecordReader
+    extends Object
+    implements Iterator<Record>, Closeable
+{
+    private final static XMLInputFactory XIF = XMLInputFactory.newInstance();
+    static {
+	XIF.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE,Boolean.TRUE);
+	XIF.setProperty(XMLInputFactory.IS_COALESCING,Boolean.TRUE);
+	XIF.setProperty(XMLInputFactory.SUPPORT_DTD,Boolean.FALSE);
+    }
+
+
+    public final String url;
+
+    private final Closeable source;
+
+    private final XMLStreamReader reader;
+
+    private final ArrayList<String> stack = new ArrayList<>();
+
+    protected int count = -1, offset = -1;
+
+    private Record next, found;
+
+    private boolean end;
+    /*
+     * Release state
+     */
+    private String rel_id, rel_title, rel_country;
+    private boolean rel_open, rel_emitted;
+    /*
+     * Medium state
+     */
+    private int med_position;
+    /*
+     * Track state
+     */
+    private String trk_id, trk_title, trk_number;
+    private int trk_position;
+    private long trk_length;
+    private boolean trk_open;
+    /*
+     * Recording state, within a track or at the top level
+     */
+    private String rec_id, rec_title;
+    private long rec_length;
+    private boolean rec_open, rec_top;
+
+
+    /**
+     * @param url Source identifier for messages
+     * @param in Response body
+     * @param source Closed by {@link #close()}, may be null
+     */
+    public RecordReader(String url, InputStream in, Closeable source)
+	throws IOException
+    {
+	super();
+	this.url = url;
+	this.source = source;
+	try {
+	    this.reader = XIF.createXMLStreamReader(url,in);
+	}
+	catch (XMLStreamException exc){
+	    throw new IOException(String.format("Error parsing \"%s\"",url),exc);
+	}
+    }
+    /**
+     * Subclass constructor for another response format.
+     *
+     * @param url Source identifier for messages
+     * @param source Closed by {@link #close()}, may be null
+     */
+    protected RecordReader(String url, Closeable source){
+	super();
+	this.url = url;
+	this.source = source;
+	this.reader = null;
+    }
+
+
+    /**
+     * @return Value of the 'count' attribute of the (first) list in
+     * the response, or negative one when not (yet) found
+     */
+    public int getCount(){
+	return count;
+    }
+    /**
+     * @return Value of the 'offset' attribute of the (first) list in
+     * the response, or negative one when not (yet) found
+     */
+    public int getOffset(){
+	return offset;
+    }
+    public boolean hasNext(){
+	if (null == next && !end){
+	    try {
+		next = read();
+	    }
+	    catch (IOException exc){
+		throw new UncheckedIOException(exc);
+	    }
+	    if (null == next){
+		end = true;
+	    }
+	}
+	return (null != next);
+    }
+    public Record next(){
+	if (hasNext()){
+	    Record re = next;
+	    next = null;
+	    return re;
+	}
+	else {
+	    throw new NoSuchElementException();
+	}
+    }
+    /**
+     * Stop reading.  The remainder of the response is not parsed.
+     */
+    public void close()
+	throws IOException
+    {
+	end = true;
+	try {
+	    if (null != reader){
+		reader.close();
+	    }
+	}
+	catch (XMLStreamException exc){
+	}
+	finally {
+	    if (null != source){
+		source.close();
+	    }
+	}
+    }
+    /**
+     * @return Next record, or null at the end of the response
+     */
+    protected Record read()
+	throws IOException
+    {
+	found = null;
+	try {
+	    while (null == found && reader.hasNext()){
+
+		switch(reader.next()){
+
+		case XMLStreamConstants.START_ELEMENT:
+		    start(reader.getLocalName());
+		    break;
+
+		case XMLStreamConstants.END_ELEMENT:
+		    end(reader.getLocalName());
+		    break;
+
+		default:
+		    break;
+		}
+	    }
+	}
+	catch (XMLStreamException exc){
+	    throw new IOException(String.format("Error parsing \"%s\"",url),exc);
+	}
+	return found;
+    }
+    private String parent(){
+	final int sz = stack.size();
+	if (0 < sz)
+	    return stack.get(sz-1);
+	else
+	    return null;
+    }
+    private void start(String name)
+	throws XMLStreamException
+    {
+	final String parent = parent();
+
+	if (name.endsWith("-list")){
+
+	    if (0 > count && 1 == stack.size()){
+
+		count = Int(reader.getAttributeValue(null,"count"));
+		offset = Int(reader.getAttributeValue(null,"offset"));
+	    }
+	}
+	else if (name.equals("release")){
+	    if (!rec_top && !trk_open){
+		rel_open = true;
+		rel_emitted = false;
+		rel_id = reader.getAttributeValue(null,"id");
+		rel_title = null;
+		rel_country = null;
+	    }
+	}
+	else if (name.equals("medium")){
+	    med_position = 0;
+	}
+	else if (name.equals("track")){
+	    if (!rec_top){
+		trk_open = true;
+		trk_id = reader.getAttributeValue(null,"id");
+		trk_title = null;
+		trk_number = null;
+		trk_position = 0;
+		trk_length = -1L;
+	    }
+	}
+	else if (name.equals("recording")){
+	    if (trk_open || !rec_top){
+		rec_open = true;
+		rec_top = (!trk_open);
+		rec_id = reader.getAttributeValue(null,"id");
+		rec_title = null;
+		rec_length = -1L;
+	    }
+	}
+	else if ("release".equals(parent) && rel_open){
+	    if (name.equals("title")){
+		rel_title = reader.getElementText();
+		return;
+	    }
+	    else if (name.equals("country")){
+		rel_country = reader.getElementText();
+		return;
+	    }
+	}
+	else if ("medium".equals(parent) && rel_open){
+	    if (name.equals("position")){
+		med_position = Int(reader.getElementText());
+		return;
+	    }
+	}
+	else if ("track".equals(parent) && trk_open){
+	    if (name.equals("title")){
+		trk_title = reader.getElementText();
+		return;
+	    }
+	    else if (name.equals("position")){
+		trk_position = Int(reader.getElementText());
+		return;
+	    }
+	    else if (name.equals("number")){
+		trk_number = reader.getElementText();
+		return;
+	    }
+	    else if (name.equals("length")){
+		trk_length = Long(reader.getElementText());
+		return;
+	    }
+	}
+	else if ("recording".equals(parent) && rec_open){
+	    if (name.equals("title")){
+		rec_title = reader.getElementText();
+		return;
+	    }
+	    else if (name.equals("length")){
+		rec_length = Long(reader.getElementText());
+		return;
+	    }
+	}
+	/*
+	 * Text elements consumed their end element
+	 */
+	stack.add(name);
+
+	if (name.equals("medium-list") && rel_open){
+	    release();
+	}
+    }
+    private void end(String name){
+
+	stack.remove(stack.size()-1);
+
+	if (name.equals("track") && trk_open && !rec_top){
+	    trk_open = false;
+	    rec_open = false;
+
+	    String title = (null != trk_title)?(trk_title):(rec_title);
+	    long length = (0L <= trk_length)?(trk_length):(rec_length);
+
+	    found = new Record(Record.Type.TRACK,trk_id,title,null,rel_id,med_position,trk_position,trk_number,length);
+	}
+	else if (name.equals("recording") && rec_open && rec_top){
+	    rec_open = false;
+	    rec_top = false;
+
+	    found = new Record(Record.Type.RECORDING,rec_id,rec_title,null,null,0,0,null,rec_length);
+	}
+	else if (name.equals("release") && rel_open){
+	    release();
+	    rel_open = false;
+	}
+    }
+    private void release(){
+	if (!rel_emitted){
+	    rel_emitted = true;
+
+	    found = new Record(Record.Type.RELEASE,rel_id,rel_title,rel_country,null,0,0,null,-1L);
+	}
+    }
+
+    private final static int Int(String value){
+	if (null != value){
+	    try {
+		return Integer.parseInt(value.trim());
+	    }
+	    catch (NumberFormatException exc){
+	    }
+	}
+	return -1;
+    }
+    private final static long Long(String value){
+	if (null != value){
+	    try {
+		return java.lang.Long.parseLong(value.trim());
+	    }
+	    catch (NumberFormatException exc){
+	    }
+	}
+	return -1L;
+    }
+}
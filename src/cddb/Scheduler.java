@@ -0,0 +1,185 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.InterruptedIOException;
+import java.io.IOException;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Rate limiting transport.  Musicbrainz permits about one request
+ * per second per client, and responds with status 503 (and possibly
+ * "Retry-After") to clients that exceed its limit.
+ *
+ * Requests are admitted by a token bucket, so that many concurrent
+ * users of this transport (e.g. {@link API#searchAsync}) keep the
+ * request rate at the limit.  A 503 or 429 response suspends all
+ * requests for the "Retry-After" period, or an exponential backoff,
+ * and the request is retried.
+ *
+ * The default configuration is read from system properties.
+ *
+ * <pre>
+ * cddb.rate     Requests per second (1.0)
+ * cddb.burst    Token bucket capacity (1)
+ * cddb.retry    Retries of a rate limited request (5)
+ * </pre>
+ */
+public class Scheduler
+    extends Object
+    implements Transport
+{
+    public final static double RATE = Double.parseDouble(System.getProperty("cddb.rate","1.0"));
+    public final static int BURST = Integer.getInteger("cddb.burst",1);
+    public final static int RETRY = Integer.getInteger("cddb.retry",5);
+
+
+    public final Transport delegate;
+
+    public final double rate;
+
+    public final int burst, retry;
+    /*
+     * Nanoseconds per token
+     */
+    private final long interval;
+    /*
+     * Time (nanos) at which the next token is available
+     */
+    private long next;
+
+
+    /**
+     * Default configuration
+     */
+    public Scheduler(Transport delegate){
+	this(RATE,BURST,RETRY,delegate);
+    }
+    /**
+     * @param rate Requests per second
+     * @param burst Number of requests admitted without delay after
+     * an idle period
+     * @param retry Number of retries for a rate limited request
+     * @param delegate Network transport
+     */
+    public Scheduler(double rate, int burst, int retry, Transport delegate){
+	super();
+	if (0.0 < rate && 0 < burst && 0 <= retry && null != delegate){
+	    this.rate = rate;
+	    this.burst = burst;
+	    this.retry = retry;
+	    this.delegate = delegate;
+	    this.interval = (long)(1e9 / rate);
+	    this.next = System.nanoTime();
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    public Response get(String url, String accept)
+	throws IOException
+    {
+	long backoff = 1000L;
+
+	for (int attempt = 0; ; attempt++){
+
+	    acquire(url);
+
+	    Response response = delegate.get(url,accept);
+
+	    if ((503 == response.status || 429 == response.status) && attempt < retry){
+
+		long delay = RetryAfter(response.getHeader("Retry-After"));
+		if (0L > delay){
+		    delay = backoff;
+		    backoff *= 2;
+		}
+		response.close();
+
+		suspend(delay);
+	    }
+	    else {
+		return response;
+	    }
+	}
+    }
+    /**
+     * Block until a token is available.
+     */
+    protected void acquire(String url)
+	throws IOException
+    {
+	final long wait;
+	synchronized(this){
+	    final long now = System.nanoTime();
+	    /*
+	     * Tokens accumulate while idle, up to 'burst'
+	     */
+	    final long earliest = (now - ((burst-1) * interval));
+	    if (next < earliest){
+		next = earliest;
+	    }
+	    wait = (next - now);
+	    next += interval;
+	}
+	if (0L < wait){
+	    Stats.RateLimitEvent event = Stats.Wait(url,wait);
+	    try {
+		Thread.sleep(wait / 1000000L, (int)(wait % 1000000L));
+
+		event.commit();
+	    }
+	    catch (InterruptedException exc){
+		Thread.currentThread().interrupt();
+
+		throw new InterruptedIOException(url);
+	    }
+	}
+    }
+    /**
+     * Delay all subsequent requests.
+     *
+     * @param millis Delay from now
+     */
+    protected void suspend(long millis){
+	synchronized(this){
+	    final long resume = (System.nanoTime() + (millis * 1000000L));
+	    if (next < resume){
+		next = resume;
+	    }
+	}
+    }
+
+    /**
+     * @param value Value of a "Retry-After" header, in seconds or
+     * HTTP date
+     *
+     * @return Milliseconds, or negative one for none
+     */
+    public final static long RetryAfter(String value){
+	if (null != value){
+	    value = value.trim();
+	    try {
+		return (Long.parseLong(value) * 1000L);
+	    }
+	    catch (NumberFormatException seconds){
+		try {
+		    ZonedDateTime date = ZonedDateTime.parse(value,DateTimeFormatter.RFC_1123_DATE_TIME);
+
+		    return Math.max(0L,(date.toInstant().toEpochMilli() - System.currentTimeMillis()));
+		}
+		catch (DateTimeParseException date){
+		    return -1L;
+		}
+	    }
+	}
+	return -1L;
+    }
+}
@@ -0,0 +1,261 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.File;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ReadMode;
+
+/**
+ * Candidate release scored by comparison of its track count and
+ * recording lengths with the lengths of the local track files.
+ *
+ * The value of a score is the fraction of tracks whose lengths agree
+ * (within a tolerance), so that a release with a different number of
+ * tracks is penalized by the tracks it lacks or adds.
+ *
+ * The default configuration is read from system properties.
+ *
+ * <pre>
+ * cddb.score.threshold    Minimum value to accept without a prompt (0.9)
+ * cddb.score.margin       Runner-up value margin for ambiguity (0.05)
+ * cddb.score.tolerance    Track length tolerance seconds (3)
+ * cddb.score.candidates   Number of candidate releases examined (5)
+ * </pre>
+ */
+public class Score
+    extends Object
+    implements Comparable<Score>
+{
+    public final static double THRESHOLD = Double.parseDouble(System.getProperty("cddb.score.threshold","0.9"));
+    public final static double MARGIN = Double.parseDouble(System.getProperty("cddb.score.margin","0.05"));
+    public final static int TOLERANCE = Integer.getInteger("cddb.score.tolerance",3);
+    public final static int CANDIDATES = Integer.getInteger("cddb.score.candidates",5);
+
+
+    /**
+     * Release MBID
+     */
+    public final String release;
+    /**
+     * Release tracks
+     */
+    public final List<Record> tracks;
+    /**
+     * Index of release in search response
+     */
+    public final int rank;
+    /**
+     * Fraction of tracks in agreement
+     */
+    public final double value;
+
+
+    public Score(String release, List<Record> tracks, int rank, int[] local){
+	super();
+	if (null != release && null != tracks && null != local){
+	    this.release = release;
+	    this.tracks = tracks;
+	    this.rank = rank;
+	    this.value = Value(local,tracks);
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * Descending value, ascending rank
+     */
+    public int compareTo(Score that){
+	int cmp = Double.compare(that.value,this.value);
+	if (0 == cmp)
+	    return Integer.compare(this.rank,that.rank);
+	else
+	    return cmp;
+    }
+    /**
+     * @return Track titles are identical
+     */
+    public boolean equivalent(Score that){
+	final int count = this.tracks.size();
+	if (count == that.tracks.size()){
+	    for (int cc = 0; cc < count; cc++){
+		String a = this.tracks.get(cc).title;
+		String b = that.tracks.get(cc).title;
+		if (null == a || !a.equals(b)){
+		    return false;
+		}
+	    }
+	    return true;
+	}
+	return false;
+    }
+    public String toString(){
+	return String.format("%s %.2f",release,value);
+    }
+
+    /**
+     * @return Length in seconds of album track files ordered by
+     * track number, with negative one for a missing or unreadable
+     * file
+     */
+    public final static int[] Lengths(Album album){
+	final File[] tracks = album.tracks();
+	final int count = tracks.length;
+	int[] lengths = new int[count];
+	for (int cc = 0; cc < count; cc++){
+	    lengths[cc] = -1;
+	    File file = tracks[cc];
+	    if (null != file){
+		try {
+		    lengths[cc] = AudioFileIO.read(file,ReadMode.HEADER_ONLY).getAudioHeader().getTrackLength();
+		}
+		catch (Exception exc){
+		}
+	    }
+	}
+	return lengths;
+    }
+    /**
+     * @param local Local track lengths in seconds
+     * @param tracks Release tracks
+     *
+     * @return Fraction of tracks in agreement
+     */
+    public final static double Value(int[] local, List<Record> tracks){
+	final int count = Math.max(local.length,tracks.size());
+	if (0 < count){
+	    final long tolerance = (TOLERANCE * 1000L);
+	    final int common = Math.min(local.length,tracks.size());
+	    int matched = 0;
+	    for (int cc = 0; cc < common; cc++){
+		long l = (local[cc] * 1000L);
+		long r = tracks.get(cc).length;
+		if (0L <= l && 0L <= r && Math.abs(l-r) <= tolerance){
+		    matched += 1;
+		}
+	    }
+	    return ((double)matched / (double)count);
+	}
+	else {
+	    return 0.0;
+	}
+    }
+    /**
+     * Fetch the tracks of the leading candidate releases
+     * concurrently, and score them.  Candidates having the local
+     * track count (in the search response) are preferred.
+     *
+     * @param album Local album
+     * @param local Local track lengths
+     * @param api Release API
+     * @param release_list Release search response list
+     *
+     * @return Scores in descending order
+     */
+    public final static List<Score> Rank(Album album, int[] local, API api, NodeList release_list){
+
+	final int release_list_count = release_list.getLength();
+
+	List<Integer> candidates = new ArrayList<>();
+	for (int cc = 0; cc < release_list_count && candidates.size() < CANDIDATES; cc++){
+
+	    if (local.length == TrackCount((Element)release_list.item(cc))){
+
+		candidates.add(cc);
+	    }
+	}
+	for (int cc = 0; cc < release_list_count && candidates.size() < CANDIDATES; cc++){
+
+	    if (!candidates.contains(cc)){
+
+		candidates.add(cc);
+	    }
+	}
+
+	List<CompletableFuture<Score>> futures = new ArrayList<>();
+	for (Integer cc : candidates){
+	    final int rank = cc;
+	    final String release_id = ((Element)release_list.item(rank)).getAttribute("id");
+
+	    futures.add(CompletableFuture.supplyAsync(() -> {
+			try {
+			    return new Score(release_id,Main.Tracks(api,release_id),rank,local);
+			}
+			catch (IOException exc){
+			    throw new CompletionException(exc);
+			}
+		    },API.GetDefaultExecutor()));
+	}
+
+	List<Score> scores = new ArrayList<>();
+	for (CompletableFuture<Score> future : futures){
+	    try {
+		scores.add(future.join());
+	    }
+	    catch (CompletionException exc){
+	    }
+	}
+	Collections.sort(scores);
+	return scores;
+    }
+    /**
+     * @param scores Scores in descending order
+     *
+     * @return Best score when it exceeds the threshold, and is not
+     * rivaled by a distinct release within the margin.  Otherwise
+     * null, as the choice is ambiguous.
+     */
+    public final static Score Select(List<Score> scores){
+	if (0 < scores.size()){
+	    final Score best = scores.get(0);
+	    if (THRESHOLD <= best.value){
+		final int count = scores.size();
+		for (int cc = 1; cc < count; cc++){
+		    Score next = scores.get(cc);
+		    if ((best.value - next.value) < MARGIN && !best.equivalent(next)){
+			return null;
+		    }
+		}
+		return best;
+	    }
+	}
+	return null;
+    }
+    /**
+     * @return Sum of medium track counts in a release search
+     * response, or negative one
+     */
+    private final static int TrackCount(Element release){
+	NodeList counts = release.getElementsByTagName("track-count");
+	final int len = counts.getLength();
+	if (0 < len){
+	    int sum = 0;
+	    for (int cc = 0; cc < len; cc++){
+		try {
+		    sum += Integer.parseInt(counts.item(cc).getTextContent().trim());
+		}
+		catch (NumberFormatException exc){
+		    return -1;
+		}
+	    }
+	    return sum;
+	}
+	return -1;
+    }
+}
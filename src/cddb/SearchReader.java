@@ -0,0 +1,174 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy search over every page of results.  A page is requested
+ * (with 'offset' and 'limit') when the records of the previous page
+ * are first consumed, so that the next page is in flight while the
+ * current page is read.  Closing the reader (or its stream) stops
+ * paging, and abandons a page in flight.
+ *
+ * @see API#searchPages
+ */
+public class SearchReader
+    extends Object
+    implements Iterator<Record>, Closeable
+{
+    /**
+     * Records of one response
+     */
+    static class Page {
+
+	final int offset, count;
+
+	final List<Record> records;
+
+	Page(int offset, int count, List<Record> records){
+	    super();
+	    this.offset = offset;
+	    this.count = count;
+	    this.records = records;
+	}
+    }
+
+
+    /**
+     * Maximum page size of the Musicbrainz search service, which
+     * returns at most this many results for a greater limit
+     */
+    public final static int LIMIT = 100;
+
+
+    public final API api;
+
+    public final String query;
+
+    public final int limit;
+
+    private Page page;
+
+    private int index;
+
+    private CompletableFuture<Page> next;
+
+    private boolean end;
+
+
+    /**
+     * @param api Search API
+     * @param query Plain text query string
+     * @param limit Page size, from one to {@link #LIMIT}
+     */
+    public SearchReader(API api, String query, int limit){
+	super();
+	if (null != api && null != query && 0 < limit && LIMIT >= limit){
+	    this.api = api;
+	    this.query = query;
+	    this.limit = limit;
+	    this.next = request(0);
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Value of the 'count' attribute of the search result
+     * list, or negative one when no page has been read
+     */
+    public int getCount(){
+	if (null != page)
+	    return page.count;
+	else
+	    return -1;
+    }
+    public boolean hasNext(){
+	while (!end && (null == page || index == page.records.size())){
+
+	    if (null == next){
+		end = true;
+	    }
+	    else {
+		try {
+		    page = SingleFlight.Join(next);
+		}
+		catch (IOException exc){
+		    end = true;
+		    throw new UncheckedIOException(exc);
+		}
+		index = 0;
+
+		final int offset = (page.offset+limit);
+		if (offset < page.count && !page.records.isEmpty())
+		    next = request(offset);
+		else
+		    next = null;
+	    }
+	}
+	return (!end);
+    }
+    public Record next(){
+	if (hasNext()){
+	    return page.records.get(index++);
+	}
+	else {
+	    throw new NoSuchElementException();
+	}
+    }
+    /**
+     * @return Stream of records, closing this reader when closed
+     */
+    public Stream<Record> stream(){
+
+	return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this,(Spliterator.ORDERED|Spliterator.NONNULL)),false).onClose(() -> close());
+    }
+    /**
+     * Stop paging.
+     */
+    public void close(){
+	end = true;
+	if (null != next){
+	    next.cancel(false);
+	    next = null;
+	}
+    }
+    private CompletableFuture<Page> request(final int offset){
+
+	final String url = api.searchURL(query,offset,limit);
+
+	return CompletableFuture.supplyAsync(() -> {
+		try (RecordReader reader = api.records(url)){
+		    List<Record> records = new ArrayList<>();
+		    while (reader.hasNext()){
+			records.add(reader.next());
+		    }
+		    return new Page(offset,reader.getCount(),records);
+		}
+		catch (UncheckedIOException exc){
+		    throw new CompletionException(exc.getCause());
+		}
+		catch (IOException exc){
+		    throw new CompletionException(exc);
+		}
+	    },API.GetDefaultExecutor());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.IOException;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Request coalescing.  Concurrent users of the same key share one
+ * request in flight, and its one result.  A result is not retained
+ * after its request completes (see {@link Cache}).
+ */
+public class SingleFlight<T>
+    extends Object
+{
+    /**
+     *
+     */
+    public interface Request<T> {
+
+	public T call()
+	    throws IOException;
+    }
+
+
+    private final ConcurrentHashMap<String,CompletableFuture<T>> inflight = new ConcurrentHashMap<>();
+
+
+    public SingleFlight(){
+	super();
+    }
+
+
+    /**
+     * @return Number of requests in flight
+     */
+    public int size(){
+	return inflight.size();
+    }
+    /**
+     * Perform the request in this thread, or wait for the request in
+     * flight.
+     */
+    public T call(String key, Request<T> request)
+	throws IOException
+    {
+	final CompletableFuture<T> created = new CompletableFuture<>();
+
+	final CompletableFuture<T> existing = inflight.putIfAbsent(key,created);
+	if (null != existing){
+
+	    return Join(existing);
+	}
+	else {
+	    try {
+		T result = request.call();
+
+		created.complete(result);
+
+		return result;
+	    }
+	    catch (IOException | RuntimeException | Error exc){
+
+		created.completeExceptionally(exc);
+
+		throw exc;
+	    }
+	    finally {
+		inflight.remove(key,created);
+	    }
+	}
+    }
+    /**
+     * Perform the request on the executor, or share the request in
+     * flight.
+     *
+     * @return A future that may be cancelled without affecting other
+     * users of the request, failed when the executor rejects the
+     * request
+     */
+    public CompletableFuture<T> async(String key, Request<T> request, Executor executor){
+
+	final CompletableFuture<T> created = new CompletableFuture<>();
+
+	final CompletableFuture<T> existing = inflight.putIfAbsent(key,created);
+	if (null != existing){
+
+	    return existing.copy();
+	}
+	else {
+	    try {
+		executor.execute(() -> {
+			try {
+			    created.complete(request.call());
+			}
+			catch (Throwable exc){
+			    created.completeExceptionally(exc);
+			}
+			finally {
+			    inflight.remove(key,created);
+			}
+		    });
+	    }
+	    catch (RuntimeException exc){
+		/*
+		 * Rejected by the executor: fail this request and its
+		 * sharers, and free the key for the next.
+		 */
+		inflight.remove(key,created);
+
+		created.completeExceptionally(exc);
+	    }
+	    return created.copy();
+	}
+    }
+
+    /**
+     * @return Result of future, with its exception unwrapped
+     */
+    public final static <T> T Join(CompletableFuture<T> future)
+	throws IOException
+    {
+	try {
+	    return future.join();
+	}
+	catch (CompletionException exc){
+	    Throwable cause = exc.getCause();
+	    if (cause instanceof IOException)
+		throw (IOException)cause;
+	    else if (cause instanceof RuntimeException)
+		throw (RuntimeException)cause;
+	    else
+		throw new IOException(cause);
+	}
+	catch (CancellationException exc){
+	    throw new java.io.InterruptedIOException(exc.toString());
+	}
+    }
+}
@@ -0,0 +1,432 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the Musicbrainz web service, serving recorded
+ * release XML on a localhost port.  Benchmarks and regression tests
+ * of the network path (transport, cache, parsing) are performed
+ * against the stand-in without network access.
+ *
+ * The recording is a text file of release elements, as printed by
+ * {@link Main} (e.g. "music.log"), or an {@link Index} (served by
+ * {@link IndexTransport}).  A release search of a recording returns
+ * its releases regardless of the query, repeated to the configured
+ * number of results.  A release lookup returns the recorded release
+ * having its MBID.  Other requests are not found (status 404).
+ *
+ * Responses are delayed by the configured latency and jitter, and
+ * the configured fraction of them are refused with status 503 (and
+ * "Retry-After"), as by Musicbrainz to clients exceeding its rate
+ * limit.  A response may be padded with an XML comment to increase
+ * its size.
+ *
+ * A request for the JSON format ("fmt=json") is answered with the
+ * records of the XML response (as read by {@link RecordReader}) in
+ * the JSON format of Musicbrainz, as by {@link IndexTransport}.  A response is compressed for a
+ * request accepting "gzip" encoding.
+ *
+ * <pre>
+ * java -cp cddb.jar cddb.StandIn music.log
+ * java -Dcddb.host=localhost:7302 -jar cddb.jar ...
+ * </pre>
+ *
+ * <pre>
+ * cddb.standin.port       Localhost port (7302)
+ * cddb.standin.threads    Number of concurrent responses (32)
+ * cddb.standin.latency    Response delay in milliseconds (0)
+ * cddb.standin.jitter     Maximum random additional delay in milliseconds (0)
+ * cddb.standin.busy       Fraction of responses refused with status 503 (0.0)
+ * cddb.standin.count      Number of search results (number of recorded releases)
+ * cddb.standin.pad        Bytes of padding per XML response (0)
+ * cddb.standin.gzip       Compress responses for clients accepting gzip (true)
+ * </pre>
+ *
+ * @see Load
+ */
+public class StandIn
+    extends Object
+    implements Closeable
+{
+    public final static int PORT = Integer.getInteger("cddb.standin.port",7302);
+    public final static int THREADS = Integer.getInteger("cddb.standin.threads",32);
+    public final static long LATENCY = Long.getLong("cddb.standin.latency",0L);
+    public final static long JITTER = Long.getLong("cddb.standin.jitter",0L);
+    public final static double BUSY = Double.parseDouble(System.getProperty("cddb.standin.busy","0.0"));
+    public final static int COUNT = Integer.getInteger("cddb.standin.count",0);
+    public final static int PAD = Integer.getInteger("cddb.standin.pad",0);
+    public final static boolean GZIP = Boolean.parseBoolean(System.getProperty("cddb.standin.gzip","true"));
+
+    private final static byte[] METADATA_END = "</metadata>".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * Transport answering release searches and lookups from a
+     * recording of release elements.
+     */
+    public static class Recording
+	extends Object
+	implements Transport
+    {
+	private final static Pattern ID = Pattern.compile("\\sid=\"([0-9a-f-]{36})\"");
+
+	private final static String STATUS_404 = "HTTP/1.1 404";
+
+
+	public final File file;
+
+	private final List<byte[]> releases = new ArrayList<>();
+
+	private final Map<String,byte[]> ids = new HashMap<>();
+
+	private final List<byte[]> results;
+
+
+	/**
+	 * @param file Text file of release elements
+	 * @param count Number of search results, or zero for the
+	 * number of recorded releases
+	 */
+	public Recording(File file, int count)
+	    throws IOException
+	{
+	    super();
+	    if (null != file && 0 <= count){
+		this.file = file;
+
+		final String text = new String(Files.readAllBytes(file.toPath()),StandardCharsets.UTF_8);
+		int start = 0;
+		while (0 <= (start = text.indexOf("<release ",start))){
+		    int end = text.indexOf("</release>",start);
+		    if (0 < end){
+			end += "</release>".length();
+
+			String release = text.substring(start,end);
+			Matcher m = ID.matcher(release.substring(0,release.indexOf('>')));
+			if (m.find()){
+			    byte[] bytes = release.getBytes(StandardCharsets.UTF_8);
+			    releases.add(bytes);
+			    ids.put(m.group(1),bytes);
+			}
+			start = end;
+		    }
+		    else {
+			break;
+		    }
+		}
+
+		if (releases.isEmpty()){
+		    throw new IOException(String.format("No release elements in '%s'",file.getPath()));
+		}
+		else if (0 == count || count == releases.size()){
+		    this.results = releases;
+		}
+		else {
+		    this.results = new ArrayList<>(count);
+		    for (int cc = 0; cc < count; cc++){
+			results.add(releases.get(cc % releases.size()));
+		    }
+		}
+	    }
+	    else {
+		throw new IllegalArgumentException();
+	    }
+	}
+
+
+	/**
+	 * @return Number of recorded releases
+	 */
+	public int size(){
+	    return releases.size();
+	}
+	public Response get(String url, String accept)
+	    throws IOException
+	{
+	    if (Entity.RELEASE.path.equals(Cache.EntityPath(url))){
+
+		if (Cache.Kind.SEARCH == Cache.Kind.For(url)){
+
+		    return IndexTransport.Search(url,results,IndexTransport.Int(IndexTransport.Parameter(url,"offset"),0),
+						 IndexTransport.Int(IndexTransport.Parameter(url,"limit"),100));
+		}
+		else {
+		    final String mbid = IndexTransport.MBID(url);
+		    if (null != mbid){
+			byte[] release = ids.get(mbid);
+			if (null != release){
+
+			    return IndexTransport.Lookup(url,release);
+			}
+		    }
+		}
+	    }
+	    return new Response(url,404,STATUS_404,null,new ByteArrayInputStream(new byte[0]));
+	}
+    }
+
+    /**
+     * @param file Recording or index file
+     *
+     * @return Transport answering requests from the file
+     */
+    public final static Transport Source(File file)
+	throws IOException
+    {
+	try {
+	    return new IndexTransport(new Index(file));
+	}
+	catch (IOException not_index){
+
+	    return new Recording(file,COUNT);
+	}
+    }
+
+    public static void main(String[] argv){
+	if (1 == argv.length){
+	    try {
+		StandIn standin = new StandIn(PORT,THREADS,LATENCY,JITTER,BUSY,PAD,GZIP,Source(new File(argv[0])));
+
+		System.err.printf("Serving '%s' on localhost:%d%n",argv[0],standin.port);
+	    }
+	    catch (IOException exc){
+		System.err.printf("Error, %s%n",exc);
+		System.exit(1);
+	    }
+	}
+	else {
+	    System.err.println("Synopsis");
+	    System.err.println();
+	    System.err.println("    cddb.StandIn <recording>");
+	    System.err.println();
+	    System.err.println("Description");
+	    System.err.println();
+	    System.err.println("    Serve the release elements of a recording (e.g. \"music.log\"),");
+	    System.err.println("    or a local index, as a stand-in for Musicbrainz on a");
+	    System.err.println("    localhost port, for clients with -Dcddb.host=localhost:7302.");
+	    System.err.println();
+	    System.exit(1);
+	}
+    }
+
+
+    public final int port;
+
+    public final long latency, jitter;
+
+    public final double busy;
+
+    public final int pad;
+
+    public final boolean gzip;
+
+    public final Transport source;
+
+    private final HttpServer server;
+
+    private final ExecutorService pool;
+
+    private final LongAdder responses = new LongAdder(), refused = new LongAdder();
+
+
+    /**
+     * Default configuration
+     */
+    public StandIn(Transport source)
+	throws IOException
+    {
+	this(PORT,THREADS,LATENCY,JITTER,BUSY,PAD,GZIP,source);
+    }
+    /**
+     * Start serving.
+     *
+     * @param port Localhost port, or zero for any
+     * @param threads Number of concurrent responses
+     * @param latency Response delay in milliseconds
+     * @param jitter Maximum random additional delay in milliseconds
+     * @param busy Fraction of responses refused with status 503
+     * @param pad Bytes of padding per XML response
+     * @param gzip Compress responses for clients accepting gzip
+     * @param source Transport answering requests
+     */
+    public StandIn(int port, int threads, long latency, long jitter, double busy, int pad, boolean gzip, Transport source)
+	throws IOException
+    {
+	super();
+	if (0 <= port && 0 < threads && 0L <= latency && 0L <= jitter && 0.0 <= busy && 1.0 >= busy && 0 <= pad && null != source){
+	    this.latency = latency;
+	    this.jitter = jitter;
+	    this.busy = busy;
+	    this.pad = pad;
+	    this.gzip = gzip;
+	    this.source = source;
+
+	    this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(),port),0x40);
+	    this.port = server.getAddress().getPort();
+	    this.pool = Executors.newFixedThreadPool(threads,new Threads("cddb-standin"));
+
+	    server.setExecutor(pool);
+	    server.createContext("/",(exchange) -> respond(exchange));
+	    server.start();
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Host and port for {@link API#SetDefaultHost}
+     */
+    public String host(){
+	return "localhost:"+port;
+    }
+    /**
+     * @return Number of responses, including refusals
+     */
+    public long responses(){
+	return responses.sum();
+    }
+    /**
+     * @return Number of responses refused with status 503
+     */
+    public long refused(){
+	return refused.sum();
+    }
+    public void close(){
+	server.stop(0);
+	pool.shutdown();
+    }
+    private void respond(HttpExchange exchange)
+	throws IOException
+    {
+	try {
+	    delay();
+
+	    responses.increment();
+
+	    if (0.0 < busy && busy > ThreadLocalRandom.current().nextDouble()){
+		refused.increment();
+
+		exchange.getResponseHeaders().set("Retry-After","1");
+		exchange.sendResponseHeaders(503,-1);
+	    }
+	    else {
+		final String request = "http://"+host()+exchange.getRequestURI();
+		final boolean json = (0 < request.indexOf("fmt=json"));
+		final String url = (json)?(API.Xml(request)):(request);
+
+		try (Transport.Response response = source.get(url,"application/xml")){
+
+		    byte[] body = response.body.readAllBytes();
+		    if (json){
+			body = (200 == response.status)?(JsonRecordReader.Json(url,body)):(new byte[0]);
+
+			exchange.getResponseHeaders().set("Content-Type","application/json; charset=UTF-8");
+		    }
+		    else {
+			body = Pad(body,pad);
+
+			exchange.getResponseHeaders().set("Content-Type","application/xml; charset=UTF-8");
+		    }
+		    final String encoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		    if (gzip && 0 < body.length && null != encoding && 0 <= encoding.indexOf("gzip")){
+			ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length/4);
+			try (GZIPOutputStream out = new GZIPOutputStream(compressed)){
+			    out.write(body);
+			}
+			body = compressed.toByteArray();
+
+			exchange.getResponseHeaders().set("Content-Encoding","gzip");
+		    }
+		    exchange.sendResponseHeaders(response.status,(0 < body.length)?(body.length):(-1));
+		    if (0 < body.length){
+			try (OutputStream out = exchange.getResponseBody()){
+			    out.write(body);
+			}
+		    }
+		}
+	    }
+	}
+	catch (InterruptedException exc){
+	    Thread.currentThread().interrupt();
+	}
+	finally {
+	    exchange.close();
+	}
+    }
+    private void delay()
+	throws InterruptedException
+    {
+	long millis = latency;
+	if (0L < jitter){
+	    millis += ThreadLocalRandom.current().nextLong(jitter+1L);
+	}
+	if (0L < millis){
+	    Thread.sleep(millis);
+	}
+    }
+    /**
+     * @return Body with a comment of 'pad' bytes preceding its end
+     * "metadata" tag, or the body
+     */
+    private final static byte[] Pad(byte[] body, int pad){
+	if (0 < pad){
+	    int end = (body.length - METADATA_END.length);
+	    while (0 <= end){
+		boolean match = true;
+		for (int cc = 0; cc < METADATA_END.length; cc++){
+		    if (body[end+cc] != METADATA_END[cc]){
+			match = false;
+			break;
+		    }
+		}
+		if (match)
+		    break;
+		else
+		    end -= 1;
+	    }
+	    if (0 <= end){
+		ByteArrayOutputStream padded = new ByteArrayOutputStream(body.length+pad+7);
+		padded.write(body,0,end);
+		padded.writeBytes("<!--".getBytes(StandardCharsets.US_ASCII));
+		for (int cc = 0; cc < pad; cc++){
+		    padded.write(' ');
+		}
+		padded.writeBytes("-->".getBytes(StandardCharsets.US_ASCII));
+		padded.write(body,end,(body.length-end));
+		return padded.toByteArray();
+	    }
+	}
+	return body;
+    }
+}
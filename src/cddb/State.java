@@ -0,0 +1,477 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.ReadMode;
+import org.jaudiotagger.audio.mp3.MP3AudioHeader;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+/**
+ * Persistent state of the track files updated by library runs, so
+ * that a rescan of the library skips albums which are unchanged
+ * since they were last updated.
+ *
+ * The state of a track file is its path, size, last modified time,
+ * a hash of its audio content (excluding the tags of MP3, WAV,
+ * AIFF, FLAC and MP4 files), and the release and track MBIDs applied
+ * to it.  An album is current when each of its
+ * track files has the size and time recorded for it.  A track file
+ * having a different time is current when its tags carry the
+ * recorded MBIDs and its audio content is unchanged.
+ *
+ * Entries are appended to the state file as they're updated, and
+ * the file is rewritten (without superseded entries) when closed.
+ */
+public class State
+    extends Object
+    implements Closeable
+{
+    /**
+     * @return Default state file "~/.cddb/state"
+     */
+    public final static File Default(){
+	return new File(new File(System.getProperty("user.home"),".cddb"),"state");
+    }
+    /**
+     * Track file state
+     */
+    public static class Entry {
+
+	public final String path;
+
+	public final long size, mtime;
+
+	public final String hash, release, track;
+
+
+	public Entry(String path, long size, long mtime, String hash, String release, String track){
+	    super();
+	    if (null != path && null != hash && null != release && null != track){
+		this.path = path;
+		this.size = size;
+		this.mtime = mtime;
+		this.hash = hash;
+		this.release = release;
+		this.track = track;
+	    }
+	    else {
+		throw new IllegalArgumentException();
+	    }
+	}
+
+
+	public String toString(){
+	    return path+'\t'+size+'\t'+mtime+'\t'+hash+'\t'+release+'\t'+track;
+	}
+    }
+
+
+    public final File file;
+
+    private final ConcurrentHashMap<String,Entry> entries = new ConcurrentHashMap<>();
+
+    private final Writer out;
+
+
+    /**
+     * Read the existing state file, and open it for append.
+     */
+    public State(File file)
+	throws IOException
+    {
+	super();
+	if (null != file){
+	    this.file = file;
+
+	    File parent = file.getAbsoluteFile().getParentFile();
+	    if (parent.isDirectory() || parent.mkdirs()){
+
+		if (file.isFile()){
+		    read();
+		}
+		this.out = new OutputStreamWriter(new FileOutputStream(file,true),StandardCharsets.UTF_8);
+	    }
+	    else {
+		throw new IOException(String.format("Unable to create state directory '%s'",parent.getPath()));
+	    }
+	}
+	else {
+	    throw new IllegalArgumentException();
+	}
+    }
+
+
+    /**
+     * @return Number of track files
+     */
+    public int size(){
+	return entries.size();
+    }
+    /**
+     * @return State of track file, or null
+     */
+    public Entry get(File track){
+	return entries.get(track.getAbsolutePath());
+    }
+    /**
+     * @return The album track files are unchanged, or carry the
+     * release last applied to them
+     */
+    public boolean isCurrent(Album album){
+	final File[] tracks = album.tracks();
+	if (0 < tracks.length && tracks.length == album.count){
+	    String release = null;
+	    for (File track : tracks){
+		if (null == track){
+		    return false;
+		}
+		else {
+		    Entry entry = get(track);
+		    Album.Entry found = album.get(track);
+		    if (null == entry || null == found || (null != release && !release.equals(entry.release))){
+			return false;
+		    }
+		    else if (entry.size != found.size || entry.mtime != found.mtime){
+
+			if (!isCurrent(entry,track)){
+			    return false;
+			}
+		    }
+		    release = entry.release;
+		}
+	    }
+	    return true;
+	}
+	return false;
+    }
+    /**
+     * Record the state of the album track files following their
+     * update with the argument release tracks.
+     */
+    public void update(Album album, List<Record> tracks_list)
+	throws IOException
+    {
+	final File[] files = album.tracks();
+	for (Record track : tracks_list){
+	    int number = track.getNumber();
+	    if (0 < number && number <= files.length && null != files[number-1] && null != track.release && null != track.id){
+
+		File file = files[number-1];
+		if (0 <= file.getPath().indexOf('\t') || 0 <= file.getPath().indexOf('\n')){
+		    /*
+		     * Not represented in the state file
+		     */
+		    continue;
+		}
+		put(new Entry(file.getAbsolutePath(),file.length(),file.lastModified(),Hash(file),track.release,track.id));
+	    }
+	}
+    }
+    public void close()
+	throws IOException
+    {
+	synchronized(out){
+	    out.close();
+	}
+	write();
+    }
+    /**
+     * A track file whose size or time has changed is current when
+     * its tags and audio content are unchanged.
+     */
+    private boolean isCurrent(Entry entry, File track){
+	try {
+	    AudioFile audio = AudioFileIO.read(track);
+	    Tag tag = audio.getTag();
+	    if (null != tag && entry.release.equals(tag.getFirst(FieldKey.MUSICBRAINZ_RELEASEID))
+		&& entry.track.equals(tag.getFirst(FieldKey.MUSICBRAINZ_RELEASE_TRACK_ID))
+		&& entry.hash.equals(Hash(track,audio)))
+	    {
+		put(new Entry(entry.path,track.length(),track.lastModified(),entry.hash,entry.release,entry.track));
+
+		return true;
+	    }
+	}
+	catch (Exception exc){
+	}
+	return false;
+    }
+    private void put(Entry entry)
+	throws IOException
+    {
+	entries.put(entry.path,entry);
+
+	synchronized(out){
+	    out.write(entry.toString());
+	    out.write('\n');
+	    out.flush();
+	}
+    }
+    private void read()
+	throws IOException
+    {
+	final String text = new String(Files.readAllBytes(file.toPath()),StandardCharsets.UTF_8);
+	for (String line : text.split("\n")){
+	    String[] fields = line.split("\t",-1);
+	    if (6 == fields.length){
+		try {
+		    Entry entry = new Entry(fields[0],Long.parseLong(fields[1]),Long.parseLong(fields[2]),fields[3],fields[4],fields[5]);
+		    entries.put(entry.path,entry);
+		}
+		catch (NumberFormatException exc){
+		}
+	    }
+	}
+    }
+    /**
+     * Rewrite the state file with current entries.
+     */
+    private void write()
+	throws IOException
+    {
+	final File tmp = File.createTempFile(file.getName(),".tmp",file.getAbsoluteFile().getParentFile());
+	try {
+	    try (Writer w = new OutputStreamWriter(new FileOutputStream(tmp),StandardCharsets.UTF_8)){
+		for (Entry entry : entries.values()){
+		    if (new File(entry.path).isFile()){
+			w.write(entry.toString());
+			w.write('\n');
+		    }
+		}
+	    }
+	    Files.move(tmp.toPath(),file.toPath(),StandardCopyOption.REPLACE_EXISTING,StandardCopyOption.ATOMIC_MOVE);
+	}
+	finally {
+	    tmp.delete();
+	}
+    }
+
+    /**
+     * @return Hex SHA-1 of the audio content of a track file
+     */
+    public final static String Hash(File track)
+	throws IOException
+    {
+	try {
+	    return Hash(track,AudioFileIO.read(track,ReadMode.HEADER_ONLY));
+	}
+	catch (IOException exc){
+	    throw exc;
+	}
+	catch (Exception exc){
+	    throw new IOException(track.getPath(),exc);
+	}
+    }
+    /**
+     * The audio content of a track file excludes its tags.
+     *
+     * <pre>
+     * MP3    Following its ID3v2 tag, and preceding its ID3v1 tag
+     * WAV    The "data" chunk
+     * AIFF   The "SSND" chunk
+     * FLAC   The frames following the metadata blocks
+     * MP4    The "mdat" atom
+     * </pre>
+     *
+     * The content of another file (e.g. Ogg) is the whole file, so
+     * that a change to its tags alone is a change of its content.
+     */
+    private final static String Hash(File track, AudioFile audio)
+	throws IOException
+    {
+	try (RandomAccessFile in = new RandomAccessFile(track,"r")){
+	    long start = 0L, end = in.length();
+	    if (audio.getAudioHeader() instanceof MP3AudioHeader){
+
+		start = ((MP3AudioHeader)audio.getAudioHeader()).getMp3StartByte();
+
+		if (128L <= (end-start)){
+		    byte[] id3v1 = new byte[3];
+		    in.seek(end-128L);
+		    in.readFully(id3v1);
+		    if ('T' == id3v1[0] && 'A' == id3v1[1] && 'G' == id3v1[2]){
+			end -= 128L;
+		    }
+		}
+	    }
+	    else {
+		long[] content = Content(in,end);
+		if (null != content){
+		    start = content[0];
+		    end = content[1];
+		}
+	    }
+	    MessageDigest md = MessageDigest.getInstance("SHA-1");
+	    byte[] iob = new byte[0x10000];
+	    in.seek(start);
+	    long remaining = (end-start);
+	    while (0L < remaining){
+		int read = in.read(iob,0,(int)Math.min(iob.length,remaining));
+		if (0 < read){
+		    md.update(iob,0,read);
+		    remaining -= read;
+		}
+		else {
+		    break;
+		}
+	    }
+	    StringBuilder string = new StringBuilder();
+	    for (byte b : md.digest()){
+		string.append(Character.forDigit((b>>4)&0xf,16));
+		string.append(Character.forDigit(b&0xf,16));
+	    }
+	    return string.toString();
+	}
+	catch (NoSuchAlgorithmException exc){
+	    throw new IllegalStateException(exc);
+	}
+    }
+    /**
+     * @return Start and end of the audio content of a WAV, AIFF,
+     * FLAC or MP4 file, or null for the whole file
+     */
+    private final static long[] Content(RandomAccessFile in, long length)
+	throws IOException
+    {
+	if (12L > length){
+	    return null;
+	}
+	byte[] header = new byte[12];
+	in.seek(0L);
+	in.readFully(header);
+	String magic = new String(header,0,4,StandardCharsets.ISO_8859_1);
+	String form = new String(header,8,4,StandardCharsets.ISO_8859_1);
+	String type = new String(header,4,4,StandardCharsets.ISO_8859_1);
+
+	if ("RIFF".equals(magic) && "WAVE".equals(form))
+	    return Chunk(in,12L,length,"data",true);
+	else if ("FORM".equals(magic) && ("AIFF".equals(form) || "AIFC".equals(form)))
+	    return Chunk(in,12L,length,"SSND",false);
+	else if ("ftyp".equals(type))
+	    return Atom(in,length,"mdat");
+	else if ("fLaC".equals(magic) || "ID3".equals(magic.substring(0,3)))
+	    return Frames(in,length);
+	else
+	    return null;
+    }
+    /**
+     * @return Contents of the first chunk of the id in a RIFF (little
+     * endian) or IFF (big endian) file, or null
+     */
+    private final static long[] Chunk(RandomAccessFile in, long position, long length, String id, boolean little)
+	throws IOException
+    {
+	byte[] header = new byte[8];
+	while ((position+8L) <= length){
+	    in.seek(position);
+	    in.readFully(header);
+	    long size;
+	    if (little)
+		size = ((header[4]&0xffL)|((header[5]&0xffL)<<8)|((header[6]&0xffL)<<16)|((header[7]&0xffL)<<24));
+	    else
+		size = (((header[4]&0xffL)<<24)|((header[5]&0xffL)<<16)|((header[6]&0xffL)<<8)|(header[7]&0xffL));
+
+	    if (id.equals(new String(header,0,4,StandardCharsets.ISO_8859_1))){
+
+		return new long[]{position+8L,Math.min(position+8L+size,length)};
+	    }
+	    position += 8L+size+(size&1L);
+	}
+	return null;
+    }
+    /**
+     * @return Contents of the first top level atom of the type in an
+     * MP4 file, or null
+     */
+    private final static long[] Atom(RandomAccessFile in, long length, String type)
+	throws IOException
+    {
+	byte[] header = new byte[8];
+	long position = 0L;
+	while ((position+8L) <= length){
+	    in.seek(position);
+	    in.readFully(header);
+	    long size = (((header[0]&0xffL)<<24)|((header[1]&0xffL)<<16)|((header[2]&0xffL)<<8)|(header[3]&0xffL));
+	    long start = (position+8L);
+	    if (1L == size){
+		size = in.readLong();
+		start += 8L;
+	    }
+	    else if (0L == size){
+		size = (length-position);
+	    }
+	    if (size < (start-position)){
+		return null;
+	    }
+	    else if (type.equals(new String(header,4,4,StandardCharsets.ISO_8859_1))){
+
+		return new long[]{start,Math.min(position+size,length)};
+	    }
+	    position += size;
+	}
+	return null;
+    }
+    /**
+     * @return Frames of a FLAC file, following an optional ID3v2 tag
+     * and the metadata blocks, or null
+     */
+    private final static long[] Frames(RandomAccessFile in, long length)
+	throws IOException
+    {
+	byte[] header = new byte[10];
+	long position = 0L;
+	in.seek(position);
+	in.readFully(header);
+	if ('I' == header[0] && 'D' == header[1] && '3' == header[2]){
+	    /*
+	     * Synchsafe size, and footer flag
+	     */
+	    position = 10L+(((header[6]&0x7fL)<<21)|((header[7]&0x7fL)<<14)|((header[8]&0x7fL)<<7)|(header[9]&0x7fL));
+	    if (0 != (header[5]&0x10)){
+		position += 10L;
+	    }
+	}
+	if ((position+4L) > length){
+	    return null;
+	}
+	in.seek(position);
+	in.readFully(header,0,4);
+	if ('f' != header[0] || 'L' != header[1] || 'a' != header[2] || 'C' != header[3]){
+	    return null;
+	}
+	position += 4L;
+	while ((position+4L) <= length){
+	    in.seek(position);
+	    in.readFully(header,0,4);
+	    position += 4L+(((header[1]&0xffL)<<16)|((header[2]&0xffL)<<8)|(header[3]&0xffL));
+	    if (0 != (header[0]&0x80)){
+
+		return new long[]{Math.min(position,length),length};
+	    }
+	}
+	return null;
+    }
+}
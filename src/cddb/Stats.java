@@ -0,0 +1,419 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.FilterInputStream;
+import java.io.InputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import java.lang.management.ManagementFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Web service request instrumentation.  Latency is recorded per
+ * entity and phase, with byte counts, response status counts, rate
+ * limit waits and cache hits.
+ *
+ * <pre>
+ * wait       Rate limit wait ({@link Scheduler})
+ * headers    Request to response headers, including connect and
+ *            server time ({@link HttpTransport})
+ * body       Reading the response body
+ * parse      Parsing the response, excluding body reads
+ * total      Request to parsed response ({@link API})
+ * </pre>
+ *
+ * Response bytes are counted as read (following decompression), and
+ * as transferred by the network (before decompression).
+ *
+ * The statistics are exposed by JMX as "cddb:type=Stats", and each
+ * request is a JFR event ("cddb.Request"), as is each rate limit
+ * wait ("cddb.RateLimit").
+ */
+public class Stats
+    extends Object
+    implements StatsMBean
+{
+    /**
+     * Latency histogram with power of two microsecond buckets
+     */
+    public static class Histogram {
+
+	private final static int BUCKETS = 28;
+
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+	private final LongAdder count = new LongAdder(), sum = new LongAdder();
+
+
+	public Histogram(){
+	    super();
+	}
+
+
+	/**
+	 * @param nanos Latency
+	 */
+	public void add(long nanos){
+	    final long micros = Math.max(1L,(nanos / 1000L));
+	    final int bucket = Math.min(BUCKETS-1,(63 - Long.numberOfLeadingZeros(micros)));
+	    buckets.incrementAndGet(bucket);
+	    count.increment();
+	    sum.add(micros);
+	}
+	public long count(){
+	    return count.sum();
+	}
+	/**
+	 * @return Mean latency in milliseconds
+	 */
+	public double mean(){
+	    final long count = count();
+	    if (0L < count)
+		return ((double)sum.sum() / (double)count / 1000.0);
+	    else
+		return 0.0;
+	}
+	/**
+	 * @param p Fraction, e.g. 0.99
+	 *
+	 * @return Upper bound in milliseconds of the bucket of the
+	 * percentile
+	 */
+	public double percentile(double p){
+	    final long count = count();
+	    if (0L < count){
+		final long rank = (long)Math.ceil(p * count);
+		long seen = 0L;
+		for (int cc = 0; cc < BUCKETS; cc++){
+		    seen += buckets.get(cc);
+		    if (seen >= rank){
+			return ((double)(2L << cc) / 1000.0);
+		    }
+		}
+	    }
+	    return 0.0;
+	}
+	public String toString(){
+	    return String.format("count %d mean %.1f ms p50 %.1f ms p90 %.1f ms p99 %.1f ms",
+				 count(),mean(),percentile(0.5),percentile(0.9),percentile(0.99));
+	}
+    }
+    /**
+     * JFR event of a web service request
+     */
+    @Name("cddb.Request")
+    @Label("CDDB Request")
+    @Category("CDDB")
+    public static class RequestEvent
+	extends jdk.jfr.Event
+    {
+	@Label("URL")
+	String url;
+
+	@Label("Entity")
+	String entity;
+
+	@Label("Status")
+	int status;
+
+	@Label("Bytes")
+	@DataAmount
+	long bytes;
+
+	@Label("Cache Hit")
+	boolean cached;
+    }
+    /**
+     * JFR event of a rate limit wait
+     */
+    @Name("cddb.RateLimit")
+    @Label("CDDB Rate Limit")
+    @Category("CDDB")
+    public static class RateLimitEvent
+	extends jdk.jfr.Event
+    {
+	@Label("URL")
+	String url;
+    }
+    /**
+     * Instrumentation of one request, from its start to its parsed
+     * response.
+     */
+    public static class Request {
+
+	private final Stats stats;
+
+	private final String entity;
+
+	private final long start = System.nanoTime();
+
+	private final RequestEvent event = new RequestEvent();
+
+	private Counter counter;
+
+	private boolean ended;
+
+
+	Request(Stats stats, String url){
+	    super();
+	    this.stats = stats;
+	    this.entity = Cache.EntityPath(url);
+	    event.url = url;
+	    event.entity = entity;
+	    event.begin();
+	}
+
+
+	/**
+	 * @return Response body, counted and timed
+	 */
+	public InputStream response(Transport.Response response){
+	    event.status = response.status;
+	    event.cached = ("HIT".equals(response.getHeader("X-Cache")));
+
+	    stats.status(response.status);
+
+	    counter = new Counter(response.body);
+	    return counter;
+	}
+	/**
+	 * Request complete, its response (if any) parsed.  A response
+	 * shared by concurrent requests is ended by the first parsed.
+	 */
+	public synchronized void end(){
+	    if (ended){
+		return;
+	    }
+	    ended = true;
+
+	    final long total = (System.nanoTime()-start);
+
+	    stats.add(entity,"total",total);
+
+	    if (null != counter){
+		final long body = counter.nanos;
+		stats.add(entity,"body",body);
+		stats.add(entity,"parse",Math.max(0L,(total - body - counter.opened)));
+		stats.bytes.add(counter.bytes);
+		event.bytes = counter.bytes;
+	    }
+	    event.commit();
+	}
+	/**
+	 * Body stream recording its bytes and read time, and the
+	 * time from request to body.
+	 */
+	class Counter
+	    extends FilterInputStream
+	{
+	    final long opened = (System.nanoTime()-start);
+
+	    long nanos, bytes;
+
+	    Counter(InputStream in){
+		super(in);
+	    }
+
+	    public int read()
+		throws IOException
+	    {
+		final long t = System.nanoTime();
+		try {
+		    int b = super.read();
+		    if (-1 != b){
+			bytes += 1;
+		    }
+		    return b;
+		}
+		finally {
+		    nanos += (System.nanoTime()-t);
+		}
+	    }
+	    public int read(byte[] b, int ofs, int len)
+		throws IOException
+	    {
+		final long t = System.nanoTime();
+		try {
+		    int read = super.read(b,ofs,len);
+		    if (0 < read){
+			bytes += read;
+		    }
+		    return read;
+		}
+		finally {
+		    nanos += (System.nanoTime()-t);
+		}
+	    }
+	}
+    }
+
+    private final static Stats Default = new Stats();
+    static {
+	try {
+	    ManagementFactory.getPlatformMBeanServer().registerMBean(Default,new ObjectName("cddb:type=Stats"));
+	}
+	catch (Exception exc){
+	    /*
+	     * JMX not available
+	     */
+	}
+    }
+    /**
+     * @return Shared instance
+     */
+    public final static Stats Default(){
+	return Default;
+    }
+    /**
+     * @param url Request URL
+     *
+     * @return Instrumentation of the request, to be ended
+     */
+    public final static Request Begin(String url){
+	return new Request(Default,url);
+    }
+    /**
+     * Record the response headers latency of a network request.
+     */
+    public final static void Headers(String url, long nanos){
+	Default.add(Cache.EntityPath(url),"headers",nanos);
+    }
+    /**
+     * Record a rate limit wait.
+     *
+     * @return Event to be committed when the wait is complete
+     */
+    public final static RateLimitEvent Wait(String url, long nanos){
+	Default.waits.add(nanos);
+	Default.add(Cache.EntityPath(url),"wait",nanos);
+
+	RateLimitEvent event = new RateLimitEvent();
+	event.url = url;
+	event.begin();
+	return event;
+    }
+    /**
+     * Record response bytes transferred by the network.
+     */
+    public final static void Transferred(long bytes){
+	Default.transferred.add(bytes);
+    }
+    /**
+     * Record a cache hit or miss.
+     */
+    public final static void Cache(boolean hit){
+	if (hit)
+	    Default.hits.increment();
+	else
+	    Default.misses.increment();
+    }
+    /**
+     * Print a summary of the shared instance.
+     */
+    public final static void Print(PrintStream out){
+	Default.print(out);
+    }
+
+
+    private final ConcurrentHashMap<String,Histogram> latency = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<Integer,LongAdder> status = new ConcurrentHashMap<>();
+
+    private final LongAdder bytes = new LongAdder(), transferred = new LongAdder(), hits = new LongAdder(), misses = new LongAdder();
+
+    private final Histogram waits = new Histogram();
+
+
+    public Stats(){
+	super();
+    }
+
+
+    /**
+     * @param entity Entity path, e.g. "release"
+     * @param phase Request phase, e.g. "body"
+     * @param nanos Latency
+     */
+    public void add(String entity, String phase, long nanos){
+	latency.computeIfAbsent(entity+'.'+phase,(key) -> new Histogram()).add(nanos);
+    }
+    public void status(int code){
+	status.computeIfAbsent(code,(key) -> new LongAdder()).increment();
+    }
+    public long getRequests(){
+	long requests = 0L;
+	for (LongAdder count : status.values()){
+	    requests += count.sum();
+	}
+	return requests;
+    }
+    public long getBytes(){
+	return bytes.sum();
+    }
+    public long getTransferredBytes(){
+	return transferred.sum();
+    }
+    public long getCacheHits(){
+	return hits.sum();
+    }
+    public long getCacheMisses(){
+	return misses.sum();
+    }
+    public double getCacheHitRatio(){
+	final long hits = getCacheHits(), total = (hits + getCacheMisses());
+	if (0L < total)
+	    return ((double)hits / (double)total);
+	else
+	    return 0.0;
+    }
+    public long getRateLimitWaits(){
+	return waits.count();
+    }
+    public double getRateLimitWaitMean(){
+	return waits.mean();
+    }
+    public String[] getStatus(){
+	List<String> list = new ArrayList<>();
+	for (Map.Entry<Integer,LongAdder> entry : new TreeMap<Integer,LongAdder>(status).entrySet()){
+	    list.add(entry.getKey()+" "+entry.getValue().sum());
+	}
+	return list.toArray(new String[list.size()]);
+    }
+    public String[] getLatency(){
+	List<String> list = new ArrayList<>();
+	for (Map.Entry<String,Histogram> entry : new TreeMap<String,Histogram>(latency).entrySet()){
+	    list.add(entry.getKey()+" "+entry.getValue());
+	}
+	return list.toArray(new String[list.size()]);
+    }
+    public void print(PrintStream out){
+	out.printf("# Requests %d, bytes %d, transferred %d%n",getRequests(),getBytes(),getTransferredBytes());
+	for (String line : getStatus()){
+	    out.printf("# Status %s%n",line);
+	}
+	out.printf("# Cache hits %d, misses %d, ratio %.2f%n",getCacheHits(),getCacheMisses(),getCacheHitRatio());
+	out.printf("# Rate limit waits %d, mean %.1f ms%n",getRateLimitWaits(),getRateLimitWaitMean());
+	for (String line : getLatency()){
+	    out.printf("# Latency %s%n",line);
+	}
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+/**
+ * JMX interface of {@link Stats}.
+ */
+public interface StatsMBean {
+    /**
+     * @return Number of responses
+     */
+    public long getRequests();
+    /**
+     * @return Response body bytes read
+     */
+    public long getBytes();
+    /**
+     * @return Response bytes transferred by the network, before
+     * decompression
+     */
+    public long getTransferredBytes();
+
+    public long getCacheHits();
+
+    public long getCacheMisses();
+
+    public double getCacheHitRatio();
+
+    public long getRateLimitWaits();
+    /**
+     * @return Mean rate limit wait in milliseconds
+     */
+    public double getRateLimitWaitMean();
+    /**
+     * @return Response status code counts, e.g. "200 12"
+     */
+    public String[] getStatus();
+    /**
+     * @return Latency summary by entity and phase, e.g.
+     * "release.body count 12 mean ..."
+     */
+    public String[] getLatency();
+}
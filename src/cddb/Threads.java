@@ -0,0 +1,34 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Named daemon threads, which don't hold the JVM open.
+ */
+public class Threads
+    extends Object
+    implements ThreadFactory
+{
+
+    public final String prefix;
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+
+    public Threads(String prefix){
+	super();
+	this.prefix = prefix;
+    }
+
+
+    public Thread newThread(Runnable run){
+	Thread thread = new Thread(run,prefix+"-"+counter.incrementAndGet());
+	thread.setDaemon(true);
+	return thread;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * CDDB via Musicbrainz
+ * Copyright 2015 John Pritchard, Syntelos
+ */
+package cddb;
+
+import java.io.Closeable;
+import java.io.InputStream;
+import java.io.IOException;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Musicbrainz HTTP (client) transport employed by {@link API}.  An
+ * instance of transport is shared by many instances of API, and must
+ * be safe for multi-threaded use.
+ *
+ * @see HttpTransport
+ */
+public interface Transport {
+
+    /**
+     * @param url Request URL, as built by {@link API}
+     * @param accept Value of the 'Accept' request header
+     *
+     * @return Response (or exception), which the caller must close
+     */
+    public Response get(String url, String accept)
+	throws IOException;
+
+
+    /**
+     * HTTP response status, headers, and body.
+     */
+    public static class Response
+	extends Object
+	implements Closeable
+    {
+
+	public final String url;
+	/**
+	 * HTTP response status code
+	 */
+	public final int status;
+	/**
+	 * HTTP response status line, e.g. "HTTP/1.1 200"
+	 */
+	public final String statusLine;
+	/**
+	 * Case insensitive response headers
+	 */
+	public final Map<String,List<String>> headers;
+	/**
+	 * Response body
+	 */
+	public final InputStream body;
+
+
+	public Response(String url, int status, String statusLine, Map<String,List<String>> headers, InputStream body){
+	    super();
+	    this.url = url;
+	    this.status = status;
+	    this.statusLine = statusLine;
+	    {
+		TreeMap<String,List<String>> map = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		if (null != headers){
+		    map.putAll(headers);
+		}
+		this.headers = Collections.unmodifiableMap(map);
+	    }
+	    this.body = body;
+	}
+
+
+	/**
+	 * @param name Case insensitive header name
+	 *
+	 * @return First value of named header, or null
+	 */
+	public String getHeader(String name){
+	    List<String> list = headers.get(name);
+	    if (null != list && 0 < list.size())
+		return list.get(0);
+	    else
+		return null;
+	}
+	/**
+	 * Consume the remainder of the body before closing, so that
+	 * the underlying connection may be reused.
+	 */
+	public void close()
+	    throws IOException
+	{
+	    try {
+		byte[] skip = new byte[0x200];
+		while (0 < body.read(skip));
+	    }
+	    catch (IOException closed){
+		/*
+		 * The XML parser closes its input
+		 */
+	    }
+	    finally {
+		body.close();
+	    }
+	}
+    }
+}
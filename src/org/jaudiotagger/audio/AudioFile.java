@@ -28,6 +28,7 @@ import org.jaudiotagger.audio.aiff.AiffTag;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataPicture;
+import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.asf.AsfTag;
 import org.jaudiotagger.audio.wav.WavTag;
@@ -70,6 +71,11 @@ public class AudioFile
      */
     protected Tag tag;
 
+    /**
+     * The extension of the format the audio was read as, or null
+     */
+    protected String format;
+
     public AudioFile()
     {
 
@@ -128,7 +134,7 @@ public class AudioFile
     }
 
     /**
-     * Retrieve the physical file
+     * Retrieve the physical file, or null for audio read from an AudioSource
      *
      * @return
      */
@@ -137,6 +143,29 @@ public class AudioFile
         return file;
     }
 
+    /**
+     * Set the format the audio was read as, recognised by its content, so that
+     * the tag is written by the writer of that format whatever the extension
+     * of the file
+     *
+     * @param format The extension of the format, lower case
+     */
+    public void setFormat(String format)
+    {
+        this.format = format;
+    }
+
+    /**
+     * Retrieve the format the audio was read as, or null when the file is
+     * written by the writer of its extension
+     *
+     * @return
+     */
+    public String getFormat()
+    {
+        return format;
+    }
+
     /**
      *  Assign a tag to this audio file
      *  
@@ -149,7 +178,7 @@ public class AudioFile
 
     /**
      * Return audio header information
-     * @return
+     * @return the audio header, or null when read in the tag only mode
      */
     public AudioHeader getAudioHeader()
     {
@@ -177,8 +206,8 @@ public class AudioFile
      */
     public String toString()
     {
-        return "AudioFile " + getFile().getAbsolutePath()
-                + "  --------\n" + audioHeader.toString() + "\n" + ((tag == null) ? "" : tag.toString()) + "\n-------------------";
+        return "AudioFile " + ((file == null) ? "" : file.getAbsolutePath())
+                + "  --------\n" + ((audioHeader == null) ? "" : audioHeader.toString()) + "\n" + ((tag == null) ? "" : tag.toString()) + "\n-------------------";
     }
 
     /**
@@ -250,49 +279,50 @@ public class AudioFile
     }
 
 
-    /** Create Default Tag
+    /** Create Default Tag, of the format the audio was read as, or else of the extension of the file
      *
      * @return
      */
     public Tag createDefaultTag()
     {
-        if(SupportedFileFormat.FLAC.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        String extension = format != null ? format : Utils.getExtension(file);
+        if(SupportedFileFormat.FLAC.getFilesuffix().equals(extension))
         {
             return new FlacTag(VorbisCommentTag.createNewTag(), new ArrayList< MetadataBlockDataPicture >());
         }
-        else if(SupportedFileFormat.OGG.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.OGG.getFilesuffix().equals(extension))
         {
             return VorbisCommentTag.createNewTag();
         }
-        else if(SupportedFileFormat.MP4.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.MP4.getFilesuffix().equals(extension))
         {
             return new Mp4Tag();
         }
-        else if(SupportedFileFormat.M4A.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.M4A.getFilesuffix().equals(extension))
         {
             return new Mp4Tag();
         }
-        else if(SupportedFileFormat.M4P.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.M4P.getFilesuffix().equals(extension))
         {
             return new Mp4Tag();
         }
-        else if(SupportedFileFormat.WMA.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.WMA.getFilesuffix().equals(extension))
         {
             return new AsfTag();
         }
-        else if(SupportedFileFormat.WAV.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.WAV.getFilesuffix().equals(extension))
         {
             return new WavTag();
         }
-        else if(SupportedFileFormat.RA.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.RA.getFilesuffix().equals(extension))
         {
             return new RealTag();
         }
-        else if(SupportedFileFormat.RM.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.RM.getFilesuffix().equals(extension))
         {
             return new RealTag();
         }
-        else if(SupportedFileFormat.AIF.getFilesuffix().equals(file.getName().substring(file.getName().lastIndexOf('.'))))
+        else if(SupportedFileFormat.AIF.getFilesuffix().equals(extension))
         {
             return new AiffTag();
         }
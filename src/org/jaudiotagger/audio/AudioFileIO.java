@@ -38,13 +38,14 @@ import org.jaudiotagger.audio.real.RealFileReader;
 import org.jaudiotagger.audio.wav.WavFileReader;
 import org.jaudiotagger.audio.wav.WavFileWriter;
 import org.jaudiotagger.logging.ErrorMessage;
+import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagException;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.logging.Logger;
 
@@ -54,8 +55,9 @@ import java.util.logging.Logger;
  * select the appropriate reader/writer for the given file.
  * 
  *
- * It selects the appropriate reader/writer based on the file extension (case
- * ignored).
+ * It selects the appropriate reader based on the first bytes of the file, or
+ * else on the file extension (case ignored), and the appropriate writer based
+ * on the format the file was read as.
  * 
  *
  * Here is an simple example of use:
@@ -98,9 +100,13 @@ public class AudioFileIO
     // !!
 
     /**
-     * This field contains the default instance for static use.
+     * This class holds the default instance for static use, which is
+     * created on first use and safely published to all threads.
      */
-    private static AudioFileIO defaultInstance;
+    private static class DefaultInstance
+    {
+        private static final AudioFileIO instance = new AudioFileIO();
+    }
 
     /**
      *
@@ -124,11 +130,7 @@ public class AudioFileIO
      */
     public static AudioFileIO getDefaultAudioFileIO()
     {
-        if (defaultInstance == null)
-        {
-            defaultInstance = new AudioFileIO();
-        }
-        return defaultInstance;
+        return DefaultInstance.instance;
     }
 
     /**
@@ -151,6 +153,69 @@ public class AudioFileIO
         return getDefaultAudioFileIO().readFile(f);
     }
 
+    /**
+     *
+     * Read the tag and/or the encoding info of the given file.  Listing the
+     * tags of many files is much faster in the tag only mode, which for example
+     * does not search for the first MPEG frame of an MP3.
+     * 
+     *
+     * @param f The file to read.
+     * @param mode What is read of the file.
+     * @return The AudioFile with the file tag and the file encoding info, as read.
+     * @throws org.jaudiotagger.audio.exceptions.CannotReadException If the file could not be read, the extension wasn't
+     *                             recognized, or an IO error occurred during the read.
+     * @throws org.jaudiotagger.tag.TagException
+     * @throws org.jaudiotagger.audio.exceptions.ReadOnlyFileException
+     * @throws java.io.IOException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public static AudioFile read(File f, ReadMode mode)
+            throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        return getDefaultAudioFileIO().readFile(f, mode);
+    }
+
+    /**
+     *
+     * Read audio not held in a file, for example an upload held in memory, with
+     * no disk I/O.
+     * 
+     *
+     * @param source The audio to read, not closed.
+     * @param ext The extension of the audio, used if its format is not recognised.
+     * @return The AudioFile with the tag and the encoding info, and no file.
+     * @throws org.jaudiotagger.audio.exceptions.CannotReadException If the audio could not be read, the format wasn't
+     *                             recognized, or an IO error occurred during the read.
+     * @throws org.jaudiotagger.tag.TagException
+     * @throws org.jaudiotagger.audio.exceptions.ReadOnlyFileException
+     * @throws java.io.IOException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     * @see AudioSource#wrap(byte[])
+     */
+    public static AudioFile read(AudioSource source, String ext)
+            throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        return getDefaultAudioFileIO().readSource(source, ext, ReadMode.FULL);
+    }
+
+    /**
+     *
+     * Read the files of a directory tree, concurrently, and pass each to the
+     * listener as it is read.  A file that cannot be read is passed to the
+     * listener with its exception, and the scan continues.
+     * 
+     *
+     * @param root The directory tree, or a file.
+     * @param options What files are read, how and how many at a time.
+     * @param listener Receives the files read and the errors, concurrently.
+     * @return The number of files read.
+     */
+    public static long scan(Path root, ScanOptions options, AudioFileScanListener listener)
+    {
+        return getDefaultAudioFileIO().scanFiles(root, options, listener);
+    }
+
     /**
      *
      * Write the tag contained in the audioFile in the actual file on the disk.
@@ -165,15 +230,43 @@ public class AudioFileIO
         getDefaultAudioFileIO().writeFile(f);
     }
 
+    /**
+     *
+     * Write a tag to audio not held in a file, for example an upload held in
+     * memory, with no disk I/O.
+     * 
+     *
+     * <code>
+     * AudioFile audioFile = AudioFileIO.read(AudioSource.wrap(upload), "flac");
+     * audioFile.getTag().setField(FieldKey.ARTIST, "Artist");
+     * byte[] tagged = AudioFileIO.write(audioFile.getTag(), AudioSink.wrap(upload), AudioSink.allocate(), "flac").toByteArray();
+     * </code>
+     * 
+     *
+     * @param tag The tag to write.
+     * @param sink The audio, not closed.
+     * @param temp An empty sink, used if the audio has to be rewritten, not closed.
+     * @param ext The extension of the audio, used if its format is not recognised.
+     * @return The sink holding the audio with its tag, sink or temp.
+     * @throws CannotWriteException If the audio could not be written, the format
+     *                              wasn't recognized, or other IO error occurred.
+     */
+    public static AudioSink write(Tag tag, AudioSink sink, AudioSink temp, String ext) throws CannotWriteException
+    {
+        return getDefaultAudioFileIO().writeSource(tag, sink, temp, ext);
+    }
+
     /**
      * This member is used to broadcast modification events to registered
      */
     private final ModificationHandler modificationHandler;
 
     // These tables contains all the readers/writers associated with extension
-    // as a key
-    private Map<String, AudioFileReader> readers = new HashMap<String, AudioFileReader>();
-    private Map<String, AudioFileWriter> writers = new HashMap<String, AudioFileWriter>();
+    // as a key.  They are filled by the constructor and not modified after,
+    // and the readers and writers keep no state of a file, so that an instance
+    // may read and write files from concurrent threads.
+    private final Map<String, AudioFileReader> readers = new HashMap<String, AudioFileReader>();
+    private final Map<String, AudioFileWriter> writers = new HashMap<String, AudioFileWriter>();
 
 
     /**
@@ -208,7 +301,7 @@ public class AudioFileIO
      */
     public void deleteTag(AudioFile f) throws CannotReadException, CannotWriteException
     {
-        String ext = Utils.getExtension(f.getFile());
+        String ext = getFormat(f);
 
         Object afw = writers.get(ext);
         if (afw == null)
@@ -252,7 +345,6 @@ public class AudioFileIO
         writers.put(SupportedFileFormat.WMA.getFilesuffix(), new AsfFileWriter());
 
         // Register modificationHandler
-        Iterator<AudioFileWriter> it = writers.values().iterator();
         for (AudioFileWriter curr : writers.values())
         {
             curr.setAudioFileModificationListener(this.modificationHandler);
@@ -275,17 +367,229 @@ public class AudioFileIO
      */
     public AudioFile readFile(File f)
             throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        return readFile(f, ReadMode.FULL);
+    }
+
+    /**
+     *
+     * Read the given file in the given mode.
+     * 
+     *
+     * @param f The file to read.
+     * @param mode What is read of the file.
+     * @return The AudioFile with the file tag and encoding info, as read.
+     * @throws org.jaudiotagger.audio.exceptions.CannotReadException If the file could not be read, the extension wasn't
+     *                             recognized, or an IO error occurred during the read.
+     * @throws org.jaudiotagger.tag.TagException
+     * @throws org.jaudiotagger.audio.exceptions.ReadOnlyFileException
+     * @throws java.io.IOException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public AudioFile readFile(File f, ReadMode mode)
+            throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
     {
         checkFileExists(f);
-        String ext = Utils.getExtension(f);
 
-        AudioFileReader afr = readers.get(ext);
+        return readFile(f, Utils.getExtension(f), mode, false);
+    }
+
+    /**
+     * Read a file known to exist.  The format is recognised by the first bytes
+     * of the file, or else by its extension, so that a file with the wrong
+     * extension is read by the reader of its content, and recorded on the
+     * AudioFile for the writer.  The file is opened once, its first bytes read,
+     * and the open file handed to the reader.  The exception is MP3, read by
+     * MP3File, which opens the file again.
+     *
+     * @param f The file to read.
+     * @param ext The extension of the file, lower case.
+     * @param mode What is read of the file.
+     * @param recognisedOnly Return null for a file not recognised by its first
+     *                       bytes or its extension, rather than throw.
+     * @return The AudioFile, or null.
+     */
+    AudioFile readFile(File f, String ext, ReadMode mode, boolean recognisedOnly)
+            throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        AudioSource raf;
+        try
+        {
+            raf = AudioSource.open(f);
+        }
+        catch (IOException ioe)
+        {
+            throw new CannotReadException(f.getAbsolutePath() + ":" + ioe.getMessage(), ioe);
+        }
+        try
+        {
+            String format = getFormat(raf, ext, f.getPath());
+            AudioFileReader afr = readers.get(format);
+            if (afr == null)
+            {
+                if (recognisedOnly)
+                {
+                    return null;
+                }
+                throw new CannotReadException(ErrorMessage.NO_READER_FOR_THIS_FORMAT.getMsg(ext));
+            }
+
+            AudioFile audioFile = afr.read(f, raf, mode);
+            audioFile.setFormat(format);
+            return audioFile;
+        }
+        finally
+        {
+            try
+            {
+                raf.close();
+            }
+            catch (IOException ioe)
+            {
+                logger.warning(ErrorMessage.GENERAL_READ_FAILED_UNABLE_TO_CLOSE_RANDOM_ACCESS_FILE.getMsg(f.getAbsolutePath()));
+            }
+        }
+    }
+
+    /**
+     *
+     * Read audio not held in a file, for example an upload held in memory.
+     * The format is recognised by the first bytes of the audio, or else by
+     * the extension given.  The AudioFile has no file, and the source is not
+     * closed.
+     * 
+     *
+     * @param source The audio to read.
+     * @param ext The extension of the audio, used if its format is not recognised.
+     * @param mode What is read of the audio.
+     * @return The AudioFile with the tag and encoding info, as read.
+     * @throws org.jaudiotagger.audio.exceptions.CannotReadException If the audio could not be read, the format wasn't
+     *                             recognized, or an IO error occurred during the read.
+     * @throws org.jaudiotagger.tag.TagException
+     * @throws org.jaudiotagger.audio.exceptions.ReadOnlyFileException
+     * @throws java.io.IOException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public AudioFile readSource(AudioSource source, String ext, ReadMode mode)
+            throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        ext = ext == null ? "" : ext.toLowerCase();
+        String format = getFormat(source, ext, ext);
+        AudioFileReader afr = readers.get(format);
         if (afr == null)
         {
             throw new CannotReadException(ErrorMessage.NO_READER_FOR_THIS_FORMAT.getMsg(ext));
         }
+        AudioFile audioFile = afr.read(null, source, mode);
+        audioFile.setFormat(format);
+        return audioFile;
+    }
 
-        return afr.read(f);
+    /**
+     *
+     * Write a tag to audio not held in a file, for example an upload held in
+     * memory.  The writer writes the tag in place, or the whole audio to the
+     * temporary sink when the tag does not fit, and the sink holding the result
+     * is returned.  Neither sink is closed.
+     * 
+     *
+     * @param tag The tag to write, deleted if empty.
+     * @param sink The audio, read from its first byte.
+     * @param temp An empty sink, for example AudioSink.allocate().
+     * @param ext The extension of the audio, used if its format is not recognised.
+     * @return The sink holding the audio with its tag, sink or temp.
+     * @throws CannotWriteException If the audio could not be written, the format
+     *                              wasn't recognized, or other IO error occurred.
+     */
+    public AudioSink writeSource(Tag tag, AudioSink sink, AudioSink temp, String ext) throws CannotWriteException
+    {
+        ext = ext == null ? "" : ext.toLowerCase();
+        try
+        {
+            AudioFileWriter afw = writers.get(getFormat(sink, ext, ext));
+            if (afw == null)
+            {
+                throw new CannotWriteException(ErrorMessage.NO_WRITER_FOR_THIS_FORMAT.getMsg(ext));
+            }
+            return afw.write(tag, sink, temp);
+        }
+        catch (CannotReadException cre)
+        {
+            throw new CannotWriteException(cre.getMessage(), cre);
+        }
+        catch (IOException ioe)
+        {
+            throw new CannotWriteException(ioe.getMessage(), ioe);
+        }
+    }
+
+    /**
+     * Recognise the format of the audio by its first bytes, or else by its
+     * extension.  The source is left at its first byte.
+     *
+     * @param raf The audio.
+     * @param ext The extension of the audio, lower case.
+     * @param name The name of the audio for the log.
+     * @return The extension of the format recognised, or else ext.
+     */
+    private String getFormat(AudioSource raf, String ext, String name) throws IOException
+    {
+        byte[] header = new byte[SupportedFileFormat.HEADER_LENGTH];
+        raf.seek(0);
+        int length = raf.read(header);
+        raf.seek(0);
+        SupportedFileFormat format = SupportedFileFormat.valueOfHeader(header, length, ext);
+        if (format == null)
+        {
+            return ext;
+        }
+        if (readers.get(format.getFilesuffix()) != readers.get(ext))
+        {
+            logger.config("Reading file:" + name + " as " + format.getFilesuffix());
+        }
+        return format.getFilesuffix();
+    }
+
+    /**
+     * @param f The AudioFile written.
+     * @return The format the file was read as, or else the extension of the file.
+     */
+    private String getFormat(AudioFile f)
+    {
+        if (f.getFormat() != null)
+        {
+            return f.getFormat();
+        }
+        return Utils.getExtension(f.getFile());
+    }
+
+    /**
+     * @param ext File extension, lower case.
+     * @return Whether there is a reader for the extension.
+     */
+    public boolean isSupported(String ext)
+    {
+        return readers.containsKey(ext);
+    }
+
+    /**
+     *
+     * Read the files of a directory tree, concurrently.
+     * 
+     *
+     * @param root The directory tree, or a file.
+     * @param options What files are read, how and how many at a time.
+     * @param listener Receives the files read and the errors, concurrently.
+     * @return The number of files read.
+     * @see #scan(Path, ScanOptions, AudioFileScanListener)
+     */
+    public long scanFiles(Path root, ScanOptions options, AudioFileScanListener listener)
+    {
+        if (root == null || options == null || listener == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        return new AudioFileScan(this, options, listener).run(root);
     }
 
     /**
@@ -316,7 +620,9 @@ public class AudioFileIO
 
     /**
      *
-     * Write the tag contained in the audioFile in the actual file on the disk.
+     * Write the tag contained in the audioFile in the actual file on the disk,
+     * by the writer of the format the file was read as, or else of its
+     * extension.
      * 
      *
      * @param f The AudioFile to be written
@@ -325,7 +631,7 @@ public class AudioFileIO
      */
     public void writeFile(AudioFile f) throws CannotWriteException
     {
-        String ext = Utils.getExtension(f.getFile());
+        String ext = getFormat(f);
 
         AudioFileWriter afw = writers.get(ext);
         if (afw == null)
@@ -0,0 +1,212 @@
+package org.jaudiotagger.audio;
+
+import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.Utils;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * A scan of a directory tree by {@link AudioFileIO#scan}.
+ *
+ * Each directory is a task listing its entries and forking a task for
+ * each of its subdirectories and files, in a pool of the parallelism
+ * of the scan.  The reads are blocking, so the parallelism bounds the
+ * number of files read at a time.
+ *
+ * An entry with a supported extension is taken to be a file without
+ * examining it, and other entries are examined only for being a
+ * directory, or with the all files option a regular file.  Symbolic
+ * links to directories are not followed.
+ *
+ * A failure is confined to its file: an error reading it, or an
+ * exception thrown by the listener for it, is passed to
+ * {@link AudioFileScanListener#fileFailed}, and an exception thrown
+ * by that is logged.
+ */
+class AudioFileScan
+{
+    private final AudioFileIO audioFileIO;
+
+    private final ReadMode readMode;
+
+    private final FileFilter filter;
+
+    private final AudioFileScanListener listener;
+
+    private final int parallelism;
+
+    private final boolean allFiles;
+
+    private final LongAdder read = new LongAdder();
+
+    AudioFileScan(AudioFileIO audioFileIO, ScanOptions options, AudioFileScanListener listener)
+    {
+        this.audioFileIO = audioFileIO;
+        this.readMode = options.getReadMode();
+        this.filter = options.getFilter();
+        this.parallelism = options.getParallelism();
+        this.allFiles = options.isAllFiles();
+        this.listener = listener;
+    }
+
+    /**
+     * @param root Directory or file
+     * @return Number of files read
+     */
+    long run(Path root)
+    {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try
+        {
+            if (Files.isDirectory(root))
+            {
+                pool.invoke(new DirectoryTask(root));
+            }
+            else
+            {
+                pool.invoke(new FileTask(root.toFile(), Utils.getExtension(root), false));
+            }
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+        return read.sum();
+    }
+
+    /**
+     * Pass the failure to the listener, logging a failure of the listener
+     */
+    private void failed(File file, Exception exception)
+    {
+        try
+        {
+            listener.fileFailed(file, exception);
+        }
+        catch (RuntimeException e)
+        {
+            AudioFileIO.logger.log(Level.WARNING, "Scan listener failed for " + file.getPath() + ":" + exception, e);
+        }
+    }
+
+    private class DirectoryTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 3316840618276347029L;
+
+        private final Path directory;
+
+        DirectoryTask(Path directory)
+        {
+            this.directory = directory;
+        }
+
+        protected void compute()
+        {
+            List<RecursiveAction> tasks = new ArrayList<RecursiveAction>();
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory))
+            {
+                for (Path entry : entries)
+                {
+                    String ext = Utils.getExtension(entry);
+                    if (audioFileIO.isSupported(ext))
+                    {
+                        file(tasks, entry, ext, false);
+                    }
+                    else if (allFiles)
+                    {
+                        BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isDirectory())
+                        {
+                            tasks.add(new DirectoryTask(entry));
+                        }
+                        else if (attributes.isRegularFile())
+                        {
+                            file(tasks, entry, ext, true);
+                        }
+                    }
+                    else if (Files.isDirectory(entry, LinkOption.NOFOLLOW_LINKS))
+                    {
+                        tasks.add(new DirectoryTask(entry));
+                    }
+                }
+            }
+            catch (IOException | RuntimeException e)
+            {
+                failed(directory.toFile(), e);
+            }
+            invokeAll(tasks);
+        }
+
+        private void file(List<RecursiveAction> tasks, Path entry, String ext, boolean recognisedOnly)
+        {
+            File file = entry.toFile();
+            if (filter == null || filter.accept(file))
+            {
+                tasks.add(new FileTask(file, ext, recognisedOnly));
+            }
+        }
+    }
+
+    private class FileTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = -1876538620843502476L;
+
+        private final File file;
+
+        private final String ext;
+
+        private final boolean recognisedOnly;
+
+        FileTask(File file, String ext, boolean recognisedOnly)
+        {
+            this.file = file;
+            this.ext = ext;
+            this.recognisedOnly = recognisedOnly;
+        }
+
+        protected void compute()
+        {
+            AudioFile audioFile;
+            try
+            {
+                audioFile = audioFileIO.readFile(file, ext, readMode, recognisedOnly);
+            }
+            catch (Exception e)
+            {
+                failed(file, e);
+                return;
+            }
+            catch (Error e)
+            {
+                failed(file, new CannotReadException(file.getPath() + ":" + e, e));
+                return;
+            }
+            if (audioFile == null)
+            {
+                return;
+            }
+            read.increment();
+            try
+            {
+                listener.fileRead(audioFile);
+            }
+            catch (RuntimeException e)
+            {
+                failed(file, e);
+            }
+        }
+    }
+}
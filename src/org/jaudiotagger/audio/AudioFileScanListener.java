@@ -0,0 +1,30 @@
+package org.jaudiotagger.audio;
+
+import java.io.File;
+
+/**
+ * Receives the results of {@link AudioFileIO#scan}.  The methods are
+ * called from the threads of the scan, concurrently, and so must be
+ * thread safe.
+ */
+public interface AudioFileScanListener
+{
+    /**
+     * A file has been read.
+     *
+     * @param audioFile The file read, in the mode of the scan
+     */
+    public void fileRead(AudioFile audioFile);
+
+    /**
+     * A file or directory could not be read, or {@link #fileRead}
+     * threw an exception for it.  The scan continues with the other
+     * files.
+     *
+     * @param file The file or directory
+     * @param exception The cause, an error reading the file being
+     *                  wrapped in a
+     *                  {@link org.jaudiotagger.audio.exceptions.CannotReadException}
+     */
+    public void fileFailed(File file, Exception exception);
+}
@@ -0,0 +1,24 @@
+package org.jaudiotagger.audio;
+
+/**
+ * What is read of an audio file.  A reader may skip the parsing that
+ * is not needed for the mode, which for listing the tags of a large
+ * library is much of the work.
+ *
+ * @see AudioFileIO#readFile(java.io.File, ReadMode)
+ */
+public enum ReadMode
+{
+    /**
+     * Read the encoding info and the tag.
+     */
+    FULL,
+    /**
+     * Read only the encoding info, the AudioFile has no tag.
+     */
+    HEADER_ONLY,
+    /**
+     * Read only the tag, the AudioFile has no encoding info.
+     */
+    TAG_ONLY;
+}
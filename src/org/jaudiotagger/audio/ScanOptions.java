@@ -0,0 +1,96 @@
+package org.jaudiotagger.audio;
+
+import java.io.FileFilter;
+
+/**
+ * Options of {@link AudioFileIO#scan}.
+ *
+ * By default all the files with a supported extension are read in
+ * full, with a file read per processor at a time.  A scan of a disk
+ * with a deep queue, or of a network file system, may want more
+ * concurrent reads than processors.
+ */
+public class ScanOptions
+{
+    private ReadMode readMode = ReadMode.FULL;
+
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    private FileFilter filter;
+
+    private boolean allFiles;
+
+    public ScanOptions()
+    {
+    }
+
+    public ReadMode getReadMode()
+    {
+        return readMode;
+    }
+
+    /**
+     * @param readMode What is read of each file
+     */
+    public void setReadMode(ReadMode readMode)
+    {
+        if (readMode == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        this.readMode = readMode;
+    }
+
+    public int getParallelism()
+    {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism Maximum number of directories listed and files
+     *                    read at a time
+     */
+    public void setParallelism(int parallelism)
+    {
+        if (parallelism < 1)
+        {
+            throw new IllegalArgumentException();
+        }
+        this.parallelism = parallelism;
+    }
+
+    public FileFilter getFilter()
+    {
+        return filter;
+    }
+
+    /**
+     * The files with a supported extension are read when accepted by
+     * the filter, for example an {@link AudioFileFilter} excluding
+     * hidden files.  The filter is not applied to directories.
+     *
+     * @param filter Filter of files, or null for all files with a
+     *               supported extension
+     */
+    public void setFilter(FileFilter filter)
+    {
+        this.filter = filter;
+    }
+
+    public boolean isAllFiles()
+    {
+        return allFiles;
+    }
+
+    /**
+     * Every file is read when its format is recognised by its first bytes, not
+     * only the files with a supported extension.  The files not recognised are
+     * skipped without error.  This opens every file of the tree.
+     *
+     * @param allFiles Read every file recognised as audio
+     */
+    public void setAllFiles(boolean allFiles)
+    {
+        this.allFiles = allFiles;
+    }
+}
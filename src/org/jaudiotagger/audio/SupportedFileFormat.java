@@ -3,6 +3,7 @@ package org.jaudiotagger.audio;
 /**
  * Files formats currently supported by Library.
  * Each enum value is associated with a file suffix (extension).
+ * Most formats are also recognised by the signature of their first bytes.
  */
 public enum SupportedFileFormat
 {
@@ -35,4 +36,109 @@ public enum SupportedFileFormat
     {
         return filesuffix;
     }
+
+    /**
+     * Number of bytes at the start of a file read by {@link #valueOfHeader}.
+     */
+    public static final int HEADER_LENGTH = 16;
+
+    private static final byte[] ASF_HEADER_GUID =
+    {
+        0x30, 0x26, (byte) 0xB2, 0x75, (byte) 0x8E, 0x66, (byte) 0xCF, 0x11,
+        (byte) 0xA6, (byte) 0xD9, 0x00, (byte) 0xAA, 0x00, 0x62, (byte) 0xCE, 0x6C
+    };
+
+    /**
+     * Recognise a format by the signature at the start of a file: an ID3v2 tag
+     * or MPEG frame sync, "fLaC", "OggS", "ftyp", the ASF header object, RIFF
+     * WAVE, FORM AIFF and ".RMF".
+     *
+     * An ID3v2 tag is taken to precede an MP3, unless the extension is FLAC, as
+     * a FLAC stream may also follow an ID3v2 tag.  An MP4 is recognised as the
+     * format of the M4A extension, which has the same reader as the others.
+     *
+     * @param header The first bytes of the file, at least {@link #HEADER_LENGTH}
+     *               to recognise every format
+     * @param length The number of bytes in header
+     * @param ext    The file extension, lower case
+     * @return The format, or null when the signature is not recognised
+     */
+    public static SupportedFileFormat valueOfHeader(byte[] header, int length, String ext)
+    {
+        if (startsWith(header, length, 0, "ID3"))
+        {
+            return FLAC.getFilesuffix().equals(ext) ? FLAC : MP3;
+        }
+        else if (startsWith(header, length, 0, "fLaC"))
+        {
+            return FLAC;
+        }
+        else if (startsWith(header, length, 0, "OggS"))
+        {
+            return OGG;
+        }
+        else if (startsWith(header, length, 4, "ftyp"))
+        {
+            return isMp4(ext) ? valueOf(ext.toUpperCase()) : M4A;
+        }
+        else if (startsWith(header, length, 0, "RIFF") && startsWith(header, length, 8, "WAVE"))
+        {
+            return WAV;
+        }
+        else if (startsWith(header, length, 0, "FORM") && (startsWith(header, length, 8, "AIFF") || startsWith(header, length, 8, "AIFC")))
+        {
+            return AIF;
+        }
+        else if (startsWith(header, length, 0, ".RMF"))
+        {
+            return RM;
+        }
+        else if (startsWith(header, length, 0, ASF_HEADER_GUID))
+        {
+            return WMA;
+        }
+        //Frame sync, and a layer (MPEG audio, not ADTS AAC)
+        else if (length >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xE0) == 0xE0 && (header[1] & 0x06) != 0)
+        {
+            return MP3;
+        }
+        return null;
+    }
+
+    private static boolean isMp4(String ext)
+    {
+        return MP4.getFilesuffix().equals(ext) || M4A.getFilesuffix().equals(ext) || M4P.getFilesuffix().equals(ext) || M4B.getFilesuffix().equals(ext);
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, byte[] signature)
+    {
+        if (length < offset + signature.length)
+        {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++)
+        {
+            if (header[offset + i] != signature[i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] header, int length, int offset, String signature)
+    {
+        if (length < offset + signature.length())
+        {
+            return false;
+        }
+        for (int i = 0; i < signature.length(); i++)
+        {
+            if (header[offset + i] != (byte) signature.charAt(i))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -1,6 +1,5 @@
 package org.jaudiotagger.audio.aiff;
 
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
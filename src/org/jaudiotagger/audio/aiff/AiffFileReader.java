@@ -4,17 +4,18 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.text.SimpleDateFormat;
 import java.util.logging.Level;
 import java.util.logging.SimpleFormatter;
 import java.util.logging.StreamHandler;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagException;
@@ -26,31 +27,53 @@ public class AiffFileReader extends AudioFileReader {
     private static final int[] sigByte =
        { 0X46, 0X4F, 0X52, 0X4D };
 
-    /* AIFF-specific information which isn't "tag" information */
-    private AiffAudioHeader aiffHeader;
-    
-    /* "Tag" information */
-    private AiffTag aiffTag;
-    
-    /* InputStream that reads the file sequentially */
-//    private DataInputStream inStream;
-    
     public AiffFileReader () {
-        aiffHeader = new AiffAudioHeader();
-        aiffTag = new AiffTag ();
     }
     
     
-    public AiffFileReader (RandomAccessFile raf) {
-        aiffHeader = new AiffAudioHeader();
-        aiffTag = new AiffTag ();
+    public AiffFileReader (AudioSource raf) {
     }
 
 
-    /** Reads the file and fills in the audio header and tag information.
-     *  Holds the tag information for later and returns the audio header. */
+    /** Reads the file once for both the audio header and the tag,
+     *  which are held by this read rather than the reader, as the
+     *  reader is shared by concurrent reads.  The chunks of the
+     *  header or of the tag are skipped when not wanted. */
+    @Override
+    protected AudioFile getAudioFile(File f, AudioSource raf, ReadMode mode)
+            throws CannotReadException, IOException {
+        AiffAudioHeader aiffHeader = new AiffAudioHeader();
+        AiffTag aiffTag = new AiffTag ();
+        parse (raf, mode, aiffHeader, aiffTag);
+        return new AudioFile(f,
+                (mode != ReadMode.TAG_ONLY) ? aiffHeader : null,
+                (mode != ReadMode.HEADER_ONLY) ? aiffTag : null);
+    }
+
+    /** Reads the file and returns the audio header. */
     @Override
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf)
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf)
+            throws CannotReadException, IOException {
+        AiffAudioHeader aiffHeader = new AiffAudioHeader();
+        parse (raf, ReadMode.HEADER_ONLY, aiffHeader, new AiffTag ());
+        return aiffHeader;
+    }
+
+    /** Reads the file and returns the tag information. */
+    @Override
+    protected Tag getTag(AudioSource raf) throws CannotReadException,
+            IOException {
+        logger.info("getTag called");
+        
+        AiffTag aiffTag = new AiffTag ();
+        parse (raf, ReadMode.TAG_ONLY, new AiffAudioHeader(), aiffTag);
+        return aiffTag;
+        
+    }
+
+    /** Reads the file and fills in the audio header and tag information
+     *  wanted by the mode. */
+    private void parse (AudioSource raf, ReadMode mode, AiffAudioHeader aiffHeader, AiffTag aiffTag)
             throws CannotReadException, IOException {
         logger.finest("Reading AIFF file ");
         byte sigBuf[] = new byte[4];
@@ -64,33 +87,22 @@ public class AiffFileReader extends AudioFileReader {
         long bytesRemaining = AiffUtil.readUINT32(raf);
         
         // Read the file type.
-        if (!readFileType (raf)) {
+        if (!readFileType (raf, aiffHeader)) {
             throw new CannotReadException ("Invalid AIFF file: Incorrect file type info");
         }
         bytesRemaining -= 4;        
         while (bytesRemaining > 0) {
-            if (!readChunk (raf, bytesRemaining)) {
+            if (!readChunk (raf, bytesRemaining, mode, aiffHeader, aiffTag)) {
                 break;
             }
         }
-        return aiffHeader;
-    }
-
-    @Override
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException,
-            IOException {
-        logger.info("getTag called");
-        
-        // TODO fill out stub code
-        return aiffTag;
-        
     }
     
     /*  Reads the file type.   
      *  Broken out from parse().
      *  If it is not a valid file type, returns false.
      */
-    private boolean readFileType (RandomAccessFile raf) throws IOException
+    private boolean readFileType (AudioSource raf, AiffAudioHeader aiffHeader) throws IOException
     {
         String typ = AiffUtil.read4Chars (raf);
         if ("AIFF".equals (typ)) {
@@ -110,7 +122,8 @@ public class AiffFileReader extends AudioFileReader {
      * 
      */
      protected boolean readChunk 
-           (RandomAccessFile raf, long bytesRemaining) 
+           (AudioSource raf, long bytesRemaining, ReadMode mode,
+            AiffAudioHeader aiffHeader, AiffTag aiffTag) 
              throws IOException
      {
         Chunk chunk = null;
@@ -122,7 +135,10 @@ public class AiffFileReader extends AudioFileReader {
         bytesRemaining -= chunkSize + 8;
         
         String id = chunkh.getID ();
-        if ("FVER".equals (id)) {
+        if ("ID3 ".equals (id) ? (mode == ReadMode.HEADER_ONLY) : (mode == ReadMode.TAG_ONLY)) {
+            // Not wanted in this mode
+        }
+        else if ("FVER".equals (id)) {
             chunk = new FormatVersionChunk (chunkh, raf, aiffHeader);
         }
         else if ("APPL".equals (id)) {
@@ -1,15 +1,15 @@
 package org.jaudiotagger.audio.aiff;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 
 
 /** Functions for reading an AIFF file */
 public class AiffInfoReader {
 
-    public AiffAudioHeader read(RandomAccessFile raf) throws CannotReadException, IOException {
+    public AiffAudioHeader read(AudioSource raf) throws CannotReadException, IOException {
         if (raf.length() < 4)
         {
             //Empty File
@@ -1,12 +1,13 @@
 package org.jaudiotagger.audio.aiff;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.RandomAccessFile;
 
 /**
- *  This class implements an InputStream over a RandomAccessFile for the
- *  sake of efficiency. The AIFF reader uses a RandomAccessFile for
+ *  This class implements an InputStream over an AudioSource for the
+ *  sake of efficiency. The AIFF reader uses an AudioSource for
  *  consistency with the other modules, but really just reads the file
  *  sequentially. This class permits reasonable buffering.
  */
@@ -14,7 +15,7 @@ public class AiffInputStream extends InputStream {
 
     private final static int BUFSIZE = 2048;
     /** The underlying file */
-    private RandomAccessFile raf;
+    private AudioSource raf;
     
     /** The input buffer */
     private byte[] fileBuf;
@@ -28,7 +29,7 @@ public class AiffInputStream extends InputStream {
     /** End of file flag */
     private boolean eof;
     
-    public AiffInputStream (RandomAccessFile raf) {
+    public AiffInputStream (AudioSource raf) {
         this.raf = raf;
         eof = false;
         fileBuf = new byte[BUFSIZE];
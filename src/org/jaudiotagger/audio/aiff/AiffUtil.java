@@ -1,9 +1,10 @@
 package org.jaudiotagger.audio.aiff;
 
 //import java.io.EOFException;
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
 //import java.io.InputStream;
-import java.io.RandomAccessFile;
 import java.nio.charset.Charset;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
@@ -25,7 +26,7 @@ public class AiffUtil {
      * @throws IOException
      *             on I/O Errors.
      */
-    public static long readUINT32(RandomAccessFile raf) throws IOException {
+    public static long readUINT32(AudioSource raf) throws IOException {
         long result = 0;
         for (int i = 0; i < 4; i++) {
             // Warning, always cast to long here. Otherwise it will be
@@ -42,7 +43,7 @@ public class AiffUtil {
      *   Reads 4 bytes and concatenates them into a String.
      *   This pattern is used for ID's of various kinds.
      */
-    public static String read4Chars(RandomAccessFile raf) throws IOException 
+    public static String read4Chars(AudioSource raf) throws IOException 
     {
         StringBuffer sbuf = new StringBuffer(4);
         for (int i = 0; i < 4; i++) {
@@ -52,7 +53,7 @@ public class AiffUtil {
         return sbuf.toString();
     }
     
-    public static double read80BitDouble (RandomAccessFile raf)
+    public static double read80BitDouble (AudioSource raf)
                 throws IOException
     {
         byte[] buf = new byte[10];
@@ -102,7 +103,7 @@ public class AiffUtil {
     /** 
      * Read a Pascal string from the file.
      */
-    public static String readPascalString(RandomAccessFile raf) throws IOException {
+    public static String readPascalString(AudioSource raf) throws IOException {
         int len = raf.read ();
         byte[] buf = new byte[len + 1];
         raf.read (buf, 1, len);
@@ -1,7 +1,7 @@
 package org.jaudiotagger.audio.aiff;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 
 public class ApplicationChunk extends Chunk {
@@ -17,7 +17,7 @@ public class ApplicationChunk extends Chunk {
    */
   public ApplicationChunk (
           ChunkHeader hdr, 
-          RandomAccessFile raf,
+          AudioSource raf,
           AiffAudioHeader aHdr)
   {
       super (raf, hdr);
@@ -1,8 +1,9 @@
 package org.jaudiotagger.audio.aiff;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 
 
@@ -15,13 +16,13 @@ import java.io.RandomAccessFile;
 public abstract class Chunk {
 
     protected long bytesLeft;
-    protected RandomAccessFile raf;
+    protected AudioSource raf;
 
     /**
      *  Constructor.
      * @param hdr      The header for this chunk
      */
-    public Chunk (RandomAccessFile raf, ChunkHeader hdr)
+    public Chunk (AudioSource raf, ChunkHeader hdr)
     {
         this.raf = raf;
         bytesLeft = hdr.getSize ();
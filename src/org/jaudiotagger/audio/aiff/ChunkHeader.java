@@ -1,7 +1,8 @@
 package org.jaudiotagger.audio.aiff;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 public class ChunkHeader {
 
@@ -21,7 +22,7 @@ public class ChunkHeader {
      *  Reads the header of a chunk.  If _chunkID is non-null,
      *  it's assumed to have already been read.
      */
-    public boolean readHeader (RandomAccessFile raf) throws IOException
+    public boolean readHeader (AudioSource raf) throws IOException
     {
         StringBuffer id = new StringBuffer(4);
         for (int i = 0; i < 4; i++) {
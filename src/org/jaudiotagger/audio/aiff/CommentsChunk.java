@@ -1,11 +1,11 @@
 package org.jaudiotagger.audio.aiff;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 
 public class CommentsChunk extends Chunk {
@@ -20,7 +20,7 @@ public class CommentsChunk extends Chunk {
      */
     public CommentsChunk (
             ChunkHeader hdr, 
-            RandomAccessFile raf,
+            AudioSource raf,
             AiffAudioHeader aHdr)
     {
         super (raf, hdr);
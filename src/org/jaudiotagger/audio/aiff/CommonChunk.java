@@ -1,8 +1,8 @@
 package org.jaudiotagger.audio.aiff;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 
 public class CommonChunk extends Chunk {
@@ -18,7 +18,7 @@ public class CommonChunk extends Chunk {
      */
     public CommonChunk (
             ChunkHeader hdr, 
-            RandomAccessFile raf,
+            AudioSource raf,
             AiffAudioHeader aHdr)
     {
         super (raf, hdr);
@@ -1,10 +1,10 @@
 package org.jaudiotagger.audio.aiff;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.FieldDataInvalidException;
 import org.jaudiotagger.tag.aiff.AiffTag;
@@ -23,7 +23,7 @@ public class FormatVersionChunk extends Chunk {
      */
     public FormatVersionChunk (
             ChunkHeader hdr, 
-            RandomAccessFile raf,
+            AudioSource raf,
             AiffAudioHeader aHdr)
     {
         super (raf, hdr);
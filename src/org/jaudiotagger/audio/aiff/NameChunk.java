@@ -1,7 +1,8 @@
 package org.jaudiotagger.audio.aiff;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 public class NameChunk extends TextChunk {
 
@@ -16,7 +17,7 @@ public class NameChunk extends TextChunk {
      */
     public NameChunk (
             ChunkHeader hdr, 
-            RandomAccessFile raf,
+            AudioSource raf,
             AiffAudioHeader aHdr)
     {
         super (hdr, raf);
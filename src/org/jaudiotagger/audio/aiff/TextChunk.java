@@ -1,7 +1,8 @@
 package org.jaudiotagger.audio.aiff;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /** This class provides common functionality for NameChunk, AuthorChunk,
  *  and CopyrightChunk 
@@ -20,7 +21,7 @@ public abstract class TextChunk extends Chunk {
      */
     public TextChunk (
             ChunkHeader hdr, 
-            RandomAccessFile raf)
+            AudioSource raf)
     {
         super (raf, hdr);
     }
@@ -19,6 +19,7 @@
 package org.jaudiotagger.audio.asf;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.asf.data.AsfHeader;
 import org.jaudiotagger.audio.asf.data.AudioStreamChunk;
 import org.jaudiotagger.audio.asf.data.MetadataContainer;
@@ -31,11 +32,13 @@ import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.TagException;
 
 import java.io.*;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -141,10 +144,10 @@ public class AsfFileReader extends AudioFileReader {
     /**
      * (overridden)
      * 
-     * @see org.jaudiotagger.audio.generic.AudioFileReader#getEncodingInfo(java.io.RandomAccessFile)
+     * @see org.jaudiotagger.audio.generic.AudioFileReader#getEncodingInfo(org.jaudiotagger.audio.generic.AudioSource)
      */
     @Override
-    protected GenericAudioHeader getEncodingInfo(final RandomAccessFile raf)
+    protected GenericAudioHeader getEncodingInfo(final AudioSource raf)
             throws CannotReadException, IOException {
         raf.seek(0);
         GenericAudioHeader info;
@@ -183,10 +186,10 @@ public class AsfFileReader extends AudioFileReader {
     /**
      * (overridden)
      * 
-     * @see org.jaudiotagger.audio.generic.AudioFileReader#getTag(java.io.RandomAccessFile)
+     * @see org.jaudiotagger.audio.generic.AudioFileReader#getTag(org.jaudiotagger.audio.generic.AudioSource)
      */
     @Override
-    protected AsfTag getTag(final RandomAccessFile raf)
+    protected AsfTag getTag(final AudioSource raf)
             throws CannotReadException, IOException {
         raf.seek(0);
         AsfTag tag;
@@ -218,23 +221,20 @@ public class AsfFileReader extends AudioFileReader {
      * {@inheritDoc}
      */
     @Override
-    public AudioFile read(final File f) throws CannotReadException,
-            IOException, TagException, ReadOnlyFileException,
-            InvalidAudioFrameException {
-        if (!f.canRead()) {
-            throw new CannotReadException(
-                    ErrorMessage.GENERAL_READ_FAILED_DO_NOT_HAVE_PERMISSION_TO_READ_FILE
-                            .getMsg(f.getAbsolutePath()));
-        }
-        InputStream stream = null;
+    public AudioFile read(final File f, final AudioSource raf,
+            final ReadMode mode) throws CannotReadException, IOException,
+            TagException, ReadOnlyFileException, InvalidAudioFrameException {
         try {
-            stream = new FullRequestInputStream(new BufferedInputStream(
-                    new FileInputStream(f)));
+            raf.seek(0);
+            // The stream over the file does not close it
+            final InputStream stream = new FullRequestInputStream(
+                    new BufferedInputStream(Channels.newInputStream(raf
+                            .getChannel())));
             final AsfHeader header = HEADER_READER.read(Utils.readGUID(stream),
                     stream, 0);
             if (header == null) {
                 throw new CannotReadException(ErrorMessage.ASF_HEADER_MISSING
-                        .getMsg(f.getAbsolutePath()));
+                        .getMsg(getPath(f)));
             }
             if (header.getFileHeader() == null) {
                 throw new CannotReadException(
@@ -243,28 +243,23 @@ public class AsfFileReader extends AudioFileReader {
             }
 
             // Just log a warning because file seems to play okay
-            if (header.getFileHeader().getFileSize().longValue() != f.length()) {
+            if (header.getFileHeader().getFileSize().longValue() != raf.length()) {
                 logger
                         .warning(ErrorMessage.ASF_FILE_HEADER_SIZE_DOES_NOT_MATCH_FILE_SIZE
-                                .getMsg(f.getAbsolutePath(), header
+                                .getMsg(getPath(f), header
                                         .getFileHeader().getFileSize()
-                                        .longValue(), f.length()));
+                                        .longValue(), raf.length()));
             }
 
-            return new AudioFile(f, getAudioHeader(header), getTag(header));
+            // The header holds both, so the mode only saves their conversion
+            return new AudioFile(f,
+                    (mode != ReadMode.TAG_ONLY) ? getAudioHeader(header) : null,
+                    (mode != ReadMode.HEADER_ONLY) ? getTag(header) : null);
 
         } catch (final CannotReadException e) {
             throw e;
         } catch (final Exception e) {
             throw new CannotReadException("\"" + f + "\" :" + e, e);
-        } finally {
-            try {
-                if (stream != null) {
-                    stream.close();
-                }
-            } catch (final Exception ex) {
-                LOGGER.severe("\"" + f + "\" :" + ex);
-            }
         }
     }
 
@@ -26,10 +26,11 @@ import org.jaudiotagger.tag.asf.AsfTag;
 import org.jaudiotagger.audio.asf.util.TagConverter;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -45,8 +46,8 @@ public class AsfFileWriter extends AudioFileWriter {
      * {@inheritDoc}
      */
     @Override
-    protected void deleteTag(final RandomAccessFile raf,
-            final RandomAccessFile tempRaf) throws CannotWriteException,
+    protected void deleteTag(final AudioSink raf,
+            final AudioSink tempRaf) throws CannotWriteException,
             IOException {
         writeTag(new AsfTag(true), raf, tempRaf);
     }
@@ -67,8 +68,8 @@ public class AsfFileWriter extends AudioFileWriter {
      * {@inheritDoc}
      */
     @Override
-    protected void writeTag(final Tag tag, final RandomAccessFile raf,
-            final RandomAccessFile rafTemp) throws CannotWriteException,
+    protected void writeTag(final Tag tag, final AudioSink raf,
+            final AudioSink rafTemp) throws CannotWriteException,
             IOException {
         /*
          * Since this implementation should not change the structure of the ASF
@@ -133,8 +134,8 @@ public class AsfFileWriter extends AudioFileWriter {
             headerModifier.add(new AsfExtHeaderModifier(extHeaderModifier));
         }
         new AsfStreamer()
-                .createModifiedCopy(new RandomAccessFileInputstream(raf),
-                        new RandomAccessFileOutputStream(rafTemp),
+                .createModifiedCopy(Channels.newInputStream(raf.getChannel()),
+                        Channels.newOutputStream(rafTemp.getChannel()),
                         headerModifier);
     }
 
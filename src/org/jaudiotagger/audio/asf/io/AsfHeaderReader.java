@@ -21,9 +21,11 @@ package org.jaudiotagger.audio.asf.io;
 import org.jaudiotagger.audio.asf.data.AsfHeader;
 import org.jaudiotagger.audio.asf.data.GUID;
 import org.jaudiotagger.audio.asf.util.Utils;
+import org.jaudiotagger.audio.generic.AudioSource;
 
 import java.io.*;
 import java.math.BigInteger;
+import java.nio.channels.Channels;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -90,15 +92,15 @@ public class AsfHeaderReader extends ChunkContainerReader<AsfHeader> {
 
     /**
      * Creates a Stream that will read from the specified
-     * {@link RandomAccessFile};<br>
+     * {@link AudioSource};<br>
      * 
      * @param raf
      *            data source to read from.
      * @return a stream which accesses the source.
      */
-    private static InputStream createStream(final RandomAccessFile raf) {
+    private static InputStream createStream(final AudioSource raf) {
         return new FullRequestInputStream(new BufferedInputStream(
-                new RandomAccessFileInputstream(raf)));
+                Channels.newInputStream(raf.getChannel())));
     }
 
     /**
@@ -131,7 +133,7 @@ public class AsfHeaderReader extends ChunkContainerReader<AsfHeader> {
      * @throws IOException
      *             Read errors
      */
-    public static AsfHeader readHeader(final RandomAccessFile file)
+    public static AsfHeader readHeader(final AudioSource file)
             throws IOException {
         final InputStream stream = createStream(file);
         return FULL_READER.read(Utils.readGUID(stream), stream, 0);
@@ -149,7 +151,7 @@ public class AsfHeaderReader extends ChunkContainerReader<AsfHeader> {
      * @throws IOException
      *             Read errors
      */
-    public static AsfHeader readInfoHeader(final RandomAccessFile file)
+    public static AsfHeader readInfoHeader(final AudioSource file)
             throws IOException {
         final InputStream stream = createStream(file);
         return INFO_READER.read(Utils.readGUID(stream), stream, 0);
@@ -167,7 +169,7 @@ public class AsfHeaderReader extends ChunkContainerReader<AsfHeader> {
      * @throws IOException
      *             Read errors
      */
-    public static AsfHeader readTagHeader(final RandomAccessFile file)
+    public static AsfHeader readTagHeader(final AudioSource file)
             throws IOException {
         final InputStream stream = createStream(file);
         return TAG_READER.read(Utils.readGUID(stream), stream, 0);
@@ -20,11 +20,11 @@ package org.jaudiotagger.audio.flac;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Read encoding and tag info for Flac file (open source lossless encoding)
@@ -32,15 +32,15 @@ import java.io.RandomAccessFile;
 public class FlacFileReader extends AudioFileReader
 {
 
-    private FlacInfoReader ir = new FlacInfoReader();
-    private FlacTagReader tr = new FlacTagReader();
+    private final FlacInfoReader ir = new FlacInfoReader();
+    private final FlacTagReader tr = new FlacTagReader();
 
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException
     {
         return ir.read(raf);
     }
 
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException
+    protected Tag getTag(AudioSource raf) throws CannotReadException, IOException
     {
         return tr.read(raf);
     }
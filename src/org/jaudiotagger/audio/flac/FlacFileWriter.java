@@ -20,10 +20,10 @@ package org.jaudiotagger.audio.flac;
 
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 
 /**
@@ -32,14 +32,14 @@ import java.io.RandomAccessFile;
 public class FlacFileWriter extends AudioFileWriter
 {
 
-    private FlacTagWriter tw = new FlacTagWriter();
+    private final FlacTagWriter tw = new FlacTagWriter();
 
-    protected void writeTag(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    protected void writeTag(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotWriteException, IOException
     {
         tw.write(tag, raf, rafTemp);
     }
 
-    protected void deleteTag(RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotWriteException, IOException
+    protected void deleteTag(AudioSink raf, AudioSink tempRaf) throws CannotWriteException, IOException
     {
         tw.delete(raf, tempRaf);
     }
@@ -22,11 +22,11 @@ import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.flac.metadatablock.BlockType;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockDataStreamInfo;
 import org.jaudiotagger.audio.flac.metadatablock.MetadataBlockHeader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.logging.Logger;
 
 /**
@@ -40,7 +40,7 @@ public class FlacInfoReader
     private static final int NO_OF_BITS_IN_BYTE = 8;
     private static final int KILOBYTES_TO_BYTES_MULTIPLIER = 1000;
 
-    public FlacAudioHeader read(RandomAccessFile raf) throws CannotReadException, IOException
+    public FlacAudioHeader read(AudioSource raf) throws CannotReadException, IOException
     {
         FlacStreamReader flacStream = new FlacStreamReader(raf);
         flacStream.findStream();
@@ -107,7 +107,7 @@ public class FlacInfoReader
      */
     public int countMetaBlocks(File f) throws CannotReadException, IOException
     {
-        RandomAccessFile raf = new RandomAccessFile(f, "r");
+        AudioSource raf = AudioSource.open(f);
         FlacStreamReader flacStream = new FlacStreamReader(raf);
         flacStream.findStream();
 
@@ -1,6 +1,7 @@
 package org.jaudiotagger.audio.flac;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.flac.FlacTag;
 import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
@@ -8,7 +9,6 @@ import org.jaudiotagger.tag.id3.ID3v22Tag;
 import org.jaudiotagger.tag.id3.ID3v23Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.util.logging.Logger;
 
@@ -24,14 +24,14 @@ public class FlacStreamReader
     public static final int FLAC_STREAM_IDENTIFIER_LENGTH = 4;
     public static final String FLAC_STREAM_IDENTIFIER = "fLaC";
 
-    private RandomAccessFile raf;
+    private AudioSource raf;
     private int startOfFlacInFile;
 
     /**
      * Create instance for holding stream info
      * @param raf
      */
-    public FlacStreamReader(RandomAccessFile raf)
+    public FlacStreamReader(AudioSource raf)
     {
         this.raf = raf;
 
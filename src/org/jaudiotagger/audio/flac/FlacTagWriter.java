@@ -21,12 +21,12 @@ package org.jaudiotagger.audio.flac;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.flac.metadatablock.*;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagOptionSingleton;
 import org.jaudiotagger.tag.flac.FlacTag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -40,7 +40,7 @@ public class FlacTagWriter
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.flac");
 
-    private FlacTagCreator tc = new FlacTagCreator();
+    private final FlacTagCreator tc = new FlacTagCreator();
 
     /**
      * Delete Tag from file
@@ -50,7 +50,7 @@ public class FlacTagWriter
      * @throws IOException
      * @throws CannotWriteException
      */
-    public void delete(RandomAccessFile raf, RandomAccessFile tempRaf) throws IOException, CannotWriteException
+    public void delete(AudioSink raf, AudioSink tempRaf) throws IOException, CannotWriteException
     {
         //This will save the file without any Comment or PictureData blocks  
         FlacTag emptyTag = new FlacTag(null, new ArrayList<MetadataBlockDataPicture>());
@@ -76,7 +76,7 @@ public class FlacTagWriter
      * @throws CannotWriteException
      * @throws IOException
      */
-    public void write(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    public void write(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotWriteException, IOException
     {
         logger.config("Writing tag");
 
@@ -212,7 +212,7 @@ public class FlacTagWriter
             if(flacStream.getStartOfFlacInFile()>0)
             {
                 raf.seek(0);
-                rafTemp.getChannel().transferFrom(raf.getChannel(), 0, flacStream.getStartOfFlacInFile());
+                rafTemp.transferFrom(raf, 0, flacStream.getStartOfFlacInFile());
                 rafTemp.seek(flacStream.getStartOfFlacInFile());
             }
             rafTemp.writeBytes(FlacStreamReader.FLAC_STREAM_IDENTIFIER);
@@ -224,8 +224,7 @@ public class FlacTagWriter
             rafTemp.seek(uptoStreamHeaderSize);
             raf.seek(uptoStreamHeaderSize);
 
-            rafTemp.getChannel().transferFrom(
-                    raf.getChannel(),
+            rafTemp.transferFrom(raf,
                     uptoStreamHeaderSize,
                     MetadataBlockHeader.BLOCK_LENGTH + MetadataBlockDataStreamInfo.STREAM_INFO_DATA_LENGTH);
 
@@ -269,10 +268,10 @@ public class FlacTagWriter
             long mod   = amountToBeWritten % chunksize;
             for(int i = 0; i<count; i++)
             {
-                written+=rafTemp.getChannel().transferFrom(raf.getChannel(), rafTemp.getChannel().position(), chunksize);
+                written+=rafTemp.transferFrom(raf, rafTemp.getChannel().position(), chunksize);
                 rafTemp.getChannel().position(rafTemp.getChannel().position() + chunksize);
             }
-            written+=rafTemp.getChannel().transferFrom(raf.getChannel(), rafTemp.getChannel().position(), mod);
+            written+=rafTemp.transferFrom(raf, rafTemp.getChannel().position(), mod);
             if(written!=amountToBeWritten)
             {
                 throw new CannotWriteException("Was meant to write "+amountToBeWritten+" bytes but only written "+written+" bytes");
@@ -18,8 +18,9 @@
  */
 package org.jaudiotagger.audio.flac.metadatablock;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 
 /**
@@ -34,7 +35,7 @@ public class MetadataBlockDataApplication implements MetadataBlockData
 
     private byte[] data;
 
-    public MetadataBlockDataApplication(MetadataBlockHeader header, RandomAccessFile raf) throws IOException
+    public MetadataBlockDataApplication(MetadataBlockHeader header, AudioSource raf) throws IOException
     {
         data = new byte[header.getDataLength()];
         raf.readFully(data);
@@ -18,8 +18,9 @@
  */
 package org.jaudiotagger.audio.flac.metadatablock;
 
+import org.jaudiotagger.audio.generic.AudioSource;
+
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 
 /**
@@ -36,7 +37,7 @@ public class MetadataBlockDataSeekTable implements MetadataBlockData
 {
     private byte[] data;
 
-    public MetadataBlockDataSeekTable(MetadataBlockHeader header, RandomAccessFile raf) throws IOException
+    public MetadataBlockDataSeekTable(MetadataBlockHeader header, AudioSource raf) throws IOException
     {
         data = new byte[header.getDataLength()];
         raf.readFully(data);
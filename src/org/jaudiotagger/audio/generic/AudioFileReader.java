@@ -19,6 +19,7 @@
 package org.jaudiotagger.audio.generic;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
@@ -28,14 +29,16 @@ import org.jaudiotagger.logging.ErrorMessage;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
 /*
  * This abstract class is the skeleton for tag readers. It handles the creation/closing of
- * the randomaccessfile objects and then call the subclass method getEncodingInfo and getTag.
+ * the AudioSource objects and then call the subclass method getEncodingInfo and getTag.
  * These two method have to be implemented in the subclass.
+ *
+ * A reader is shared by all the reads of its format, including concurrent reads, and so
+ * must not keep the state of a read in its fields.
  * 
  *@author	Raphael Slinckx
  *@version	$Id$
@@ -51,24 +54,51 @@ public abstract class AudioFileReader
 
     /*
     * Returns the encoding info object associated wih the current File.
-    * The subclass can assume the RAF pointer is at the first byte of the file.
-    * The RandomAccessFile must be kept open after this function, but can point
+    * The subclass can assume the source is at the first byte of the file.
+    * The AudioSource must be kept open after this function, but can point
     * at any offset in the file.
     *
-    * @param raf The RandomAccessFile associtaed with the current file
-    * @exception IOException is thrown when the RandomAccessFile operations throw it (you should never throw them manually)
+    * @param raf The AudioSource associtaed with the current file
+    * @exception IOException is thrown when the AudioSource operations throw it (you should never throw them manually)
     * @exception CannotReadException when an error occured during the parsing of the encoding infos
     */
-    protected abstract GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException;
+    protected abstract GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException;
 
     /*
       * Same as above but returns the Tag contained in the file, or a new one.
       *
-      * @param raf The RandomAccessFile associted with the current file
-      * @exception IOException is thrown when the RandomAccessFile operations throw it (you should never throw them manually)
+      * @param raf The AudioSource associted with the current file
+      * @exception IOException is thrown when the AudioSource operations throw it (you should never throw them manually)
       * @exception CannotReadException when an error occured during the parsing of the tag
       */
-    protected abstract Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException;
+    protected abstract Tag getTag(AudioSource raf) throws CannotReadException, IOException;
+
+    /*
+      * Reads the encoding info and the tag of the open file, as required by
+      * the mode.  Readers are shared by concurrent reads, so any state of a
+      * read is held here rather than in fields of the reader.  A format whose
+      * encoding info and tag come from one parse of the file may override this.
+      *
+      * @param f The file to read, or null for audio not held in a file
+      * @param raf The AudioSource associated with the file, at its first byte
+      * @param mode What is read of the file
+      * @exception CannotReadException If anything went bad during the read of this file
+      */
+    protected AudioFile getAudioFile(File f, AudioSource raf, ReadMode mode) throws CannotReadException, IOException
+    {
+        GenericAudioHeader info = null;
+        Tag tag = null;
+        if (mode != ReadMode.TAG_ONLY)
+        {
+            info = getEncodingInfo(raf);
+        }
+        if (mode != ReadMode.HEADER_ONLY)
+        {
+            raf.seek(0);
+            tag = getTag(raf);
+        }
+        return new AudioFile(f, info, tag);
+    }
 
     /*
       * Reads the given file, and return an AudioFile object containing the Tag
@@ -80,50 +110,43 @@ public abstract class AudioFileReader
       */
     public AudioFile read(File f) throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
     {
-        if(logger.isLoggable(Level.CONFIG))
-        {
-            logger.config(ErrorMessage.GENERAL_READ.getMsg(f.getAbsolutePath()));
-        }
+        return read(f, ReadMode.FULL);
+    }
 
+    /*
+      * Reads the given file in the given mode.  In the header only mode the
+      * AudioFile has no tag, and in the tag only mode it has no encoding info.
+      *
+      * @param f The file to read
+      * @param mode What is read of the file
+      * @exception CannotReadException If anything went bad during the read of this file
+      */
+    public AudioFile read(File f, ReadMode mode) throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
         if (!f.canRead())
         {
             throw new CannotReadException(ErrorMessage.GENERAL_READ_FAILED_FILE_TOO_SMALL.getMsg(f.getAbsolutePath()));
         }
 
-        if (f.length() <= MINIMUM_SIZE_FOR_VALID_AUDIO_FILE)
-        {
-            throw new CannotReadException(ErrorMessage.GENERAL_READ_FAILED_FILE_TOO_SMALL.getMsg(f.getAbsolutePath()));
-        }
-
-        RandomAccessFile raf = null;
+        AudioSource raf = null;
         try
         {
-            raf = new RandomAccessFile(f, "r");
-            raf.seek(0);
-
-            GenericAudioHeader info = getEncodingInfo(raf);
-            raf.seek(0);
-            Tag tag = getTag(raf);
-            return new AudioFile(f, info, tag);
-
-        }
-        catch (CannotReadException cre)
-        {
-            throw cre;
+            raf = AudioSource.open(f);
         }
         catch (Exception e)
         {
             logger.log(Level.SEVERE, ErrorMessage.GENERAL_READ.getMsg(f.getAbsolutePath()),e);
             throw new CannotReadException(f.getAbsolutePath()+":" + e.getMessage(), e);
         }
+        try
+        {
+            return read(f, raf, mode);
+        }
         finally
         {
             try
             {
-                if (raf != null)
-                {
-                    raf.close();
-                }
+                raf.close();
             }
             catch (Exception ex)
             {
@@ -131,4 +154,55 @@ public abstract class AudioFileReader
             }
         }
     }
+
+    /*
+      * Reads the given file, already open, in the given mode.  The file may have
+      * been read before, for example to detect its format, and is read here from
+      * its first byte.  The file is not closed.  Audio not held in a file, such
+      * as an upload in memory, is read with a null file.
+      *
+      * @param f The file to read, or null
+      * @param raf The AudioSource open on the file
+      * @param mode What is read of the file
+      * @exception CannotReadException If anything went bad during the read of this file
+      */
+    public AudioFile read(File f, AudioSource raf, ReadMode mode) throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        String path = getPath(f);
+        if(logger.isLoggable(Level.CONFIG))
+        {
+            logger.config(ErrorMessage.GENERAL_READ.getMsg(path));
+        }
+
+        try
+        {
+            if (raf.length() <= MINIMUM_SIZE_FOR_VALID_AUDIO_FILE)
+            {
+                throw new CannotReadException(ErrorMessage.GENERAL_READ_FAILED_FILE_TOO_SMALL.getMsg(path));
+            }
+
+            raf.seek(0);
+
+            return getAudioFile(f, raf, mode);
+
+        }
+        catch (CannotReadException cre)
+        {
+            throw cre;
+        }
+        catch (Exception e)
+        {
+            logger.log(Level.SEVERE, ErrorMessage.GENERAL_READ.getMsg(path),e);
+            throw new CannotReadException(path+":" + e.getMessage(), e);
+        }
+    }
+
+    /*
+      * @param f The file read, or null for audio not held in a file
+      * @return The path of the file for messages
+      */
+    protected static String getPath(File f)
+    {
+        return f == null ? "audio source" : f.getAbsolutePath();
+    }
 }
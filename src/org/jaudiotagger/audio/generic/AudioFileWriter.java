@@ -28,7 +28,6 @@ import org.jaudiotagger.tag.Tag;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -36,7 +35,7 @@ import java.util.logging.Logger;
  * This abstract class is the skeleton for tag writers.
  *
  *
- * It handles the creation/closing of the randomaccessfile objects and then call
+ * It handles the creation/closing of the AudioSink objects and then call
  * the subclass method writeTag or deleteTag. These two method have to be
  * implemented in the subclass.
  *
@@ -48,7 +47,6 @@ import java.util.logging.Logger;
 public abstract class AudioFileWriter
 {
     private static final String TEMP_FILENAME_SUFFIX = ".tmp";
-    private static final String WRITE_MODE = "rw";
     private static final int MINIMUM_FILESIZE = 150;
 
     // Logger Object
@@ -65,7 +63,7 @@ public abstract class AudioFileWriter
      * If not <code>null</code>, this listener is used to notify the listener
      * about modification events.<br>
      */
-    private AudioFileModificationListener modificationListener = null;
+    private volatile AudioFileModificationListener modificationListener = null;
 
     /**
      * Delete the tag (if any) present in the given file
@@ -88,8 +86,8 @@ public abstract class AudioFileWriter
                     .getMsg(af.getFile().getPath()));
         }
 
-        RandomAccessFile raf = null;
-        RandomAccessFile rafTemp = null;
+        AudioSink raf = null;
+        AudioSink rafTemp = null;
         File tempF = null;
 
         // Will be set to true on VetoException, causing the finally block to
@@ -102,8 +100,8 @@ public abstract class AudioFileWriter
             tempF = File.createTempFile(af.getFile().getName()
                     .replace('.', '_'), TEMP_FILENAME_SUFFIX, af.getFile()
                     .getParentFile());
-            rafTemp = new RandomAccessFile(tempF, WRITE_MODE);
-            raf = new RandomAccessFile(af.getFile(), WRITE_MODE);
+            rafTemp = AudioSink.open(tempF);
+            raf = AudioSink.open(af.getFile());
             raf.seek(0);
             rafTemp.seek(0);
 
@@ -208,7 +206,7 @@ public abstract class AudioFileWriter
     }
 
     /**
-     * Delete the tag (if any) present in the given randomaccessfile, and do not
+     * Delete the tag (if any) present in the given AudioSink, and do not
      * close it at the end.
      *
      * @param raf     The source file, already opened in r-write mode
@@ -217,24 +215,53 @@ public abstract class AudioFileWriter
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      * @throws java.io.IOException
      */
-    public void delete(RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotReadException, CannotWriteException, IOException
+    public void delete(AudioSink raf, AudioSink tempRaf) throws CannotReadException, CannotWriteException, IOException
     {
         raf.seek(0);
         tempRaf.seek(0);
         deleteTag(raf, tempRaf);
     }
 
+    /**
+     * Write the tag to the audio of the given AudioSink, and do not close it at
+     * the end.  The sinks may be held in memory, so that audio such as an upload
+     * is tagged without being written to a file.  An empty tag is deleted.
+     *
+     * @param tag     The tag to write
+     * @param raf     The source audio
+     * @param tempRaf An empty sink, used if the audio has to be rewritten
+     * @return The sink holding the audio with its tag, raf if the tag was written
+     *         in place, else tempRaf
+     * @throws CannotWriteException if anything went wrong
+     * @throws org.jaudiotagger.audio.exceptions.CannotReadException
+     * @throws java.io.IOException
+     */
+    public AudioSink write(Tag tag, AudioSink raf, AudioSink tempRaf) throws CannotReadException, CannotWriteException, IOException
+    {
+        raf.seek(0);
+        tempRaf.seek(0);
+        if (tag.isEmpty())
+        {
+            deleteTag(raf, tempRaf);
+        }
+        else
+        {
+            writeTag(tag, raf, tempRaf);
+        }
+        return tempRaf.length() > 0 ? tempRaf : raf;
+    }
+
     /**
      * Same as above, but delete tag in the file.
      *
      * @param raf
      * @param tempRaf
-     * @throws IOException          is thrown when the RandomAccessFile operations throw it (you
+     * @throws IOException          is thrown when the AudioSink operations throw it (you
      *                              should never throw them manually)
      * @throws CannotWriteException when an error occured during the deletion of the tag
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      */
-    protected abstract void deleteTag(RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotReadException, CannotWriteException, IOException;
+    protected abstract void deleteTag(AudioSink raf, AudioSink tempRaf) throws CannotReadException, CannotWriteException, IOException;
 
     /**
      * This method sets the {@link AudioFileModificationListener}.<br>
@@ -320,8 +347,8 @@ public abstract class AudioFileWriter
             return;
         }
 
-        RandomAccessFile raf = null;
-        RandomAccessFile rafTemp = null;
+        AudioSink raf = null;
+        AudioSink rafTemp = null;
         File newFile;
         File result;
 
@@ -370,8 +397,8 @@ public abstract class AudioFileWriter
         // Open temporary file and actual file for editing
         try
         {
-            rafTemp = new RandomAccessFile(newFile, WRITE_MODE);
-            raf = new RandomAccessFile(af.getFile(), WRITE_MODE);
+            rafTemp = AudioSink.open(newFile);
+            raf = AudioSink.open(af.getFile());
 
         }
         // Unable to write to writable file, can happen in Vista if have Create
@@ -613,7 +640,7 @@ public abstract class AudioFileWriter
 
     /**
      * This is called when a tag has to be written in a file. Three parameters
-     * are provided, the tag to write (not empty) Two randomaccessfiles, the
+     * are provided, the tag to write (not empty) Two AudioSinks, the
      * first points to the file where we want to write the given tag, and the
      * second is an empty temporary file that can be used if e.g. the file has
      * to be bigger than the original.
@@ -631,10 +658,10 @@ public abstract class AudioFileWriter
      * @param tag
      * @param raf
      * @param rafTemp
-     * @throws IOException          is thrown when the RandomAccessFile operations throw it (you
+     * @throws IOException          is thrown when the AudioSink operations throw it (you
      *                              should never throw them manually)
      * @throws CannotWriteException when an error occured during the generation of the tag
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      */
-    protected abstract void writeTag(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotReadException, CannotWriteException, IOException;
+    protected abstract void writeTag(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotReadException, CannotWriteException, IOException;
 }
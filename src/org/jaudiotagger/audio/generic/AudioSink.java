@@ -0,0 +1,265 @@
+package org.jaudiotagger.audio.generic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of an audio file written by the format writers, read and
+ * written over a {@link SeekableByteChannel}: the channel of a file or
+ * a buffer in memory growing as written.
+ *
+ * The methods are those of {@link java.io.RandomAccessFile} and its
+ * {@link DataOutput}, and {@link #transferFrom} those of its
+ * {@link FileChannel}, so that a tag is written to a file and to audio
+ * held in memory alike.
+ */
+public class AudioSink extends AudioSource implements DataOutput
+{
+    private static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+    private final ByteBuffer single = ByteBuffer.allocate(1);
+
+    /**
+     * @param channel The channel of the sink, closed with the sink
+     */
+    public AudioSink(SeekableByteChannel channel)
+    {
+        super(channel);
+    }
+
+    /**
+     * @param file File read and written through its channel, created if
+     *             it does not exist
+     * @return Sink of the file
+     * @throws IOException If the file cannot be opened
+     */
+    public static AudioSink open(File file) throws IOException
+    {
+        return new AudioSink(FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE));
+    }
+
+    /**
+     * @return Empty sink in memory
+     */
+    public static AudioSink allocate()
+    {
+        return new AudioSink(new ByteBufferChannel(ByteBuffer.allocate(0)));
+    }
+
+    /**
+     * The data are written in place while they fit, and are copied to a
+     * larger buffer when a write extends them.
+     *
+     * @param data Audio held in memory
+     * @return Sink of the data
+     */
+    public static AudioSink wrap(byte[] data)
+    {
+        return wrap(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param buffer Audio held in memory, from its position to its limit
+     * @return Sink of the buffer
+     */
+    public static AudioSink wrap(ByteBuffer buffer)
+    {
+        return new AudioSink(new ByteBufferChannel(buffer));
+    }
+
+    public void write(int b) throws IOException
+    {
+        single.clear();
+        single.put((byte) b);
+        single.flip();
+        channel.write(single);
+    }
+
+    public void write(byte[] b) throws IOException
+    {
+        write(b, 0, b.length);
+    }
+
+    public void write(byte[] b, int off, int len) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    public void writeByte(int b) throws IOException
+    {
+        write(b);
+    }
+
+    public void writeBoolean(boolean v) throws IOException
+    {
+        write(v ? 1 : 0);
+    }
+
+    public void writeShort(int v) throws IOException
+    {
+        write(new byte[]{(byte) (v >>> 8), (byte) v});
+    }
+
+    public void writeChar(int v) throws IOException
+    {
+        writeShort(v);
+    }
+
+    public void writeInt(int v) throws IOException
+    {
+        write(new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v});
+    }
+
+    public void writeLong(long v) throws IOException
+    {
+        writeInt((int) (v >>> 32));
+        writeInt((int) v);
+    }
+
+    public void writeFloat(float v) throws IOException
+    {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    public void writeDouble(double v) throws IOException
+    {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    /**
+     * Writes the low byte of each character of the string.
+     */
+    public void writeBytes(String s) throws IOException
+    {
+        byte[] b = new byte[s.length()];
+        for (int i = 0; i < b.length; i++)
+        {
+            b[i] = (byte) s.charAt(i);
+        }
+        write(b);
+    }
+
+    public void writeChars(String s) throws IOException
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            writeChar(s.charAt(i));
+        }
+    }
+
+    public void writeUTF(String s) throws IOException
+    {
+        ByteArrayOutputStream utf = new ByteArrayOutputStream(s.length() + 2);
+        new DataOutputStream(utf).writeUTF(s);
+        write(utf.toByteArray());
+    }
+
+    /**
+     * Truncates or extends the sink, as {@link java.io.RandomAccessFile#setLength}.
+     * The bytes of an extension are zero.
+     *
+     * @param newLength The length of the sink
+     * @throws IOException
+     */
+    public void setLength(long newLength) throws IOException
+    {
+        long size = channel.size();
+        if (newLength < size)
+        {
+            channel.truncate(newLength);
+        }
+        else if (newLength > size)
+        {
+            long pos = channel.position();
+            channel.position(newLength - 1);
+            write(0);
+            channel.position(pos);
+        }
+    }
+
+    /**
+     * Copies count bytes of the source from its position, advancing it,
+     * to this sink at the given position, without moving the position of
+     * this sink, as {@link FileChannel#transferFrom}.  Between two files
+     * the transfer is done by the file system where it can.
+     *
+     * @param src Source read from its position
+     * @param position Position in this sink written from
+     * @param count Maximum number of bytes copied
+     * @return Number of bytes copied, less than count at the end of the
+     *         source
+     * @throws IOException
+     */
+    public long transferFrom(AudioSource src, long position, long count) throws IOException
+    {
+        if (channel instanceof FileChannel)
+        {
+            return ((FileChannel) channel).transferFrom(src.getChannel(), position, count);
+        }
+        long pos = channel.position();
+        long transferred = 0;
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(TRANSFER_BUFFER_SIZE, Math.max(count, 0)));
+        try
+        {
+            channel.position(position);
+            while (transferred < count)
+            {
+                buffer.clear();
+                if (count - transferred < buffer.capacity())
+                {
+                    buffer.limit((int) (count - transferred));
+                }
+                if (src.getChannel().read(buffer) < 0)
+                {
+                    break;
+                }
+                buffer.flip();
+                while (buffer.hasRemaining())
+                {
+                    transferred += channel.write(buffer);
+                }
+            }
+        }
+        finally
+        {
+            channel.position(pos);
+        }
+        return transferred;
+    }
+
+    /**
+     * @return Copy of the bytes of the sink
+     * @throws IOException
+     */
+    public byte[] toByteArray() throws IOException
+    {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IOException("Too large for an array:" + size);
+        }
+        long pos = channel.position();
+        byte[] data = new byte[(int) size];
+        try
+        {
+            channel.position(0);
+            readFully(data);
+        }
+        finally
+        {
+            channel.position(pos);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,296 @@
+package org.jaudiotagger.audio.generic;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The bytes of an audio file read by the format readers, over a
+ * {@link SeekableByteChannel}: the channel of a file, a mapped file or
+ * a buffer in memory.
+ *
+ * The methods are those of {@link java.io.RandomAccessFile} and its
+ * {@link DataInput}, with the same behaviour, so that a reader reads a file
+ * and audio held in memory, for example an upload, alike.  Unlike a
+ * random access file a read of an array reads the whole array unless
+ * the end is reached.
+ *
+ * A source has a position, and like a random access file is used by a
+ * single read at a time.
+ */
+public class AudioSource implements Closeable, DataInput
+{
+    protected final SeekableByteChannel channel;
+
+    private final ByteBuffer single = ByteBuffer.allocate(1);
+
+    /**
+     * @param channel The channel of the source, closed with the source
+     */
+    public AudioSource(SeekableByteChannel channel)
+    {
+        if (channel == null)
+        {
+            throw new IllegalArgumentException();
+        }
+        this.channel = channel;
+    }
+
+    /**
+     * @param file File read through its channel
+     * @return Source of the file
+     * @throws IOException If the file cannot be opened
+     */
+    public static AudioSource open(File file) throws IOException
+    {
+        return new AudioSource(FileChannel.open(file.toPath(), StandardOpenOption.READ));
+    }
+
+    /**
+     * The file is mapped into memory when the size allows, and otherwise
+     * read through its channel.  A file read several times, or in many
+     * small reads, is read faster mapped.
+     *
+     * @param file File read
+     * @return Source of the file
+     * @throws IOException If the file cannot be opened
+     */
+    public static AudioSource map(File file) throws IOException
+    {
+        FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        if (fc.size() > Integer.MAX_VALUE)
+        {
+            return new AudioSource(fc);
+        }
+        try
+        {
+            return wrap(fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()));
+        }
+        finally
+        {
+            fc.close();
+        }
+    }
+
+    /**
+     * @param data Audio held in memory, not copied
+     * @return Source of the data
+     */
+    public static AudioSource wrap(byte[] data)
+    {
+        return wrap(ByteBuffer.wrap(data));
+    }
+
+    /**
+     * @param buffer Audio held in memory, from its position to its limit,
+     *               not copied
+     * @return Source of the buffer
+     */
+    public static AudioSource wrap(ByteBuffer buffer)
+    {
+        return new AudioSource(new ByteBufferChannel(buffer));
+    }
+
+    /**
+     * @return The channel read, at the position of this source
+     */
+    public SeekableByteChannel getChannel()
+    {
+        return channel;
+    }
+
+    public long getFilePointer() throws IOException
+    {
+        return channel.position();
+    }
+
+    public void seek(long pos) throws IOException
+    {
+        if (pos < 0)
+        {
+            throw new IOException("Negative seek offset");
+        }
+        channel.position(pos);
+    }
+
+    public long length() throws IOException
+    {
+        return channel.size();
+    }
+
+    /**
+     * @return The next byte, or -1 at the end
+     * @throws IOException
+     */
+    public int read() throws IOException
+    {
+        single.clear();
+        if (channel.read(single) < 1)
+        {
+            return -1;
+        }
+        return single.get(0) & 0xff;
+    }
+
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * @return Number of bytes read, less than len only at the end, or -1
+     *         if at the end
+     * @throws IOException
+     */
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        while (buffer.hasRemaining())
+        {
+            if (channel.read(buffer) < 0)
+            {
+                break;
+            }
+        }
+        int read = buffer.position() - off;
+        return read == 0 ? -1 : read;
+    }
+
+    public void readFully(byte[] b) throws IOException
+    {
+        readFully(b, 0, b.length);
+    }
+
+    public void readFully(byte[] b, int off, int len) throws IOException
+    {
+        if (len > 0 && read(b, off, len) < len)
+        {
+            throw new EOFException();
+        }
+    }
+
+    public byte readByte() throws IOException
+    {
+        int b = read();
+        if (b < 0)
+        {
+            throw new EOFException();
+        }
+        return (byte) b;
+    }
+
+    public boolean readBoolean() throws IOException
+    {
+        return readByte() != 0;
+    }
+
+    public int readUnsignedByte() throws IOException
+    {
+        return readByte() & 0xff;
+    }
+
+    public short readShort() throws IOException
+    {
+        return (short) readUnsignedShort();
+    }
+
+    public int readUnsignedShort() throws IOException
+    {
+        return (readUnsignedByte() << 8) | readUnsignedByte();
+    }
+
+    public char readChar() throws IOException
+    {
+        return (char) readUnsignedShort();
+    }
+
+    public int readInt() throws IOException
+    {
+        return (readUnsignedShort() << 16) | readUnsignedShort();
+    }
+
+    public long readLong() throws IOException
+    {
+        return ((long) readInt() << 32) | (readInt() & 0xffffffffL);
+    }
+
+    public float readFloat() throws IOException
+    {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    public double readDouble() throws IOException
+    {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * @return The next line of bytes read as characters, or null at the
+     *         end
+     */
+    public String readLine() throws IOException
+    {
+        StringBuilder line = new StringBuilder();
+        int c = read();
+        if (c < 0)
+        {
+            return null;
+        }
+        while (c >= 0 && c != '\n')
+        {
+            if (c == '\r')
+            {
+                long pos = getFilePointer();
+                if (read() != '\n')
+                {
+                    seek(pos);
+                }
+                break;
+            }
+            line.append((char) c);
+            c = read();
+        }
+        return line.toString();
+    }
+
+    public String readUTF() throws IOException
+    {
+        return DataInputStream.readUTF(this);
+    }
+
+    /**
+     * @return Number of bytes skipped, less than n at the end
+     * @throws IOException
+     */
+    public int skipBytes(int n) throws IOException
+    {
+        if (n <= 0)
+        {
+            return 0;
+        }
+        long pos = channel.position();
+        long skip = Math.min(n, channel.size() - pos);
+        if (skip <= 0)
+        {
+            return 0;
+        }
+        channel.position(pos + skip);
+        return (int) skip;
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
@@ -0,0 +1,150 @@
+package org.jaudiotagger.audio.generic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/**
+ * A {@link SeekableByteChannel} over a buffer in memory, such as an
+ * array or a mapped file.
+ *
+ * A write beyond the capacity of the buffer copies the contents to a
+ * new buffer of twice the size, which then no longer shares the data of
+ * the buffer given.  A read only buffer cannot be written.
+ */
+class ByteBufferChannel implements SeekableByteChannel
+{
+    private ByteBuffer buffer;
+
+    private int size;
+
+    private long position;
+
+    private boolean open = true;
+
+    /**
+     * @param buffer The contents, from the position to the limit of the
+     *               buffer
+     */
+    ByteBufferChannel(ByteBuffer buffer)
+    {
+        this.buffer = buffer.slice();
+        this.size = this.buffer.limit();
+        this.buffer.limit(this.buffer.capacity());
+    }
+
+    public int read(ByteBuffer dst) throws IOException
+    {
+        checkOpen();
+        if (position >= size)
+        {
+            return -1;
+        }
+        int length = (int) Math.min(dst.remaining(), size - position);
+        ByteBuffer src = buffer.duplicate();
+        src.position((int) position);
+        src.limit((int) position + length);
+        dst.put(src);
+        position += length;
+        return length;
+    }
+
+    public int write(ByteBuffer src) throws IOException
+    {
+        checkOpen();
+        if (buffer.isReadOnly())
+        {
+            throw new NonWritableChannelException();
+        }
+        int length = src.remaining();
+        long end = position + length;
+        if (end > Integer.MAX_VALUE)
+        {
+            throw new IOException("Too large for a buffer:" + end);
+        }
+        if (end > buffer.capacity())
+        {
+            ByteBuffer grown = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, Math.max(end, 2L * buffer.capacity())));
+            ByteBuffer contents = buffer.duplicate();
+            contents.position(0);
+            contents.limit(size);
+            grown.put(contents);
+            grown.clear();
+            buffer = grown;
+        }
+        ByteBuffer dst = buffer.duplicate();
+        dst.position((int) position);
+        dst.put(src);
+        position = end;
+        if (end > size)
+        {
+            size = (int) end;
+        }
+        return length;
+    }
+
+    public long position() throws IOException
+    {
+        checkOpen();
+        return position;
+    }
+
+    public SeekableByteChannel position(long newPosition) throws IOException
+    {
+        checkOpen();
+        if (newPosition < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+        position = newPosition;
+        return this;
+    }
+
+    public long size() throws IOException
+    {
+        checkOpen();
+        return size;
+    }
+
+    public SeekableByteChannel truncate(long newSize) throws IOException
+    {
+        checkOpen();
+        if (newSize < 0)
+        {
+            throw new IllegalArgumentException();
+        }
+        if (buffer.isReadOnly())
+        {
+            throw new NonWritableChannelException();
+        }
+        if (newSize < size)
+        {
+            size = (int) newSize;
+        }
+        if (position > newSize)
+        {
+            position = newSize;
+        }
+        return this;
+    }
+
+    public boolean isOpen()
+    {
+        return open;
+    }
+
+    public void close()
+    {
+        open = false;
+    }
+
+    private void checkOpen() throws ClosedChannelException
+    {
+        if (!open)
+        {
+            throw new ClosedChannelException();
+        }
+    }
+}
@@ -23,8 +23,8 @@ import org.jaudiotagger.audio.exceptions.ModifyVetoException;
 
 import java.io.File;
 import java.util.Enumeration;
-import java.util.Vector;
 import java.util.Iterator;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * This class multicasts the events to multiple listener instances.<br>
@@ -37,8 +37,10 @@ public class ModificationHandler implements AudioFileModificationListener
 
     /**
      * The listeners to wich events are broadcasted are stored here.
+     * Events of concurrent writes are broadcast while listeners may be
+     * added or removed, so each broadcast iterates over a snapshot.
      */
-    private Vector<AudioFileModificationListener> listeners = new Vector<AudioFileModificationListener>();
+    private final CopyOnWriteArrayList<AudioFileModificationListener> listeners = new CopyOnWriteArrayList<AudioFileModificationListener>();
 
     /**
      * This method adds an {@link AudioFileModificationListener}
@@ -47,10 +49,7 @@ public class ModificationHandler implements AudioFileModificationListener
      */
     public void addAudioFileModificationListener(AudioFileModificationListener l)
     {
-        if (!this.listeners.contains(l))
-        {
-            this.listeners.add(l);
-        }
+        this.listeners.addIfAbsent(l);
     }
 
     /**
@@ -120,10 +119,7 @@ public class ModificationHandler implements AudioFileModificationListener
      */
     public void removeAudioFileModificationListener(AudioFileModificationListener l)
     {
-        if (this.listeners.contains(l))
-        {
-            this.listeners.remove(l);
-        }
+        this.listeners.remove(l);
     }
 
     /**
@@ -22,6 +22,7 @@ import org.jaudiotagger.audio.AudioFile;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -93,6 +94,29 @@ public class Utils
         return name.substring(i + 1);
     }
 
+    /*
+      * Returns the extension of the given path, as for a file.
+      *
+      * @param p The path whose extension is requested
+      * @return The extension of the given path
+      */
+    public static String getExtension(Path p)
+    {
+        Path file = p.getFileName();
+        if (file == null)
+        {
+            return "";
+        }
+        String name = file.toString().toLowerCase();
+        int i = name.lastIndexOf(".");
+        if (i == -1)
+        {
+            return "";
+        }
+
+        return name.substring(i + 1);
+    }
+
 
     /*
     * Computes a number whereby the 1st byte is the least signifcant and the last
@@ -21,15 +21,14 @@ package org.jaudiotagger.audio.mp3;
 
 import org.jaudiotagger.audio.AudioHeader;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.logging.Hex;
 
 import java.io.EOFException;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -140,6 +139,24 @@ public class MP3AudioHeader implements AudioHeader
         }
     }
 
+    /**
+     * Search for the first MP3Header in audio read from a source, for example audio held in memory,
+     * as {@link #MP3AudioHeader(File, long)}.
+     *
+     * @param seekSource
+     * @param startByte
+     * @param name of the audio for the log
+     * @throws IOException
+     * @throws InvalidAudioFrameException
+     */
+    public MP3AudioHeader(final AudioSource seekSource, long startByte, String name) throws IOException, InvalidAudioFrameException
+    {
+        if (!seek(seekSource, startByte, name))
+        {
+            throw new InvalidAudioFrameException(ErrorMessage.NO_AUDIO_HEADER_FOUND.getMsg(name));
+        }
+    }
+
     /**
      * Returns true if the first MP3 frame can be found for the MP3 file
      *
@@ -151,6 +168,28 @@ public class MP3AudioHeader implements AudioHeader
      * @throws IOException on any I/O error
      */
     public boolean seek(final File seekFile, long startByte) throws IOException
+    {
+        final AudioSource seekSource = AudioSource.open(seekFile);
+        try
+        {
+            return seek(seekSource, startByte, seekFile.getName());
+        }
+        finally
+        {
+            seekSource.close();
+        }
+    }
+
+    /**
+     * Returns true if the first MP3 frame can be found in the audio read from the source
+     *
+     * @param seekSource MP3 audio to seek, not closed
+     * @param startByte  if there is an ID3v2tag we dont want to start reading from the start of the tag
+     * @param name       of the audio for the log
+     * @return true if the first MP3 frame can be found
+     * @throws IOException on any I/O error
+     */
+    public boolean seek(final AudioSource seekSource, long startByte, String name) throws IOException
     {
         //References to Xing/VRbi Header
         ByteBuffer header;
@@ -158,20 +197,17 @@ public class MP3AudioHeader implements AudioHeader
         //This is substantially faster than updating the filechannels position
         long filePointerCount;
 
-        final FileInputStream fis = new FileInputStream(seekFile);
-        final FileChannel fc = fis.getChannel();
-
         //Read into Byte Buffer in Chunks
         ByteBuffer bb = ByteBuffer.allocateDirect(FILE_BUFFER_SIZE);
 
-        //Move FileChannel to the starting position (skipping over tag if any)
-        fc.position(startByte);
+        //Move to the starting position (skipping over tag if any)
+        seekSource.seek(startByte);
 
         //Update filePointerCount
         filePointerCount = startByte;
 
-        //Read from here into the byte buffer , doesn't move location of filepointer
-        fc.read(bb, startByte);
+        //Read from here into the byte buffer
+        seekSource.getChannel().read(bb);
         bb.flip();
 
         boolean syncFound = false;
@@ -185,8 +221,8 @@ public class MP3AudioHeader implements AudioHeader
                 if (bb.remaining() <= MIN_BUFFER_REMAINING_REQUIRED)
                 {
                     bb.clear();
-                    fc.position(filePointerCount);
-                    fc.read(bb, fc.position());
+                    seekSource.seek(filePointerCount);
+                    seekSource.getChannel().read(bb);
                     bb.flip();
                     if (bb.limit() <= MIN_BUFFER_REMAINING_REQUIRED)
                     {
@@ -254,7 +290,7 @@ public class MP3AudioHeader implements AudioHeader
                         // has been encoded with as Unicode LE because these have a BOM of 0xFF 0xFE
                         else
                         {
-                            syncFound = isNextFrameValid(seekFile, filePointerCount, bb, fc);
+                            syncFound = isNextFrameValid(name, filePointerCount, bb, seekSource);
                             if (syncFound)
                             {
                                 break;
@@ -289,25 +325,13 @@ public class MP3AudioHeader implements AudioHeader
             syncFound = false;
             throw iox;
         }
-        finally
-        {
-            if (fc != null)
-            {
-                fc.close();
-            }
-
-            if (fis != null)
-            {
-                fis.close();
-            }
-        }
 
         //Return to start of audio header
         if (MP3AudioHeader.logger.isLoggable(Level.FINEST))
         {
             MP3AudioHeader.logger.finer("Return found matching mp3 header starting at" + filePointerCount);
         }
-        setFileSize(seekFile.length());
+        setFileSize(seekSource.length());
         setMp3StartByte(filePointerCount);
         setTimePerFrame();
         setNumberOfFrames();
@@ -316,7 +340,7 @@ public class MP3AudioHeader implements AudioHeader
         setEncoder();
         /*if((filePointerCount - startByte )>0)
         {
-            logger.severe(seekFile.getName()+"length:"+startByte+"Difference:"+(filePointerCount - startByte));
+            logger.severe(name+"length:"+startByte+"Difference:"+(filePointerCount - startByte));
         }
         */
         return syncFound;
@@ -325,18 +349,18 @@ public class MP3AudioHeader implements AudioHeader
     /**
      * Called in some circumstances to check the next frame to ensure we have the correct audio header
      *
-     * @param seekFile
+     * @param name
      * @param filePointerCount
      * @param bb
-     * @param fc
+     * @param seekSource
      * @return true if frame is valid
      * @throws java.io.IOException
      */
-    private boolean isNextFrameValid(File seekFile, long filePointerCount, ByteBuffer bb, FileChannel fc) throws IOException
+    private boolean isNextFrameValid(String name, long filePointerCount, ByteBuffer bb, AudioSource seekSource) throws IOException
     {
         if (MP3AudioHeader.logger.isLoggable(Level.FINEST))
         {
-            MP3AudioHeader.logger.finer("Checking next frame" + seekFile.getName() + ":fpc:" + filePointerCount + "skipping to:" + (filePointerCount + mp3FrameHeader.getFrameLength()));
+            MP3AudioHeader.logger.finer("Checking next frame" + name + ":fpc:" + filePointerCount + "skipping to:" + (filePointerCount + mp3FrameHeader.getFrameLength()));
         }
         boolean result = false;
 
@@ -356,8 +380,8 @@ public class MP3AudioHeader implements AudioHeader
         {
             MP3AudioHeader.logger.finer("Buffer too small, need to reload, buffer size:" + bb.remaining());
             bb.clear();
-            fc.position(filePointerCount);
-            fc.read(bb, fc.position());
+            seekSource.seek(filePointerCount);
+            seekSource.getChannel().read(bb);
             bb.flip();
             //So now original buffer has been replaced, so set current position to start of buffer
             currentPosition = 0;
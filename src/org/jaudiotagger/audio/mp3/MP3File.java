@@ -22,9 +22,12 @@
 package org.jaudiotagger.audio.mp3;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.logging.*;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagException;
@@ -124,19 +127,19 @@ public class MP3File extends AudioFile
     /**
      * Read v1 tag
      *
-     * @param file
-     * @param newFile
+     * @param raf
+     * @param name
      * @param loadOptions
      * @throws IOException
      */
-    private void readV1Tag(File file, RandomAccessFile newFile, int loadOptions) throws IOException
+    private void readV1Tag(AudioSource raf, String name, int loadOptions) throws IOException
     {
         if ((loadOptions & LOAD_IDV1TAG) != 0)
         {
             logger.finer("Attempting to read id3v1tags");
             try
             {
-                id3v1tag = new ID3v11Tag(newFile, file.getName());
+                id3v1tag = new ID3v11Tag(raf, name);
             }
             catch (TagNotFoundException ex)
             {
@@ -147,7 +150,7 @@ public class MP3File extends AudioFile
             {
                 if (id3v1tag == null)
                 {
-                    id3v1tag = new ID3v1Tag(newFile, file.getName());
+                    id3v1tag = new ID3v1Tag(raf, name);
                 }
             }
             catch (TagNotFoundException ex)
@@ -162,94 +165,57 @@ public class MP3File extends AudioFile
      *
      * TODO:shouldn't we be handing TagExceptions:when will they be thrown
      *
-     * @param file
+     * @param raf
+     * @param name
      * @param loadOptions
      * @throws IOException
      * @throws TagException
      */
-    private void readV2Tag(File file, int loadOptions, int startByte) throws IOException, TagException
+    private void readV2Tag(AudioSource raf, String name, int loadOptions, int startByte) throws IOException, TagException
     {
         //We know where the actual Audio starts so load all the file from start to that point into
         //a buffer then we can read the IDv2 information without needing any more File I/O
         if (startByte >= AbstractID3v2Tag.TAG_HEADER_LENGTH)
         {
             logger.finer("Attempting to read id3v2tags");
-            FileInputStream fis = null;
-            FileChannel fc = null;
-            ByteBuffer bb;
-            try
-            {
-                fis = new FileInputStream(file);
-                fc = fis.getChannel();
-                bb = fc.map(FileChannel.MapMode.READ_ONLY,0,startByte);
-            }
-            //#JAUDIOTAGGER-419:If reading networked file map can fail so just copy bytes instead
-            catch(IOException ioe)
-            {
-                bb =  ByteBuffer.allocate(startByte);
-                fc.read(bb,0);
-            }
-            finally
+            ByteBuffer bb = ByteBuffer.allocate(startByte);
+            raf.seek(0);
+            raf.read(bb.array());
+
+            if ((loadOptions & LOAD_IDV2TAG) != 0)
             {
-                if (fc != null)
+                logger.config("Attempting to read id3v2tags");
+                try
                 {
-                    fc.close();
+                    this.setID3v2Tag(new ID3v24Tag(bb, name));
                 }
-
-                if (fis != null)
+                catch (TagNotFoundException ex)
                 {
-                    fis.close();
+                    logger.config("No id3v24 tag found");
                 }
-            }
 
-            try
-            {
-                bb.rewind();
-
-                if ((loadOptions & LOAD_IDV2TAG) != 0)
+                try
                 {
-                    logger.config("Attempting to read id3v2tags");
-                    try
+                    if (id3v2tag == null)
                     {
-                        this.setID3v2Tag(new ID3v24Tag(bb, file.getName()));
-                    }
-                    catch (TagNotFoundException ex)
-                    {
-                        logger.config("No id3v24 tag found");
-                    }
-
-                    try
-                    {
-                        if (id3v2tag == null)
-                        {
-                            this.setID3v2Tag(new ID3v23Tag(bb, file.getName()));
-                        }
-                    }
-                    catch (TagNotFoundException ex)
-                    {
-                        logger.config("No id3v23 tag found");
+                        this.setID3v2Tag(new ID3v23Tag(bb, name));
                     }
+                }
+                catch (TagNotFoundException ex)
+                {
+                    logger.config("No id3v23 tag found");
+                }
 
-                    try
-                    {
-                        if (id3v2tag == null)
-                        {
-                            this.setID3v2Tag(new ID3v22Tag(bb, file.getName()));
-                        }
-                    }
-                    catch (TagNotFoundException ex)
+                try
+                {
+                    if (id3v2tag == null)
                     {
-                        logger.config("No id3v22 tag found");
+                        this.setID3v2Tag(new ID3v22Tag(bb, name));
                     }
                 }
-            }
-            finally
-            {
-                //Workaround for 4724038 on Windows
-                bb.clear();
-                if (bb != null && bb.isDirect())
+                catch (TagNotFoundException ex)
                 {
-                    ((sun.nio.ch.DirectBuffer) bb).cleaner().clean();
+                    logger.config("No id3v22 tag found");
                 }
             }
         }
@@ -297,6 +263,7 @@ public class MP3File extends AudioFile
 
     /**
      *
+     * @param raf
      * @param startByte
      * @param endByte
      * @return
@@ -305,36 +272,18 @@ public class MP3File extends AudioFile
      * @return true if all the bytes between in the file between startByte and endByte are null, false
      * otherwise
      */
-    private boolean isFilePortionNull(int startByte, int endByte) throws IOException
+    private boolean isFilePortionNull(AudioSource raf, int startByte, int endByte) throws IOException
     {
         logger.config("Checking file portion:" + Hex.asHex(startByte) + ":" + Hex.asHex(endByte));
-        FileInputStream fis=null;
-        FileChannel     fc=null;
-        try
+        raf.seek(startByte);
+        ByteBuffer bb = ByteBuffer.allocate(endByte - startByte);
+        raf.getChannel().read(bb);
+        bb.flip();
+        while(bb.hasRemaining())
         {
-            fis = new FileInputStream(file);
-            fc = fis.getChannel();
-            fc.position(startByte);
-            ByteBuffer bb = ByteBuffer.allocateDirect(endByte - startByte);
-            fc.read(bb);
-            while(bb.hasRemaining())
+            if(bb.get()!=0)
             {
-                if(bb.get()!=0)
-                {
-                    return false;
-                }
-            }
-        }
-        finally
-        {
-            if (fc != null)
-            {
-                fc.close();
-            }
-
-            if (fis != null)
-            {
-                fis.close();
+                return false;
             }
         }
         return true;
@@ -343,23 +292,25 @@ public class MP3File extends AudioFile
      * Regets the audio header starting from start of file, and write appropriate logging to indicate
      * potential problem to user.
      *
+     * @param raf
+     * @param name
      * @param startByte
      * @param firstHeaderAfterTag
      * @return
      * @throws IOException
      * @throws InvalidAudioFrameException
      */
-    private MP3AudioHeader checkAudioStart(long startByte, MP3AudioHeader firstHeaderAfterTag) throws IOException, InvalidAudioFrameException
+    private MP3AudioHeader checkAudioStart(AudioSource raf, String name, long startByte, MP3AudioHeader firstHeaderAfterTag) throws IOException, InvalidAudioFrameException
     {
         MP3AudioHeader headerOne;
         MP3AudioHeader headerTwo;
 
-        logger.warning(ErrorMessage.MP3_ID3TAG_LENGTH_INCORRECT.getMsg(file.getPath(), Hex.asHex(startByte), Hex.asHex(firstHeaderAfterTag.getMp3StartByte())));
+        logger.warning(ErrorMessage.MP3_ID3TAG_LENGTH_INCORRECT.getMsg(name, Hex.asHex(startByte), Hex.asHex(firstHeaderAfterTag.getMp3StartByte())));
 
         //because we cant agree on start location we reread the audioheader from the start of the file, at least
         //this way we cant overwrite the audio although we might overwrite part of the tag if we write this file
         //back later
-        headerOne = new MP3AudioHeader(file, 0);
+        headerOne = new MP3AudioHeader(raf, 0, name);
         logger.config("Checking from start:" + headerOne);
 
         //Although the id3 tag size appears to be incorrect at least we have found the same location for the start
@@ -367,7 +318,7 @@ public class MP3File extends AudioFile
         //problem
         if (firstHeaderAfterTag.getMp3StartByte() == headerOne.getMp3StartByte())
         {
-            logger.config(ErrorMessage.MP3_START_OF_AUDIO_CONFIRMED.getMsg(file.getPath(),
+            logger.config(ErrorMessage.MP3_START_OF_AUDIO_CONFIRMED.getMsg(name,
                     Hex.asHex(headerOne.getMp3StartByte())));
             return firstHeaderAfterTag;
         }
@@ -375,13 +326,13 @@ public class MP3File extends AudioFile
         {
 
             //We get a different value if read from start, can't guarantee 100% correct lets do some more checks
-            logger.config((ErrorMessage.MP3_RECALCULATED_POSSIBLE_START_OF_MP3_AUDIO.getMsg(file.getPath(),
+            logger.config((ErrorMessage.MP3_RECALCULATED_POSSIBLE_START_OF_MP3_AUDIO.getMsg(name,
                             Hex.asHex(headerOne.getMp3StartByte()))));
 
             //Same frame count so probably both audio headers with newAudioHeader being the first one
             if (firstHeaderAfterTag.getNumberOfFrames() == headerOne.getNumberOfFrames())
             {
-                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(file.getPath(),
+                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(name,
                                 Hex.asHex(headerOne.getMp3StartByte()))));
                 return headerOne;
             }
@@ -389,20 +340,20 @@ public class MP3File extends AudioFile
             //If the size reported by the tag header is a little short and there is only nulls between the recorded value
             //and the start of the first audio found then we stick with the original header as more likely that currentHeader
             //DataInputStream not really a header
-            if(isFilePortionNull((int) startByte,(int) firstHeaderAfterTag.getMp3StartByte()))
+            if(isFilePortionNull(raf, (int) startByte,(int) firstHeaderAfterTag.getMp3StartByte()))
             {
                 return firstHeaderAfterTag;
             }
 
             //Skip to the next header (header 2, counting from start of file)
-            headerTwo = new MP3AudioHeader(file, headerOne.getMp3StartByte()
-                    + headerOne.mp3FrameHeader.getFrameLength());
+            headerTwo = new MP3AudioHeader(raf, headerOne.getMp3StartByte()
+                    + headerOne.mp3FrameHeader.getFrameLength(), name);
 
             //It matches the header we found when doing the original search from after the ID3Tag therefore it
             //seems that newAudioHeader was a false match and the original header was correct
             if (headerTwo.getMp3StartByte() == firstHeaderAfterTag.getMp3StartByte())
             {
-                logger.warning((ErrorMessage.MP3_START_OF_AUDIO_CONFIRMED.getMsg(file.getPath(),
+                logger.warning((ErrorMessage.MP3_START_OF_AUDIO_CONFIRMED.getMsg(name,
                                 Hex.asHex(firstHeaderAfterTag.getMp3StartByte()))));
                 return firstHeaderAfterTag;
             }
@@ -411,14 +362,14 @@ public class MP3File extends AudioFile
             //however it maybe that neither are really headers and just contain the same data being misrepresented as headers.
             if (headerTwo.getNumberOfFrames() == headerOne.getNumberOfFrames())
             {
-                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(file.getPath(),
+                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(name,
                                 Hex.asHex(headerOne.getMp3StartByte()))));
                 return headerOne;
             }
             ///Doesnt match the frameCount lets go back to the original header
             else
             {
-                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(file.getPath(),
+                logger.warning((ErrorMessage.MP3_RECALCULATED_START_OF_MP3_AUDIO.getMsg(name,
                                 Hex.asHex(firstHeaderAfterTag.getMp3StartByte()))));
                 return firstHeaderAfterTag;
             }
@@ -438,6 +389,28 @@ public class MP3File extends AudioFile
      * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
      */
     public MP3File(File file, int loadOptions, boolean readOnly) throws IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        this(file, loadOptions, readOnly, ReadMode.FULL);
+    }
+
+    /**
+     * Creates a new MP3File dataType and parse the tag and/or audio header from
+     * the given file Object, files can be opened read only if required.
+     *
+     * In the tag only mode there is no search for the first MPEG frame, and the
+     * ID3v2 tag is read to the end of its reported size rather than to the start
+     * of the audio.  In the header only mode no tags are read.
+     *
+     * @param file        MP3 file
+     * @param loadOptions decide what tags to load
+     * @param readOnly    causes the files to be opened readonly
+     * @param mode        what is read of the file
+     * @throws IOException  on any I/O error
+     * @throws TagException on any exception generated by this library.
+     * @throws org.jaudiotagger.audio.exceptions.ReadOnlyFileException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public MP3File(File file, int loadOptions, boolean readOnly, ReadMode mode) throws IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
     {
         RandomAccessFile newFile = null;
         try
@@ -447,23 +420,71 @@ public class MP3File extends AudioFile
             //Check File accessibility
             newFile = checkFilePermissions(file, readOnly);
 
-            //Read ID3v2 tag size (if tag exists) to allow audioHeader parsing to skip over tag
-            long tagSizeReportedByHeader = AbstractID3v2Tag.getV2TagSizeIfExists(file);
-            logger.config("TagHeaderSize:" + Hex.asHex(tagSizeReportedByHeader));
-            audioHeader = new MP3AudioHeader(file, tagSizeReportedByHeader);
+            read(new AudioSource(newFile.getChannel()), file.getPath(), loadOptions, mode);
+        }
+        finally
+        {
+            if (newFile != null)
+            {
+                newFile.close();
+            }
+        }
+    }
+
+    /**
+     * Creates a new MP3File dataType and parse the tag and/or audio header from
+     * audio not held in a file, for example an upload held in memory.  The
+     * MP3File has no file, and the source is not closed.
+     *
+     * @param raf         MP3 audio
+     * @param loadOptions decide what tags to load
+     * @param mode        what is read of the audio
+     * @throws IOException  on any I/O error
+     * @throws TagException on any exception generated by this library.
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public MP3File(AudioSource raf, int loadOptions, ReadMode mode) throws IOException, TagException, InvalidAudioFrameException
+    {
+        read(raf, "", loadOptions, mode);
+    }
+
+    /**
+     * Parse the tag and/or audio header
+     *
+     * @param raf         MP3 audio
+     * @param name        of the audio for the log
+     * @param loadOptions decide what tags to load
+     * @param mode        what is read of the audio
+     * @throws IOException
+     * @throws TagException
+     * @throws InvalidAudioFrameException
+     */
+    private void read(AudioSource raf, String name, int loadOptions, ReadMode mode) throws IOException, TagException, InvalidAudioFrameException
+    {
+        //Read ID3v2 tag size (if tag exists) to allow audioHeader parsing to skip over tag
+        long tagSizeReportedByHeader = AbstractID3v2Tag.getV2TagSizeIfExists(raf);
+        logger.config("TagHeaderSize:" + Hex.asHex(tagSizeReportedByHeader));
+        long startByte = Math.min(tagSizeReportedByHeader, raf.length());
+        if (mode != ReadMode.TAG_ONLY)
+        {
+            audioHeader = new MP3AudioHeader(raf, tagSizeReportedByHeader, name);
 
             //If the audio header is not straight after the end of the tag then search from start of file
             if (tagSizeReportedByHeader != ((MP3AudioHeader) audioHeader).getMp3StartByte())
             {
                 logger.config("First header found after tag:" + audioHeader);
-                audioHeader = checkAudioStart(tagSizeReportedByHeader, (MP3AudioHeader) audioHeader);
+                audioHeader = checkAudioStart(raf, name, tagSizeReportedByHeader, (MP3AudioHeader) audioHeader);
             }
+            startByte = ((MP3AudioHeader) audioHeader).getMp3StartByte();
+        }
 
+        if (mode != ReadMode.HEADER_ONLY)
+        {
             //Read v1 tags (if any)
-            readV1Tag(file, newFile, loadOptions);
+            readV1Tag(raf, name, loadOptions);
 
             //Read v2 tags (if any)
-            readV2Tag(file, loadOptions, (int)((MP3AudioHeader) audioHeader).getMp3StartByte());
+            readV2Tag(raf, name, loadOptions, (int) startByte);
 
             //If we have a v2 tag use that, if we do not but have v1 tag use that
             //otherwise use nothing
@@ -478,13 +499,6 @@ public class MP3File extends AudioFile
                 tag = id3v1tag;
             }
         }
-        finally
-        {
-            if (newFile != null)
-            {
-                newFile.close();
-            }
-        }
     }
 
     /**
@@ -497,27 +511,38 @@ public class MP3File extends AudioFile
      */
     public long getMP3StartByte(File file) throws InvalidAudioFrameException, IOException
     {
+        AudioSource raf = AudioSource.open(file);
         try
         {
-            //Read ID3v2 tag size (if tag exists) to allow audio header parsing to skip over tag
-            long startByte = AbstractID3v2Tag.getV2TagSizeIfExists(file);
-
-            MP3AudioHeader audioHeader = new MP3AudioHeader(file, startByte);
-            if (startByte != audioHeader.getMp3StartByte())
-            {
-                logger.config("First header found after tag:" + audioHeader);
-                audioHeader = checkAudioStart(startByte, audioHeader);
-            }
-            return audioHeader.getMp3StartByte();
+            return getMP3StartByte(raf, file.getPath());
         }
-        catch (InvalidAudioFrameException iafe)
+        finally
         {
-            throw iafe;
+            raf.close();
         }
-        catch (IOException ioe)
+    }
+
+    /**
+     * Used by tags when writing to calculate the location of the music in audio not held in a file
+     *
+     * @param raf
+     * @param name of the audio for the log
+     * @return the location within the audio that the music starts
+     * @throws java.io.IOException
+     * @throws org.jaudiotagger.audio.exceptions.InvalidAudioFrameException
+     */
+    public long getMP3StartByte(AudioSource raf, String name) throws InvalidAudioFrameException, IOException
+    {
+        //Read ID3v2 tag size (if tag exists) to allow audio header parsing to skip over tag
+        long startByte = AbstractID3v2Tag.getV2TagSizeIfExists(raf);
+
+        MP3AudioHeader audioHeader = new MP3AudioHeader(raf, startByte, name);
+        if (startByte != audioHeader.getMp3StartByte())
         {
-            throw ioe;
+            logger.config("First header found after tag:" + audioHeader);
+            audioHeader = checkAudioStart(raf, name, startByte, audioHeader);
         }
+        return audioHeader.getMp3StartByte();
     }
 
     /**
@@ -876,9 +901,25 @@ public class MP3File extends AudioFile
                 {
                     logger.config("Writing ID3v2 tag:"+file.getName());
                     final MP3AudioHeader mp3AudioHeader = (MP3AudioHeader) this.getAudioHeader();
-                    final long mp3StartByte = mp3AudioHeader.getMp3StartByte();
+                    final long mp3StartByte;
+                    if (mp3AudioHeader != null)
+                    {
+                        mp3StartByte = mp3AudioHeader.getMp3StartByte();
+                    }
+                    //Read in the tag only mode, so find the audio now
+                    else
+                    {
+                        try
+                        {
+                            mp3StartByte = getMP3StartByte(this.file);
+                        }
+                        catch (InvalidAudioFrameException iafe)
+                        {
+                            throw new IOException(iafe.getMessage(), iafe);
+                        }
+                    }
                     final long newMp3StartByte = id3v2tag.write(file, mp3StartByte);
-                    if (mp3StartByte != newMp3StartByte) {
+                    if (mp3StartByte != newMp3StartByte && mp3AudioHeader != null) {
                         logger.config("New mp3 start byte: " + newMp3StartByte);
                         mp3AudioHeader.setMp3StartByte(newMp3StartByte);
                     }
@@ -935,6 +976,83 @@ public class MP3File extends AudioFile
         }
     }
 
+    /**
+     * Saves the tags of this MP3File to audio not held in a file, for example an upload held in memory,
+     * as {@link #save(File)} saves them to a file.
+     *
+     * @param raf     The audio, read from its first byte
+     * @param tempRaf An empty sink, written with the audio if the ID3v2 tag does not fit before it
+     * @return The sink holding the audio with its tags, raf or tempRaf
+     * @throws IOException on any I/O error
+     */
+    public AudioSink save(AudioSink raf, AudioSink tempRaf) throws IOException
+    {
+        AudioSink out = raf;
+
+        //ID3v2 Tag
+        if (TagOptionSingleton.getInstance().isId3v2Save())
+        {
+            if (id3v2tag == null)
+            {
+                (new ID3v24Tag()).delete(raf);
+                (new ID3v23Tag()).delete(raf);
+                (new ID3v22Tag()).delete(raf);
+                logger.config("Deleting ID3v2 tag");
+            }
+            else
+            {
+                logger.config("Writing ID3v2 tag");
+                final MP3AudioHeader mp3AudioHeader = (MP3AudioHeader) this.getAudioHeader();
+                final long mp3StartByte;
+                if (mp3AudioHeader != null)
+                {
+                    mp3StartByte = mp3AudioHeader.getMp3StartByte();
+                }
+                //Read in the tag only mode, so find the audio now
+                else
+                {
+                    try
+                    {
+                        mp3StartByte = getMP3StartByte(raf, "");
+                    }
+                    catch (InvalidAudioFrameException iafe)
+                    {
+                        throw new IOException(iafe.getMessage(), iafe);
+                    }
+                }
+                final long newMp3StartByte = id3v2tag.write(raf, tempRaf, mp3StartByte);
+                if (tempRaf.length() > 0)
+                {
+                    out = tempRaf;
+                }
+                if (mp3StartByte != newMp3StartByte && mp3AudioHeader != null)
+                {
+                    logger.config("New mp3 start byte: " + newMp3StartByte);
+                    mp3AudioHeader.setMp3StartByte(newMp3StartByte);
+                }
+            }
+        }
+
+        //Lyrics 3 tags are not read, so none is written
+
+        //ID3v1 tag
+        if (TagOptionSingleton.getInstance().isId3v1Save())
+        {
+            logger.config("Processing ID3v1");
+            if (id3v1tag == null)
+            {
+                logger.config("Deleting ID3v1");
+                (new ID3v1Tag()).delete(out);
+            }
+            else
+            {
+                logger.config("Saving ID3v1");
+                id3v1tag.write(out);
+            }
+        }
+        return out;
+    }
+
     /**
      * Displays MP3File Structure
      */
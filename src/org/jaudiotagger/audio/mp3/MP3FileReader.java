@@ -1,17 +1,18 @@
 package org.jaudiotagger.audio.mp3;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.exceptions.ReadOnlyFileException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.tag.Tag;
 import org.jaudiotagger.tag.TagException;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Read Mp3 Info (retrofitted to entagged ,done differently to entagged which is why some methods throw RuntimeException)
@@ -19,27 +20,46 @@ import java.io.RandomAccessFile;
  */
 public class MP3FileReader extends AudioFileReader
 {
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException
     {
         throw new RuntimeException("MP3FileReader.getEncodingInfo should be called");
     }
 
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException
+    protected Tag getTag(AudioSource raf) throws CannotReadException, IOException
     {
         throw new RuntimeException("MP3FileReader.getEncodingInfo should be called");
     }
 
     /**
      * @param f
+     * @param mode
      * @return
      */
     //Override because we read mp3s differently to the entagged code
-    public AudioFile read(File f) throws IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    public AudioFile read(File f, ReadMode mode) throws IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
     {
-        MP3File mp3File = new MP3File(f, MP3File.LOAD_IDV1TAG | MP3File.LOAD_IDV2TAG, true);
+        MP3File mp3File = new MP3File(f, MP3File.LOAD_IDV1TAG | MP3File.LOAD_IDV2TAG, true, mode);
         return mp3File;
     }
 
+    /**
+     * The MP3File reads a file by its own channel, so the open file is not used.  Audio not held
+     * in a file is read from the source.
+     *
+     * @param f
+     * @param raf
+     * @param mode
+     * @return
+     */
+    public AudioFile read(File f, AudioSource raf, ReadMode mode) throws CannotReadException, IOException, TagException, ReadOnlyFileException, InvalidAudioFrameException
+    {
+        if (f == null)
+        {
+            return new MP3File(raf, MP3File.LOAD_IDV1TAG | MP3File.LOAD_IDV2TAG, mode);
+        }
+        return read(f, mode);
+    }
+
     /**
      * Read
      *
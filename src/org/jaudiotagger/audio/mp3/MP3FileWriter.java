@@ -1,13 +1,16 @@
 package org.jaudiotagger.audio.mp3;
 
 import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.ReadMode;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.exceptions.InvalidAudioFrameException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
+import org.jaudiotagger.tag.TagException;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Write Mp3 Info (retrofitted to entagged ,done differently to entagged which is why some methods throw RuntimeException)
@@ -43,14 +46,47 @@ public class MP3FileWriter extends AudioFileWriter
         af.commit();
     }
 
-    protected void writeTag(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    /**
+     * Only called to write audio not held in a file, mp3 files are written by MP3File.
+     */
+    protected void writeTag(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotReadException, CannotWriteException, IOException
+    {
+        MP3File mp3File = read(raf);
+        mp3File.setTag(tag);
+        mp3File.save(raf, rafTemp);
+    }
+
+    /**
+     * Delete the Id3v1 and ID3v2 tags from audio not held in a file
+     */
+    protected void deleteTag(AudioSink raf, AudioSink tempRaf) throws CannotReadException, CannotWriteException, IOException
     {
-        throw new RuntimeException("MP3FileReaderwriteTag should not be called");
+        MP3File mp3File = read(raf);
+        mp3File.setID3v1Tag(null);
+        mp3File.setID3v2Tag(null);
+        mp3File.save(raf, tempRaf);
     }
 
-    protected void deleteTag(RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotWriteException, IOException
+    /**
+     * @param raf
+     * @return The tags and audio header of the audio of the sink
+     * @throws CannotReadException
+     * @throws IOException
+     */
+    private MP3File read(AudioSink raf) throws CannotReadException, IOException
     {
-        throw new RuntimeException("MP3FileReader.getEncodingInfo should be called");
+        try
+        {
+            return new MP3File(raf, MP3File.LOAD_IDV1TAG | MP3File.LOAD_IDV2TAG, ReadMode.FULL);
+        }
+        catch (TagException te)
+        {
+            throw new CannotReadException(te.getMessage(), te);
+        }
+        catch (InvalidAudioFrameException iafe)
+        {
+            throw new CannotReadException(iafe.getMessage(), iafe);
+        }
     }
 }
 
@@ -43,8 +43,6 @@ public class MPEGFrameHeader
     public static final int SYNC_BYTE2 = 0xE0;
     public static final int SYNC_BIT_ANDSAMPING_BYTE3 = 0xFC;
 
-    private static final byte[] header = new byte[HEADER_SIZE];
-
 
     /**
      * Constants for MPEG Version
@@ -855,6 +853,8 @@ public class MPEGFrameHeader
      */
     public static MPEGFrameHeader parseMPEGHeader(ByteBuffer bb) throws InvalidAudioFrameException
     {
+        //The frame header keeps its bytes, so each parse has its own
+        byte[] header = new byte[HEADER_SIZE];
         int position = bb.position();
         bb.get(header, 0, HEADER_SIZE);
         bb.position(position);
@@ -1,5 +1,6 @@
 package org.jaudiotagger.audio.mp4;
 
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.utils.tree.DefaultMutableTreeNode;
 import org.jaudiotagger.utils.tree.DefaultTreeModel;
 import org.jaudiotagger.audio.exceptions.CannotReadException;
@@ -12,9 +13,8 @@ import org.jaudiotagger.logging.ErrorMessage;
 
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
@@ -65,7 +65,7 @@ public class Mp4AtomTree
      * @throws IOException
      * @throws CannotReadException
      */
-    public Mp4AtomTree(RandomAccessFile raf) throws IOException, CannotReadException
+    public Mp4AtomTree(AudioSource raf) throws IOException, CannotReadException
     {
         buildTree(raf, true);
     }
@@ -79,7 +79,7 @@ public class Mp4AtomTree
      * @throws IOException
      * @throws CannotReadException
      */
-    public Mp4AtomTree(RandomAccessFile raf, boolean closeOnExit) throws IOException, CannotReadException
+    public Mp4AtomTree(AudioSource raf, boolean closeOnExit) throws IOException, CannotReadException
     {
         buildTree(raf, closeOnExit);
     }
@@ -93,9 +93,9 @@ public class Mp4AtomTree
      * @throws java.io.IOException
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      */
-    public DefaultTreeModel buildTree(RandomAccessFile raf, boolean closeExit) throws IOException, CannotReadException
+    public DefaultTreeModel buildTree(AudioSource raf, boolean closeExit) throws IOException, CannotReadException
     {
-        FileChannel fc = null;
+        SeekableByteChannel fc = null;
         try
         {
             fc = raf.getChannel();
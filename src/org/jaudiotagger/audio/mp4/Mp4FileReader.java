@@ -20,11 +20,11 @@ package org.jaudiotagger.audio.mp4;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Mp4 File Reader
@@ -33,15 +33,15 @@ import java.io.RandomAccessFile;
  */
 public class Mp4FileReader extends AudioFileReader
 {
-    private Mp4InfoReader ir = new Mp4InfoReader();
-    private Mp4TagReader tr = new Mp4TagReader();
+    private final Mp4InfoReader ir = new Mp4InfoReader();
+    private final Mp4TagReader tr = new Mp4TagReader();
 
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException
     {
         return ir.read(raf);
     }
 
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException
+    protected Tag getTag(AudioSource raf) throws CannotReadException, IOException
     {
         return tr.read(raf);
     }
@@ -20,10 +20,10 @@ package org.jaudiotagger.audio.mp4;
 
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Mp4 File Writer
@@ -33,15 +33,15 @@ import java.io.RandomAccessFile;
 public class Mp4FileWriter extends AudioFileWriter
 {
 
-    private Mp4TagWriter tw = new Mp4TagWriter();
+    private final Mp4TagWriter tw = new Mp4TagWriter();
 
 
-    protected void writeTag(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    protected void writeTag(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotWriteException, IOException
     {
         tw.write(tag, raf, rafTemp);
     }
 
-    protected void deleteTag(RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException
+    protected void deleteTag(AudioSink raf, AudioSink rafTemp) throws IOException
     {
         tw.delete(raf, rafTemp);
     }
@@ -20,6 +20,8 @@ package org.jaudiotagger.audio.mp4;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.mp4.atom.*;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.Tag;
@@ -30,9 +32,7 @@ import org.jaudiotagger.utils.tree.DefaultMutableTreeNode;
 
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.logging.Logger;
 
 
@@ -96,25 +96,25 @@ public class Mp4TagWriter
      * @param rawIlstData
      * @param oldIlstSize
      * @param startIstWithinFile
-     * @param fileReadChannel
-     * @param fileWriteChannel
+     * @param raf
+     * @param rafTemp
      * @throws CannotWriteException
      * @throws IOException
      */
     private void writeMetadataSameSize(ByteBuffer rawIlstData,
             long oldIlstSize,
             long startIstWithinFile,
-            FileChannel fileReadChannel,
-            FileChannel fileWriteChannel,
+            AudioSource raf,
+            AudioSink rafTemp,
             Mp4BoxHeader tagsHeader) throws CannotWriteException, IOException
     {
-        fileReadChannel.position(0);
-        fileWriteChannel.transferFrom(fileReadChannel, 0, startIstWithinFile);
-        fileWriteChannel.position(startIstWithinFile);
-        fileWriteChannel.write(rawIlstData);
-        fileReadChannel.position(startIstWithinFile + oldIlstSize);
+        raf.getChannel().position(0);
+        rafTemp.transferFrom(raf, 0, startIstWithinFile);
+        rafTemp.getChannel().position(startIstWithinFile);
+        rafTemp.getChannel().write(rawIlstData);
+        raf.getChannel().position(startIstWithinFile + oldIlstSize);
 
-        writeDataAfterIlst(fileReadChannel, fileWriteChannel, tagsHeader);
+        writeDataAfterIlst(raf, rafTemp, tagsHeader);
     }
 
     /**
@@ -123,25 +123,25 @@ public class Mp4TagWriter
      * ilst causing problems. So the solution is to convert the tags atom and its children into a free atom whilst
      * leaving the chp1 atom alone.
      * 
-     * @param fileReadChannel
-     * @param fileWriteChannel
+     * @param raf
+     * @param rafTemp
      * @param tagsHeader
      * @throws IOException
      */
-    private void writeNeroData(FileChannel fileReadChannel, FileChannel fileWriteChannel, Mp4BoxHeader tagsHeader)
+    private void writeNeroData(AudioSource raf, AudioSink rafTemp, Mp4BoxHeader tagsHeader)
             throws IOException, CannotWriteException
     {
         //Write from after ilst upto tags atom
-        long writeBetweenIlstAndTags = tagsHeader.getFilePos() - fileReadChannel.position();
-        fileWriteChannel.transferFrom(fileReadChannel, fileWriteChannel.position(), writeBetweenIlstAndTags );
-        fileWriteChannel.position(fileWriteChannel.position() + writeBetweenIlstAndTags);
+        long writeBetweenIlstAndTags = tagsHeader.getFilePos() - raf.getChannel().position();
+        rafTemp.transferFrom(raf, rafTemp.getChannel().position(), writeBetweenIlstAndTags );
+        rafTemp.getChannel().position(rafTemp.getChannel().position() + writeBetweenIlstAndTags);
 
         //Replace tags atom (and children) by a free atom
-        convertandWriteTagsAtomToFreeAtom(fileWriteChannel, tagsHeader);
+        convertandWriteTagsAtomToFreeAtom(rafTemp, tagsHeader);
 
         //Write after tags atom
-        fileReadChannel.position( tagsHeader.getFilePos()  + tagsHeader.getLength());
-        writeDataInChunks(fileReadChannel,fileWriteChannel);
+        raf.getChannel().position( tagsHeader.getFilePos()  + tagsHeader.getLength());
+        writeDataInChunks(raf, rafTemp);
     }
 
     /**
@@ -208,16 +208,10 @@ public class Mp4TagWriter
         * @throws CannotWriteException
         * @throws IOException
         */
-       public void write(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+       public void write(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotWriteException, IOException
        {
            logger.config("Started writing tag data");
 
-           //Read Channel for reading from old file
-           FileChannel fileReadChannel = raf.getChannel();
-
-           //Write channel for writing to new file
-           FileChannel fileWriteChannel = rafTemp.getChannel();
-
            //TODO we shouldn't need all these variables, and some are very badly named - used by new and old methods
            int oldIlstSize = 0;
            int relativeIlstposition;
@@ -376,7 +370,7 @@ public class Mp4TagWriter
            if (oldIlstSize == newIlstSize)
            {
                logger.config("Writing:Option 1:Same Size");
-               writeMetadataSameSize(rawIlstData, oldIlstSize, startIlstWithinFile, fileReadChannel, fileWriteChannel,tagsHeader);
+               writeMetadataSameSize(rawIlstData, oldIlstSize, startIlstWithinFile, raf, rafTemp,tagsHeader);
            }
            //.. we just need to increase the size of the free atom below the meta atom, and replace the metadata
            //no other changes necessary and total file size remains the same
@@ -387,18 +381,18 @@ public class Mp4TagWriter
                if (oldMetaLevelFreeAtomSize > 0)
                {
                    logger.config("Writing:Option 2:Smaller Size have free atom:" + oldIlstSize + ":" + newIlstSize);
-                   writeDataUptoIncludingIlst(fileReadChannel, fileWriteChannel, oldIlstSize, startIlstWithinFile, rawIlstData);
+                   writeDataUptoIncludingIlst(raf, rafTemp, oldIlstSize, startIlstWithinFile, rawIlstData);
 
                    //Write the modified free atom that comes after ilst
                    int newFreeSize = oldMetaLevelFreeAtomSize + (oldIlstSize - newIlstSize);
                    Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize - Mp4BoxHeader.HEADER_LENGTH);
-                   fileWriteChannel.write(newFreeBox.getHeader().getHeaderData());
-                   fileWriteChannel.write(newFreeBox.getData());
+                   rafTemp.getChannel().write(newFreeBox.getHeader().getHeaderData());
+                   rafTemp.getChannel().write(newFreeBox.getData());
 
                    //Skip over the read channel old free atom
-                   fileReadChannel.position(fileReadChannel.position() + oldMetaLevelFreeAtomSize);
+                   raf.getChannel().position(raf.getChannel().position() + oldMetaLevelFreeAtomSize);
 
-                   writeDataAfterIlst(fileReadChannel, fileWriteChannel, tagsHeader);
+                   writeDataAfterIlst(raf, rafTemp, tagsHeader);
                }
                //No free atom we need to create a new one or adjust top level free atom
                else
@@ -410,14 +404,14 @@ public class Mp4TagWriter
                    if (newFreeSize > 0)
                    {
                        logger.config("Writing:Option 3:Smaller Size can create free atom");
-                       writeDataUptoIncludingIlst(fileReadChannel, fileWriteChannel, oldIlstSize, startIlstWithinFile, rawIlstData);
+                       writeDataUptoIncludingIlst(raf, rafTemp, oldIlstSize, startIlstWithinFile, rawIlstData);
 
                        //Create new free box
                        Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize);
-                       fileWriteChannel.write(newFreeBox.getHeader().getHeaderData());
-                       fileWriteChannel.write(newFreeBox.getData());
+                       rafTemp.getChannel().write(newFreeBox.getHeader().getHeaderData());
+                       rafTemp.getChannel().write(newFreeBox.getData());
 
-                       writeDataAfterIlst(fileReadChannel, fileWriteChannel, tagsHeader);
+                       writeDataAfterIlst(raf, rafTemp, tagsHeader);
                    }
                    //Ok everything in this bit of tree has to be recalculated because eight or less bytes smaller
                    else
@@ -428,9 +422,9 @@ public class Mp4TagWriter
                        int sizeReducedBy = oldIlstSize - newIlstSize;
 
                        //Write stuff before Moov (ftyp)
-                       fileReadChannel.position(0);
-                       fileWriteChannel.transferFrom(fileReadChannel, 0, moovHeader.getFilePos());
-                       fileWriteChannel.position(moovHeader.getFilePos());
+                       raf.getChannel().position(0);
+                       rafTemp.transferFrom(raf, 0, moovHeader.getFilePos());
+                       rafTemp.getChannel().position(moovHeader.getFilePos());
 
                        //Edit stco atom within moov header,  we need to adjust offsets by the amount mdat is going to be shifted
                        //unless mdat is at start of file
@@ -441,15 +435,15 @@ public class Mp4TagWriter
 
                        //Edit and rewrite the Moov,Udta and Meta header in moov buffer
                        adjustSizeOfMoovHeader(moovHeader, moovBuffer, -sizeReducedBy,udtaHeader,metaHeader);
-                       fileWriteChannel.write(moovHeader.getHeaderData());
+                       rafTemp.getChannel().write(moovHeader.getHeaderData());
                        moovBuffer.rewind();
                        moovBuffer.limit(relativeIlstposition);
-                       fileWriteChannel.write(moovBuffer);
+                       rafTemp.getChannel().write(moovBuffer);
 
                        //Now write ilst data
-                       fileWriteChannel.write(rawIlstData);
-                       fileReadChannel.position(startIlstWithinFile + oldIlstSize);
-                       writeDataAfterIlst(fileReadChannel, fileWriteChannel, tagsHeader);
+                       rafTemp.getChannel().write(rawIlstData);
+                       raf.getChannel().position(startIlstWithinFile + oldIlstSize);
+                       writeDataAfterIlst(raf, rafTemp, tagsHeader);
                    }
                }
            }
@@ -466,17 +460,17 @@ public class Mp4TagWriter
                    int newFreeSize = oldMetaLevelFreeAtomSize - (additionalSpaceRequiredForMetadata);
                    logger.config("Writing:Option 5;Larger Size can use meta free atom need extra:" + newFreeSize + "bytes");
 
-                   writeDataUptoIncludingIlst(fileReadChannel, fileWriteChannel, oldIlstSize, startIlstWithinFile, rawIlstData);
+                   writeDataUptoIncludingIlst(raf, rafTemp, oldIlstSize, startIlstWithinFile, rawIlstData);
 
                    //Create an amended smaller freeBaos atom and write it to file
                    Mp4FreeBox newFreeBox = new Mp4FreeBox(newFreeSize - Mp4BoxHeader.HEADER_LENGTH);
-                   fileWriteChannel.write(newFreeBox.getHeader().getHeaderData());
-                   fileWriteChannel.write(newFreeBox.getData());
+                   rafTemp.getChannel().write(newFreeBox.getHeader().getHeaderData());
+                   rafTemp.getChannel().write(newFreeBox.getData());
 
                    //Skip over the read channel old free atom
-                   fileReadChannel.position(fileReadChannel.position() + oldMetaLevelFreeAtomSize);
+                   raf.getChannel().position(raf.getChannel().position() + oldMetaLevelFreeAtomSize);
 
-                   writeDataAfterIlst(fileReadChannel, fileWriteChannel, tagsHeader);
+                   writeDataAfterIlst(raf, rafTemp, tagsHeader);
                }
                //There is not enough padding in the metadata free atom anyway
                //Size meta needs to be increased by (if not writing a free atom)
@@ -488,9 +482,9 @@ public class Mp4TagWriter
                    int additionalMetaSizeThatWontFitWithinMetaAtom = additionalSpaceRequiredForMetadata - (oldMetaLevelFreeAtomSize);
 
                    //Write stuff before Moov (ftyp)
-                   fileReadChannel.position(0);
-                   fileWriteChannel.transferFrom(fileReadChannel, 0, positionWithinFileAfterFindingMoovHeader - Mp4BoxHeader.HEADER_LENGTH);
-                   fileWriteChannel.position(positionWithinFileAfterFindingMoovHeader - Mp4BoxHeader.HEADER_LENGTH);
+                   raf.getChannel().position(0);
+                   rafTemp.transferFrom(raf, 0, positionWithinFileAfterFindingMoovHeader - Mp4BoxHeader.HEADER_LENGTH);
+                   rafTemp.getChannel().position(positionWithinFileAfterFindingMoovHeader - Mp4BoxHeader.HEADER_LENGTH);
 
                    if(udtaHeader==null)
                    {
@@ -523,17 +517,17 @@ public class Mp4TagWriter
                        //Edit and rewrite the Moov header
                        moovHeader.setLength(moovHeader.getLength() + additionalMetaSizeThatWontFitWithinMetaAtom);
 
-                       fileWriteChannel.write(moovHeader.getHeaderData());
+                       rafTemp.getChannel().write(moovHeader.getHeaderData());
                        moovBuffer.rewind();
                        moovBuffer.limit(relativeIlstposition);
-                       fileWriteChannel.write(moovBuffer);
+                       rafTemp.getChannel().write(moovBuffer);
 
                        //Write new atoms required for holding metadata in itunes format
-                       fileWriteChannel.write(udtaHeader.getHeaderData());
-                       fileWriteChannel.write(metaBox.getHeader().getHeaderData());
-                       fileWriteChannel.write(metaBox.getData());
-                       fileWriteChannel.write(hdlrBox.getHeader().getHeaderData());
-                       fileWriteChannel.write(hdlrBox.getData());
+                       rafTemp.getChannel().write(udtaHeader.getHeaderData());
+                       rafTemp.getChannel().write(metaBox.getHeader().getHeaderData());
+                       rafTemp.getChannel().write(metaBox.getData());
+                       rafTemp.getChannel().write(hdlrBox.getHeader().getHeaderData());
+                       rafTemp.getChannel().write(hdlrBox.getData());
                    }
                    else if(metaHeader==null)
                    {
@@ -569,17 +563,17 @@ public class Mp4TagWriter
                        //Edit and rewrite the Moov header
                        moovHeader.setLength(moovHeader.getLength() - oldUdtaHeaderLength + additionalMetaSizeThatWontFitWithinMetaAtom);
 
-                       fileWriteChannel.write(moovHeader.getHeaderData());
+                       rafTemp.getChannel().write(moovHeader.getHeaderData());
                        moovBuffer.rewind();
                        moovBuffer.limit(relativeIlstposition - oldUdtaHeaderLength);
-                       fileWriteChannel.write(moovBuffer);
+                       rafTemp.getChannel().write(moovBuffer);
 
                        //Write new atoms required for holding metadata in itunes format
-                       fileWriteChannel.write(udtaHeader.getHeaderData());
-                       fileWriteChannel.write(metaBox.getHeader().getHeaderData());
-                       fileWriteChannel.write(metaBox.getData());
-                       fileWriteChannel.write(hdlrBox.getHeader().getHeaderData());
-                       fileWriteChannel.write(hdlrBox.getData());
+                       rafTemp.getChannel().write(udtaHeader.getHeaderData());
+                       rafTemp.getChannel().write(metaBox.getHeader().getHeaderData());
+                       rafTemp.getChannel().write(metaBox.getData());
+                       rafTemp.getChannel().write(hdlrBox.getHeader().getHeaderData());
+                       rafTemp.getChannel().write(hdlrBox.getData());
                    }
                    else
                    {
@@ -603,40 +597,40 @@ public class Mp4TagWriter
                        //Edit and rewrite the Moov header
                        adjustSizeOfMoovHeader(moovHeader, moovBuffer, additionalMetaSizeThatWontFitWithinMetaAtom,udtaHeader,metaHeader);
 
-                       fileWriteChannel.write(moovHeader.getHeaderData());
+                       rafTemp.getChannel().write(moovHeader.getHeaderData());
 
                        //Now write from this edited buffer up until ilst atom
                        moovBuffer.rewind();
                        moovBuffer.limit(relativeIlstposition);
-                       fileWriteChannel.write(moovBuffer);
+                       rafTemp.getChannel().write(moovBuffer);
                    }
 
                    //Now write ilst data
-                   fileWriteChannel.write(rawIlstData);
+                   rafTemp.getChannel().write(rawIlstData);
 
                    //Skip over the read channel old meta level free atom because now used up
-                   fileReadChannel.position(startIlstWithinFile + oldIlstSize);
-                   fileReadChannel.position(fileReadChannel.position() + oldMetaLevelFreeAtomSize);
+                   raf.getChannel().position(startIlstWithinFile + oldIlstSize);
+                   raf.getChannel().position(raf.getChannel().position() + oldMetaLevelFreeAtomSize);
 
                    if(tagsHeader!=null)
                    {
                         //Write from after ilst upto tags atom
-                        long writeBetweenIlstAndTags = tagsHeader.getFilePos() - fileReadChannel.position();
-                        fileWriteChannel.transferFrom(fileReadChannel, fileWriteChannel.position(),writeBetweenIlstAndTags );
-                        fileWriteChannel.position(fileWriteChannel.position() + writeBetweenIlstAndTags);
-                        convertandWriteTagsAtomToFreeAtom(fileWriteChannel, tagsHeader);
+                        long writeBetweenIlstAndTags = tagsHeader.getFilePos() - raf.getChannel().position();
+                        rafTemp.transferFrom(raf, rafTemp.getChannel().position(),writeBetweenIlstAndTags );
+                        rafTemp.getChannel().position(rafTemp.getChannel().position() + writeBetweenIlstAndTags);
+                        convertandWriteTagsAtomToFreeAtom(rafTemp, tagsHeader);
 
                        //Write after tags atom upto end of moov
-                        fileReadChannel.position( tagsHeader.getFilePos()  + tagsHeader.getLength());
-                        long extraData = endOfMoov - fileReadChannel.position();
-                        fileWriteChannel.transferFrom(fileReadChannel, fileWriteChannel.position(),extraData );
+                        raf.getChannel().position( tagsHeader.getFilePos()  + tagsHeader.getLength());
+                        long extraData = endOfMoov - raf.getChannel().position();
+                        rafTemp.transferFrom(raf, rafTemp.getChannel().position(),extraData );
                    }
                    else
                    {
                         //Now write the rest of children under moov which wont have changed
-                        long extraData = endOfMoov - fileReadChannel.position();
-                        fileWriteChannel.transferFrom(fileReadChannel, fileWriteChannel.position(), extraData);
-                        fileWriteChannel.position(fileWriteChannel.position() + extraData);
+                        long extraData = endOfMoov - raf.getChannel().position();
+                        rafTemp.transferFrom(raf, rafTemp.getChannel().position(), extraData);
+                        rafTemp.getChannel().position(rafTemp.getChannel().position() + extraData);
                    }
 
                    //If we have top level free atom that comes before mdat we might be able to use it but only if
@@ -651,14 +645,14 @@ public class Mp4TagWriter
                        {
                            logger.config("Writing:Option 6;Larger Size can use top free atom");
                            Mp4FreeBox freeBox = new Mp4FreeBox((topLevelFreeSize - Mp4BoxHeader.HEADER_LENGTH) - additionalMetaSizeThatWontFitWithinMetaAtom);
-                           fileWriteChannel.write(freeBox.getHeader().getHeaderData());
-                           fileWriteChannel.write(freeBox.getData());
+                           rafTemp.getChannel().write(freeBox.getHeader().getHeaderData());
+                           rafTemp.getChannel().write(freeBox.getData());
 
                            //Skip over the read channel old free atom
-                           fileReadChannel.position(fileReadChannel.position() + topLevelFreeSize);
+                           raf.getChannel().position(raf.getChannel().position() + topLevelFreeSize);
 
                            //Write Mdat
-                           writeDataInChunks(fileReadChannel,fileWriteChannel);
+                           writeDataInChunks(raf, rafTemp);
                        }
                        //If the space required is identical to total size of the free space (inc header)
                        //we could just remove the header
@@ -666,46 +660,42 @@ public class Mp4TagWriter
                        {
                            logger.config("Writing:Option 7;Larger Size uses top free atom including header");
                            //Skip over the read channel old free atom
-                           fileReadChannel.position(fileReadChannel.position() + topLevelFreeSize);
+                           raf.getChannel().position(raf.getChannel().position() + topLevelFreeSize);
 
                            //Write Mdat
-                           writeDataInChunks(fileReadChannel,fileWriteChannel);
+                           writeDataInChunks(raf, rafTemp);
                        }
                        //Mdat is going to have to move anyway, so keep free atom as is and write it and mdat
                        //(have already updated stco above)
                        else
                        {
                            logger.config("Writing:Option 8;Larger Size cannot use top free atom");
-                           fileWriteChannel.transferFrom(fileReadChannel, fileWriteChannel.position(), fileReadChannel.size() - fileReadChannel.position());
-                           writeDataInChunks(fileReadChannel,fileWriteChannel);
+                           rafTemp.transferFrom(raf, rafTemp.getChannel().position(), raf.getChannel().size() - raf.getChannel().position());
+                           writeDataInChunks(raf, rafTemp);
                        }
                    }
                    else
                    {
                        logger.config("Writing:Option 9;Top Level Free comes after Mdat or before Metadata so cant use it");
-                       writeDataInChunks(fileReadChannel,fileWriteChannel);
+                       writeDataInChunks(raf, rafTemp);
                    }
                }
            }
-           //Close all channels to original file
-           fileReadChannel.close();
-           raf.close();
-
-           checkFileWrittenCorrectly(rafTemp,mdatHeader,fileWriteChannel,stco);
+           checkFileWrittenCorrectly(rafTemp,mdatHeader,stco);
        }
 
     /**
      * #385 Write data in chunks, needed if writing large amounts of data
      *
-     * @param fileReadChannel
-     * @param fileWriteChannel
+     * @param raf
+     * @param rafTemp
      * @throws IOException
      * @throws CannotWriteException
      */
-    private void writeDataInChunks(FileChannel fileReadChannel,FileChannel fileWriteChannel)
+    private void writeDataInChunks(AudioSource raf,AudioSink rafTemp)
             throws IOException, CannotWriteException
     {
-        long amountToBeWritten=fileReadChannel.size() - fileReadChannel.position();
+        long amountToBeWritten=raf.getChannel().size() - raf.getChannel().position();
         long written   = 0;
         long chunksize = TagOptionSingleton.getInstance().getWriteChunkSize();
         long count = amountToBeWritten / chunksize;
@@ -713,10 +703,10 @@ public class Mp4TagWriter
         long mod   = amountToBeWritten % chunksize;
         for(int i = 0; i<count; i++)
         {
-            written+=fileWriteChannel.transferFrom(fileReadChannel,fileWriteChannel.position(), chunksize);
-            fileWriteChannel.position(fileWriteChannel.position() + chunksize);
+            written+=rafTemp.transferFrom(raf, rafTemp.getChannel().position(), chunksize);
+            rafTemp.getChannel().position(rafTemp.getChannel().position() + chunksize);
         }
-        written+=fileWriteChannel.transferFrom(fileReadChannel,fileWriteChannel.position(), mod);
+        written+=rafTemp.transferFrom(raf, rafTemp.getChannel().position(), mod);
         if(written!=amountToBeWritten)
         {
             throw new CannotWriteException("Was meant to write "+amountToBeWritten+" bytes but only written "+written+" bytes");
@@ -725,33 +715,33 @@ public class Mp4TagWriter
     /**
      * Replace tags atom (and children) by a free atom
      *
-     * @param fileWriteChannel
+     * @param rafTemp
      * @param tagsHeader
      * @throws IOException
      */
-    private void convertandWriteTagsAtomToFreeAtom(FileChannel fileWriteChannel, Mp4BoxHeader tagsHeader) throws IOException
+    private void convertandWriteTagsAtomToFreeAtom(AudioSink rafTemp, Mp4BoxHeader tagsHeader) throws IOException
     {
         Mp4FreeBox freeBox = new Mp4FreeBox(tagsHeader.getDataLength());
-        fileWriteChannel.write(freeBox.getHeader().getHeaderData());
-        fileWriteChannel.write(freeBox.getData());
+        rafTemp.getChannel().write(freeBox.getHeader().getHeaderData());
+        rafTemp.getChannel().write(freeBox.getData());
     }
 
     /** Write the data including new ilst
      * <p>can be used as long as we dont have to adjust the size of moov header
-     * @param fileReadChannel
-     * @param fileWriteChannel
+     * @param raf
+     * @param rafTemp
      * @param oldIlstSize
      * @param startIlstWithinFile
      * @param rawIlstData
      * @throws IOException
      */
-    private void writeDataUptoIncludingIlst(FileChannel fileReadChannel, FileChannel fileWriteChannel, int oldIlstSize, int startIlstWithinFile, ByteBuffer rawIlstData) throws IOException
+    private void writeDataUptoIncludingIlst(AudioSource raf, AudioSink rafTemp, int oldIlstSize, int startIlstWithinFile, ByteBuffer rawIlstData) throws IOException
     {
-        fileReadChannel.position(0);
-        fileWriteChannel.transferFrom(fileReadChannel, 0, startIlstWithinFile);
-        fileWriteChannel.position(startIlstWithinFile);
-        fileWriteChannel.write(rawIlstData);
-        fileReadChannel.position(startIlstWithinFile + oldIlstSize);
+        raf.getChannel().position(0);
+        rafTemp.transferFrom(raf, 0, startIlstWithinFile);
+        rafTemp.getChannel().position(startIlstWithinFile);
+        rafTemp.getChannel().write(rawIlstData);
+        raf.getChannel().position(startIlstWithinFile + oldIlstSize);
     }
 
     /**
@@ -759,23 +749,23 @@ public class Mp4TagWriter
      *
      * <p>Can be used if dont need to adjust size of moov header of modify top level free atoms
      *
-     * @param fileReadChannel
-     * @param fileWriteChannel
+     * @param raf
+     * @param rafTemp
      * @param tagsHeader
      * @throws IOException
      */
-    private void writeDataAfterIlst(FileChannel fileReadChannel, FileChannel fileWriteChannel, Mp4BoxHeader tagsHeader)
+    private void writeDataAfterIlst(AudioSource raf, AudioSink rafTemp, Mp4BoxHeader tagsHeader)
             throws IOException, CannotWriteException
     {
         if(tagsHeader!=null)
         {
              //Write from after free upto tags atom
-            writeNeroData(fileReadChannel, fileWriteChannel, tagsHeader);
+            writeNeroData(raf, rafTemp, tagsHeader);
         }
         else
         {
             //Now write the rest of the file which won't have changed
-            writeDataInChunks(fileReadChannel,fileWriteChannel);
+            writeDataInChunks(raf, rafTemp);
         }
     }
 
@@ -823,12 +813,11 @@ public class Mp4TagWriter
      * 
      * @param rafTemp
      * @param mdatHeader
-     * @param fileWriteChannel
      * @param stco
      * @throws CannotWriteException
      * @throws IOException
      */
-    private void checkFileWrittenCorrectly(RandomAccessFile rafTemp,Mp4BoxHeader mdatHeader,FileChannel fileWriteChannel, Mp4StcoBox stco)
+    private void checkFileWrittenCorrectly(AudioSink rafTemp,Mp4BoxHeader mdatHeader, Mp4StcoBox stco)
         throws CannotWriteException,IOException
     {
 
@@ -894,12 +883,6 @@ public class Mp4TagWriter
                 throw new CannotWriteException(ErrorMessage.MP4_CHANGES_TO_FILE_FAILED.getMsg() + ":" + e.getMessage());
             }
         }
-        finally
-        {
-            //Close references to new file
-            rafTemp.close();
-            fileWriteChannel.close();
-        }
         logger.config("File has been written correctly");
     }
     /**
@@ -912,7 +895,7 @@ public class Mp4TagWriter
      * @param rafTemp
      * @throws IOException
      */
-    public void delete(RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException
+    public void delete(AudioSink raf, AudioSink rafTemp) throws IOException
     {
         Mp4Tag tag = new Mp4Tag();
 
@@ -20,11 +20,11 @@ package org.jaudiotagger.audio.mp4.atom;
 
 import org.jaudiotagger.audio.exceptions.InvalidBoxHeaderException;
 import org.jaudiotagger.audio.exceptions.NullBoxIdException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.logging.ErrorMessage;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.util.logging.Logger;
@@ -255,7 +255,7 @@ public class Mp4BoxHeader
      * @throws java.io.IOException
      * @return
      */
-    public static Mp4BoxHeader seekWithinLevel(RandomAccessFile raf, String id) throws IOException
+    public static Mp4BoxHeader seekWithinLevel(AudioSource raf, String id) throws IOException
     {
         logger.finer("Started searching for:" + id + " in file at:" + raf.getChannel().position());
 
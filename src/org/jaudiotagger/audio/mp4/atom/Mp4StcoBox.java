@@ -1,11 +1,11 @@
 package org.jaudiotagger.audio.mp4.atom;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.audio.mp4.Mp4AtomIdentifier;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 
 /**
@@ -150,7 +150,7 @@ public class Mp4StcoBox extends AbstractMp4Box
         return firstOffSet;
     }
 
-    public static void debugShowStcoInfo(RandomAccessFile raf) throws IOException, CannotReadException
+    public static void debugShowStcoInfo(AudioSource raf) throws IOException, CannotReadException
     {
         Mp4BoxHeader moovHeader = Mp4BoxHeader.seekWithinLevel(raf, Mp4AtomIdentifier.MOOV.getFieldName());
         if (moovHeader == null)
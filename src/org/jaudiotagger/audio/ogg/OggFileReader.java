@@ -20,6 +20,7 @@ package org.jaudiotagger.audio.ogg;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.audio.ogg.util.OggInfoReader;
 import org.jaudiotagger.audio.ogg.util.OggPageHeader;
@@ -27,7 +28,6 @@ import org.jaudiotagger.tag.Tag;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.logging.Logger;
 
 /**
@@ -40,8 +40,8 @@ public class OggFileReader extends AudioFileReader
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg");
 
-    private OggInfoReader ir;
-    private OggVorbisTagReader vtr;
+    private final OggInfoReader ir;
+    private final OggVorbisTagReader vtr;
 
     public OggFileReader()
     {
@@ -49,12 +49,12 @@ public class OggFileReader extends AudioFileReader
         vtr = new OggVorbisTagReader();
     }
 
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException
     {
         return ir.read(raf);
     }
 
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException
+    protected Tag getTag(AudioSource raf) throws CannotReadException, IOException
     {
         return vtr.read(raf);
     }
@@ -72,7 +72,7 @@ public class OggFileReader extends AudioFileReader
      * @throws CannotReadException
      * @throws IOException
      */
-    public OggPageHeader readOggPageHeader(RandomAccessFile raf, int count) throws CannotReadException, IOException
+    public OggPageHeader readOggPageHeader(AudioSource raf, int count) throws CannotReadException, IOException
     {
         OggPageHeader pageHeader = OggPageHeader.read(raf);
         while (count > 0)
@@ -95,7 +95,7 @@ public class OggFileReader extends AudioFileReader
      */
     public void summarizeOggPageHeaders(File oggFile) throws CannotReadException, IOException
     {
-        RandomAccessFile raf = new RandomAccessFile(oggFile, "r");
+        AudioSource raf = AudioSource.open(oggFile);
 
         while (raf.getFilePointer() < raf.length())
         {
@@ -118,7 +118,7 @@ public class OggFileReader extends AudioFileReader
      */
     public void shortSummarizeOggPageHeaders(File oggFile) throws CannotReadException, IOException
     {
-        RandomAccessFile raf = new RandomAccessFile(oggFile, "r");
+        AudioSource raf = AudioSource.open(oggFile);
 
         int i = 0;
         while (raf.getFilePointer() < raf.length())
@@ -20,6 +20,7 @@
 package org.jaudiotagger.audio.ogg;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.audio.ogg.util.OggPageHeader;
 import org.jaudiotagger.audio.ogg.util.VorbisHeader;
@@ -31,7 +32,6 @@ import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.logging.Logger;
@@ -46,7 +46,7 @@ public class OggVorbisTagReader
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg");
 
-    private VorbisCommentReader vorbisCommentReader;
+    private final VorbisCommentReader vorbisCommentReader;
 
     public OggVorbisTagReader()
     {
@@ -65,7 +65,7 @@ public class OggVorbisTagReader
      * @throws CannotReadException
      * @throws IOException
      */
-    public Tag read(RandomAccessFile raf) throws CannotReadException, IOException
+    public Tag read(AudioSource raf) throws CannotReadException, IOException
     {
         logger.config("Starting to read ogg vorbis tag from file:");
         byte[] rawVorbisCommentData = readRawPacketData(raf);
@@ -84,7 +84,7 @@ public class OggVorbisTagReader
      * @throws CannotReadException
      * @throws IOException
      */
-    public int readOggVorbisRawSize(RandomAccessFile raf) throws CannotReadException, IOException
+    public int readOggVorbisRawSize(AudioSource raf) throws CannotReadException, IOException
     {
         byte[] rawVorbisCommentData = readRawPacketData(raf);
         return rawVorbisCommentData.length + VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH;
@@ -98,7 +98,7 @@ public class OggVorbisTagReader
      * @throws CannotReadException if unable to find vorbiscomment header
      * @throws IOException
      */
-    public byte[] readRawPacketData(RandomAccessFile raf) throws CannotReadException, IOException
+    public byte[] readRawPacketData(AudioSource raf) throws CannotReadException, IOException
     {
         logger.fine("Read 1st page");
         //1st page = codec infos
@@ -159,7 +159,7 @@ public class OggVorbisTagReader
      * @throws java.io.IOException
      * @return
      */
-    private byte[] convertToVorbisCommentPacket(OggPageHeader startVorbisCommentPage, RandomAccessFile raf) throws IOException, CannotReadException
+    private byte[] convertToVorbisCommentPacket(OggPageHeader startVorbisCommentPage, AudioSource raf) throws IOException, CannotReadException
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         byte[] b = new byte[startVorbisCommentPage.getPacketList().get(0).getLength() - (VorbisHeader.FIELD_PACKET_TYPE_LENGTH + VorbisHeader.FIELD_CAPTURE_PATTERN_LENGTH)];
@@ -217,7 +217,7 @@ public class OggVorbisTagReader
      * @throws java.io.IOException
      * @return
      */
-    public byte[] convertToVorbisSetupHeaderPacket(long fileOffsetOfStartingOggPage, RandomAccessFile raf) throws IOException, CannotReadException
+    public byte[] convertToVorbisSetupHeaderPacket(long fileOffsetOfStartingOggPage, AudioSource raf) throws IOException, CannotReadException
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
@@ -304,7 +304,7 @@ public class OggVorbisTagReader
      * @throws java.io.IOException
      * @return
      */
-    public byte[] convertToVorbisSetupHeaderPacketAndAdditionalPackets(long fileOffsetOfStartingOggPage, RandomAccessFile raf) throws IOException, CannotReadException
+    public byte[] convertToVorbisSetupHeaderPacketAndAdditionalPackets(long fileOffsetOfStartingOggPage, AudioSource raf) throws IOException, CannotReadException
     {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
@@ -398,7 +398,7 @@ public class OggVorbisTagReader
      * @throws CannotReadException
      * @throws IOException
      */
-    public OggVorbisHeaderSizes readOggVorbisHeaderSizes(RandomAccessFile raf) throws CannotReadException, IOException
+    public OggVorbisHeaderSizes readOggVorbisHeaderSizes(AudioSource raf) throws CannotReadException, IOException
     {
         logger.fine("Started to read comment and setup header sizes:");
 
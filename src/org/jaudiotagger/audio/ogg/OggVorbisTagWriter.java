@@ -21,6 +21,7 @@ package org.jaudiotagger.audio.ogg;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.audio.ogg.util.OggCRCFactory;
 import org.jaudiotagger.audio.ogg.util.OggPageHeader;
 import org.jaudiotagger.tag.Tag;
@@ -28,7 +29,6 @@ import org.jaudiotagger.tag.vorbiscomment.VorbisCommentTag;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.List;
@@ -44,10 +44,10 @@ public class OggVorbisTagWriter
     // Logger Object
     public static Logger logger = Logger.getLogger("org.jaudiotagger.audio.ogg");
 
-    private OggVorbisCommentTagCreator tc = new OggVorbisCommentTagCreator();
-    private OggVorbisTagReader reader = new OggVorbisTagReader();
+    private final OggVorbisCommentTagCreator tc = new OggVorbisCommentTagCreator();
+    private final OggVorbisTagReader reader = new OggVorbisTagReader();
 
-    public void delete(RandomAccessFile raf, RandomAccessFile tempRaf) throws IOException, CannotReadException, CannotWriteException
+    public void delete(AudioSink raf, AudioSink tempRaf) throws IOException, CannotReadException, CannotWriteException
     {
         try
         {
@@ -66,7 +66,7 @@ public class OggVorbisTagWriter
         write(emptyTag, raf, tempRaf);
     }
 
-    public void write(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotReadException, CannotWriteException, IOException
+    public void write(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotReadException, CannotWriteException, IOException
     {
         logger.config("Starting to write file:");
 
@@ -76,7 +76,7 @@ public class OggVorbisTagWriter
         raf.seek(pageHeader.getStartByte());
 
         //Write 1st page (unchanged) and place writer pointer at end of data
-        rafTemp.getChannel().transferFrom(raf.getChannel(), 0, pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length);
+        rafTemp.transferFrom(raf, 0, pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length);
         rafTemp.skipBytes(pageHeader.getPageLength() + OggPageHeader.OGG_PAGE_HEADER_FIXED_LENGTH + pageHeader.getSegmentTable().length);
         logger.fine("Written identificationHeader:");
 
@@ -228,8 +228,8 @@ public class OggVorbisTagWriter
             OggPageHeader secondPageHeader,
             ByteBuffer newComment,
             long secondPageHeaderEndPos,
-            RandomAccessFile raf,
-            RandomAccessFile rafTemp) throws IOException
+            AudioSink raf,
+            AudioSink rafTemp) throws IOException
     {
         logger.fine("WriteOgg Type 1");
         ByteBuffer secondPageBuffer = startCreateBasicSecondPage(vorbisHeaderSizes, newCommentLength, newSecondPageLength, secondPageHeader, newComment);
@@ -241,7 +241,7 @@ public class OggVorbisTagWriter
         raf.getChannel().read(secondPageBuffer);
         calculateChecksumOverPage(secondPageBuffer);
         rafTemp.getChannel().write(secondPageBuffer);
-        rafTemp.getChannel().transferFrom(raf.getChannel(), rafTemp.getFilePointer(), raf.length() - raf.getFilePointer());
+        rafTemp.transferFrom(raf, rafTemp.getFilePointer(), raf.length() - raf.getFilePointer());
     }
 
     /**
@@ -259,7 +259,7 @@ public class OggVorbisTagWriter
      * @throws org.jaudiotagger.audio.exceptions.CannotReadException
      * @throws org.jaudiotagger.audio.exceptions.CannotWriteException
      */
-    private void replaceSecondPageAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, int newSecondPageLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    private void replaceSecondPageAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, int newSecondPageLength, OggPageHeader secondPageHeader, ByteBuffer newComment, AudioSink raf, AudioSink rafTemp) throws IOException, CannotReadException, CannotWriteException
     {
         logger.fine("WriteOgg Type 2");
         ByteBuffer secondPageBuffer = startCreateBasicSecondPage(originalHeaderSizes, newCommentLength, newSecondPageLength, secondPageHeader, newComment);
@@ -289,7 +289,7 @@ public class OggVorbisTagWriter
      * @throws CannotReadException
      * @throws CannotWriteException
      */
-    private void replacePagesAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, OggPageHeader secondPageHeader, ByteBuffer newComment, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    private void replacePagesAndRenumberPageSeqs(OggVorbisTagReader.OggVorbisHeaderSizes originalHeaderSizes, int newCommentLength, OggPageHeader secondPageHeader, ByteBuffer newComment, AudioSink raf, AudioSink rafTemp) throws IOException, CannotReadException, CannotWriteException
     {
         int pageSequence = secondPageHeader.getPageSequence();
 
@@ -441,7 +441,7 @@ public class OggVorbisTagWriter
      * @throws CannotReadException
      * @throws CannotWriteException
      */
-    public void writeRemainingPages(int pageSequence, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    public void writeRemainingPages(int pageSequence, AudioSink raf, AudioSink rafTemp) throws IOException, CannotReadException, CannotWriteException
     {
         long startAudio = raf.getFilePointer();
         long startAudioWritten = rafTemp.getFilePointer();
@@ -482,7 +482,7 @@ public class OggVorbisTagWriter
             throw new CannotWriteException("File written counts don't match, file not written");
         }
     }
-    public void writeRemainingPagesOld(int pageSequence, RandomAccessFile raf, RandomAccessFile rafTemp) throws IOException, CannotReadException, CannotWriteException
+    public void writeRemainingPagesOld(int pageSequence, AudioSink raf, AudioSink rafTemp) throws IOException, CannotReadException, CannotWriteException
         {
         //Now the Page Sequence Number for all the subsequent pages (containing audio frames) are out because there are
         //less pages before then there used to be, so need to adjust
@@ -19,12 +19,12 @@
 package org.jaudiotagger.audio.ogg.util;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.id3.AbstractID3v2Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -142,7 +142,7 @@ public class OggPageHeader
      * @throws IOException
      * @throws CannotReadException
      */
-    public static OggPageHeader read(RandomAccessFile raf) throws IOException, CannotReadException
+    public static OggPageHeader read(AudioSource raf) throws IOException, CannotReadException
     {
         long start = raf.getFilePointer();
         logger.fine("Trying to read OggPage at:" + start);
@@ -3,9 +3,9 @@ package org.jaudiotagger.audio.real;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 
 public class RealChunk {
@@ -21,7 +21,7 @@ public class RealChunk {
 	private final int size;
 	private final byte[] bytes;
 
-	public static RealChunk readChunk(RandomAccessFile raf)
+	public static RealChunk readChunk(AudioSource raf)
 			throws CannotReadException, IOException {
 		final String id = Utils.readString(raf, 4);
 		final int size = Utils.readUint32AsInt(raf);
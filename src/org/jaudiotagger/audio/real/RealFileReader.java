@@ -2,6 +2,7 @@ package org.jaudiotagger.audio.real;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
 import org.jaudiotagger.audio.generic.AudioFileReader;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.tag.FieldDataInvalidException;
@@ -10,7 +11,6 @@ import org.jaudiotagger.tag.Tag;
 
 import java.io.DataInputStream;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 /**
  * Real Media File Format: Major Chunks: .RMF PROP MDPR CONT DATA INDX
@@ -19,7 +19,7 @@ public class RealFileReader extends AudioFileReader
 {
 
     @Override
-    protected GenericAudioHeader getEncodingInfo(RandomAccessFile raf) throws CannotReadException, IOException
+    protected GenericAudioHeader getEncodingInfo(AudioSource raf) throws CannotReadException, IOException
     {
         final GenericAudioHeader rv = new GenericAudioHeader();
         final RealChunk prop = findPropChunk(raf);
@@ -45,14 +45,14 @@ public class RealFileReader extends AudioFileReader
         return rv;
     }
 
-    private RealChunk findPropChunk(RandomAccessFile raf) throws IOException, CannotReadException
+    private RealChunk findPropChunk(AudioSource raf) throws IOException, CannotReadException
     {
         final RealChunk rmf = RealChunk.readChunk(raf);
         final RealChunk prop = RealChunk.readChunk(raf);
         return prop;
     }
 
-    private RealChunk findContChunk(RandomAccessFile raf) throws IOException, CannotReadException
+    private RealChunk findContChunk(AudioSource raf) throws IOException, CannotReadException
     {
         final RealChunk rmf = RealChunk.readChunk(raf);
         final RealChunk prop = RealChunk.readChunk(raf);
@@ -62,7 +62,7 @@ public class RealFileReader extends AudioFileReader
     }
 
     @Override
-    protected Tag getTag(RandomAccessFile raf) throws CannotReadException, IOException
+    protected Tag getTag(AudioSource raf) throws CannotReadException, IOException
     {
         final RealChunk cont = findContChunk(raf);
         final DataInputStream dis = cont.getDataInputStream();
@@ -20,19 +20,19 @@ package org.jaudiotagger.audio.wav;
 
 import org.jaudiotagger.audio.exceptions.CannotWriteException;
 import org.jaudiotagger.audio.generic.AudioFileWriter;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.tag.Tag;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 public class WavFileWriter extends AudioFileWriter
 {
-    protected void writeTag(Tag tag, RandomAccessFile raf, RandomAccessFile rafTemp) throws CannotWriteException, IOException
+    protected void writeTag(Tag tag, AudioSink raf, AudioSink rafTemp) throws CannotWriteException, IOException
     {
         //Nothing to do for wav file, no tag are supported
     }
 
-    protected void deleteTag(RandomAccessFile raf, RandomAccessFile tempRaf) throws CannotWriteException, IOException
+    protected void deleteTag(AudioSink raf, AudioSink tempRaf) throws CannotWriteException, IOException
     {
         //Nothing to do for wav file, no tag are supported
     }
@@ -19,14 +19,14 @@
 package org.jaudiotagger.audio.wav.util;
 
 import org.jaudiotagger.audio.exceptions.CannotReadException;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.GenericAudioHeader;
 
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 public class WavInfoReader
 {
-    public GenericAudioHeader read(RandomAccessFile raf) throws CannotReadException, IOException
+    public GenericAudioHeader read(AudioSource raf) throws CannotReadException, IOException
     {
         // Reads wav header----------------------------------------
         GenericAudioHeader info = new GenericAudioHeader();
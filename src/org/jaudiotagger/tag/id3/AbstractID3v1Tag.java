@@ -24,11 +24,12 @@
  */
 package org.jaudiotagger.tag.id3;
 
+import org.jaudiotagger.audio.generic.AudioSink;
+
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
-import java.nio.channels.FileChannel;
 import java.util.Arrays;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -119,21 +120,31 @@ abstract public class AbstractID3v1Tag extends AbstractID3Tag
      * @throws IOException if there was a problem accessing the file
      */
     public void delete(RandomAccessFile file) throws IOException
+    {
+        delete(new AudioSink(file.getChannel()));
+    }
+
+    /**
+     * Delete tag from the audio of a sink, which may be held in memory
+     * Looks for tag and if found lops it off the audio.
+     *
+     * @param file to delete the tag from
+     * @throws IOException if there was a problem accessing the audio
+     */
+    public void delete(AudioSink file) throws IOException
     {
         //Read into Byte Buffer
         logger.config("Deleting ID3v1 from file if exists");
 
-        FileChannel fc;
         ByteBuffer byteBuffer;
-        fc = file.getChannel();
 
         if(file.length() < TAG_LENGTH)
         {
             throw new IOException("File not not appear large enough to contain a tag");
         }
-        fc.position(file.length() - TAG_LENGTH);
+        file.seek(file.length() - TAG_LENGTH);
         byteBuffer = ByteBuffer.allocate(TAG_LENGTH);
-        fc.read(byteBuffer);
+        file.getChannel().read(byteBuffer);
         byteBuffer.rewind();
         if (AbstractID3v1Tag.seekForV1OrV11Tag(byteBuffer))
         {
@@ -19,6 +19,8 @@ import org.jaudiotagger.audio.AudioFile;
 import org.jaudiotagger.audio.exceptions.UnableToCreateFileException;
 import org.jaudiotagger.audio.exceptions.UnableToModifyFileException;
 import org.jaudiotagger.audio.exceptions.UnableToRenameFileException;
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.logging.ErrorMessage;
@@ -121,7 +123,7 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
      * @return
      * @throws IOException
      */
-    private static boolean isID3V2Header(RandomAccessFile raf) throws IOException
+    private static boolean isID3V2Header(AudioSource raf) throws IOException
     {
         long start = raf.getFilePointer();
         byte[] tagIdentifier = new byte[FIELD_TAGID_LENGTH];
@@ -144,7 +146,7 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
      * @return
      * @throws IOException
      */
-    public static boolean isId3Tag(RandomAccessFile raf) throws IOException
+    public static boolean isId3Tag(AudioSource raf) throws IOException
     {
         if (!isID3V2Header(raf))
         {
@@ -935,15 +937,25 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
      */
     //TODO should clear all data and preferably recover lost space and go upto end of mp3s 
     public void delete(RandomAccessFile file) throws IOException
+    {
+        delete(new AudioSink(file.getChannel()));
+    }
+
+    /**
+     * Delete Tag from the audio of a sink, which may be held in memory
+     *
+     * @param file to delete the tag from
+     * @throws IOException if problem accessing the audio
+     */
+    public void delete(AudioSink file) throws IOException
     {
         // this works by just erasing the "ID3" tag at the beginning
         // of the file
         byte[] buffer = new byte[FIELD_TAGID_LENGTH];
         //Read into Byte Buffer
-        final FileChannel fc = file.getChannel();
-        fc.position();
         ByteBuffer byteBuffer = ByteBuffer.allocate(TAG_HEADER_LENGTH);
-        fc.read(byteBuffer, 0);
+        file.seek(0L);
+        file.getChannel().read(byteBuffer);
         byteBuffer.flip();
         if (seek(byteBuffer))
         {
@@ -1048,6 +1060,20 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
      */
     public abstract long write(File file, long audioStartByte) throws IOException;
 
+    /**
+     * Write tag to the audio of a sink, which may be held in memory.
+     *
+     * The tag is written in place when it fits before the audio, as to a file, otherwise the tag and the
+     * audio are written to the empty temporary sink.
+     *
+     * @param raf
+     * @param tempRaf
+     * @param audioStartByte
+     * @return new audioStartByte - different only if the audio content had to be moved
+     * @throws IOException
+     */
+    public abstract long write(AudioSink raf, AudioSink tempRaf, long audioStartByte) throws IOException;
+
     /**
      * Get file lock for writing too file
      *
@@ -1125,35 +1151,35 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
      */
     public static long getV2TagSizeIfExists(File file) throws IOException
     {
-        FileInputStream fis = null;
-        FileChannel fc = null;
-        ByteBuffer bb = null;
+        AudioSource raf = AudioSource.open(file);
         try
         {
-            //Files
-            fis = new FileInputStream(file);
-            fc = fis.getChannel();
-
-            //Read possible Tag header  Byte Buffer
-            bb = ByteBuffer.allocate(TAG_HEADER_LENGTH);
-            fc.read(bb);
-            bb.flip();
-            if (bb.limit() < (TAG_HEADER_LENGTH))
-            {
-                return 0;
-            }
+            return getV2TagSizeIfExists(raf);
         }
         finally
         {
-            if (fc != null)
-            {
-                fc.close();
-            }
+            raf.close();
+        }
+    }
 
-            if (fis != null)
-            {
-                fis.close();
-            }
+    /**
+     * Checks to see if the audio of a source, which may be held in memory, starts with an ID3tag, as
+     * {@link #getV2TagSizeIfExists(File)}.
+     *
+     * @param raf
+     * @return the end of the tag in the audio or zero if no tag exists.
+     * @throws java.io.IOException
+     */
+    public static long getV2TagSizeIfExists(AudioSource raf) throws IOException
+    {
+        //Read possible Tag header  Byte Buffer
+        ByteBuffer bb = ByteBuffer.allocate(TAG_HEADER_LENGTH);
+        raf.seek(0);
+        raf.getChannel().read(bb);
+        bb.flip();
+        if (bb.limit() < (TAG_HEADER_LENGTH))
+        {
+            return 0;
         }
 
         //ID3 identifier
@@ -1468,6 +1494,45 @@ public abstract class AbstractID3v2Tag extends AbstractID3Tag implements Tag
         }
     }
 
+    /**
+     * Write the data from the buffer to the audio of a sink, in place if it fits before the audio,
+     * otherwise followed by the audio to the temporary sink
+     *
+     * @param raf
+     * @param tempRaf
+     * @param headerBuffer
+     * @param bodyByteBuffer
+     * @param padding
+     * @param sizeIncPadding
+     * @param audioStartLocation
+     * @throws IOException
+     */
+    protected void writeBufferToSink(AudioSink raf, AudioSink tempRaf, ByteBuffer headerBuffer, byte[] bodyByteBuffer, int padding, int sizeIncPadding, long audioStartLocation) throws IOException
+    {
+        AudioSink out = raf;
+
+        //We need to adjust location of audio if true
+        if (sizeIncPadding > audioStartLocation)
+        {
+            logger.finest("Adjusting Padding");
+            //Write padding first, the audio cannot be transferred beyond the end of a file
+            tempRaf.seek(0);
+            tempRaf.write(new byte[sizeIncPadding]);
+            long audiolength = raf.length() - audioStartLocation;
+            raf.seek(audioStartLocation);
+            long written = tempRaf.transferFrom(raf, sizeIncPadding, audiolength);
+            if (written != audiolength)
+            {
+                throw new IOException(ErrorMessage.MP3_UNABLE_TO_ADJUST_PADDING.getMsg(audiolength, written));
+            }
+            out = tempRaf;
+        }
+        out.seek(0);
+        out.getChannel().write(headerBuffer);
+        out.write(bodyByteBuffer);
+        out.write(new byte[padding]);
+    }
+
     /**
      * Replace originalFile with the contents of newFile
      *
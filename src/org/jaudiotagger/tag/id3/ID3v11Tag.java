@@ -24,6 +24,8 @@
  */
 package org.jaudiotagger.tag.id3;
 
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.logging.ErrorMessage;
@@ -33,7 +35,6 @@ import org.jaudiotagger.tag.id3.framebody.*;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
@@ -225,15 +226,26 @@ public class ID3v11Tag extends ID3v1Tag
      * @throws IOException
      */
     public ID3v11Tag(RandomAccessFile file, String loggingFilename) throws TagNotFoundException, IOException
+    {
+        this(new AudioSource(file.getChannel()), loggingFilename);
+    }
+
+    /**
+     * Creates a new ID3v11 datatype from audio read from a source, which may be held in memory.
+     *
+     * @param file
+     * @param loggingFilename
+     * @throws TagNotFoundException
+     * @throws IOException
+     */
+    public ID3v11Tag(AudioSource file, String loggingFilename) throws TagNotFoundException, IOException
     {
         setLoggingFilename(loggingFilename);
-        FileChannel fc;
         ByteBuffer byteBuffer = ByteBuffer.allocate(TAG_LENGTH);
 
-        fc = file.getChannel();
-        fc.position(file.length() - TAG_LENGTH);
+        file.seek(file.length() - TAG_LENGTH);
 
-        fc.read(byteBuffer);
+        file.getChannel().read(byteBuffer);
         byteBuffer.flip();
         read(byteBuffer);
 
@@ -542,6 +554,17 @@ public class ID3v11Tag extends ID3v1Tag
      * @throws IOException thrown if there were problems writing to the file
      */
     public void write(RandomAccessFile file) throws IOException
+    {
+        write(new AudioSink(file.getChannel()));
+    }
+
+    /**
+     * Write this representation of tag to the audio of a sink, which may be held in memory
+     *
+     * @param file that this tag should be written to
+     * @throws IOException thrown if there were problems writing to the audio of a sink
+     */
+    public void write(AudioSink file) throws IOException
     {
         logger.config("Saving ID3v11 tag to file");
         byte[] buffer = new byte[TAG_LENGTH];
@@ -23,6 +23,8 @@
  */
 package org.jaudiotagger.tag.id3;
 
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
 import org.jaudiotagger.audio.generic.Utils;
 import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.logging.ErrorMessage;
@@ -34,7 +36,6 @@ import org.jaudiotagger.tag.vorbiscomment.VorbisCommentFieldKey;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.util.*;
 import java.util.regex.Matcher;
 
@@ -184,15 +185,26 @@ public class ID3v1Tag extends AbstractID3v1Tag implements Tag
      * @throws IOException
      */
     public ID3v1Tag(RandomAccessFile file, String loggingFilename) throws TagNotFoundException, IOException
+    {
+        this(new AudioSource(file.getChannel()), loggingFilename);
+    }
+
+    /**
+     * Creates a new ID3v1 datatype from audio read from a source, which may be held in memory.
+     *
+     * @param file
+     * @param loggingFilename
+     * @throws TagNotFoundException
+     * @throws IOException
+     */
+    public ID3v1Tag(AudioSource file, String loggingFilename) throws TagNotFoundException, IOException
     {
         setLoggingFilename(loggingFilename);
-        FileChannel fc;
         ByteBuffer byteBuffer;
 
-        fc = file.getChannel();
-        fc.position(file.length() - TAG_LENGTH);
+        file.seek(file.length() - TAG_LENGTH);
         byteBuffer = ByteBuffer.allocate(TAG_LENGTH);
-        fc.read(byteBuffer);
+        file.getChannel().read(byteBuffer);
         byteBuffer.flip();
         read(byteBuffer);
     }
@@ -983,6 +995,17 @@ public class ID3v1Tag extends AbstractID3v1Tag implements Tag
      * @throws IOException
      */
     public void write(RandomAccessFile file) throws IOException
+    {
+        write(new AudioSink(file.getChannel()));
+    }
+
+    /**
+     * Write this tag to the audio of a sink, replacing any tag previously existing
+     *
+     * @param file
+     * @throws IOException
+     */
+    public void write(AudioSink file) throws IOException
     {
         logger.config("Saving ID3v1 tag to file");
         byte[] buffer = new byte[TAG_LENGTH];
@@ -119,7 +119,7 @@ public class ID3v22Frames extends ID3Frames
     protected EnumMap<ID3v22FieldKey, FieldKey> id3ToTagField = new EnumMap<ID3v22FieldKey,FieldKey>(ID3v22FieldKey.class);
 
 
-    public static ID3v22Frames getInstanceOf()
+    public static synchronized ID3v22Frames getInstanceOf()
     {
         if (id3v22Frames == null)
         {
@@ -16,6 +16,7 @@
 package org.jaudiotagger.tag.id3;
 
 import org.jaudiotagger.FileConstants;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.*;
@@ -532,6 +533,36 @@ public class ID3v22Tag extends AbstractID3v2Tag
         return sizeIncPadding;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long write(AudioSink raf, AudioSink tempRaf, long audioStartLocation) throws IOException
+    {
+        logger.config("Writing tag to sink:"+getLoggingFilename());
+
+        // Write Body Buffer
+        byte[] bodyByteBuffer = writeFramesToBuffer().toByteArray();
+
+        // Unsynchronize if option enabled and unsync required
+        unsynchronization = TagOptionSingleton.getInstance().isUnsyncTags() && ID3Unsynchronization.requiresUnsynchronization(bodyByteBuffer);
+        if (isUnsynchronization())
+        {
+            bodyByteBuffer = ID3Unsynchronization.unsynchronize(bodyByteBuffer);
+            logger.config(getLoggingFilename() + ":bodybytebuffer:sizeafterunsynchronisation:" + bodyByteBuffer.length);
+        }
+
+        int sizeIncPadding = calculateTagSize(bodyByteBuffer.length + TAG_HEADER_LENGTH, (int) audioStartLocation);
+        int padding = sizeIncPadding - (bodyByteBuffer.length + TAG_HEADER_LENGTH);
+        logger.config(getLoggingFilename() + ":Current audiostart:" + audioStartLocation);
+        logger.config(getLoggingFilename() + ":Size including padding:" + sizeIncPadding);
+        logger.config(getLoggingFilename() + ":Padding:" + padding);
+
+        ByteBuffer headerBuffer = writeHeaderToBuffer(padding, bodyByteBuffer.length);
+        writeBufferToSink(raf, tempRaf, headerBuffer, bodyByteBuffer,padding,sizeIncPadding,audioStartLocation);
+        return sizeIncPadding;
+    }
+
 
     /**
      * {@inheritDoc}
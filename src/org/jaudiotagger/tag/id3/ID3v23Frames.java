@@ -134,7 +134,7 @@ public class ID3v23Frames extends ID3Frames
      */
     protected EnumMap<ID3v23FieldKey, FieldKey> id3ToTagField = new EnumMap<ID3v23FieldKey,FieldKey>(ID3v23FieldKey.class);
     
-    public static ID3v23Frames getInstanceOf()
+    public static synchronized ID3v23Frames getInstanceOf()
     {
         if (id3v23Frames == null)
         {
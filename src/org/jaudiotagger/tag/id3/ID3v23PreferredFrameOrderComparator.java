@@ -115,7 +115,7 @@ public class ID3v23PreferredFrameOrderComparator implements Comparator<String>
 
     }
 
-    public static ID3v23PreferredFrameOrderComparator getInstanceof()
+    public static synchronized ID3v23PreferredFrameOrderComparator getInstanceof()
     {
         if(comparator==null)
         {
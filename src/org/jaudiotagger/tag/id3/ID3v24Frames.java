@@ -136,7 +136,7 @@ public class ID3v24Frames extends ID3Frames
 
     private static ID3v24Frames id3v24Frames;
 
-    public static ID3v24Frames getInstanceOf()
+    public static synchronized ID3v24Frames getInstanceOf()
     {
         if (id3v24Frames == null)
         {
@@ -16,6 +16,7 @@
 package org.jaudiotagger.tag.id3;
 
 import org.jaudiotagger.FileConstants;
+import org.jaudiotagger.audio.generic.AudioSink;
 import org.jaudiotagger.audio.mp3.MP3File;
 import org.jaudiotagger.logging.ErrorMessage;
 import org.jaudiotagger.tag.*;
@@ -1089,6 +1090,28 @@ public class ID3v24Tag extends AbstractID3v2Tag
         return sizeIncPadding;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long write(AudioSink raf, AudioSink tempRaf, long audioStartLocation) throws IOException
+    {
+        logger.config("Writing tag to sink:"+getLoggingFilename());
+
+        //Write Body Buffer
+        byte[] bodyByteBuffer = writeFramesToBuffer().toByteArray();
+
+        //Calculate Tag Size including Padding
+        int sizeIncPadding = calculateTagSize(bodyByteBuffer.length + TAG_HEADER_LENGTH, (int) audioStartLocation);
+
+        //Calculate padding bytes required
+        int padding = sizeIncPadding - (bodyByteBuffer.length + TAG_HEADER_LENGTH);
+
+        ByteBuffer headerBuffer = writeHeaderToBuffer(padding, bodyByteBuffer.length);
+        writeBufferToSink(raf, tempRaf, headerBuffer, bodyByteBuffer, padding, sizeIncPadding, audioStartLocation);
+        return sizeIncPadding;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -35,7 +35,7 @@ public class ID3v2ChapterFrames extends ID3Frames
 
     private static ID3v2ChapterFrames id3v2ChapterFrames;
 
-    public static ID3v2ChapterFrames getInstanceOf()
+    public static synchronized ID3v2ChapterFrames getInstanceOf()
     {
         if (id3v2ChapterFrames == null)
         {
@@ -88,7 +88,7 @@ public class ITunesRating extends ID3Rating
         return  newValue;
     }
 
-    public static ID3Rating getInstance()
+    public static synchronized ID3Rating getInstance()
     {
         if(rating==null)
         {
@@ -137,7 +137,7 @@ public class MediaMonkeyPlayerRating  extends ID3Rating
         return  newValue;
     }
 
-     public static ID3Rating getInstance()
+     public static synchronized ID3Rating getInstance()
     {
         if(rating==null)
         {
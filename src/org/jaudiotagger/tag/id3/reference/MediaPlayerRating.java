@@ -84,7 +84,7 @@ public class MediaPlayerRating extends ID3Rating
         return  newValue;
     }
 
-    public static ID3Rating getInstance()
+    public static synchronized ID3Rating getInstance()
     {
         if(rating==null)
         {
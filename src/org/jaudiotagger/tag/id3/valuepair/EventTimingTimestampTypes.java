@@ -28,7 +28,7 @@ public class EventTimingTimestampTypes extends AbstractIntStringValuePair
 
     private static EventTimingTimestampTypes eventTimingTimestampTypes;
 
-    public static EventTimingTimestampTypes getInstanceOf()
+    public static synchronized EventTimingTimestampTypes getInstanceOf()
     {
         if (eventTimingTimestampTypes == null)
         {
@@ -27,7 +27,7 @@ public class InterpolationTypes extends AbstractIntStringValuePair
 {
     private static InterpolationTypes interpolationTypes;
 
-    public static InterpolationTypes getInstanceOf()
+    public static synchronized InterpolationTypes getInstanceOf()
     {
         if (interpolationTypes == null)
         {
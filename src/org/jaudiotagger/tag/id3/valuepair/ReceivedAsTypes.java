@@ -35,7 +35,7 @@ public class ReceivedAsTypes extends AbstractIntStringValuePair
 
     private static ReceivedAsTypes receivedAsTypes;
 
-    public static ReceivedAsTypes getInstanceOf()
+    public static synchronized ReceivedAsTypes getInstanceOf()
     {
         if (receivedAsTypes == null)
         {
@@ -9,7 +9,7 @@ public class SynchronisedLyricsContentType extends AbstractIntStringValuePair
 {
     private static SynchronisedLyricsContentType eventTimingTypes;
 
-    public static SynchronisedLyricsContentType getInstanceOf()
+    public static synchronized SynchronisedLyricsContentType getInstanceOf()
     {
         if (SynchronisedLyricsContentType.eventTimingTypes == null)
         {
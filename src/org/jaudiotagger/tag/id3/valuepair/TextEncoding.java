@@ -59,7 +59,7 @@ public class TextEncoding extends AbstractIntStringValuePair
 
     private static TextEncoding textEncodings;
 
-    public static TextEncoding getInstanceOf()
+    public static synchronized TextEncoding getInstanceOf()
     {
         if (textEncodings == null)
         {
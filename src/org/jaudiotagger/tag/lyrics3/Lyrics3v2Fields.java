@@ -37,7 +37,7 @@ public class Lyrics3v2Fields extends AbstractStringStringValuePair
      */
     public static final String CRLF = new String(crlfByte);
 
-    public static Lyrics3v2Fields getInstanceOf()
+    public static synchronized Lyrics3v2Fields getInstanceOf()
     {
         if (lyrics3Fields == null)
         {
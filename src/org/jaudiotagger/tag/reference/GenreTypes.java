@@ -53,7 +53,7 @@ public class GenreTypes extends AbstractIntStringValuePair
 
     private static GenreTypes genreTypes;
 
-    public static GenreTypes getInstanceOf()
+    public static synchronized GenreTypes getInstanceOf()
     {
         if (genreTypes == null)
         {
@@ -0,0 +1,289 @@
+/**
+ * Jaudiotagger Copyright (C)2004,2005
+ *
+ * This library is free software; you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public  License as published by the Free Software Foundation; either version 2.1 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library; if not,
+ * you can get a copy from http://www.opensource.org/licenses/lgpl-license.php or write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * Description:
+ */
+package org.jaudiotagger.test;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.generic.AudioSink;
+import org.jaudiotagger.audio.generic.AudioSource;
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks that audio held in memory is read and tagged as a file is, for one sample file of each format.
+ *
+ * For each sample the tag and header read from the file and from memory are compared, then the same tag
+ * is written three ways: committed to a copy of the file, written through the channels of a copy of the
+ * file, and written in memory.  The three results must be byte identical.  This is done for a short title,
+ * which is usually written in place, for a long comment, which usually moves the audio, and for the deletion
+ * of the tag.  A format which cannot be tagged as a file is only read.  The exit status is one when any
+ * check failed.
+ *
+ * <pre>
+ * java org.jaudiotagger.test.TestAudioSource sample.mp3 sample.flac ...
+ * </pre>
+ */
+public class TestAudioSource
+{
+    private static final int LONG_COMMENT_LENGTH = 20000;
+
+    private final File work;
+
+    public TestAudioSource(File work)
+    {
+        this.work = work;
+    }
+
+    public static void main(final String[] args) throws IOException
+    {
+        List<File> samples = new ArrayList<File>();
+        for (String arg : args)
+        {
+            File sample = new File(arg);
+            if (!sample.isFile())
+            {
+                System.err.println("usage TestAudioSource sample...");
+                System.err.println("      Sample " + arg + " could not be found");
+                System.exit(1);
+            }
+            samples.add(sample);
+        }
+        if (samples.isEmpty())
+        {
+            System.err.println("usage TestAudioSource sample...");
+            System.err.println("      You must enter a sample file of each format tested");
+            System.exit(1);
+        }
+
+        File work = Files.createTempDirectory("jaudiotagger").toFile();
+        TestAudioSource test = new TestAudioSource(work);
+        int failed = 0;
+        try
+        {
+            for (File sample : samples)
+            {
+                failed += test.run(sample);
+            }
+        }
+        finally
+        {
+            for (File file : work.listFiles())
+            {
+                file.delete();
+            }
+            work.delete();
+        }
+        System.out.println("Failed:" + failed);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * @param sample Sample file of one format
+     * @return Number of failed checks
+     */
+    public int run(final File sample) throws IOException
+    {
+        final String ext = Utils.getExtension(sample);
+        final byte[] data = Files.readAllBytes(sample.toPath());
+        int failed = 0;
+
+        try
+        {
+            String fromFile = describe(AudioFileIO.read(sample));
+            String fromMemory = describe(AudioFileIO.read(AudioSource.wrap(data), ext));
+            if (!fromFile.equals(fromMemory))
+            {
+                System.out.println(sample.getName() + ": read from memory " + fromMemory + " from file " + fromFile);
+                failed++;
+            }
+        }
+        catch (Exception e)
+        {
+            System.out.println(sample.getName() + ": unable to read:" + e);
+            return failed + 1;
+        }
+
+        StringBuilder longComment = new StringBuilder(LONG_COMMENT_LENGTH);
+        while (longComment.length() < LONG_COMMENT_LENGTH)
+        {
+            longComment.append("comment ");
+        }
+
+        int checked = 0;
+        String[][] edits = {{"title", FieldKey.TITLE.name(), "Title"}, {"comment", FieldKey.COMMENT.name(), longComment.toString()}, {"delete", null, null}};
+        for (String[] edit : edits)
+        {
+            try
+            {
+                byte[] committed = commit(sample, ext, edit[1], edit[2]);
+                if (committed == null)
+                {
+                    System.out.println(sample.getName() + ": not writable, read only");
+                    break;
+                }
+                byte[] channels = writeChannels(sample, ext, edit[1], edit[2]);
+                byte[] memory = writeMemory(data, ext, edit[1], edit[2]);
+                if (!Arrays.equals(committed, channels))
+                {
+                    System.out.println(sample.getName() + ": " + edit[0] + " written through channels differs from the file committed, " + channels.length + " bytes and " + committed.length);
+                    failed++;
+                }
+                if (!Arrays.equals(committed, memory))
+                {
+                    System.out.println(sample.getName() + ": " + edit[0] + " written in memory differs from the file committed, " + memory.length + " bytes and " + committed.length);
+                    failed++;
+                }
+                if (edit[1] != null)
+                {
+                    String read = AudioFileIO.read(AudioSource.wrap(memory), ext).getTag().getFirst(FieldKey.valueOf(edit[1]));
+                    if (!edit[2].equals(read))
+                    {
+                        System.out.println(sample.getName() + ": " + edit[0] + " written in memory and read back as " + read);
+                        failed++;
+                    }
+                }
+                checked++;
+            }
+            catch (Exception e)
+            {
+                System.out.println(sample.getName() + ": " + edit[0] + ":" + e);
+                failed++;
+            }
+        }
+        System.out.println(sample.getName() + ": writes checked " + checked + ", failed " + failed);
+        return failed;
+    }
+
+    /**
+     * @return The copy of the sample with its tag edited and committed, or null if the tag could not be
+     *         read back
+     */
+    private byte[] commit(File sample, String ext, String key, String value) throws IOException
+    {
+        File copy = copy(sample, ext, "commit");
+        try
+        {
+            AudioFile audioFile = AudioFileIO.read(copy);
+            if (key == null)
+            {
+                AudioFileIO.delete(audioFile);
+            }
+            else
+            {
+                audioFile.getTagOrCreateAndSetDefault().setField(FieldKey.valueOf(key), value);
+                audioFile.commit();
+                if (!value.equals(AudioFileIO.read(copy).getTag().getFirst(FieldKey.valueOf(key))))
+                {
+                    return null;
+                }
+            }
+            return Files.readAllBytes(copy.toPath());
+        }
+        catch (Exception e)
+        {
+            return null;
+        }
+        finally
+        {
+            copy.delete();
+        }
+    }
+
+    /**
+     * @return The copy of the sample with its tag edited and written through the channels of the file
+     */
+    private byte[] writeChannels(File sample, String ext, String key, String value) throws Exception
+    {
+        File copy = copy(sample, ext, "channels");
+        File temp = new File(work, "channels.tmp");
+        AudioSink raf = AudioSink.open(copy);
+        AudioSink rafTemp = AudioSink.open(temp);
+        try
+        {
+            AudioFile audioFile = AudioFileIO.read(copy);
+            return AudioFileIO.write(edit(audioFile, key, value), raf, rafTemp, ext).toByteArray();
+        }
+        finally
+        {
+            raf.close();
+            rafTemp.close();
+            copy.delete();
+            temp.delete();
+        }
+    }
+
+    /**
+     * @return The sample with its tag edited and written in memory
+     */
+    private byte[] writeMemory(byte[] data, String ext, String key, String value) throws Exception
+    {
+        AudioFile audioFile = AudioFileIO.read(AudioSource.wrap(data), ext);
+        return AudioFileIO.write(edit(audioFile, key, value), AudioSink.wrap(data.clone()), AudioSink.allocate(), ext).toByteArray();
+    }
+
+    /**
+     * @return The tag of the audio edited, or an empty tag to delete it
+     */
+    private static Tag edit(AudioFile audioFile, String key, String value) throws Exception
+    {
+        if (key == null)
+        {
+            return audioFile.createDefaultTag();
+        }
+        Tag tag = audioFile.getTagOrCreateAndSetDefault();
+        tag.setField(FieldKey.valueOf(key), value);
+        return tag;
+    }
+
+    private File copy(File sample, String ext, String name) throws IOException
+    {
+        File copy = new File(work, name + "." + ext);
+        Files.copy(sample.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    /**
+     * @return Header and principal tag fields read
+     */
+    private static String describe(AudioFile audioFile)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(audioFile.getAudioHeader().getEncodingType());
+        sb.append('/').append(audioFile.getAudioHeader().getSampleRate());
+        sb.append('/').append(audioFile.getAudioHeader().getChannels());
+        sb.append('/').append(audioFile.getAudioHeader().getBitRate());
+        sb.append('/').append(audioFile.getAudioHeader().getTrackLength());
+        Tag tag = audioFile.getTag();
+        if (tag != null && !tag.isEmpty())
+        {
+            sb.append('/').append(tag.getFirst(FieldKey.ARTIST));
+            sb.append('/').append(tag.getFirst(FieldKey.TITLE));
+            sb.append('/').append(tag.getFieldCount());
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,268 @@
+/**
+ * Jaudiotagger Copyright (C)2004,2005
+ *
+ * This library is free software; you can redistribute it and/or modify it under the terms of the GNU Lesser
+ * General Public  License as published by the Free Software Foundation; either version 2.1 of the License,
+ * or (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY; without even
+ * the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License along with this library; if not,
+ * you can get a copy from http://www.opensource.org/licenses/lgpl-license.php or write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA
+ *
+ * Description:
+ */
+package org.jaudiotagger.test;
+
+import org.jaudiotagger.audio.AudioFile;
+import org.jaudiotagger.audio.AudioFileIO;
+import org.jaudiotagger.audio.generic.Utils;
+import org.jaudiotagger.tag.FieldKey;
+import org.jaudiotagger.tag.Tag;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stress test of the shared readers and writers of AudioFileIO, for one sample file of each format.
+ *
+ * For each sample, threads read the sample concurrently and compare its header and tag with those of a
+ * serial read, and tag their own copies of the sample concurrently and read them back.  A format which
+ * cannot be tagged serially is only read.  Failures are reported per format, and the exit status is one
+ * when any occurred.
+ *
+ * <pre>
+ * java org.jaudiotagger.test.TestConcurrentAudioTagger [-threads n] [-iterations n] sample.mp3 sample.flac ...
+ * </pre>
+ */
+public class TestConcurrentAudioTagger
+{
+    private static final int THREADS = 8;
+
+    private static final int ITERATIONS = 50;
+
+    private final int threads;
+
+    private final int iterations;
+
+    private final File work;
+
+    public TestConcurrentAudioTagger(int threads, int iterations, File work)
+    {
+        this.threads = threads;
+        this.iterations = iterations;
+        this.work = work;
+    }
+
+    public static void main(final String[] args) throws IOException
+    {
+        int threads = THREADS;
+        int iterations = ITERATIONS;
+        List<File> samples = new ArrayList<File>();
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-threads") && i + 1 < args.length)
+            {
+                threads = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-iterations") && i + 1 < args.length)
+            {
+                iterations = Integer.parseInt(args[++i]);
+            }
+            else
+            {
+                File sample = new File(args[i]);
+                if (!sample.isFile())
+                {
+                    System.err.println("usage TestConcurrentAudioTagger [-threads n] [-iterations n] sample...");
+                    System.err.println("      Sample " + args[i] + " could not be found");
+                    System.exit(1);
+                }
+                samples.add(sample);
+            }
+        }
+        if (samples.isEmpty())
+        {
+            System.err.println("usage TestConcurrentAudioTagger [-threads n] [-iterations n] sample...");
+            System.err.println("      You must enter a sample file of each format tested");
+            System.exit(1);
+        }
+
+        File work = Files.createTempDirectory("jaudiotagger").toFile();
+        TestConcurrentAudioTagger test = new TestConcurrentAudioTagger(threads, iterations, work);
+        int failed = 0;
+        try
+        {
+            for (File sample : samples)
+            {
+                failed += test.run(sample);
+            }
+        }
+        finally
+        {
+            for (File file : work.listFiles())
+            {
+                file.delete();
+            }
+            work.delete();
+        }
+        System.out.println("Failed:" + failed);
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    /**
+     * @param sample Sample file of one format
+     * @return Number of failed reads and writes
+     */
+    public int run(final File sample)
+    {
+        final String ext = Utils.getExtension(sample);
+        final String expected;
+        try
+        {
+            expected = describe(AudioFileIO.read(sample));
+        }
+        catch (Exception e)
+        {
+            System.out.println(ext + ": unable to read sample " + sample.getPath() + ":" + e);
+            return 1;
+        }
+        final boolean writable = isWritable(sample, ext);
+
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (int t = 0; t < threads; t++)
+            {
+                final File copy = new File(work, "t" + t + "." + ext);
+                futures.add(executor.submit(new Callable<Void>()
+                {
+                    public Void call() throws Exception
+                    {
+                        if (writable)
+                        {
+                            Files.copy(sample.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                        }
+                        for (int i = 0; i < iterations; i++)
+                        {
+                            try
+                            {
+                                String actual = describe(AudioFileIO.read(sample));
+                                if (!expected.equals(actual))
+                                {
+                                    throw new IllegalStateException("read " + actual + " expected " + expected);
+                                }
+                                reads.incrementAndGet();
+                                if (writable)
+                                {
+                                    String title = copy.getName() + " " + i;
+                                    AudioFile audioFile = AudioFileIO.read(copy);
+                                    audioFile.getTagOrCreateAndSetDefault().setField(FieldKey.TITLE, title);
+                                    audioFile.commit();
+                                    String written = AudioFileIO.read(copy).getTag().getFirst(FieldKey.TITLE);
+                                    if (!title.equals(written))
+                                    {
+                                        throw new IllegalStateException("wrote " + title + " read " + written);
+                                    }
+                                    writes.incrementAndGet();
+                                }
+                            }
+                            catch (Exception e)
+                            {
+                                failed.incrementAndGet();
+                                System.err.println(ext + ":" + copy.getName() + ":" + i + ":" + e);
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> future : futures)
+            {
+                try
+                {
+                    future.get();
+                }
+                catch (ExecutionException e)
+                {
+                    failed.incrementAndGet();
+                    System.err.println(ext + ":" + e.getCause());
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    failed.incrementAndGet();
+                    break;
+                }
+            }
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+        System.out.println(ext + ": threads " + threads + ", reads " + reads.get() + ", writes " + (writable ? String.valueOf(writes.get()) : "none (not writable)") + ", failed " + failed.get());
+        return failed.get();
+    }
+
+    /**
+     * @return Whether a copy of the sample may be tagged, serially
+     */
+    private boolean isWritable(File sample, String ext)
+    {
+        File copy = new File(work, "serial." + ext);
+        try
+        {
+            Files.copy(sample.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            AudioFile audioFile = AudioFileIO.read(copy);
+            audioFile.getTagOrCreateAndSetDefault().setField(FieldKey.TITLE, "serial");
+            audioFile.commit();
+            return "serial".equals(AudioFileIO.read(copy).getTag().getFirst(FieldKey.TITLE));
+        }
+        catch (Exception e)
+        {
+            return false;
+        }
+        finally
+        {
+            copy.delete();
+        }
+    }
+
+    /**
+     * @return Header and principal tag fields read
+     */
+    private static String describe(AudioFile audioFile)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(audioFile.getAudioHeader().getEncodingType());
+        sb.append('/').append(audioFile.getAudioHeader().getSampleRate());
+        sb.append('/').append(audioFile.getAudioHeader().getChannels());
+        sb.append('/').append(audioFile.getAudioHeader().getBitRate());
+        sb.append('/').append(audioFile.getAudioHeader().getTrackLength());
+        Tag tag = audioFile.getTag();
+        if (tag != null && !tag.isEmpty())
+        {
+            sb.append('/').append(tag.getFirst(FieldKey.ARTIST));
+            sb.append('/').append(tag.getFirst(FieldKey.TITLE));
+            sb.append('/').append(tag.getFieldCount());
+        }
+        return sb.toString();
+    }
+}